@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.replicate;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.common.replicate.ReplicateStatusModifier;
+import com.iexec.common.replicate.ReplicateStatusUpdate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Status queries of a replicate with a typical history, compared to going
+ * through the whole history on each call as it was done before the status
+ * summary. Run with the gc profiler to see allocations per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReplicateStatusBenchmark {
+
+    private static final ReplicateStatus[] HISTORY = {
+            ReplicateStatus.STARTING,
+            ReplicateStatus.STARTED,
+            ReplicateStatus.APP_DOWNLOADING,
+            ReplicateStatus.APP_DOWNLOADED,
+            ReplicateStatus.COMPUTING,
+            ReplicateStatus.COMPUTED,
+            ReplicateStatus.CONTRIBUTING,
+            ReplicateStatus.CONTRIBUTED,
+            ReplicateStatus.WORKER_LOST,
+            ReplicateStatus.RECOVERING,
+            ReplicateStatus.REVEALING,
+            ReplicateStatus.REVEALED,
+    };
+
+    private Replicate replicate;
+
+    @Setup
+    public void setUp() {
+        replicate = new Replicate("0x1", "chainTaskId");
+        for (ReplicateStatus status : HISTORY) {
+            replicate.updateStatus(status, ReplicateStatusModifier.WORKER);
+        }
+        // build the summary outside of measurements, as done on first read
+        replicate.getLastRelevantStatus();
+    }
+
+    @Benchmark
+    public Optional<ReplicateStatus> lastRelevantStatus() {
+        return replicate.getLastRelevantStatus();
+    }
+
+    @Benchmark
+    public Optional<ReplicateStatus> lastRelevantStatusFromHistory() {
+        List<ReplicateStatus> statusList = replicate.getStatusUpdateList().stream()
+                .map(ReplicateStatusUpdate::getStatus)
+                .collect(Collectors.toList());
+        List<ReplicateStatus> ignoredStatuses = Arrays.asList(
+                ReplicateStatus.WORKER_LOST,
+                ReplicateStatus.RECOVERING);
+        for (int i = statusList.size() - 1; i >= 0; i--) {
+            if (!ignoredStatuses.contains(statusList.get(i))) {
+                return Optional.of(statusList.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Benchmark
+    public boolean containsStatus() {
+        return replicate.containsStatus(ReplicateStatus.RESULT_UPLOADED);
+    }
+
+    @Benchmark
+    public boolean containsStatusFromHistory() {
+        for (ReplicateStatusUpdate statusUpdate : replicate.getStatusUpdateList()) {
+            if (statusUpdate.getStatus().equals(ReplicateStatus.RESULT_UPLOADED)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
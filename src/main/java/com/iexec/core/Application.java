@@ -16,7 +16,11 @@
 
 package com.iexec.core;
 
+import com.iexec.core.chain.BlockHeadTracker;
 import com.iexec.core.chain.DealWatcherService;
+import com.iexec.core.chain.TaskEventWatcherService;
+import com.iexec.core.changestream.ChangeStreamWatcher;
+import com.iexec.core.task.deadline.TaskDeadlineScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -26,15 +30,31 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class Application implements CommandLineRunner {
 
+    @Autowired
+    private BlockHeadTracker blockHeadTracker;
+
     @Autowired
     private DealWatcherService dealWatcherService;
 
+    @Autowired
+    private TaskEventWatcherService taskEventWatcherService;
+
+    @Autowired
+    private TaskDeadlineScheduler taskDeadlineScheduler;
+
+    @Autowired
+    private ChangeStreamWatcher changeStreamWatcher;
+
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
     }
 
     @Override
     public void run(String... args) throws Exception {
+        blockHeadTracker.run();
+        taskDeadlineScheduler.run();
+        changeStreamWatcher.run();
         dealWatcherService.run();
+        taskEventWatcherService.run();
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.archive;
+
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.event.TasksArchivedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Move completed and failed tasks, along with their replicates, out of the
+ * collections used for scheduling once their final deadline is old enough.
+ * Queries and indexes of the scheduling paths then only cover tasks which
+ * are still in progress or recently finished.
+ * <p>
+ * Replicates of a batch are archived before the tasks, so a task is only
+ * removed once nothing else is left to archive for it. A
+ * {@link TasksArchivedEvent} is published for each archived batch.
+ */
+@Slf4j
+@Service
+public class ArchiveService {
+
+    private final TaskService taskService;
+    private final ReplicatesService replicatesService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final int ageInDays;
+    private final int batchSize;
+
+    public ArchiveService(TaskService taskService,
+                          ReplicatesService replicatesService,
+                          ApplicationEventPublisher applicationEventPublisher,
+                          @Value("${archive.age-in-days}") int ageInDays,
+                          @Value("${archive.batch-size}") int batchSize) {
+        this.taskService = taskService;
+        this.replicatesService = replicatesService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.ageInDays = ageInDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${archive.period}")
+    void archiveFinalTasks() {
+        Date someDaysAgo = DateUtils.addDays(new Date(), -ageInDays);
+        long nbArchivedTasks = 0;
+        List<String> chainTaskIds;
+        do {
+            chainTaskIds = taskService.getChainTaskIdsOfFinalTasksExpiredBefore(someDaysAgo, batchSize);
+            if (chainTaskIds.isEmpty()) {
+                break;
+            }
+            replicatesService.archiveReplicatesLists(chainTaskIds);
+            long nbArchived = taskService.archiveTasks(chainTaskIds);
+            if (nbArchived == 0) {
+                // nothing removed, same tasks would be read again
+                log.error("Failed to archive tasks [nbTasks:{}]", chainTaskIds.size());
+                break;
+            }
+            nbArchivedTasks += nbArchived;
+            applicationEventPublisher.publishEvent(new TasksArchivedEvent(chainTaskIds));
+        } while (chainTaskIds.size() == batchSize);
+
+        if (nbArchivedTasks > 0) {
+            log.info("Archived final tasks [nbTasks:{}, expiredBefore:{}]", nbArchivedTasks, someDaysAgo);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.archive;
+
+import com.mongodb.BulkWriteError;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Move documents of finished tasks out of the collections used for scheduling.
+ * <p>
+ * Documents of a type are archived in a collection named after the collection
+ * of the type, with an "Archive" suffix. Documents are copied before being
+ * removed, so an interrupted move can be run again: documents already copied
+ * are skipped.
+ */
+public class MongoArchive {
+
+    private static final String ARCHIVE_SUFFIX = "Archive";
+    private static final String CHAIN_TASK_ID = "chainTaskId";
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    public static String getArchiveCollectionName(MongoTemplate mongoTemplate, Class<?> type) {
+        return mongoTemplate.getCollectionName(type) + ARCHIVE_SUFFIX;
+    }
+
+    /**
+     * Move documents of the given tasks to the archive collection of their type.
+     *
+     * @return number of documents removed from the collection of the type
+     */
+    public static <T> long moveToArchive(MongoTemplate mongoTemplate, Class<T> type, List<String> chainTaskIds) {
+        if (chainTaskIds.isEmpty()) {
+            return 0;
+        }
+        Query query = Query.query(Criteria.where(CHAIN_TASK_ID).in(chainTaskIds));
+        List<T> documents = mongoTemplate.find(query, type);
+        if (!documents.isEmpty()) {
+            String archiveCollectionName = getArchiveCollectionName(mongoTemplate, type);
+            // archives are only read by chainTaskId, this also rejects documents already copied
+            mongoTemplate.indexOps(archiveCollectionName)
+                    .ensureIndex(new Index(CHAIN_TASK_ID, Sort.Direction.ASC).unique());
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type, archiveCollectionName)
+                        .insert(documents)
+                        .execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        return mongoTemplate.remove(query, type).getDeletedCount();
+    }
+
+    public static <T> Optional<T> findArchived(MongoTemplate mongoTemplate, Class<T> type, String chainTaskId) {
+        Query query = Query.query(Criteria.where(CHAIN_TASK_ID).is(chainTaskId));
+        return Optional.ofNullable(mongoTemplate.findOne(query, type,
+                getArchiveCollectionName(mongoTemplate, type)));
+    }
+}
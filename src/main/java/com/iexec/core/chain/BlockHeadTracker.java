@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.core.chain;
+
+import io.reactivex.disposables.Disposable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+/**
+ * Latest block of the chain, shared by all components.
+ * <p>
+ * Heads are received from a new block subscription and the node is polled
+ * as a fallback whenever no head was received for a few block times. Reading the
+ * head never calls the node. Listeners can register to be called once per
+ * new block.
+ */
+@Slf4j
+@Component
+public class BlockHeadTracker {
+
+    private final Web3jService web3jService;
+    // no head received for this period means the subscription missed blocks
+    private final long pollPeriod;
+    private final AtomicReference<BlockHead> head = new AtomicReference<>(new BlockHead(0, Instant.EPOCH));
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private volatile Instant lastReceivedDate = Instant.EPOCH;
+    private Disposable newHeadsSubscription;
+
+    public BlockHeadTracker(Web3jService web3jService,
+                            @Value("${chain.block-time}") long blockTime,
+                            @Value("${chain.head.poll-after-blocks}") int pollAfterBlocks) {
+        this.web3jService = web3jService;
+        this.pollPeriod = blockTime * pollAfterBlocks;
+    }
+
+    @Async
+    public void run() {
+        newHeadsSubscription = web3jService.getWeb3j().blockFlowable(false)
+                .subscribe(ethBlock -> onNewHead(ethBlock.getBlock().getNumber().longValue(),
+                                Instant.ofEpochSecond(ethBlock.getBlock().getTimestamp().longValue())),
+                        error -> log.error("Block head subscription stopped, polling only", error));
+        log.info("Block head subscription started");
+    }
+
+    @PreDestroy
+    void stop() {
+        if (newHeadsSubscription != null) {
+            newHeadsSubscription.dispose();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${chain.block-time}")
+    public void poll() {
+        if (Instant.now().isBefore(lastReceivedDate.plusMillis(pollPeriod))) {
+            return;
+        }
+        long blockNumber = web3jService.getLatestBlockNumber();
+        if (blockNumber > 0) {
+            // block timestamp is not read when polling, the polling date is close enough
+            onNewHead(blockNumber, Instant.now());
+        }
+    }
+
+    void onNewHead(long blockNumber, Instant timestamp) {
+        lastReceivedDate = Instant.now();
+        BlockHead newHead = new BlockHead(blockNumber, timestamp);
+        BlockHead previousHead = head.getAndAccumulate(newHead,
+                (current, candidate) -> candidate.getNumber() > current.getNumber() ? candidate : current);
+        if (blockNumber <= previousHead.getNumber()) {
+            return;
+        }
+        log.debug("New block head [blockNumber:{}]", blockNumber);
+        for (LongConsumer listener : listeners) {
+            try {
+                listener.accept(blockNumber);
+            } catch (RuntimeException e) {
+                log.error("Block head listener failed [blockNumber:{}]", blockNumber, e);
+            }
+        }
+    }
+
+    /**
+     * Call a listener with the number of each new block.
+     *
+     * @param listener called from the thread receiving the block, it should be quick
+     */
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return number of the latest block, 0 while unknown
+     */
+    public long getLatestBlockNumber() {
+        return head.get().getNumber();
+    }
+
+    /**
+     * @return timestamp of the latest block
+     */
+    public Instant getLatestBlockTimestamp() {
+        return head.get().getTimestamp();
+    }
+
+    /**
+     * Check if a block is mined. The node is only asked
+     * when the block is more recent than the known head.
+     *
+     * @param blockNumber number of the block
+     * @return true if the block is available
+     */
+    public boolean isBlockAvailable(long blockNumber) {
+        return blockNumber <= getLatestBlockNumber() || web3jService.isBlockAvailable(blockNumber);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class BlockHead {
+        private final long number;
+        private final Instant timestamp;
+    }
+}
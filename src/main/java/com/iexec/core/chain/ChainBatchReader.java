@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Send many JSON-RPC reads to the node as batch requests.
+ * <p>
+ * Reads are grouped into batches of at most {@code chain.batch-size}
+ * requests, each batch being a single round-trip to the node.
+ */
+@Slf4j
+@Component
+public class ChainBatchReader {
+
+    private final Web3jService web3jService;
+    private final int batchSize;
+
+    public ChainBatchReader(Web3jService web3jService,
+                            @Value("${chain.batch-size}") int batchSize) {
+        this.web3jService = web3jService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Send requests in batches and wait for all responses.
+     *
+     * @param requests requests built with the Web3j instance of {@link Web3jService}
+     * @return responses in the order of requests, empty for requests which
+     * failed or which got an error from the node
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Response<?>> List<Optional<T>> send(List<? extends Request<?, T>> requests) {
+        List<Optional<T>> responses = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<? extends Request<?, T>> chunk = requests.subList(from, Math.min(from + batchSize, requests.size()));
+            Map<Long, Response<?>> responsesById = new HashMap<>();
+            try {
+                BatchRequest batchRequest = web3jService.getWeb3j().newBatch();
+                chunk.forEach(batchRequest::add);
+                BatchResponse batchResponse = batchRequest.send();
+                for (Response<?> response : batchResponse.getResponses()) {
+                    responsesById.put(response.getId(), response);
+                }
+            } catch (Exception e) {
+                log.error("Failed to send batch request [size:{}, error:{}]", chunk.size(), e.getMessage());
+            }
+            for (Request<?, T> request : chunk) {
+                Response<?> response = responsesById.get(request.getId());
+                if (response != null && response.hasError()) {
+                    log.warn("Batched read failed [method:{}, error:{}]",
+                            request.getMethod(), response.getError().getMessage());
+                    response = null;
+                }
+                responses.add(Optional.ofNullable((T) response));
+            }
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of on-chain reads, scoped to the latest known block.
+ * <p>
+ * The chain state can't change within a block, so a read is only sent to
+ * the node once per block. Entries are keyed with the block number they
+ * were read at and the whole cache is dropped when a new block is seen
+ * by the {@link BlockHeadTracker}.
+ * Reads are not cached as long as the latest block is unknown.
+ */
+@Slf4j
+@Component
+public class ChainReadCache {
+
+    static final String CACHE_METRIC = "iexec.core.chain.cache";
+
+    private final MeterRegistry meterRegistry;
+    // ExpiringMap is thread-safe and evicts the oldest entries once full
+    private final ExpiringMap<String, Object> entries;
+    private final AtomicLong latestBlockNumber = new AtomicLong();
+
+    public ChainReadCache(BlockHeadTracker blockHeadTracker,
+                          MeterRegistry meterRegistry,
+                          @Value("${chain.cache.size}") int size,
+                          @Value("${chain.cache.expiration}") long expiration) {
+        this.meterRegistry = meterRegistry;
+        this.entries = ExpiringMap.builder()
+                .maxSize(size)
+                .expiration(expiration, TimeUnit.MILLISECONDS)
+                .expirationPolicy(ExpirationPolicy.CREATED)
+                .build();
+        blockHeadTracker.addListener(this::onNewBlock);
+    }
+
+    void onNewBlock(long blockNumber) {
+        long previousBlockNumber = latestBlockNumber.getAndAccumulate(blockNumber, Math::max);
+        if (blockNumber > previousBlockNumber) {
+            entries.clear();
+            log.debug("Chain read cache cleared on new block [blockNumber:{}]", blockNumber);
+        }
+    }
+
+    long getLatestBlockNumber() {
+        return latestBlockNumber.get();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get a value read from the chain at the latest known block,
+     * read it from the chain if it is not cached yet.
+     *
+     * @param read        name of the read (e.g. "chainTask"), used in metrics
+     * @param key         arguments of the read
+     * @param loader      reads the value from the chain
+     * @param isCacheable false for values which should not be kept (e.g. failed reads)
+     * @return the value read at the latest known block
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String read, String key, Supplier<T> loader, Predicate<T> isCacheable) {
+        long blockNumber = latestBlockNumber.get();
+        if (blockNumber <= 0) {
+            return loader.get();
+        }
+        // a value loaded while the block changes is stored under its former
+        // block number and won't be read anymore
+        String entryKey = read + ":" + key + "@" + blockNumber;
+        Object cachedValue = entries.get(entryKey);
+        if (cachedValue != null) {
+            countRead(read, "hit");
+            return (T) cachedValue;
+        }
+        countRead(read, "miss");
+        T value = loader.get();
+        if (value != null && isCacheable.test(value)) {
+            entries.put(entryKey, value);
+        }
+        return value;
+    }
+
+    private void countRead(String read, String result) {
+        meterRegistry.counter(CACHE_METRIC, "read", read, "result", result).increment();
+    }
+}
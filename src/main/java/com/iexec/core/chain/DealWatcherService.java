@@ -31,17 +31,21 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
 @Service
 public class DealWatcherService {
 
+    // number of tasks of a deal inserted at once
+    static final int TASK_CHUNK_SIZE = 1000;
+
     private final IexecHubService iexecHubService;
     private final ConfigurationService configurationService;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final TaskService taskService;
-    private final Web3jService web3jService;
+    private final BlockHeadTracker blockHeadTracker;
     // internal variables
     private Disposable dealEventSubscriptionReplay;
 
@@ -50,12 +54,12 @@ public class DealWatcherService {
                               ConfigurationService configurationService,
                               ApplicationEventPublisher applicationEventPublisher,
                               TaskService taskService,
-                              Web3jService web3jService) {
+                              BlockHeadTracker blockHeadTracker) {
         this.iexecHubService = iexecHubService;
         this.configurationService = configurationService;
         this.applicationEventPublisher = applicationEventPublisher;
         this.taskService = taskService;
-        this.web3jService = web3jService;
+        this.blockHeadTracker = blockHeadTracker;
     }
 
     /**
@@ -95,7 +99,7 @@ public class DealWatcherService {
         if (dealBlock == null || dealBlock.equals(BigInteger.ZERO)){
             log.warn("Deal block number is empty, fetching later blockchain " +
                     "events will be more expensive [chainDealId:{}, dealBlock:{}, " +
-                    "lastBlock:{}]", dealId, dealBlock, web3jService.getLatestBlockNumber());
+                    "lastBlock:{}]", dealId, dealBlock, blockHeadTracker.getLatestBlockNumber());
             dealEvent.setBlockNumber(BigInteger.ZERO);
         }
         this.handleDeal(dealEvent);
@@ -126,10 +130,12 @@ public class DealWatcherService {
         }
         int startBag = chainDeal.getBotFirst().intValue();
         int endBag = chainDeal.getBotFirst().intValue() + chainDeal.getBotSize().intValue();
-        for (int taskIndex = startBag; taskIndex < endBag; taskIndex++) {
-            Optional<Task> optional = taskService.addTask(
+        // tasks of a chunk are being initialized while next chunks are inserted
+        for (int firstTaskIndex = startBag; firstTaskIndex < endBag; firstTaskIndex += TASK_CHUNK_SIZE) {
+            List<Task> tasks = taskService.addTasks(
                     chainDealId,
-                    taskIndex,
+                    firstTaskIndex,
+                    Math.min(TASK_CHUNK_SIZE, endBag - firstTaskIndex),
                     dealEvent.getBlockNumber().longValue(),
                     BytesUtils.hexStringToAscii(chainDeal.getChainApp().getUri()),
                     chainDeal.getParams().getIexecArgs(),
@@ -138,8 +144,10 @@ public class DealWatcherService {
                     chainDeal.getTag(),
                     iexecHubService.getChainDealContributionDeadline(chainDeal),
                     iexecHubService.getChainDealFinalDeadline(chainDeal));
-            optional.ifPresent(task -> applicationEventPublisher
-                    .publishEvent(new TaskCreatedEvent(task.getChainTaskId())));
+            // updates refused by full task update lanes are done later by UnstartedTxDetector
+            for (Task task : tasks) {
+                applicationEventPublisher.publishEvent(new TaskCreatedEvent(task.getChainTaskId()));
+            }
         }
     }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.core.chain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+
+import javax.annotation.PreDestroy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory "enough gas" state of wallets asking for transactions.
+ * <p>
+ * A wallet is read from the chain the first time it is asked for, then it is
+ * refreshed on each new block along with all other wallets asked for recently.
+ * Wallets which have not been asked for during the expiration period are not
+ * refreshed anymore. Wallets low on gas are exposed as metrics.
+ * <p>
+ * All balances of a refresh are read with batched JSON-RPC requests.
+ */
+@Slf4j
+@Component
+public class GasBalanceTracker {
+
+    static final String LOW_BALANCE_METRIC = "iexec.core.wallet.low.balance";
+    // a wallet has enough gas when it can pay this much gas at the current gas price
+    static final BigInteger MIN_GAS = BigInteger.valueOf(500000);
+
+    private final Web3jService web3jService;
+    private final ChainBatchReader chainBatchReader;
+    private final String schedulerWalletAddress;
+    private final long expiration;
+    private final Map<String, GasBalance> balances = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+    private final AtomicBoolean isRefreshing = new AtomicBoolean();
+
+    public GasBalanceTracker(Web3jService web3jService,
+                             ChainBatchReader chainBatchReader,
+                             BlockHeadTracker blockHeadTracker,
+                             CredentialsService credentialsService,
+                             MeterRegistry meterRegistry,
+                             @Value("${chain.gas.expiration}") long expiration) {
+        this.web3jService = web3jService;
+        this.chainBatchReader = chainBatchReader;
+        this.schedulerWalletAddress = credentialsService.getCredentials().getAddress();
+        this.expiration = expiration;
+        this.refreshExecutor = Executors.newSingleThreadExecutor();
+        Gauge.builder(LOW_BALANCE_METRIC, this, tracker -> tracker.countLowBalances(false))
+                .description("Workers without enough gas")
+                .tag("wallet", "workers")
+                .register(meterRegistry);
+        Gauge.builder(LOW_BALANCE_METRIC, this, tracker -> tracker.countLowBalances(true))
+                .description("1 if the scheduler does not have enough gas")
+                .tag("wallet", "scheduler")
+                .register(meterRegistry);
+        blockHeadTracker.addListener(blockNumber -> refreshAsync());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public boolean hasEnoughGas(String walletAddress) {
+        GasBalance balance = balances.computeIfAbsent(walletAddress, wallet ->
+                new GasBalance(readHasEnoughGas(List.of(wallet)).getOrDefault(wallet, false)));
+        balance.lastAskedTime = System.currentTimeMillis();
+        return balance.hasEnoughGas;
+    }
+
+    boolean isTracked(String walletAddress) {
+        return balances.containsKey(walletAddress);
+    }
+
+    /*
+     * Listeners are called on the block subscription thread, reads are
+     * sent from the executor. A block is skipped if the previous refresh
+     * is not over yet.
+     */
+    private void refreshAsync() {
+        if (!isRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refresh().whenComplete((result, error) -> isRefreshing.set(false));
+    }
+
+    CompletableFuture<Void> refresh() {
+        long expirationTime = System.currentTimeMillis() - expiration;
+        balances.entrySet().removeIf(entry -> !entry.getKey().equals(schedulerWalletAddress)
+                && entry.getValue().lastAskedTime < expirationTime);
+        return CompletableFuture.runAsync(this::refreshBalances, refreshExecutor);
+    }
+
+    private void refreshBalances() {
+        // a balance which could not be read keeps its previous state
+        readHasEnoughGas(new ArrayList<>(balances.keySet())).forEach((walletAddress, hasEnoughGas) -> {
+            GasBalance balance = balances.get(walletAddress);
+            if (balance == null) {
+                return;
+            }
+            if (balance.hasEnoughGas && !hasEnoughGas) {
+                log.warn("Wallet is running out of gas [walletAddress:{}, isScheduler:{}]",
+                        walletAddress, walletAddress.equals(schedulerWalletAddress));
+            }
+            balance.hasEnoughGas = hasEnoughGas;
+        });
+    }
+
+    /**
+     * Read balances of wallets with batched requests.
+     *
+     * @return true for each wallet having enough gas, wallets which
+     * could not be read are missing
+     */
+    private Map<String, Boolean> readHasEnoughGas(List<String> walletAddresses) {
+        Map<String, Boolean> hasEnoughGas = new HashMap<>();
+        if (walletAddresses.isEmpty()) {
+            return hasEnoughGas;
+        }
+        BigInteger minBalance = web3jService.getUserGasPrice().multiply(MIN_GAS);
+        List<Request<?, EthGetBalance>> requests = walletAddresses.stream()
+                .map(walletAddress -> web3jService.getWeb3j()
+                        .ethGetBalance(walletAddress, DefaultBlockParameterName.LATEST))
+                .collect(Collectors.toList());
+        List<Optional<EthGetBalance>> responses = chainBatchReader.send(requests);
+        for (int i = 0; i < walletAddresses.size(); i++) {
+            String walletAddress = walletAddresses.get(i);
+            Optional<EthGetBalance> response = responses.get(i);
+            if (!response.isPresent()) {
+                log.error("Failed to read balance [walletAddress:{}]", walletAddress);
+                continue;
+            }
+            hasEnoughGas.put(walletAddress, response.get().getBalance().compareTo(minBalance) >= 0);
+        }
+        return hasEnoughGas;
+    }
+
+    private double countLowBalances(boolean isScheduler) {
+        return balances.entrySet().stream()
+                .filter(entry -> entry.getKey().equals(schedulerWalletAddress) == isScheduler)
+                .filter(entry -> !entry.getValue().hasEnoughGas)
+                .count();
+    }
+
+    private static class GasBalance {
+        private volatile boolean hasEnoughGas;
+        private volatile long lastAskedTime;
+
+        private GasBalance(boolean hasEnoughGas) {
+            this.hasEnoughGas = hasEnoughGas;
+        }
+    }
+}
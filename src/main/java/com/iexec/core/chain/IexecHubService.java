@@ -24,21 +24,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.Utils;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.RemoteCall;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.BaseEventResponse;
+import org.web3j.protocol.core.methods.response.EthCall;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
 
 import static com.iexec.common.chain.ChainTaskStatus.ACTIVE;
 import static com.iexec.common.chain.ChainTaskStatus.COMPLETED;
@@ -49,25 +60,140 @@ import static com.iexec.common.utils.DateTimeUtils.now;
 @Service
 public class IexecHubService extends IexecHubAbstractService {
 
+    // contribution status is the first value returned by viewContributionABILegacy(..)
+    private static final String VIEW_CONTRIBUTION_FUNCTION = "viewContributionABILegacy";
+    private static final List<TypeReference<?>> CONTRIBUTION_STATUS_OUTPUT =
+            Collections.singletonList(new TypeReference<Uint256>() {});
+
     private final ThreadPoolExecutor executor;
     private final CredentialsService credentialsService;
     private final Web3jService web3jService;
+    private final ChainReadCache chainReadCache;
+    private final ChainBatchReader chainBatchReader;
+    private final GasBalanceTracker gasBalanceTracker;
+    private final String hubAddress;
     private final String poolAddress;
 
     @Autowired
     public IexecHubService(CredentialsService credentialsService,
                            Web3jService web3jService,
+                           ChainReadCache chainReadCache,
+                           ChainBatchReader chainBatchReader,
+                           GasBalanceTracker gasBalanceTracker,
                            ChainConfig chainConfig) {
         super(credentialsService.getCredentials(), web3jService, chainConfig.getHubAddress());
         this.credentialsService = credentialsService;
         this.web3jService = web3jService;
+        this.chainReadCache = chainReadCache;
+        this.chainBatchReader = chainBatchReader;
+        this.gasBalanceTracker = gasBalanceTracker;
         this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        this.hubAddress = chainConfig.getHubAddress();
         this.poolAddress = chainConfig.getPoolAddress();
         if (!hasEnoughGas()) {
             System.exit(0);
         }
     }
 
+    /*
+     * Reads below go through the block-scoped cache. Failed reads
+     * (empty or zero) are not cached so they are retried on next call.
+     * isStatusTrueOnChain(..) and the repeat*(..) checks rely on
+     * getChainContribution(..) and benefit from the cache as well.
+     */
+
+    @Override
+    public Optional<ChainTask> getChainTask(String chainTaskId) {
+        return chainReadCache.get("chainTask", chainTaskId,
+                () -> super.getChainTask(chainTaskId), Optional::isPresent);
+    }
+
+    @Override
+    public Optional<ChainDeal> getChainDeal(String chainDealId) {
+        return chainReadCache.get("chainDeal", chainDealId,
+                () -> super.getChainDeal(chainDealId), Optional::isPresent);
+    }
+
+    @Override
+    public Optional<ChainContribution> getChainContribution(String chainTaskId, String workerAddress) {
+        return chainReadCache.get("chainContribution", chainTaskId + ":" + workerAddress,
+                () -> super.getChainContribution(chainTaskId, workerAddress), Optional::isPresent);
+    }
+
+    @Override
+    public int getWorkerWeight(String address) {
+        return chainReadCache.get("workerWeight", address,
+                () -> super.getWorkerWeight(address), workerWeight -> workerWeight > 0);
+    }
+
+    /**
+     * Check the on-chain contribution status of many replicates at once.
+     * Contributions are read with batched eth_call requests, so a whole
+     * detector sweep costs a few round-trips to the node instead of one
+     * per replicate. A contribution which could not be read is reported
+     * as not having the wished status.
+     *
+     * @param chainTaskIdAndWallets pairs of chainTaskId and worker wallet
+     * @param wishedStatus          contribution status to check
+     * @return true for each pair having the wished status on-chain
+     */
+    public Map<Pair<String, String>, Boolean> areStatusesTrueOnChain(
+            Collection<Pair<String, String>> chainTaskIdAndWallets,
+            ChainContributionStatus wishedStatus) {
+        List<Pair<String, String>> pairs = new ArrayList<>(new LinkedHashSet<>(chainTaskIdAndWallets));
+        List<Request<?, EthCall>> requests = pairs.stream()
+                .map(pair -> buildViewContributionCall(pair.getLeft(), pair.getRight()))
+                .collect(Collectors.toList());
+        List<Optional<EthCall>> responses = chainBatchReader.send(requests);
+        Map<Pair<String, String>, Boolean> statuses = new HashMap<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            Pair<String, String> pair = pairs.get(i);
+            Optional<ChainContributionStatus> status = responses.get(i)
+                    .flatMap(IexecHubService::decodeContributionStatus);
+            if (!status.isPresent()) {
+                log.error("Failed to read on-chain status [chainTaskId:{}, walletAddress:{}]",
+                        pair.getLeft(), pair.getRight());
+            }
+            statuses.put(pair, status.map(chainStatus -> hasReached(chainStatus, wishedStatus))
+                    .orElse(false));
+        }
+        return statuses;
+    }
+
+    private Request<?, EthCall> buildViewContributionCall(String chainTaskId, String walletAddress) {
+        Function function = new Function(VIEW_CONTRIBUTION_FUNCTION,
+                List.of(new Bytes32(stringToBytes(chainTaskId)), new Address(walletAddress)),
+                CONTRIBUTION_STATUS_OUTPUT);
+        Transaction call = Transaction.createEthCallTransaction(
+                credentialsService.getCredentials().getAddress(), hubAddress, FunctionEncoder.encode(function));
+        return web3jService.getWeb3j().ethCall(call, DefaultBlockParameterName.LATEST);
+    }
+
+    private static Optional<ChainContributionStatus> decodeContributionStatus(EthCall ethCall) {
+        List<Type> values = FunctionReturnDecoder.decode(ethCall.getValue(),
+                Utils.convert(CONTRIBUTION_STATUS_OUTPUT));
+        if (values.isEmpty()) {
+            return Optional.empty();
+        }
+        int status = ((Uint256) values.get(0)).getValue().intValue();
+        ChainContributionStatus[] chainStatuses = ChainContributionStatus.values();
+        return status >= 0 && status < chainStatuses.length
+                ? Optional.of(chainStatuses[status])
+                : Optional.empty();
+    }
+
+    /*
+     * Same rule as isStatusTrueOnChain(..): a revealed contribution
+     * is also contributed.
+     */
+    private static boolean hasReached(ChainContributionStatus chainStatus, ChainContributionStatus wishedStatus) {
+        if (wishedStatus == ChainContributionStatus.CONTRIBUTED) {
+            return chainStatus == ChainContributionStatus.CONTRIBUTED
+                    || chainStatus == ChainContributionStatus.REVEALED;
+        }
+        return chainStatus == wishedStatus;
+    }
+
     /**
      * Check if a deal's task can be initialized.
      * An initializable task should have the status
@@ -385,8 +511,23 @@ public class IexecHubService extends IexecHubAbstractService {
         });
     }
 
+    /**
+     * Merge contribute, reveal, finalize and reopen events of all
+     * tasks, from a given block to the latest block.
+     */
+    Flowable<TaskEvent> getTaskEventObservableToLatest(BigInteger from) {
+        DefaultBlockParameter fromBlock = DefaultBlockParameter.valueOf(from);
+        DefaultBlockParameter toBlock = DefaultBlockParameterName.LATEST;
+        IexecHubContract hubContract = getHubContract();
+        return Flowable.merge(
+                hubContract.taskContributeEventFlowable(fromBlock, toBlock).map(TaskEvent::new),
+                hubContract.taskRevealEventFlowable(fromBlock, toBlock).map(TaskEvent::new),
+                hubContract.taskFinalizeEventFlowable(fromBlock, toBlock).map(TaskEvent::new),
+                hubContract.taskReopenEventFlowable(fromBlock, toBlock).map(TaskEvent::new));
+    }
+
     public boolean hasEnoughGas() {
-        return hasEnoughGas(credentialsService.getCredentials().getAddress());
+        return gasBalanceTracker.hasEnoughGas(credentialsService.getCredentials().getAddress());
     }
 
     private Boolean isTaskStatusValidOnChain(String chainTaskId, ChainStatus chainTaskStatus) {
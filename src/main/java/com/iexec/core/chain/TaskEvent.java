@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import com.iexec.common.contract.generated.IexecHubContract;
+import com.iexec.common.utils.BytesUtils;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.math.BigInteger;
+
+/**
+ * On-chain event of a task: a worker contributed or revealed,
+ * or the task has been finalized or reopened.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskEvent {
+
+    public enum Type {
+        CONTRIBUTE,
+        REVEAL,
+        FINALIZE,
+        REOPEN
+    }
+
+    private Type type;
+    private String chainTaskId;
+    // only set for contribute and reveal events
+    private String walletAddress;
+    private BigInteger blockNumber;
+
+    TaskEvent(IexecHubContract.TaskContributeEventResponse contributeEvent) {
+        this(Type.CONTRIBUTE, BytesUtils.bytesToString(contributeEvent.taskid),
+                contributeEvent.worker, getBlockNumber(contributeEvent.log));
+    }
+
+    TaskEvent(IexecHubContract.TaskRevealEventResponse revealEvent) {
+        this(Type.REVEAL, BytesUtils.bytesToString(revealEvent.taskid),
+                revealEvent.worker, getBlockNumber(revealEvent.log));
+    }
+
+    TaskEvent(IexecHubContract.TaskFinalizeEventResponse finalizeEvent) {
+        this(Type.FINALIZE, BytesUtils.bytesToString(finalizeEvent.taskid),
+                null, getBlockNumber(finalizeEvent.log));
+    }
+
+    TaskEvent(IexecHubContract.TaskReopenEventResponse reopenEvent) {
+        this(Type.REOPEN, BytesUtils.bytesToString(reopenEvent.taskid),
+                null, getBlockNumber(reopenEvent.log));
+    }
+
+    private static BigInteger getBlockNumber(Log log) {
+        return log != null && log.getBlockNumber() != null ? log.getBlockNumber() : BigInteger.ZERO;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.common.replicate.ReplicateStatusDetails;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskSummary;
+import com.iexec.core.task.event.TaskCreatedEvent;
+import io.reactivex.disposables.Disposable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.iexec.common.replicate.ReplicateStatus.*;
+
+/**
+ * Follow contribute, reveal, finalize and reopen events of our tasks
+ * to update replicates and tasks about one block after they happen,
+ * without waiting for workers to notify or for the next detector run.
+ * <p>
+ * Events of tasks which are not known as non-final tasks of this workerpool
+ * are dropped before reading anything from the database. The subscription
+ * is restarted from the last processed block if it stops on error.
+ * Detectors are kept as a safety net for missed events.
+ */
+@Slf4j
+@Service
+public class TaskEventWatcherService {
+
+    private final IexecHubService iexecHubService;
+    private final Web3jService web3jService;
+    private final TaskService taskService;
+    private final ReplicatesService replicatesService;
+    // internal variables
+    private volatile Disposable taskEventSubscription;
+    private final AtomicLong lastProcessedBlock = new AtomicLong();
+    // non-final tasks of this workerpool (owned by this instance)
+    private final Set<String> watchedChainTaskIds = ConcurrentHashMap.newKeySet();
+
+    public TaskEventWatcherService(IexecHubService iexecHubService,
+                                   Web3jService web3jService,
+                                   TaskService taskService,
+                                   ReplicatesService replicatesService) {
+        this.iexecHubService = iexecHubService;
+        this.web3jService = web3jService;
+        this.taskService = taskService;
+        this.replicatesService = replicatesService;
+    }
+
+    /**
+     * Older events are left to detectors, watching starts from the latest block.
+     */
+    @Async
+    public void run() {
+        refreshWatchedTasks();
+        subscribeToTaskEventFromOneBlockToLatest(web3jService.getLatestBlockNumber());
+    }
+
+    private synchronized void subscribeToTaskEventFromOneBlockToLatest(long from) {
+        lastProcessedBlock.accumulateAndGet(from, Math::max);
+        log.info("Watcher TaskEvent started [from:{}, to:{}]", from, "latest");
+        taskEventSubscription = iexecHubService.getTaskEventObservableToLatest(BigInteger.valueOf(from))
+                .subscribe(this::onTaskEvent,
+                        error -> log.error("Watcher TaskEvent stopped [lastProcessedBlock:{}]",
+                                lastProcessedBlock.get(), error));
+    }
+
+    /*
+     * Events of the last processed block are received again after a
+     * restart, updates below ignore replicates and tasks already updated.
+     */
+    @Scheduled(fixedDelayString = "${chain.task-event.refresh-period}")
+    void resubscribeIfStopped() {
+        if (taskEventSubscription == null || !taskEventSubscription.isDisposed()) {
+            return;
+        }
+        log.warn("Restarting Watcher TaskEvent [from:{}]", lastProcessedBlock.get());
+        subscribeToTaskEventFromOneBlockToLatest(lastProcessedBlock.get());
+    }
+
+    /*
+     * The set is updated in place, tasks created while the query runs are
+     * kept. Only tasks watched before the query and not returned by it are
+     * removed.
+     */
+    @Scheduled(fixedDelayString = "${chain.task-event.refresh-period}")
+    synchronized void refreshWatchedTasks() {
+        Set<String> previousChainTaskIds = new HashSet<>(watchedChainTaskIds);
+        Set<String> nonFinalChainTaskIds = taskService.getTaskSummariesInNonFinalStatuses().stream()
+                .map(TaskSummary::getChainTaskId)
+                .collect(Collectors.toSet());
+        watchedChainTaskIds.addAll(nonFinalChainTaskIds);
+        previousChainTaskIds.removeAll(nonFinalChainTaskIds);
+        watchedChainTaskIds.removeAll(previousChainTaskIds);
+    }
+
+    @EventListener
+    public void onTaskCreated(TaskCreatedEvent event) {
+        watchedChainTaskIds.add(event.getChainTaskId());
+    }
+
+    boolean isWatched(String chainTaskId) {
+        return watchedChainTaskIds.contains(chainTaskId);
+    }
+
+    void onTaskEvent(TaskEvent taskEvent) {
+        if (taskEvent.getBlockNumber() != null) {
+            lastProcessedBlock.accumulateAndGet(taskEvent.getBlockNumber().longValue(), Math::max);
+        }
+        // filters out tasks of other workerpools without reading the database
+        if (!watchedChainTaskIds.contains(taskEvent.getChainTaskId())) {
+            return;
+        }
+        switch (taskEvent.getType()) {
+            case CONTRIBUTE:
+                onReplicateEvent(taskEvent, CONTRIBUTING, CONTRIBUTED);
+                break;
+            case REVEAL:
+                onReplicateEvent(taskEvent, REVEALING, REVEALED);
+                break;
+            case FINALIZE:
+            case REOPEN:
+                onTaskStatusEvent(taskEvent);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Only replicates waiting for this very event are updated here, other
+     * cases (e.g. missing intermediate statuses) are left to detectors.
+     */
+    private void onReplicateEvent(TaskEvent taskEvent,
+                                  ReplicateStatus offchainCompleting,
+                                  ReplicateStatus offchainCompleted) {
+        String chainTaskId = taskEvent.getChainTaskId();
+        String walletAddress = taskEvent.getWalletAddress();
+        // also filters out workers which did not get a replicate from us
+        Optional<Replicate> oReplicate = replicatesService.getReplicate(chainTaskId, walletAddress);
+        if (oReplicate.isEmpty()) {
+            return;
+        }
+        Optional<ReplicateStatus> lastRelevantStatus = oReplicate.get().getLastRelevantStatus();
+        if (lastRelevantStatus.isEmpty() || !lastRelevantStatus.get().equals(offchainCompleting)) {
+            return;
+        }
+        log.info("Received on-chain replicate update [is:{}, should:{}, chainTaskId:{}, walletAddress:{}, block:{}]",
+                lastRelevantStatus.get(), offchainCompleted, chainTaskId, walletAddress, taskEvent.getBlockNumber());
+        replicatesService.updateReplicateStatus(chainTaskId, walletAddress, offchainCompleted,
+                new ReplicateStatusDetails(taskEvent.getBlockNumber().longValue()));
+    }
+
+    private void onTaskStatusEvent(TaskEvent taskEvent) {
+        String chainTaskId = taskEvent.getChainTaskId();
+        log.info("Received on-chain task update [event:{}, chainTaskId:{}, block:{}]",
+                taskEvent.getType(), chainTaskId, taskEvent.getBlockNumber());
+        taskService.updateTask(chainTaskId);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.chain.adapter;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.iexec.core.chain.adapter.BlockchainAdapterService.MAX_ATTEMPTS;
+import static com.iexec.core.chain.adapter.BlockchainAdapterService.WATCH_PERIOD_SECONDS;
+
+/**
+ * Watch initialize and finalize commands sent to the blockchain adapter
+ * until they are completed on-chain.
+ * <p>
+ * Statuses of all pending commands are checked together on each period,
+ * so no task update thread waits for a transaction to be mined. A
+ * {@link CommandCompletedEvent} is published when a command is completed,
+ * the task is then updated again to go on with its workflow.
+ * <p>
+ * Watched commands are only kept in memory, commands of tasks still
+ * initializing or finalizing are watched again by
+ * {@link com.iexec.core.detector.task.PendingCommandTaskDetector}
+ * (e.g. after a restart or after too many attempts).
+ */
+@Slf4j
+@Component
+public class BlockchainAdapterCommandTracker {
+
+    public enum Command {
+        INITIALIZE,
+        FINALIZE
+    }
+
+    private final BlockchainAdapterService blockchainAdapterService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final Map<String, PendingCommand> pendingCommands = new ConcurrentHashMap<>();
+
+    public BlockchainAdapterCommandTracker(BlockchainAdapterService blockchainAdapterService,
+                                           ApplicationEventPublisher applicationEventPublisher) {
+        this.blockchainAdapterService = blockchainAdapterService;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * Watch a command until it is completed on-chain. A command
+     * which is already watched is not watched twice.
+     */
+    public void watch(String chainTaskId, Command command) {
+        PendingCommand previous = pendingCommands.putIfAbsent(getKey(chainTaskId, command),
+                new PendingCommand(chainTaskId, command));
+        if (previous == null) {
+            log.info("Waiting command completion [chainTaskId:{}, command:{}]", chainTaskId, command);
+        }
+    }
+
+    boolean isWatched(String chainTaskId, Command command) {
+        return pendingCommands.containsKey(getKey(chainTaskId, command));
+    }
+
+    @Scheduled(fixedDelay = WATCH_PERIOD_SECONDS * 1000L)
+    void checkPendingCommands() {
+        for (Map.Entry<String, PendingCommand> entry : pendingCommands.entrySet()) {
+            PendingCommand pendingCommand = entry.getValue();
+            String chainTaskId = pendingCommand.getChainTaskId();
+            Command command = pendingCommand.getCommand();
+
+            Optional<Boolean> isSuccess = isCommandCompleted(pendingCommand);
+            if (isSuccess.isPresent()) {
+                pendingCommands.remove(entry.getKey());
+                log.info("Command completed [chainTaskId:{}, command:{}, success:{}]",
+                        chainTaskId, command, isSuccess.get());
+                applicationEventPublisher.publishEvent(
+                        new CommandCompletedEvent(chainTaskId, command, isSuccess.get()));
+                continue;
+            }
+            if (pendingCommand.incrementAttempts() >= MAX_ATTEMPTS) {
+                // watched again by PendingCommandTaskDetector
+                pendingCommands.remove(entry.getKey());
+                log.error("Reached max retry while waiting command completion " +
+                        "[chainTaskId:{}, command:{}, maxAttempts:{}]", chainTaskId, command, MAX_ATTEMPTS);
+            }
+        }
+    }
+
+    private Optional<Boolean> isCommandCompleted(PendingCommand pendingCommand) {
+        return pendingCommand.getCommand() == Command.INITIALIZE
+                ? blockchainAdapterService.isInitialized(pendingCommand.getChainTaskId())
+                : blockchainAdapterService.isFinalized(pendingCommand.getChainTaskId());
+    }
+
+    private static String getKey(String chainTaskId, Command command) {
+        return chainTaskId + ":" + command;
+    }
+
+    @Getter
+    private static class PendingCommand {
+        private final String chainTaskId;
+        private final Command command;
+        // only updated by the scheduler thread
+        private int attempts;
+
+        PendingCommand(String chainTaskId, Command command) {
+            this.chainTaskId = chainTaskId;
+            this.command = command;
+        }
+
+        int incrementAttempts() {
+            return ++attempts;
+        }
+    }
+}
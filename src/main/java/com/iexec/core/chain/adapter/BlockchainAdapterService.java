@@ -26,8 +26,6 @@ import org.springframework.stereotype.Service;
 import java.util.Optional;
 import java.util.function.Function;
 
-import static java.util.concurrent.TimeUnit.SECONDS;
-
 @Slf4j
 @Service
 public class BlockchainAdapterService {
@@ -67,14 +65,15 @@ public class BlockchainAdapterService {
 
     /**
      * Verify if the initialize task command is completed on-chain.
+     * This does not wait for the command completion.
      *
      * @param chainTaskId ID of the task
      * @return true if the tx is mined, false if reverted or empty for other
-     * cases (too long since still RECEIVED or PROCESSING, adapter error)
+     * cases (still RECEIVED or PROCESSING, adapter error)
      */
     public Optional<Boolean> isInitialized(String chainTaskId) {
         return isCommandCompleted(blockchainAdapterClient::getStatusForInitializeTaskRequest,
-                chainTaskId, SECONDS.toMillis(WATCH_PERIOD_SECONDS), MAX_ATTEMPTS, 0);
+                chainTaskId);
     }
 
     /**
@@ -107,40 +106,32 @@ public class BlockchainAdapterService {
 
     /**
      * Verify if the finalize task command is completed on-chain.
+     * This does not wait for the command completion.
      *
      * @param chainTaskId ID of the task
      * @return true if the tx is mined, false if reverted or empty for other
-     * cases (too long since still RECEIVED or PROCESSING, adapter error)
+     * cases (still RECEIVED or PROCESSING, adapter error)
      */
     public Optional<Boolean> isFinalized(String chainTaskId) {
         return isCommandCompleted(blockchainAdapterClient::getStatusForFinalizeTaskRequest,
-                chainTaskId, SECONDS.toMillis(WATCH_PERIOD_SECONDS), MAX_ATTEMPTS, 0);
+                chainTaskId);
     }
 
     /**
      * Verify if a command sent to the adapter is completed on-chain.
+     * Pending commands are watched by {@link BlockchainAdapterCommandTracker}.
      *
      * @param getCommandStatusFunction method for checking the command is completed
      * @param chainTaskId              ID of the task
-     * @param period                   period in ms between checks
-     * @param maxAttempts              maximum number of attempts for checking
-     * @param attempt                  current attempt number
      * @return true if the tx is mined, false if reverted or empty for other
-     * cases (too long since still RECEIVED or PROCESSING, adapter error)
+     * cases (still RECEIVED or PROCESSING, adapter error)
      */
     Optional<Boolean> isCommandCompleted(
             Function<String, ResponseEntity<CommandStatus>> getCommandStatusFunction,
-            String chainTaskId,
-            long period, int maxAttempts, int attempt) {
-        if (attempt >= maxAttempts) {
-            log.error("Reached max retry while waiting command completion " +
-                            "[chainTaskId:{}, maxAttempts:{}]",
-                    chainTaskId, maxAttempts);
-            return Optional.empty();
-        }
-        ResponseEntity<CommandStatus> commandStatusEntity;
+            String chainTaskId) {
         try {
-            commandStatusEntity = getCommandStatusFunction.apply(chainTaskId);
+            ResponseEntity<CommandStatus> commandStatusEntity =
+                    getCommandStatusFunction.apply(chainTaskId);
             if (!commandStatusEntity.getStatusCode().is2xxSuccessful()
                     || commandStatusEntity.getBody() == null) {
                 return Optional.empty();
@@ -151,16 +142,11 @@ public class BlockchainAdapterService {
                 return Optional.of(status.equals(CommandStatus.SUCCESS));
             }
             // RECEIVED, PROCESSING
-            log.warn("Waiting command completion [chainTaskId:{}, " +
-                            "status:{}, period:{}ms, attempt:{}, maxAttempts:{}]",
-                    chainTaskId, status, period, attempt, maxAttempts);
-            Thread.sleep(period);
-            return isCommandCompleted(getCommandStatusFunction, chainTaskId,
-                    period, maxAttempts, attempt + 1);
+            log.debug("Command not completed yet [chainTaskId:{}, status:{}]",
+                    chainTaskId, status);
         } catch (Throwable e) {
-            log.error("Unexpected error while waiting command completion " +
-                            "[chainTaskId:{}, period:{}ms, attempt:{}, maxAttempts:{}]",
-                    chainTaskId, period, attempt, maxAttempts, e);
+            log.error("Unexpected error while checking command completion " +
+                    "[chainTaskId:{}]", chainTaskId, e);
         }
         return Optional.empty();
     }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.chain.adapter;
+
+import lombok.*;
+
+/**
+ * Published when an initialize or finalize command sent to the
+ * blockchain adapter is completed on-chain.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class CommandCompletedEvent {
+
+    private String chainTaskId;
+    private BlockchainAdapterCommandTracker.Command command;
+    private boolean success;
+}
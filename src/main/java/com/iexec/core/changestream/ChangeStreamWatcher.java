@@ -0,0 +1,283 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.changestream;
+
+import com.iexec.core.cluster.TaskOwnershipService;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.task.Task;
+import com.iexec.core.worker.Worker;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keep in-memory caches in line with what is written to the database.
+ * <p>
+ * Changes of the task, replicates and worker collections are read from Mongo
+ * change streams, whoever made them (this instance, another instance or an
+ * operator). Changes are coalesced by document and published on a regular
+ * basis as {@link TaskDocumentChangedEvent}, {@link ReplicatesDocumentChangedEvent}
+ * and {@link WorkerDocumentChangedEvent} holding the stored document, so
+ * listeners can update their state without reading the database again.
+ * <p>
+ * The resume token of the last published change of each collection is saved
+ * for this instance so streams resume where they stopped after a restart or a
+ * lost connection. A fixed cluster instance ID is needed to resume after a
+ * restart. Change streams need Mongo to run as a replica set.
+ */
+@Slf4j
+@Component
+public class ChangeStreamWatcher {
+
+    // the resume token is not usable anymore, the stream starts over
+    private static final Set<Integer> HISTORY_LOST_ERROR_CODES = Set.of(136, 280, 286);
+
+    private final MongoTemplate mongoTemplate;
+    private final ResumeTokenRepository resumeTokenRepository;
+    private final String instanceId;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final boolean isEnabled;
+    private final long retryDelay;
+    private final Map<String, WatchedCollection<?>> watchedCollections = new LinkedHashMap<>();
+    private volatile boolean isRunning;
+
+    public ChangeStreamWatcher(MongoTemplate mongoTemplate,
+                               ResumeTokenRepository resumeTokenRepository,
+                               TaskOwnershipService taskOwnershipService,
+                               ApplicationEventPublisher applicationEventPublisher,
+                               @Value("${change-stream.enabled}") boolean isEnabled,
+                               @Value("${change-stream.retry-delay}") long retryDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.resumeTokenRepository = resumeTokenRepository;
+        this.instanceId = taskOwnershipService.getInstanceId();
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.isEnabled = isEnabled;
+        this.retryDelay = retryDelay;
+        watch(Task.class, TaskDocumentChangedEvent::new);
+        watch(ReplicatesList.class, ReplicatesDocumentChangedEvent::new);
+        watch(Worker.class, WorkerDocumentChangedEvent::new);
+    }
+
+    private <T> void watch(Class<T> type, Function<T, Object> eventFactory) {
+        String collectionName = mongoTemplate.getCollectionName(type);
+        watchedCollections.put(collectionName, new WatchedCollection<>(collectionName, type, eventFactory));
+    }
+
+    /**
+     * Start watching collections from their saved resume tokens.
+     */
+    public void run() {
+        if (!isEnabled) {
+            return;
+        }
+        Map<String, String> resumeTokens = resumeTokenRepository.findByInstanceId(instanceId).stream()
+                .collect(Collectors.toMap(ResumeToken::getCollectionName, ResumeToken::getToken));
+        isRunning = true;
+        for (WatchedCollection<?> collection : watchedCollections.values()) {
+            collection.resumeFrom(resumeTokens.get(collection.getName()));
+            Thread thread = new Thread(() -> watch(collection), "change-stream-" + collection.getName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        isRunning = false;
+    }
+
+    private void watch(WatchedCollection<?> collection) {
+        while (isRunning) {
+            try (MongoCursor<ChangeStreamDocument<Document>> cursor = openChangeStream(collection).iterator()) {
+                log.info("Watching collection [collection:{}, isResumed:{}]",
+                        collection.getName(), collection.getReceivedResumeToken() != null);
+                readChanges(collection, cursor);
+            } catch (MongoCommandException e) {
+                if (HISTORY_LOST_ERROR_CODES.contains(e.getErrorCode())) {
+                    // missed changes are caught up by periodic refreshes of caches
+                    log.warn("Cannot resume change stream, starting over [collection:{}]",
+                            collection.getName(), e);
+                    collection.resumeFrom(null);
+                } else {
+                    onStreamError(collection, e);
+                }
+            } catch (RuntimeException e) {
+                onStreamError(collection, e);
+            }
+        }
+    }
+
+    private ChangeStreamIterable<Document> openChangeStream(WatchedCollection<?> collection) {
+        ChangeStreamIterable<Document> changeStream = mongoTemplate.getCollection(collection.getName())
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                // the stream is left from time to time to check if it should stop
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        String resumeToken = collection.getReceivedResumeToken();
+        return resumeToken != null
+                ? changeStream.resumeAfter(BsonDocument.parse(resumeToken))
+                : changeStream;
+    }
+
+    private void readChanges(WatchedCollection<?> collection, MongoCursor<ChangeStreamDocument<Document>> cursor) {
+        while (isRunning) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            if (change == null) {
+                continue;
+            }
+            if (change.getOperationType() == OperationType.INVALIDATE) {
+                // the collection was dropped or renamed
+                log.warn("Change stream invalidated, starting over [collection:{}]", collection.getName());
+                collection.resumeFrom(null);
+                return;
+            }
+            onChange(collection.getName(), change.getDocumentKey().toJson(),
+                    change.getFullDocument(), change.getResumeToken().toJson());
+        }
+    }
+
+    private void onStreamError(WatchedCollection<?> collection, RuntimeException e) {
+        log.error("Change stream failed, retrying [collection:{}, retryDelay:{}]",
+                collection.getName(), retryDelay, e);
+        try {
+            Thread.sleep(retryDelay);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            isRunning = false;
+        }
+    }
+
+    /**
+     * Record a change until the next flush, only the latest version of
+     * a document is kept. Deleted documents have no full document,
+     * caches drop them on their own when their task reaches a final status.
+     */
+    void onChange(String collectionName, String documentKey, Document fullDocument, String resumeToken) {
+        WatchedCollection<?> collection = watchedCollections.get(collectionName);
+        if (fullDocument != null) {
+            collection.getPendingDocuments().put(documentKey, fullDocument);
+        }
+        // set after the document so a flush never saves a token before publishing its change
+        collection.setReceivedResumeToken(resumeToken);
+    }
+
+    /**
+     * Publish changes received since the previous flush,
+     * then save how far each collection was published.
+     */
+    @Scheduled(fixedDelayString = "${change-stream.flush-period}")
+    void flush() {
+        if (!isEnabled) {
+            return;
+        }
+        Map<String, String> publishedResumeTokens = new HashMap<>();
+        for (WatchedCollection<?> collection : watchedCollections.values()) {
+            String resumeToken = collection.getReceivedResumeToken();
+            int nbChanges = publishPendingChanges(collection);
+            if (nbChanges > 0) {
+                log.debug("Published document changes [collection:{}, nbChanges:{}]",
+                        collection.getName(), nbChanges);
+            }
+            if (resumeToken != null && !resumeToken.equals(collection.getSavedResumeToken())) {
+                publishedResumeTokens.put(collection.getName(), resumeToken);
+            }
+        }
+        if (publishedResumeTokens.isEmpty()) {
+            return;
+        }
+        try {
+            // each token has its own document, saving it never conflicts with other writes
+            resumeTokenRepository.saveAll(publishedResumeTokens.entrySet().stream()
+                    .map(entry -> ResumeToken.of(instanceId, entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList()));
+            publishedResumeTokens.forEach((collectionName, resumeToken) ->
+                    watchedCollections.get(collectionName).setSavedResumeToken(resumeToken));
+        } catch (RuntimeException e) {
+            // saved again on the next flush
+            log.error("Failed to save change stream resume tokens [collections:{}]",
+                    publishedResumeTokens.keySet(), e);
+        }
+    }
+
+    private <T> int publishPendingChanges(WatchedCollection<T> collection) {
+        Map<String, Document> pendingDocuments = collection.getPendingDocuments();
+        int nbChanges = 0;
+        for (String documentKey : pendingDocuments.keySet()) {
+            Document document = pendingDocuments.remove(documentKey);
+            if (document == null) {
+                continue;
+            }
+            try {
+                T entity = mongoTemplate.getConverter().read(collection.getType(), document);
+                applicationEventPublisher.publishEvent(collection.getEventFactory().apply(entity));
+                nbChanges++;
+            } catch (RuntimeException e) {
+                log.error("Failed to publish document change [collection:{}, documentKey:{}]",
+                        collection.getName(), documentKey, e);
+            }
+        }
+        return nbChanges;
+    }
+
+    @Getter
+    private static class WatchedCollection<T> {
+        private final String name;
+        private final Class<T> type;
+        private final Function<T, Object> eventFactory;
+        private final Map<String, Document> pendingDocuments = new ConcurrentHashMap<>();
+        private volatile String receivedResumeToken;
+        private volatile String savedResumeToken;
+
+        WatchedCollection(String name, Class<T> type, Function<T, Object> eventFactory) {
+            this.name = name;
+            this.type = type;
+            this.eventFactory = eventFactory;
+        }
+
+        void resumeFrom(String resumeToken) {
+            this.receivedResumeToken = resumeToken;
+            this.savedResumeToken = resumeToken;
+        }
+
+        void setReceivedResumeToken(String receivedResumeToken) {
+            this.receivedResumeToken = receivedResumeToken;
+        }
+
+        void setSavedResumeToken(String savedResumeToken) {
+            this.savedResumeToken = savedResumeToken;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.changestream;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Position of an instance in the change stream of a collection. Each
+ * instance has its own position so that it resumes from where it
+ * stopped, whatever other instances read meanwhile.
+ */
+@Data
+@Document
+@NoArgsConstructor
+@AllArgsConstructor
+class ResumeToken {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String instanceId;
+
+    private String collectionName;
+    private String token;
+
+    static ResumeToken of(String instanceId, String collectionName, String token) {
+        return new ResumeToken(instanceId + ":" + collectionName, instanceId, collectionName, token);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+class MongoShardLeaseStore implements ShardLeaseStore {
+
+    private static final String ID = "_id";
+    private static final String OWNER = "owner";
+    private static final String EXPIRY = "expiry";
+
+    private final MongoTemplate mongoTemplate;
+
+    MongoShardLeaseStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void heartbeat(String instanceId, Date expiry) {
+        mongoTemplate.upsert(Query.query(Criteria.where(ID).is(instanceId)),
+                new Update().set(EXPIRY, expiry), ClusterMember.class);
+    }
+
+    @Override
+    public List<String> getAliveMembers(Date now) {
+        return mongoTemplate.find(Query.query(Criteria.where(EXPIRY).gt(now)), ClusterMember.class)
+                .stream()
+                .map(ClusterMember::getInstanceId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ShardLease> getLeases() {
+        return mongoTemplate.findAll(ShardLease.class);
+    }
+
+    @Override
+    public boolean tryAcquire(int shard, String owner, Date now, Date expiry) {
+        Query query = Query.query(Criteria.where(ID).is(shard)
+                .orOperator(Criteria.where(OWNER).is(owner), Criteria.where(EXPIRY).lt(now)));
+        Update update = new Update().set(OWNER, owner).set(EXPIRY, expiry);
+        try {
+            mongoTemplate.upsert(query, update, ShardLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // the lease exists and is still held by another instance
+            return false;
+        }
+    }
+
+    @Override
+    public void release(int shard, String owner) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(shard).and(OWNER).is(owner)),
+                new Update().set(EXPIRY, new Date(0)), ShardLease.class);
+    }
+}
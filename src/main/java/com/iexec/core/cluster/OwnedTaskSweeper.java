@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import com.iexec.core.changestream.ReplicatesDocumentChangedEvent;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskSummary;
+import com.iexec.core.task.deadline.TaskDeadlineScheduler;
+import com.iexec.core.task.dispatch.TaskDispatchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catch up on tasks owned by this instance.
+ * <p>
+ * Updates triggered on an instance which does not own the task (e.g. a
+ * worker notifying another instance) are dropped. The owner learns about
+ * them from replicates change streams and updates those tasks on the next
+ * sweep. Non-final tasks of acquired shards are swept once, and in-memory
+ * state built from owned tasks is rebuilt each time shards change hands.
+ */
+@Slf4j
+@Component
+public class OwnedTaskSweeper {
+
+    private final TaskService taskService;
+    private final TaskOwnershipService taskOwnershipService;
+    private final TaskDispatchIndex taskDispatchIndex;
+    private final TaskDeadlineScheduler taskDeadlineScheduler;
+    private final Set<String> changedChainTaskIds = ConcurrentHashMap.newKeySet();
+
+    public OwnedTaskSweeper(TaskService taskService,
+                            TaskOwnershipService taskOwnershipService,
+                            TaskDispatchIndex taskDispatchIndex,
+                            TaskDeadlineScheduler taskDeadlineScheduler) {
+        this.taskService = taskService;
+        this.taskOwnershipService = taskOwnershipService;
+        this.taskDispatchIndex = taskDispatchIndex;
+        this.taskDeadlineScheduler = taskDeadlineScheduler;
+    }
+
+    @EventListener
+    public void onTaskOwnershipChanged(TaskOwnershipChangedEvent event) {
+        // tasks of lost shards are dropped, tasks of acquired ones are indexed
+        taskDispatchIndex.refresh();
+        Set<Integer> acquiredShards = event.getAcquiredShards();
+        if (acquiredShards.isEmpty()) {
+            return;
+        }
+        taskDeadlineScheduler.run();
+        for (TaskSummary task : taskService.getTaskSummariesInNonFinalStatuses()) {
+            if (acquiredShards.contains(taskOwnershipService.getShard(task.getChainTaskId()))) {
+                changedChainTaskIds.add(task.getChainTaskId());
+            }
+        }
+        sweep();
+    }
+
+    @EventListener
+    public void onReplicatesDocumentChanged(ReplicatesDocumentChangedEvent event) {
+        String chainTaskId = event.getReplicatesList().getChainTaskId();
+        if (taskOwnershipService.isEnabled() && taskOwnershipService.isOwned(chainTaskId)) {
+            changedChainTaskIds.add(chainTaskId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.sweep-period}")
+    public void sweep() {
+        List<String> chainTaskIds = new ArrayList<>(changedChainTaskIds);
+        if (chainTaskIds.isEmpty()) {
+            return;
+        }
+        changedChainTaskIds.removeAll(chainTaskIds);
+        log.debug("Sweeping owned tasks [instanceId:{}, nbTasks:{}]",
+                taskOwnershipService.getInstanceId(), chainTaskIds.size());
+        for (String chainTaskId : chainTaskIds) {
+            taskService.updateTask(chainTaskId);
+        }
+    }
+
+    boolean isChanged(String chainTaskId) {
+        return changedChainTaskIds.contains(chainTaskId);
+    }
+}
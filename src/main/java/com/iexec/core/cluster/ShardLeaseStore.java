@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shared storage of cluster members and shard leases. Each
+ * operation is atomic on its own, instances never lock each other.
+ */
+interface ShardLeaseStore {
+
+    /**
+     * Register an instance, or keep it alive, until the given date.
+     */
+    void heartbeat(String instanceId, Date expiry);
+
+    List<String> getAliveMembers(Date now);
+
+    List<ShardLease> getLeases();
+
+    /**
+     * Take or renew the lease of a shard. It succeeds if the shard has
+     * no lease yet, if its lease is expired or if it is already owned
+     * by the given instance.
+     *
+     * @return true if the instance owns the shard until the given expiry
+     */
+    boolean tryAcquire(int shard, String owner, Date now, Date expiry);
+
+    /**
+     * Give up the lease of a shard so that another instance can take it
+     * right away. Nothing is done if the shard is owned by someone else.
+     */
+    void release(int shard, String owner);
+}
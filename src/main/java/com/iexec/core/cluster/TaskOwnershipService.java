@@ -0,0 +1,199 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spread tasks over the core instances sharing the same database.
+ * <p>
+ * Tasks are split in a fixed number of shards by chainTaskId. Each shard is
+ * owned by a single instance through a lease stored in the database, which
+ * the owner renews periodically. Instances also keep a membership record
+ * alive so that each of them takes a fair share of the shards:
+ * <ul>
+ * <li>an instance owning too many shards releases the extra ones</li>
+ * <li>an instance owning too few shards takes free or expired ones</li>
+ * <li>leases of a dead instance expire and are taken over by the others</li>
+ * </ul>
+ * Only the owner of a task updates it, runs detectors on it and gives
+ * replicates of it. When clustering is disabled this instance owns all tasks.
+ * <p>
+ * Clustering needs change streams: worker activity and consensus tallies are
+ * kept in memory by each instance and are only shared through them.
+ */
+@Slf4j
+@Service
+public class TaskOwnershipService {
+
+    private final ShardLeaseStore shardLeaseStore;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final boolean isEnabled;
+    private final int nbShards;
+    private final long leaseDuration;
+    private final String instanceId;
+    // local expiry date of leases of this instance by shard
+    private final Map<Integer, Long> ownedShards = new ConcurrentHashMap<>();
+
+    public TaskOwnershipService(ShardLeaseStore shardLeaseStore,
+                                ApplicationEventPublisher applicationEventPublisher,
+                                @Value("${cluster.enabled}") boolean isEnabled,
+                                @Value("${cluster.shards}") int nbShards,
+                                @Value("${cluster.lease.duration}") long leaseDuration,
+                                @Value("${cluster.instance-id}") String instanceId,
+                                @Value("${change-stream.enabled}") boolean isChangeStreamEnabled) {
+        if (isEnabled && !isChangeStreamEnabled) {
+            throw new IllegalStateException("Cluster mode needs change streams " +
+                    "(cluster.enabled requires change-stream.enabled)");
+        }
+        this.shardLeaseStore = shardLeaseStore;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.isEnabled = isEnabled;
+        this.nbShards = Math.max(nbShards, 1);
+        this.leaseDuration = leaseDuration;
+        this.instanceId = instanceId.isEmpty() ? UUID.randomUUID().toString() : instanceId;
+        if (isEnabled) {
+            log.info("Cluster mode enabled [instanceId:{}, nbShards:{}]", this.instanceId, this.nbShards);
+        }
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Whether this instance should act on a task. A lease is only
+     * trusted until its local expiry, even if it could not be renewed.
+     */
+    public boolean isOwned(String chainTaskId) {
+        if (!isEnabled) {
+            return true;
+        }
+        Long expiry = ownedShards.get(getShard(chainTaskId));
+        return expiry != null && expiry > System.currentTimeMillis();
+    }
+
+    /**
+     * Keep tasks owned by this instance.
+     *
+     * @param tasks            tasks to filter, left untouched
+     * @param chainTaskIdGetter how to get the chainTaskId of a task
+     * @return owned tasks, all tasks if clustering is disabled
+     */
+    public <T> List<T> keepOwned(List<T> tasks, Function<T, String> chainTaskIdGetter) {
+        if (!isEnabled) {
+            return tasks;
+        }
+        return tasks.stream()
+                .filter(task -> isOwned(chainTaskIdGetter.apply(task)))
+                .collect(Collectors.toList());
+    }
+
+    int getShard(String chainTaskId) {
+        return Math.floorMod(chainTaskId.hashCode(), nbShards);
+    }
+
+    Set<Integer> getOwnedShards() {
+        return new TreeSet<>(ownedShards.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.lease.renew-period}")
+    void rebalance() {
+        if (isEnabled) {
+            rebalance(new Date());
+        }
+    }
+
+    void rebalance(Date now) {
+        Date expiry = new Date(now.getTime() + leaseDuration);
+        shardLeaseStore.heartbeat(instanceId, expiry);
+        Set<String> members = new HashSet<>(shardLeaseStore.getAliveMembers(now));
+        members.add(instanceId);
+        int fairShare = (nbShards + members.size() - 1) / members.size();
+
+        Set<Integer> lostShards = new TreeSet<>();
+        for (Integer shard : getOwnedShards()) {
+            if (shardLeaseStore.tryAcquire(shard, instanceId, now, expiry)) {
+                ownedShards.put(shard, expiry.getTime());
+            } else {
+                ownedShards.remove(shard);
+                lostShards.add(shard);
+            }
+        }
+
+        // extra shards are released for instances which just joined
+        Iterator<Integer> extraShards = new TreeSet<>(ownedShards.keySet()).descendingIterator();
+        while (ownedShards.size() > fairShare && extraShards.hasNext()) {
+            int shard = extraShards.next();
+            ownedShards.remove(shard);
+            shardLeaseStore.release(shard, instanceId);
+            lostShards.add(shard);
+        }
+
+        Set<Integer> acquiredShards = new TreeSet<>();
+        if (ownedShards.size() < fairShare) {
+            Map<Integer, ShardLease> leases = shardLeaseStore.getLeases().stream()
+                    .collect(Collectors.toMap(ShardLease::getShard, lease -> lease));
+            for (int shard = 0; shard < nbShards && ownedShards.size() < fairShare; shard++) {
+                ShardLease lease = leases.get(shard);
+                boolean isFree = lease == null || lease.getExpiry() == null || lease.getExpiry().before(now);
+                if (!ownedShards.containsKey(shard) && isFree
+                        && shardLeaseStore.tryAcquire(shard, instanceId, now, expiry)) {
+                    ownedShards.put(shard, expiry.getTime());
+                    acquiredShards.add(shard);
+                }
+            }
+        }
+
+        if (!acquiredShards.isEmpty() || !lostShards.isEmpty()) {
+            log.info("Task ownership changed [instanceId:{}, nbMembers:{}, ownedShards:{}, " +
+                            "acquiredShards:{}, lostShards:{}]",
+                    instanceId, members.size(), ownedShards.size(), acquiredShards, lostShards);
+            applicationEventPublisher.publishEvent(new TaskOwnershipChangedEvent(acquiredShards, lostShards));
+        }
+    }
+
+    /**
+     * Give up leases on shutdown so that other instances take them
+     * on their next renewal instead of waiting for them to expire.
+     */
+    @PreDestroy
+    void releaseAll() {
+        if (!isEnabled) {
+            return;
+        }
+        for (Integer shard : getOwnedShards()) {
+            ownedShards.remove(shard);
+            shardLeaseStore.release(shard, instanceId);
+        }
+        shardLeaseStore.heartbeat(instanceId, new Date(0));
+    }
+}
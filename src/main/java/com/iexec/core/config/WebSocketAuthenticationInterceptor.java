@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.config;
+
+import com.iexec.core.security.JwtTokenProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Identify STOMP sessions of workers by their wallet address, from the
+ * bearer token sent with the CONNECT frame, so that messages meant for a
+ * single worker are sent to its user destinations only.
+ */
+@Slf4j
+@Component
+public class WebSocketAuthenticationInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public WebSocketAuthenticationInterceptor(JwtTokenProvider jwtTokenProvider) {
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String walletAddress = jwtTokenProvider.getWalletAddressFromBearerToken(
+                accessor.getFirstNativeHeader(AUTHORIZATION_HEADER));
+        if (!walletAddress.isEmpty()) {
+            // sessions without a valid token still get broadcast task notifications
+            accessor.setUser(new WorkerPrincipal(walletAddress));
+        }
+        return message;
+    }
+
+    private static class WorkerPrincipal implements Principal {
+        private final String walletAddress;
+
+        WorkerPrincipal(String walletAddress) {
+            this.walletAddress = walletAddress;
+        }
+
+        @Override
+        public String getName() {
+            return walletAddress;
+        }
+    }
+}
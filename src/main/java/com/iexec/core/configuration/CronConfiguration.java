@@ -32,6 +32,9 @@ public class CronConfiguration {
     @Value("${cron.detector.chain.final-deadline}")
     private int finalDeadline;
 
+    @Value("${cron.detector.chain.pending-command}")
+    private int pendingCommand;
+
     @Value("${cron.detector.timeout.contribute}")
     private int contributeTimeout;
 
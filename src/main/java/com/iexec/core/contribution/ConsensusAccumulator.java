@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.contribution;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.core.changestream.ReplicatesDocumentChangedEvent;
+import com.iexec.core.replicate.ReplicateUpdatedEvent;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-task weights used to estimate if a consensus is possible.
+ * <p>
+ * A task tally is loaded from the database the first time it is needed and
+ * then kept up to date from replicate updates: a CONTRIBUTED replicate is read
+ * once to get its contribution hash and weight, other statuses are applied
+ * in memory. Estimating the consensus then needs no database read at all.
+ * <p>
+ * Tallies are dropped when their task leaves the contribution phase.
+ * <p>
+ * Replicates are always read from the database before touching the map of
+ * tallies, so no map lock is held during I/O. A replicate update received
+ * while a tally is being loaded makes the load start again, so the update
+ * is not lost.
+ */
+@Slf4j
+@Component
+public class ConsensusAccumulator {
+
+    // tallies are updated before listeners estimating the consensus run
+    public static final int LISTENER_ORDER = Ordered.HIGHEST_PRECEDENCE;
+    static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final Map<String, ConsensusTally> tallies = new ConcurrentHashMap<>();
+    // replicate updates received while the tally of a task is being loaded
+    private final Map<String, AtomicLong> updatesWhileLoading = new ConcurrentHashMap<>();
+
+    private final ReplicatesService replicatesService;
+
+    public ConsensusAccumulator(ReplicatesService replicatesService) {
+        this.replicatesService = replicatesService;
+    }
+
+    int getBestPredictionWeight(String chainTaskId, long maxExecutionTime) {
+        return getTally(chainTaskId).getBestPredictionWeight(maxExecutionTime);
+    }
+
+    int getWorstPredictionsWeight(String chainTaskId) {
+        return getTally(chainTaskId).getWorstPredictionsWeight();
+    }
+
+    boolean isTracked(String chainTaskId) {
+        return tallies.containsKey(chainTaskId);
+    }
+
+    /**
+     * Count a replicate freshly given to a worker in the pending weight.
+     *
+     * @param chainTaskId   ID of the task
+     * @param walletAddress wallet of the worker
+     */
+    void onReplicateAdded(String chainTaskId, String walletAddress) {
+        onReplicateChanged(chainTaskId);
+        // an untracked task is loaded with its new replicate when first needed
+        if (!tallies.containsKey(chainTaskId)) {
+            return;
+        }
+        replicatesService.getReplicate(chainTaskId, walletAddress).ifPresent(replicate ->
+                tallies.computeIfPresent(chainTaskId, (id, tally) -> {
+                    tally.put(replicate);
+                    return tally;
+                }));
+    }
+
+    @EventListener
+    @Order(LISTENER_ORDER)
+    public void onReplicateUpdated(ReplicateUpdatedEvent event) {
+        String walletAddress = event.getWalletAddress();
+        ReplicateStatus newStatus = event.getReplicateStatusUpdate().getStatus();
+        String chainTaskId = event.getChainTaskId();
+        onReplicateChanged(chainTaskId);
+        ConsensusTally trackedTally = tallies.get(chainTaskId);
+        if (trackedTally == null) {
+            return;
+        }
+        if (newStatus == ReplicateStatus.CONTRIBUTED || !trackedTally.hasVote(walletAddress)) {
+            // contribution hash and worker weight are only known from the stored replicate
+            replicatesService.getReplicate(chainTaskId, walletAddress).ifPresent(replicate ->
+                    tallies.computeIfPresent(chainTaskId, (id, tally) -> {
+                        tally.put(replicate);
+                        return tally;
+                    }));
+        } else {
+            tallies.computeIfPresent(chainTaskId, (id, tally) -> {
+                tally.updateStatus(walletAddress, newStatus);
+                return tally;
+            });
+        }
+    }
+
+    /**
+     * Rebuild a tracked tally from the stored replicates, which
+     * also holds writes made by other processes.
+     */
+    @EventListener
+    @Order(LISTENER_ORDER)
+    public void onReplicatesDocumentChanged(ReplicatesDocumentChangedEvent event) {
+        ReplicatesList replicatesList = event.getReplicatesList();
+        tallies.computeIfPresent(replicatesList.getChainTaskId(),
+                (chainTaskId, tally) -> new ConsensusTally(replicatesList.getReplicates()));
+    }
+
+    @EventListener
+    public void onTaskStatusUpdated(TaskStatusUpdatedEvent event) {
+        Task task = event.getTask();
+        if (!TaskStatus.isInContributionPhase(task.getCurrentStatus())
+                && tallies.remove(task.getChainTaskId()) != null) {
+            log.debug("Dropped consensus tally [chainTaskId:{}, status:{}]",
+                    task.getChainTaskId(), task.getCurrentStatus());
+        }
+    }
+
+    /*
+     * The tally is built outside of the map. It is loaded again if a replicate
+     * of the task changed meanwhile, including between the insertion of the
+     * tally and the check below (the update may have found no tally).
+     */
+    private ConsensusTally getTally(String chainTaskId) {
+        ConsensusTally tally = tallies.get(chainTaskId);
+        if (tally != null) {
+            return tally;
+        }
+        AtomicLong updates = updatesWhileLoading.computeIfAbsent(chainTaskId, id -> new AtomicLong());
+        try {
+            for (int attempt = 1; ; attempt++) {
+                long updatesBeforeLoad = updates.get();
+                ConsensusTally loadedTally = new ConsensusTally(replicatesService.getReplicates(chainTaskId));
+                ConsensusTally previousTally = tallies.putIfAbsent(chainTaskId, loadedTally);
+                if (previousTally != null) {
+                    // loaded by another thread
+                    return previousTally;
+                }
+                if (updates.get() == updatesBeforeLoad || attempt >= MAX_LOAD_ATTEMPTS) {
+                    return loadedTally;
+                }
+                tallies.remove(chainTaskId, loadedTally);
+            }
+        } finally {
+            updatesWhileLoading.remove(chainTaskId, updates);
+        }
+    }
+
+    private void onReplicateChanged(String chainTaskId) {
+        AtomicLong updates = updatesWhileLoading.get(chainTaskId);
+        if (updates != null) {
+            updates.incrementAndGet();
+        }
+    }
+}
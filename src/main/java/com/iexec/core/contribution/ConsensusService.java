@@ -23,10 +23,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class ConsensusService {
 
-    private PredictionService predictionService;
+    private ConsensusAccumulator consensusAccumulator;
 
-    public ConsensusService(PredictionService predictionService) {
-        this.predictionService = predictionService;
+    public ConsensusService(ConsensusAccumulator consensusAccumulator) {
+        this.consensusAccumulator = consensusAccumulator;
     }
 
 
@@ -39,25 +39,50 @@ public class ConsensusService {
      *
      */
     public boolean doesTaskNeedMoreContributionsForConsensus(String chainTaskId, int trust, long maxExecutionTime) {
+        return getMissingWeightForConsensus(chainTaskId, trust, maxExecutionTime) > 0;
+    }
+
+    /*
+     *
+     * Remaining consensus need: the weight a new contribution to the best prediction
+     * should have for a consensus to be possible now, 0 if it is already possible
+     *
+     */
+    public int getMissingWeightForConsensus(String chainTaskId, int trust, long maxExecutionTime) {
         trust = Math.max(trust, 1);//ensure trust equals 1
 
-        int bestPredictionWeight = predictionService.getBestPredictionWeight(chainTaskId, maxExecutionTime);
-        int worstPredictionsWeight = predictionService.getWorstPredictionsWeight(chainTaskId);
+        int bestPredictionWeight = consensusAccumulator.getBestPredictionWeight(chainTaskId, maxExecutionTime);
+        int worstPredictionsWeight = consensusAccumulator.getWorstPredictionsWeight(chainTaskId);
 
         int allPredictionsWeight = worstPredictionsWeight + bestPredictionWeight;
 
-        boolean needsMoreContributions = !isConsensusPossibleNow(trust, bestPredictionWeight, allPredictionsWeight);
+        int missingWeight = getMissingWeight(trust, bestPredictionWeight, allPredictionsWeight);
 
-        if (needsMoreContributions){
+        if (missingWeight > 0){
             log.info("More contributions needed [chainTaskId:{}, trust:{}, bestPredictionWeight:{}, " +
-                            "allPredictionsWeight:{}]", chainTaskId, trust, bestPredictionWeight, allPredictionsWeight);
+                            "allPredictionsWeight:{}, missingWeight:{}]",
+                    chainTaskId, trust, bestPredictionWeight, allPredictionsWeight, missingWeight);
         }
 
-        return needsMoreContributions;
+        return missingWeight;
+    }
+
+    /*
+     * A consensus is possible now if bestWeight * trust > (1 + allWeight) * (trust - 1).
+     * Smallest weight w such that (bestWeight + w) * trust > (1 + allWeight + w) * (trust - 1).
+     */
+    private int getMissingWeight(int trust, int pendingAndContributedBestPredictionWeight, int allPredictionsWeight) {
+        return Math.max(0, (1 + allPredictionsWeight) * (trust - 1)
+                - pendingAndContributedBestPredictionWeight * trust + 1);
     }
 
-    private boolean isConsensusPossibleNow(int trust, int pendingAndContributedBestPredictionWeight, int allPredictionsWeight) {
-        return pendingAndContributedBestPredictionWeight * trust > (1 + allPredictionsWeight) * (trust - 1);
+    /*
+     *
+     * A new replicate adds to the pending weight of the task
+     *
+     */
+    public void onReplicateAdded(String chainTaskId, String walletAddress) {
+        consensusAccumulator.onReplicateAdded(chainTaskId, walletAddress);
     }
 
 
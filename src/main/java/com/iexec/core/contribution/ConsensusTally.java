@@ -0,0 +1,181 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.contribution;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.core.replicate.Replicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Weights of the replicates of one task, as counted by the consensus estimation.
+ * <p>
+ * Each replicate is reduced to a vote (last relevant status, contribution hash,
+ * worker weight and creation date). The weight of each contribution and the
+ * best and total contributed weights are updated when a vote changes, so they
+ * are read without going through all replicates again. The pending weight
+ * depends on the current time and is computed on read from pending votes.
+ * <p>
+ * Weights are computed with the same formulas as {@link ContributionService}
+ * and {@link PredictionService}.
+ */
+class ConsensusTally {
+
+    // statuses which are skipped by Replicate#getLastRelevantStatus()
+    private static final List<ReplicateStatus> IGNORED_STATUSES = Arrays.asList(
+            ReplicateStatus.WORKER_LOST,
+            ReplicateStatus.RECOVERING);
+
+    private final Map<String, Vote> votes = new HashMap<>();
+    private final Map<String, Integer> weightByContribution = new HashMap<>();
+    private int bestContributedWeight;
+    private int allContributedWeight;
+
+    ConsensusTally(List<Replicate> replicates) {
+        replicates.forEach(this::put);
+    }
+
+    synchronized boolean hasVote(String walletAddress) {
+        return votes.containsKey(walletAddress);
+    }
+
+    synchronized void put(Replicate replicate) {
+        Optional<ReplicateStatus> lastRelevantStatus = replicate.getLastRelevantStatus();
+        Vote vote = new Vote(lastRelevantStatus.orElse(null),
+                replicate.getContributionHash(),
+                replicate.getWorkerWeight(),
+                replicate.getStatusUpdateList().get(0).getDate());
+        Vote previousVote = votes.put(replicate.getWalletAddress(), vote);
+        onVoteChanged(previousVote, vote);
+    }
+
+    synchronized void updateStatus(String walletAddress, ReplicateStatus status) {
+        Vote previousVote = votes.get(walletAddress);
+        if (previousVote == null || IGNORED_STATUSES.contains(status)) {
+            return;
+        }
+        Vote vote = new Vote(status, previousVote.getContributionHash(),
+                previousVote.getWorkerWeight(), previousVote.getCreationDate());
+        votes.put(walletAddress, vote);
+        onVoteChanged(previousVote, vote);
+    }
+
+    /*
+     *
+     * Considering pending workers are going to contribute to the best prediction
+     * Counting pending and contributed
+     *
+     * */
+    synchronized int getBestPredictionWeight(long maxExecutionTime) {
+        int pendingWeight = getPendingWeight(maxExecutionTime);
+
+        if (pendingWeight == 0 && bestContributedWeight == 0) {
+            return 0;
+        } else if (pendingWeight > 0 && bestContributedWeight == 0) {
+            return pendingWeight;
+        } else if (pendingWeight == 0 && bestContributedWeight > 0) {
+            return bestContributedWeight;
+        }
+        return bestContributedWeight * pendingWeight;
+    }
+
+    /*
+     *
+     * Sum all prediction weights but exclude contributed best prediction weight.
+     * Whichever contribution wins a tie, the others sum up to the same weight.
+     *
+     * */
+    synchronized int getWorstPredictionsWeight() {
+        return allContributedWeight - bestContributedWeight;
+    }
+
+    /*
+     *
+     * Should exclude workers that have not CONTRIBUTED yet after t=date(CREATED)+1T
+     *
+     * */
+    private int getPendingWeight(long maxExecutionTime) {
+        Date now = new Date();
+        int pendingGroupWeight = 0;
+        for (Vote vote : votes.values()) {
+            boolean isCreatedLessThanOnePeriodAgo =
+                    !now.after(new Date(vote.getCreationDate().getTime() + maxExecutionTime));
+            if (vote.isPending() && isCreatedLessThanOnePeriodAgo && vote.getWorkerWeight() > 0) {
+                pendingGroupWeight = Math.max(pendingGroupWeight, 1) * vote.getWorkerWeight();
+            }
+        }
+        return pendingGroupWeight;
+    }
+
+    private void onVoteChanged(Vote previousVote, Vote vote) {
+        boolean wasContributed = previousVote != null && previousVote.isContributed();
+        if (!wasContributed && !vote.isContributed()) {
+            return;
+        }
+        if (wasContributed) {
+            refreshContributionWeight(previousVote.getContributionHash());
+        }
+        if (vote.isContributed()) {
+            refreshContributionWeight(vote.getContributionHash());
+        }
+        bestContributedWeight = 0;
+        allContributedWeight = 0;
+        for (int contributionWeight : weightByContribution.values()) {
+            bestContributedWeight = Math.max(bestContributedWeight, contributionWeight);
+            allContributedWeight = allContributedWeight + contributionWeight;
+        }
+    }
+
+    private void refreshContributionWeight(String contribution) {
+        boolean isContributed = false;
+        int groupWeight = 0;
+        for (Vote vote : votes.values()) {
+            if (vote.isContributed() && Objects.equals(contribution, vote.getContributionHash())) {
+                isContributed = true;
+                if (vote.getWorkerWeight() > 0) {
+                    groupWeight = Math.max(groupWeight, 1) * vote.getWorkerWeight();
+                }
+            }
+        }
+        if (isContributed) {
+            weightByContribution.put(contribution, groupWeight);
+        } else {
+            weightByContribution.remove(contribution);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Vote {
+        private final ReplicateStatus lastRelevantStatus;
+        private final String contributionHash;
+        private final int workerWeight;
+        private final Date creationDate;
+
+        boolean isContributed() {
+            return lastRelevantStatus == ReplicateStatus.CONTRIBUTED;
+        }
+
+        boolean isPending() {
+            return lastRelevantStatus != null
+                    && lastRelevantStatus != ReplicateStatus.CONTRIBUTED
+                    && lastRelevantStatus != ReplicateStatus.FAILED;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.iexec.core.detector;
 
 import com.google.common.collect.ImmutableSet;
 import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.core.cluster.TaskOwnershipService;
 import com.iexec.core.replicate.ReplicatesService;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.worker.Worker;
@@ -41,15 +42,18 @@ public class WorkerLostDetector implements Detector {
     private final ReplicatesService replicatesService;
     private final WorkerService workerService;
     private final TaskService taskService;
+    private final TaskOwnershipService taskOwnershipService;
 
     public WorkerLostDetector(
             ReplicatesService replicatesService,
             WorkerService workerService,
-            TaskService taskService
+            TaskService taskService,
+            TaskOwnershipService taskOwnershipService
     ) {
         this.replicatesService = replicatesService;
         this.workerService = workerService;
         this.taskService = taskService;
+        this.taskOwnershipService = taskOwnershipService;
     }
 
     @Scheduled(fixedRateString = "#{@cronConfiguration.getWorkerLost()}")
@@ -59,7 +63,8 @@ public class WorkerLostDetector implements Detector {
         for (Worker worker : workerService.getLostWorkers()) {
             String workerWallet = worker.getWalletAddress();
             for (String chainTaskId : worker.getParticipatingChainTaskIds()) {
-                if (taskService.isExpired(chainTaskId)) {
+                // replicates of other tasks are left to their owner
+                if (!taskOwnershipService.isOwned(chainTaskId) || taskService.isExpired(chainTaskId)) {
                     continue;
                 }
                 replicatesService
@@ -19,14 +19,13 @@ package com.iexec.core.detector.replicate;
 import com.iexec.core.detector.Detector;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -39,6 +38,8 @@ import static com.iexec.core.task.TaskStatus.RESULT_UPLOADING;
 @Service
 public class RevealTimeoutDetector implements Detector {
 
+    private static final int DETECTOR_MULTIPLIER = 10;
+
     private TaskService taskService;
     private ReplicatesService replicatesService;
 
@@ -48,7 +49,8 @@ public class RevealTimeoutDetector implements Detector {
         this.replicatesService = replicatesService;
     }
 
-    @Scheduled(fixedRateString = "#{@cronConfiguration.getRevealTimeout()}")
+    // deadlines are handled on time by TaskDeadlineScheduler, this is a safety net
+    @Scheduled(fixedRateString = "#{@cronConfiguration.getRevealTimeout() * " + DETECTOR_MULTIPLIER + "}")
     @Override
     public void detect() {
         log.debug("Trying to detect reveal timeout");
@@ -59,10 +61,10 @@ public class RevealTimeoutDetector implements Detector {
     }
 
     private void detectTaskAfterRevealDealLineWithAtLeastOneReveal() {
-        List<Task> tasks = new ArrayList<>(taskService.findByCurrentStatus(Arrays.asList(AT_LEAST_ONE_REVEALED,
-                TaskStatus.RESULT_UPLOAD_REQUESTED, RESULT_UPLOADING, RESULT_UPLOADED)));
+        List<TaskSummary> tasks = taskService.getTaskSummaries(Arrays.asList(AT_LEAST_ONE_REVEALED,
+                TaskStatus.RESULT_UPLOAD_REQUESTED, RESULT_UPLOADING, RESULT_UPLOADED));
 
-        for (Task task : tasks) {
+        for (TaskSummary task : tasks) {
             Date now = new Date();
             if (now.after(task.getRevealDeadline())) {
                 for (Replicate replicate : replicatesService.getReplicates(task.getChainTaskId())) {
@@ -74,7 +76,7 @@ public class RevealTimeoutDetector implements Detector {
     }
 
     private void detectTaskAfterRevealDealLineWithZeroReveal() {
-        for (Task task : taskService.findByCurrentStatus(TaskStatus.CONSENSUS_REACHED)) {
+        for (TaskSummary task : taskService.getTaskSummaries(List.of(TaskStatus.CONSENSUS_REACHED))) {
             Date now = new Date();
             if (now.after(task.getRevealDeadline())) {
                 // update all replicates status attached to this task
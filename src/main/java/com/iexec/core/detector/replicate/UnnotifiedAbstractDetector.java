@@ -28,9 +28,13 @@ import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import static com.iexec.common.replicate.ReplicateStatus.WORKER_LOST;
 import static com.iexec.common.replicate.ReplicateStatus.getMissingStatuses;
@@ -58,45 +62,55 @@ public abstract class UnnotifiedAbstractDetector {
                                                        ReplicateStatus offchainCompleting,
                                                        ReplicateStatus offchainCompleted,
                                                        ChainContributionStatus onchainCompleted) {
-        for (Task task : taskService.findByCurrentStatus(detectWhenOffChainTaskStatuses)) {
-            for (Replicate replicate : replicatesService.getReplicates(task.getChainTaskId())) {
-                Optional<ReplicateStatus> lastRelevantStatus = replicate.getLastRelevantStatus();
-                if (!lastRelevantStatus.isPresent() || !lastRelevantStatus.get().equals(offchainCompleting)) {
-                    continue;
-                }
-
-                boolean statusTrueOnChain = iexecHubService.isStatusTrueOnChain(task.getChainTaskId(), replicate.getWalletAddress(), onchainCompleted);
-
-                if (statusTrueOnChain) {
-                    log.info("Detected confirmed missing update (replicate) [is:{}, should:{}, taskId:{}]",
-                            lastRelevantStatus.get(), onchainCompleted, task.getChainTaskId());
-                    updateReplicateStatuses(task, replicate, offchainCompleted);
-                }
-            }
-        }
+        detectOnchainCompleted(detectWhenOffChainTaskStatuses,
+                lastRelevantStatus -> lastRelevantStatus.equals(offchainCompleting),
+                offchainCompleted, onchainCompleted);
     }
 
     void dectectOnchainCompleted(List<TaskStatus> detectWhenOffChainTaskStatuses,
                                  ReplicateStatus offchainCompleting,
                                  ReplicateStatus offchainCompleted,
                                  ChainContributionStatus onchainCompleted) {
+        detectOnchainCompleted(detectWhenOffChainTaskStatuses,
+                lastRelevantStatus -> !lastRelevantStatus.equals(offchainCompleted),
+                offchainCompleted, onchainCompleted);
+    }
+
+    /*
+     * Replicates to check are collected first so that their on-chain
+     * statuses are read all together in a single batch.
+     */
+    private void detectOnchainCompleted(List<TaskStatus> detectWhenOffChainTaskStatuses,
+                                        Predicate<ReplicateStatus> shouldCheckOnchain,
+                                        ReplicateStatus offchainCompleted,
+                                        ChainContributionStatus onchainCompleted) {
+        Map<Pair<String, String>, Pair<Task, Replicate>> replicatesToCheck = new LinkedHashMap<>();
         for (Task task : taskService.findByCurrentStatus(detectWhenOffChainTaskStatuses)) {
             for (Replicate replicate : replicatesService.getReplicates(task.getChainTaskId())) {
                 Optional<ReplicateStatus> lastRelevantStatus = replicate.getLastRelevantStatus();
-
-                if (!lastRelevantStatus.isPresent() || lastRelevantStatus.get().equals(offchainCompleted)) {
-                    continue;
+                if (lastRelevantStatus.isPresent() && shouldCheckOnchain.test(lastRelevantStatus.get())) {
+                    replicatesToCheck.put(Pair.of(task.getChainTaskId(), replicate.getWalletAddress()),
+                            Pair.of(task, replicate));
                 }
+            }
+        }
+        if (replicatesToCheck.isEmpty()) {
+            return;
+        }
 
-                boolean statusTrueOnChain = iexecHubService.isStatusTrueOnChain(task.getChainTaskId(), replicate.getWalletAddress(), onchainCompleted);
+        Map<Pair<String, String>, Boolean> statusesTrueOnChain =
+                iexecHubService.areStatusesTrueOnChain(replicatesToCheck.keySet(), onchainCompleted);
 
-                if (statusTrueOnChain) {
-                    log.info("Detected confirmed missing update (replicate) [is:{}, should:{}, taskId:{}]",
-                            lastRelevantStatus.get(), onchainCompleted, task.getChainTaskId());
-                    updateReplicateStatuses(task, replicate, offchainCompleted);
-                }
+        replicatesToCheck.forEach((chainTaskIdAndWallet, taskAndReplicate) -> {
+            if (!statusesTrueOnChain.getOrDefault(chainTaskIdAndWallet, false)) {
+                return;
             }
-        }
+            Task task = taskAndReplicate.getLeft();
+            Replicate replicate = taskAndReplicate.getRight();
+            log.info("Detected confirmed missing update (replicate) [is:{}, should:{}, taskId:{}]",
+                    replicate.getLastRelevantStatus().orElse(null), onchainCompleted, task.getChainTaskId());
+            updateReplicateStatuses(task, replicate, offchainCompleted);
+        });
     }
 
     /*
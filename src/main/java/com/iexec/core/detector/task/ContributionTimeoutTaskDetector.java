@@ -17,9 +17,9 @@
 package com.iexec.core.detector.task;
 
 import com.iexec.core.detector.Detector;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -31,22 +31,23 @@ import java.util.Date;
 @Service
 public class ContributionTimeoutTaskDetector implements Detector {
 
+    private static final int DETECTOR_MULTIPLIER = 10;
+
     private TaskService taskService;
 
     public ContributionTimeoutTaskDetector(TaskService taskService) {
         this.taskService = taskService;
     }
 
-    @Scheduled(fixedRateString = "#{@cronConfiguration.getContribute()}")
+    // deadlines are handled on time by TaskDeadlineScheduler, this is a safety net
+    @Scheduled(fixedRateString = "#{@cronConfiguration.getContribute() * " + DETECTOR_MULTIPLIER + "}")
     @Override
     public void detect() {
         log.debug("Trying to detect contribution timeout");
-        for (Task task : taskService.findByCurrentStatus(Arrays.asList(TaskStatus.INITIALIZED, TaskStatus.RUNNING))) {
-            Date now = new Date();
-            if (now.after(task.getContributionDeadline())) {
-                log.info("Task with contribution timeout found [chainTaskId:{}]", task.getChainTaskId());
-                taskService.updateTask(task.getChainTaskId());
-            }
+        for (TaskSummary task : taskService.getTaskSummariesAfterContributionDeadline(
+                Arrays.asList(TaskStatus.INITIALIZED, TaskStatus.RUNNING), new Date())) {
+            log.info("Task with contribution timeout found [chainTaskId:{}]", task.getChainTaskId());
+            taskService.updateTask(task.getChainTaskId());
         }
     }
 }
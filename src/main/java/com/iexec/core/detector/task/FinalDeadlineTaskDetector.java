@@ -17,8 +17,8 @@
 package com.iexec.core.detector.task;
 
 import com.iexec.core.detector.Detector;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -29,22 +29,22 @@ import java.util.Date;
 @Service
 public class FinalDeadlineTaskDetector implements Detector {
 
+    private static final int DETECTOR_MULTIPLIER = 10;
+
     private final TaskService taskService;
 
     public FinalDeadlineTaskDetector(TaskService taskService) {
         this.taskService = taskService;
     }
 
-    @Scheduled(fixedRateString = "#{@cronConfiguration.getFinalDeadline()}")
+    // deadlines are handled on time by TaskDeadlineScheduler, this is a safety net
+    @Scheduled(fixedRateString = "#{@cronConfiguration.getFinalDeadline() * " + DETECTOR_MULTIPLIER + "}")
     @Override
     public void detect() {
         log.debug("Trying to detect final deadline");
-        for (Task task : taskService.getTasksWhereFinalDeadlineIsPossible()) {
-            Date now = new Date();
-            if (task.getFinalDeadline() != null && now.after(task.getFinalDeadline())) {
-                log.info("Task after final deadline found [chainTaskId:{}]", task.getChainTaskId());
-                taskService.updateTask(task.getChainTaskId());
-            }
+        for (TaskSummary task : taskService.getTaskSummariesAfterFinalDeadline(new Date())) {
+            log.info("Task after final deadline found [chainTaskId:{}]", task.getChainTaskId());
+            taskService.updateTask(task.getChainTaskId());
         }
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.detector.task;
+
+import com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker;
+import com.iexec.core.detector.Detector;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import static com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker.Command.FINALIZE;
+import static com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker.Command.INITIALIZE;
+import static com.iexec.core.task.TaskStatus.FINALIZING;
+import static com.iexec.core.task.TaskStatus.INITIALIZING;
+
+/**
+ * Watch again initialize and finalize commands of tasks which are still
+ * initializing or finalizing. Those commands are not watched anymore after
+ * a restart or once the tracker gave up waiting for them.
+ */
+@Slf4j
+@Service
+public class PendingCommandTaskDetector implements Detector {
+
+    private final TaskService taskService;
+    private final BlockchainAdapterCommandTracker blockchainAdapterCommandTracker;
+
+    public PendingCommandTaskDetector(TaskService taskService,
+                                      BlockchainAdapterCommandTracker blockchainAdapterCommandTracker) {
+        this.taskService = taskService;
+        this.blockchainAdapterCommandTracker = blockchainAdapterCommandTracker;
+    }
+
+    @Scheduled(fixedRateString = "#{@cronConfiguration.getPendingCommand()}")
+    @Override
+    public void detect() {
+        log.debug("Trying to detect tasks with unwatched commands");
+        // already watched commands are not watched twice
+        for (Task task : taskService.findByCurrentStatus(INITIALIZING)) {
+            blockchainAdapterCommandTracker.watch(task.getChainTaskId(), INITIALIZE);
+        }
+        for (Task task : taskService.findByCurrentStatus(FINALIZING)) {
+            blockchainAdapterCommandTracker.watch(task.getChainTaskId(), FINALIZE);
+        }
+    }
+}
@@ -17,9 +17,9 @@
 package com.iexec.core.detector.task;
 
 import com.iexec.core.detector.Detector;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -33,22 +33,25 @@ import java.util.List;
 @Service
 public class TaskResultUploadTimeoutDetector implements Detector {
 
+    private static final int DETECTOR_MULTIPLIER = 10;
+
     private TaskService taskService;
 
     public TaskResultUploadTimeoutDetector(TaskService taskService) {
         this.taskService = taskService;
     }
 
-    @Scheduled(fixedRateString = "#{@cronConfiguration.getResultUploadTimeout()}")
+    // deadlines are handled on time by TaskDeadlineScheduler, this is a safety net
+    @Scheduled(fixedRateString = "#{@cronConfiguration.getResultUploadTimeout() * " + DETECTOR_MULTIPLIER + "}")
     @Override
     public void detect() {
         log.debug("Trying to detect tasks with upload timeout");
 
-        List<Task> inUploadStatus = taskService.findByCurrentStatus(Arrays.asList(
+        List<TaskSummary> inUploadStatus = taskService.getTaskSummaries(Arrays.asList(
                 TaskStatus.RESULT_UPLOAD_REQUESTED,
                 TaskStatus.RESULT_UPLOADING));
 
-        for (Task task : inUploadStatus) {
+        for (TaskSummary task : inUploadStatus) {
             String chainTaskId = task.getChainTaskId();
 
             boolean isNowAfterFinalDeadline = task.getFinalDeadline() != null && new Date().after(task.getFinalDeadline());
@@ -41,7 +41,7 @@ public class MetricService {
                 .aliveAvailableCpu(workerService.getAliveAvailableCpu())
                 .aliveTotalGpu(workerService.getAliveTotalGpu())
                 .aliveAvailableGpu(workerService.getAliveAvailableGpu())
-                .completedTasks(taskService.findByCurrentStatus(TaskStatus.COMPLETED).size())
+                .completedTasks((int) taskService.countByCurrentStatus(TaskStatus.COMPLETED))
                 .build();
     }
 
@@ -17,6 +17,7 @@
 package com.iexec.core.pubsub;
 
 import com.iexec.common.notification.TaskNotification;
+import com.iexec.core.replicate.ReplicateOffer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -37,6 +38,13 @@ public class NotificationService {
                 taskNotification.getChainTaskId(), taskNotification.getTaskNotificationType(), taskNotification.getWorkersAddress());
     }
 
+    public void sendReplicateOffer(String walletAddress, ReplicateOffer replicateOffer) {
+        // only the session of the worker receives it, on "/user/queue/offers"
+        sender.convertAndSendToUser(walletAddress, "/queue/offers", replicateOffer);
+        log.debug("Sent ReplicateOffer [chainTaskId:{}, walletAddress:{}]",
+                replicateOffer.getChainTaskId(), walletAddress);
+    }
+
     /* Test PubSub method
     @Scheduled(fixedRate = 3000)
     public void run(){
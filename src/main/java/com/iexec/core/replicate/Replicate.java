@@ -24,11 +24,14 @@ import com.iexec.common.replicate.ReplicateStatusDetails;
 import com.iexec.common.replicate.ReplicateStatusModifier;
 import com.iexec.common.replicate.ReplicateStatusUpdate;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.iexec.common.replicate.ReplicateStatus.*;
 import static com.iexec.common.replicate.ReplicateStatusUpdate.*;
@@ -46,6 +49,11 @@ public class Replicate {
     private String contributionHash;
     private int credibility;
     private int workerWeight;
+    // not stored, see ReplicateStatusSummary
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient ReplicateStatusSummary statusSummary;
 
     public Replicate(String walletAddress, String chainTaskId) {
         this.chainTaskId = chainTaskId;
@@ -56,6 +64,11 @@ public class Replicate {
         this.contributionHash = "";
     }
 
+    public void setStatusUpdateList(List<ReplicateStatusUpdate> statusUpdateList) {
+        this.statusUpdateList = statusUpdateList;
+        this.statusSummary = null;
+    }
+
     @JsonIgnore
     public ReplicateStatus getCurrentStatus() {
         return this.getLatestStatusUpdate().getStatus();
@@ -64,22 +77,7 @@ public class Replicate {
     @JsonIgnore
     public Optional<ReplicateStatus> getLastRelevantStatus() {
         // ignore cases like: WORKER_LOST and RECOVERING
-
-        List<ReplicateStatus> statusList = getStatusUpdateList().stream()
-                .map(ReplicateStatusUpdate::getStatus)
-                .collect(Collectors.toList());
-
-        List<ReplicateStatus> ignoredStatuses = Arrays.asList(
-                ReplicateStatus.WORKER_LOST,
-                ReplicateStatus.RECOVERING);
-
-        for (int i = statusList.size() - 1; i >= 0; i--) {
-            if (!ignoredStatuses.contains(statusList.get(i))) {
-                return Optional.of(statusList.get(i));
-            }
-        }
-
-        return Optional.empty();
+        return getStatusSummary().getLastRelevantStatus();
     }
 
     @JsonIgnore
@@ -92,9 +90,17 @@ public class Replicate {
         return this.getStatusUpdateList().get(this.getStatusUpdateList().size() - 1);
     }
 
+    private ReplicateStatusSummary getStatusSummary() {
+        // not built yet after being read from the database
+        if (statusSummary == null || !statusSummary.isSummaryOf(statusUpdateList)) {
+            statusSummary = ReplicateStatusSummary.of(statusUpdateList);
+        }
+        return statusSummary;
+    }
+
     public boolean updateStatus(ReplicateStatus newStatus, ReplicateStatusModifier modifier) {
         ReplicateStatusUpdate statusUpdate = new ReplicateStatusUpdate(newStatus, modifier);
-        return statusUpdateList.add(statusUpdate);
+        return updateStatus(statusUpdate);
     }
 
     public boolean updateStatus(ReplicateStatus newStatus, ReplicateStatusCause cause,
@@ -105,11 +111,14 @@ public class Replicate {
                 .build();
 
         ReplicateStatusUpdate statusUpdate = new ReplicateStatusUpdate(newStatus, modifier, details);
-        return statusUpdateList.add(statusUpdate);
+        return updateStatus(statusUpdate);
     }
 
     public boolean updateStatus(ReplicateStatusUpdate statusUpdate) {
-        return statusUpdateList.add(statusUpdate);
+        ReplicateStatusSummary summary = getStatusSummary();
+        boolean isAdded = statusUpdateList.add(statusUpdate);
+        summary.add(statusUpdate);
+        return isAdded;
     }
 
     public String getContributionHash() {
@@ -129,12 +138,7 @@ public class Replicate {
     }
 
     public boolean containsStatus(ReplicateStatus replicateStatus) {
-        for (ReplicateStatusUpdate replicateStatusUpdate : this.getStatusUpdateList()) {
-            if (replicateStatusUpdate.getStatus().equals(replicateStatus)) {
-                return true;
-            }
-        }
-        return false;
+        return getStatusSummary().contains(replicateStatus);
     }
 
     public boolean containsContributedStatus() {
@@ -146,16 +150,16 @@ public class Replicate {
     }
 
     public boolean isCreatedMoreThanNPeriodsAgo(int numberPeriod, long maxExecutionTime) {
-        Date creationDate = this.getStatusUpdateList().get(0).getDate();
-        Date numberPeriodsAfterCreationDate = new Date(creationDate.getTime() + numberPeriod * maxExecutionTime);
-        Date now = new Date();
+        Date creationDate = getStatusSummary().getCreationDate();
+        long numberPeriodsAfterCreationTime = creationDate.getTime() + numberPeriod * maxExecutionTime;
 
-        return now.after(numberPeriodsAfterCreationDate);
+        return System.currentTimeMillis() > numberPeriodsAfterCreationTime;
     }
 
     public boolean isLostAfterStatus(ReplicateStatus status) {
-        return getCurrentStatus() == ReplicateStatus.WORKER_LOST &&
-                getLastButOneStatus() == status;
+        ReplicateStatusSummary summary = getStatusSummary();
+        return summary.getCurrentStatus() == ReplicateStatus.WORKER_LOST &&
+                summary.getLastButOneStatus() == status;
     }
 
     public boolean isBusyComputing() {
@@ -170,7 +174,7 @@ public class Replicate {
 
     public boolean isBeforeStatus(ReplicateStatus status) {
         Optional<ReplicateStatus> currentStatus = getLastRelevantStatus();
-        if (!getLastRelevantStatus().isPresent()) return false;
+        if (!currentStatus.isPresent()) return false;
         return currentStatus.get().ordinal() < status.ordinal();
     }
 }
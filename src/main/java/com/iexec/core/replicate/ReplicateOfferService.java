@@ -0,0 +1,151 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.core.replicate;
+
+import com.iexec.core.chain.BlockHeadTracker;
+import com.iexec.core.pubsub.NotificationService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.dispatch.TaskDispatchIndex;
+import com.iexec.core.task.event.TaskOpenedEvent;
+import com.iexec.core.worker.Worker;
+import com.iexec.core.worker.WorkerService;
+import lombok.extern.slf4j.Slf4j;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offer replicates of a task to idle workers as soon as the task needs
+ * more contributions, so they don't have to wait for their next poll.
+ * <p>
+ * Offers are sent to every alive worker which has a free slot and could be
+ * given a replicate of the task. The first workers to claim the offer get the
+ * replicates, the others get nothing. Workers which do not listen to offers
+ * still get replicates by polling.
+ * <p>
+ * Offers sent are recorded for a short time, a worker may only claim a
+ * replicate of a task it was offered, once.
+ * <p>
+ * Replicates are only given a few blocks after the initialization of their
+ * task, so offers of a freshly initialized task are held until then.
+ */
+@Slf4j
+@Service
+public class ReplicateOfferService {
+
+    static final long OFFER_EXPIRATION_MINUTES = 2;
+
+    private final WorkerService workerService;
+    private final TaskDispatchIndex taskDispatchIndex;
+    private final NotificationService notificationService;
+    private final BlockHeadTracker blockHeadTracker;
+    private final Map<String, Task> heldOffers = new ConcurrentHashMap<>();
+    // Map <ChainTaskId/WorkerWalletAddress, ChainTaskId> of offers not claimed yet
+    // entries older than the expiration are deleted, ExpiringMap is thread-safe
+    private final ExpiringMap<String, String> sentOffers = ExpiringMap.builder()
+            .expiration(OFFER_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .expirationPolicy(ExpirationPolicy.CREATED)
+            .build();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "replicate-offer"));
+
+    public ReplicateOfferService(WorkerService workerService,
+                                 TaskDispatchIndex taskDispatchIndex,
+                                 NotificationService notificationService,
+                                 BlockHeadTracker blockHeadTracker) {
+        this.workerService = workerService;
+        this.taskDispatchIndex = taskDispatchIndex;
+        this.notificationService = notificationService;
+        this.blockHeadTracker = blockHeadTracker;
+        blockHeadTracker.addListener(this::onNewBlock);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener
+    public void onTaskOpened(TaskOpenedEvent event) {
+        Task task = event.getTask();
+        if (ReplicateSupplyService.isFewBlocksAfterInitialization(task, blockHeadTracker.getLatestBlockNumber())) {
+            executor.execute(() -> sendOffers(task));
+        } else {
+            heldOffers.put(task.getChainTaskId(), task);
+        }
+    }
+
+    void onNewBlock(long blockNumber) {
+        for (Task task : heldOffers.values()) {
+            String chainTaskId = task.getChainTaskId();
+            if (!taskDispatchIndex.isIndexed(chainTaskId)) {
+                // the task is not given to workers anymore
+                heldOffers.remove(chainTaskId);
+            } else if (ReplicateSupplyService.isFewBlocksAfterInitialization(task, blockNumber)
+                    && heldOffers.remove(chainTaskId) != null) {
+                executor.execute(() -> sendOffers(task));
+            }
+        }
+    }
+
+    boolean isHeld(String chainTaskId) {
+        return heldOffers.containsKey(chainTaskId);
+    }
+
+    /**
+     * Consume the offer of a task sent to a worker.
+     *
+     * @return true if the offer was sent to the worker and not claimed or
+     * expired yet, false otherwise
+     */
+    public boolean claimOffer(String chainTaskId, String walletAddress) {
+        return sentOffers.remove(getOfferKey(chainTaskId, walletAddress)) != null;
+    }
+
+    private static String getOfferKey(String chainTaskId, String walletAddress) {
+        return chainTaskId + "/" + walletAddress;
+    }
+
+    void sendOffers(Task task) {
+        String chainTaskId = task.getChainTaskId();
+        ReplicateOffer offer = ReplicateOffer.builder()
+                .chainTaskId(chainTaskId)
+                .teeTask(task.isTeeTask())
+                .build();
+        int nbOffers = 0;
+        for (Worker worker : workerService.getAliveWorkers()) {
+            if (!workerService.canAcceptMoreWorks(worker)) {
+                continue;
+            }
+            String walletAddress = worker.getWalletAddress();
+            if (taskDispatchIndex.getAssignableTask(chainTaskId, walletAddress, worker.isTeeEnabled()).isEmpty()) {
+                continue;
+            }
+            sentOffers.put(getOfferKey(chainTaskId, walletAddress), chainTaskId);
+            notificationService.sendReplicateOffer(walletAddress, offer);
+            nbOffers++;
+        }
+        log.info("Sent replicate offers [chainTaskId:{}, nbOffers:{}]", chainTaskId, nbOffers);
+    }
+}
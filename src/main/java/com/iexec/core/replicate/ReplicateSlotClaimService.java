@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.replicate;
+
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import com.iexec.core.task.event.TasksArchivedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking claims on the replicate slots of a task.
+ * <p>
+ * A worker asking for a replicate has to claim the task before checking
+ * if another contribution is needed and creating the replicate, so two
+ * workers can't take the last slot of the same task. A claim is a single
+ * compare-and-set: a worker which loses the race does not wait, it goes
+ * on with the next task.
+ * <p>
+ * Claims of a task are dropped once the task reaches a final status, seen
+ * from this instance or from the database (written by another instance),
+ * and when the task is archived.
+ */
+@Slf4j
+@Service
+public class ReplicateSlotClaimService {
+
+    static final String CLAIMS_METRIC = "iexec.core.replicate.slot.claims";
+    static final String TRACKED_CLAIMS_METRIC = "iexec.core.replicate.slot.claims.tracked";
+    static final String HELD_CLAIMS_METRIC = "iexec.core.replicate.slot.claims.held";
+
+    private final Map<String, AtomicBoolean> claims = new ConcurrentHashMap<>();
+
+    private final Counter acquiredClaimsCounter;
+    private final Counter contendedClaimsCounter;
+
+    public ReplicateSlotClaimService(MeterRegistry meterRegistry) {
+        this.acquiredClaimsCounter = Counter.builder(CLAIMS_METRIC)
+                .description("Claims acquired on replicate slots")
+                .tag("result", "acquired")
+                .register(meterRegistry);
+        this.contendedClaimsCounter = Counter.builder(CLAIMS_METRIC)
+                .description("Claims refused since the task was already claimed")
+                .tag("result", "contended")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize(TRACKED_CLAIMS_METRIC, Tags.empty(), claims);
+        Gauge.builder(HELD_CLAIMS_METRIC, this, ReplicateSlotClaimService::getNbHeldClaims)
+                .description("Claims currently held on replicate slots")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Try to claim the replicate slots of a task without blocking.
+     *
+     * @param chainTaskId ID of the task
+     * @return true if the caller now holds the claim and must release it
+     */
+    public boolean tryClaim(String chainTaskId) {
+        boolean isClaimed = claims.computeIfAbsent(chainTaskId, id -> new AtomicBoolean())
+                .compareAndSet(false, true);
+        if (isClaimed) {
+            acquiredClaimsCounter.increment();
+        } else {
+            contendedClaimsCounter.increment();
+        }
+        return isClaimed;
+    }
+
+    public void release(String chainTaskId) {
+        AtomicBoolean claim = claims.get(chainTaskId);
+        if (claim != null) {
+            claim.set(false);
+        }
+    }
+
+    public boolean isClaimed(String chainTaskId) {
+        AtomicBoolean claim = claims.get(chainTaskId);
+        return claim != null && claim.get();
+    }
+
+    int getNbTrackedTasks() {
+        return claims.size();
+    }
+
+    long getNbHeldClaims() {
+        return claims.values().stream()
+                .filter(AtomicBoolean::get)
+                .count();
+    }
+
+    @EventListener
+    public void onTaskStatusUpdated(TaskStatusUpdatedEvent event) {
+        dropClaimIfFinal(event.getTask());
+    }
+
+    @EventListener
+    public void onTaskDocumentChanged(TaskDocumentChangedEvent event) {
+        dropClaimIfFinal(event.getTask());
+    }
+
+    @EventListener
+    public void onTasksArchived(TasksArchivedEvent event) {
+        event.getChainTaskIds().forEach(claims::remove);
+    }
+
+    private void dropClaimIfFinal(Task task) {
+        if (TaskStatus.isFinalStatus(task.getCurrentStatus())
+                && claims.remove(task.getChainTaskId()) != null) {
+            log.debug("Dropped replicate slot claim of final task [chainTaskId:{}, status:{}]",
+                    task.getChainTaskId(), task.getCurrentStatus());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.replicate;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.common.replicate.ReplicateStatusUpdate;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Statuses of a replicate which are queried on each poll and consensus check,
+ * kept up to date on each status update instead of being found again by going
+ * through the whole status history.
+ * <p>
+ * The summary is not stored: it is rebuilt from the history once after it is
+ * read from the database, or when the history was changed from outside.
+ */
+class ReplicateStatusSummary {
+
+    // skipped by Replicate#getLastRelevantStatus()
+    private static final Set<ReplicateStatus> IGNORED_STATUSES =
+            EnumSet.of(ReplicateStatus.WORKER_LOST, ReplicateStatus.RECOVERING);
+
+    private final Set<ReplicateStatus> seenStatuses = EnumSet.noneOf(ReplicateStatus.class);
+    private int nbStatusUpdates;
+    private Date creationDate;
+    private ReplicateStatus currentStatus;
+    private ReplicateStatus lastButOneStatus;
+    private Optional<ReplicateStatus> lastRelevantStatus = Optional.empty();
+
+    static ReplicateStatusSummary of(List<ReplicateStatusUpdate> statusUpdateList) {
+        ReplicateStatusSummary summary = new ReplicateStatusSummary();
+        if (statusUpdateList != null) {
+            statusUpdateList.forEach(summary::add);
+        }
+        return summary;
+    }
+
+    void add(ReplicateStatusUpdate statusUpdate) {
+        ReplicateStatus status = statusUpdate.getStatus();
+        if (nbStatusUpdates == 0) {
+            creationDate = statusUpdate.getDate();
+        }
+        nbStatusUpdates++;
+        lastButOneStatus = currentStatus;
+        currentStatus = status;
+        seenStatuses.add(status);
+        if (!IGNORED_STATUSES.contains(status) && lastRelevantStatus.orElse(null) != status) {
+            lastRelevantStatus = Optional.of(status);
+        }
+    }
+
+    /**
+     * Whether this summary was built from all updates of the given history.
+     */
+    boolean isSummaryOf(List<ReplicateStatusUpdate> statusUpdateList) {
+        int size = statusUpdateList != null ? statusUpdateList.size() : 0;
+        return nbStatusUpdates == size;
+    }
+
+    boolean contains(ReplicateStatus status) {
+        return seenStatuses.contains(status);
+    }
+
+    Date getCreationDate() {
+        return creationDate;
+    }
+
+    ReplicateStatus getCurrentStatus() {
+        return currentStatus;
+    }
+
+    ReplicateStatus getLastButOneStatus() {
+        return lastButOneStatus;
+    }
+
+    Optional<ReplicateStatus> getLastRelevantStatus() {
+        return lastRelevantStatus;
+    }
+}
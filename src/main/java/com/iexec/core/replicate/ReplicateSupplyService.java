@@ -22,15 +22,15 @@ import com.iexec.common.notification.TaskNotificationExtra;
 import com.iexec.common.notification.TaskNotificationType;
 import com.iexec.common.replicate.ReplicateStatus;
 import com.iexec.common.replicate.ReplicateStatusDetails;
-import com.iexec.common.replicate.ReplicateStatusUpdate;
+import com.iexec.core.chain.BlockHeadTracker;
+import com.iexec.core.chain.GasBalanceTracker;
 import com.iexec.core.chain.SignatureService;
-import com.iexec.core.chain.Web3jService;
-import com.iexec.core.detector.task.ContributionTimeoutTaskDetector;
 import com.iexec.core.contribution.ConsensusService;
 import com.iexec.core.sms.SmsService;
 import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.dispatch.TaskDispatchIndex;
 import com.iexec.core.worker.Worker;
 import com.iexec.core.worker.WorkerService;
 import org.springframework.dao.OptimisticLockingFailureException;
@@ -38,7 +38,8 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.iexec.common.replicate.ReplicateStatus.*;
 
@@ -51,41 +52,68 @@ public class ReplicateSupplyService {
     private final TaskService taskService;
     private final WorkerService workerService;
     private final SmsService smsService;
-    private final Web3jService web3jService;
-    private final ContributionTimeoutTaskDetector contributionTimeoutTaskDetector;
+    private final GasBalanceTracker gasBalanceTracker;
+    private final BlockHeadTracker blockHeadTracker;
+    private final TaskDispatchIndex taskDispatchIndex;
     private final ConsensusService consensusService;
+    private final ReplicateSlotClaimService replicateSlotClaimService;
 
     public ReplicateSupplyService(ReplicatesService replicatesService,
                                   SignatureService signatureService,
                                   TaskService taskService,
                                   WorkerService workerService,
                                   SmsService smsService,
-                                  Web3jService web3jService,
-                                  ContributionTimeoutTaskDetector contributionTimeoutTaskDetector,
-                                  ConsensusService consensusService) {
+                                  GasBalanceTracker gasBalanceTracker,
+                                  BlockHeadTracker blockHeadTracker,
+                                  TaskDispatchIndex taskDispatchIndex,
+                                  ConsensusService consensusService,
+                                  ReplicateSlotClaimService replicateSlotClaimService) {
         this.replicatesService = replicatesService;
         this.signatureService = signatureService;
         this.taskService = taskService;
         this.workerService = workerService;
         this.smsService = smsService;
-        this.web3jService = web3jService;
-        this.contributionTimeoutTaskDetector = contributionTimeoutTaskDetector;
+        this.gasBalanceTracker = gasBalanceTracker;
+        this.blockHeadTracker = blockHeadTracker;
+        this.taskDispatchIndex = taskDispatchIndex;
         this.consensusService = consensusService;
+        this.replicateSlotClaimService = replicateSlotClaimService;
     }
 
     /*
      * #1 Retryable - In case the task has been modified between reading and writing it, it is retried up to 5 times
      *
-     * #2 TaskAccessForNewReplicateLock - To avoid the case where only 1 replicate is required but 2 replicates are
-     * created since 2 workers are calling getAvailableReplicate() and reading the database at the same time, we need a
-     *  'TaskAccessForNewReplicateLock' which should be:
-     *  - locked before `replicatesService.moreReplicatesNeeded(..)`
+     * #2 ReplicateSlotClaim - To avoid the case where only 1 replicate is required but 2 replicates are
+     * created since 2 workers are calling getAvailableReplicate() and reading the database at the same time, the
+     * task needs to be claimed with `replicateSlotClaimService.tryClaim(..)` which is:
+     *  - acquired before `consensusService.doesTaskNeedMoreContributionsForConsensus(..)`
      *  - released after `replicatesService.addNewReplicate(..)` in the best scenario
-     *  - released before any `continue` or  `return`
+     *  - released in any other case, including when the replicate can't be saved
      *
      */
     @Retryable(value = {OptimisticLockingFailureException.class}, maxAttempts = 5)
     Optional<WorkerpoolAuthorization> getAuthOfAvailableReplicate(long workerLastBlock, String walletAddress) {
+        // candidates are read from the dispatch index instead of scanning all running tasks,
+        // they are still checked below since the index may be a little behind the database
+        return getAuthOfReplicate(workerLastBlock, walletAddress,
+                worker -> taskDispatchIndex.getAssignableTasks(walletAddress, worker.isTeeEnabled()));
+    }
+
+    /*
+     * Same as getAuthOfAvailableReplicate(..) but only for the task offered
+     * to the worker (see ReplicateOfferService).
+     */
+    @Retryable(value = {OptimisticLockingFailureException.class}, maxAttempts = 5)
+    Optional<WorkerpoolAuthorization> getAuthOfOfferedReplicate(long workerLastBlock,
+                                                                String walletAddress,
+                                                                String chainTaskId) {
+        return getAuthOfReplicate(workerLastBlock, walletAddress,
+                worker -> taskDispatchIndex.getAssignableTask(chainTaskId, walletAddress, worker.isTeeEnabled()).stream());
+    }
+
+    private Optional<WorkerpoolAuthorization> getAuthOfReplicate(long workerLastBlock,
+                                                                 String walletAddress,
+                                                                 Function<Worker, Stream<Task>> candidateTasksProvider) {
         // return empty if max computing task is reached or if the worker is not found
         if (!workerService.canAcceptMoreWorks(walletAddress)) {
             return Optional.empty();
@@ -98,37 +126,29 @@ public class ReplicateSupplyService {
             return Optional.empty();
         }
 
-        if (!web3jService.hasEnoughGas(walletAddress)) {
+        if (!gasBalanceTracker.hasEnoughGas(walletAddress)) {
             return Optional.empty();
         }
 
-        // return empty if there is no task to contribute
-        List<Task> runningTasks = taskService.getInitializedOrRunningTasks();
-        if (runningTasks.isEmpty()) {
-            return Optional.empty();
-        }
-
-        // filter the Tasks that have reached the contribution deadline
-        List<Task> validTasks = runningTasks.stream()
-                .filter(task -> {
-                    if (task.isContributionDeadlineReached()) {
-                        contributionTimeoutTaskDetector.detect();
-                        return false;
-                    } else {
-                        return true;
-                    }
-                })
-                .collect(Collectors.toCollection(ArrayList::new));
-
         Optional<Worker> optional = workerService.getWorker(walletAddress);
         if (optional.isEmpty()) {
             return Optional.empty();
         }
         Worker worker = optional.get();
 
-        for (Task task : validTasks) {
+        Iterator<Task> candidateTasks = candidateTasksProvider.apply(worker).iterator();
+
+        while (candidateTasks.hasNext()) {
+            Task task = candidateTasks.next();
             String chainTaskId = task.getChainTaskId();
 
+            // the task should be updated since the contribution deadline is reached
+            if (task.isContributionDeadlineReached()) {
+                taskDispatchIndex.remove(chainTaskId);
+                taskService.updateTask(chainTaskId);
+                continue;
+            }
+
             // no need to ge further if the consensus is already reached on-chain
             // the task should be updated since the consensus is reached but it is still in RUNNING status
             if (taskService.isConsensusReached(task)) {
@@ -142,59 +162,105 @@ public class ReplicateSupplyService {
                 continue;
             }
 
-            taskService.initializeTaskAccessForNewReplicateLock(chainTaskId);
-            if (taskService.isTaskBeingAccessedForNewReplicate(chainTaskId)) {
+            if (!replicateSlotClaimService.tryClaim(chainTaskId)) {
                 continue;//skip task if being accessed
             }
-            taskService.lockTaskAccessForNewReplicate(chainTaskId);
 
-            boolean isFewBlocksAfterInitialization = isFewBlocksAfterInitialization(task);
-            boolean hasWorkerAlreadyParticipated = replicatesService.hasWorkerAlreadyParticipated(
-                    chainTaskId, walletAddress);
+            String enclaveChallenge;
+            try {
+                boolean isFewBlocksAfterInitialization = isFewBlocksAfterInitialization(
+                        task, blockHeadTracker.getLatestBlockNumber());
 
-            if (isFewBlocksAfterInitialization && !hasWorkerAlreadyParticipated
-                    && consensusService.doesTaskNeedMoreContributionsForConsensus(chainTaskId, task.getTrust(), task.getMaxExecutionTime())) {
+                if (!isFewBlocksAfterInitialization
+                        || !consensusService.doesTaskNeedMoreContributionsForConsensus(chainTaskId, task.getTrust(), task.getMaxExecutionTime())) {
+                    continue;
+                }
 
-                String enclaveChallenge = smsService.getEnclaveChallenge(chainTaskId, isTeeTask);
+                enclaveChallenge = smsService.getEnclaveChallenge(chainTaskId, isTeeTask);
                 if (enclaveChallenge.isEmpty()) {
-                    taskService.unlockTaskAccessForNewReplicate(chainTaskId);//avoid dead lock
                     continue;
                 }
 
-                replicatesService.addNewReplicate(chainTaskId, walletAddress);
-                taskService.unlockTaskAccessForNewReplicate(chainTaskId);
-                workerService.addChainTaskIdToWorker(chainTaskId, walletAddress);
-
-                // generate contribution authorization
-                return Optional.of(signatureService.createAuthorization(
-                        walletAddress, chainTaskId, enclaveChallenge));
+                // the index already skips tasks of the worker, the guarded push
+                // refuses the replicate if the index is behind the database
+                if (!replicatesService.addNewReplicate(chainTaskId, walletAddress)) {
+                    continue;
+                }
+                consensusService.onReplicateAdded(chainTaskId, walletAddress);
+                taskDispatchIndex.onReplicateAdded(chainTaskId, walletAddress);
+            } finally {
+                // always released, even if the replicate could not be saved
+                replicateSlotClaimService.release(chainTaskId);
             }
-            taskService.unlockTaskAccessForNewReplicate(chainTaskId);
+            workerService.addChainTaskIdToWorker(chainTaskId, walletAddress);
+
+            // generate contribution authorization
+            return Optional.of(signatureService.createAuthorization(
+                    walletAddress, chainTaskId, enclaveChallenge));
         }
 
         return Optional.empty();
     }
 
-    private boolean isFewBlocksAfterInitialization(Task task) {
-        long lastBlock = web3jService.getLatestBlockNumber();
+    /*
+     * Same as getAuthOfAvailableReplicate(..) for up to `maxNbAuthorizations` replicates of
+     * different tasks, each of them being claimed on its own. Stops as soon as the worker
+     * can't accept more works or no more replicate is available.
+     */
+    List<WorkerpoolAuthorization> getAuthsOfAvailableReplicates(long workerLastBlock,
+                                                                String walletAddress,
+                                                                int maxNbAuthorizations) {
+        List<WorkerpoolAuthorization> authorizations = new ArrayList<>();
+        while (authorizations.size() < maxNbAuthorizations) {
+            Optional<WorkerpoolAuthorization> oAuthorization;
+            try {
+                oAuthorization = getAuthOfAvailableReplicate(workerLastBlock, walletAddress);
+            } catch (OptimisticLockingFailureException e) {
+                // replicates already given to the worker should not be lost
+                break;
+            }
+            if (oAuthorization.isEmpty()) {
+                break;
+            }
+            authorizations.add(oAuthorization.get());
+        }
+        return authorizations;
+    }
+
+    /*
+     * Replicates of a task are only given a few blocks after its initialization,
+     * offers of replicates wait for the same condition.
+     */
+    static boolean isFewBlocksAfterInitialization(Task task, long lastBlock) {
         long initializationBlock = task.getInitializationBlockNumber();
         boolean isFewBlocksAfterInitialization = lastBlock >= initializationBlock + 2;
         return lastBlock > 0 && initializationBlock > 0 && isFewBlocksAfterInitialization;
     }
 
+    /*
+     * All replicates of the worker are read at once, their on-chain statuses
+     * are read in one batched call and RECOVERING is set on them in a single write,
+     * so that many workers coming back at the same time (e.g. after a restart
+     * of the core) don't overload the scheduler.
+     */
     public List<TaskNotification> getMissedTaskNotifications(long blockNumber, String walletAddress) {
 
         List<String> chainTaskIdList = workerService.getChainTaskIds(walletAddress);
         List<Task> tasksWithWorkerParticipation = taskService.getTasksByChainTaskIds(chainTaskIdList);
         List<TaskNotification> taskNotifications = new ArrayList<>();
 
+        Map<String, Replicate> replicates = replicatesService.getReplicatesOfWorker(walletAddress, chainTaskIdList);
+        Map<String, Boolean> contributedOnchain = replicatesService.didReplicatesContributeOnchain(walletAddress,
+                getChainTaskIdsWithLastRelevantStatus(replicates, ReplicateStatus.CONTRIBUTING));
+        Map<String, Boolean> revealedOnchain = replicatesService.didReplicatesRevealOnchain(walletAddress,
+                getChainTaskIdsWithLastRelevantStatus(replicates, ReplicateStatus.REVEALING));
+        List<String> recoveringChainTaskIds = new ArrayList<>();
+
         for (Task task : tasksWithWorkerParticipation) {
             String chainTaskId = task.getChainTaskId();
 
-            Optional<Replicate> oReplicate = replicatesService.getReplicate(chainTaskId, walletAddress);
-            if (!oReplicate.isPresent()) continue;
-
-            Replicate replicate = oReplicate.get();
+            Replicate replicate = replicates.get(chainTaskId);
+            if (replicate == null) continue;
 
             boolean isRecoverable = replicate.isRecoverable();
             if (!isRecoverable) continue;
@@ -202,7 +268,9 @@ public class ReplicateSupplyService {
             String enclaveChallenge = smsService.getEnclaveChallenge(chainTaskId, task.isTeeTask());
             if (task.isTeeTask() && enclaveChallenge.isEmpty()) continue;
 
-            Optional<TaskNotificationType> taskNotificationType = getTaskNotificationType(task, replicate, blockNumber);
+            Optional<TaskNotificationType> taskNotificationType = getTaskNotificationType(task, replicate, blockNumber,
+                    contributedOnchain.getOrDefault(chainTaskId, false),
+                    revealedOnchain.getOrDefault(chainTaskId, false));
             if (!taskNotificationType.isPresent()) continue;
 
             TaskNotificationExtra taskNotificationExtra =
@@ -215,16 +283,29 @@ public class ReplicateSupplyService {
                     .taskNotificationExtra(taskNotificationExtra)
                     .build();
 
-            // change replicate status
-            ReplicateStatusUpdate statusUpdate = ReplicateStatusUpdate.poolManagerRequest(RECOVERING);
-            replicatesService.updateReplicateStatus(chainTaskId, walletAddress, statusUpdate);
-
+            recoveringChainTaskIds.add(chainTaskId);
             taskNotifications.add(taskNotification);
         }
 
+        // change replicate statuses
+        if (!recoveringChainTaskIds.isEmpty()) {
+            replicatesService.setRecoveringStatuses(walletAddress, recoveringChainTaskIds);
+        }
+
         return taskNotifications;
     }
 
+    private List<String> getChainTaskIdsWithLastRelevantStatus(Map<String, Replicate> replicates,
+                                                               ReplicateStatus status) {
+        List<String> chainTaskIds = new ArrayList<>();
+        replicates.forEach((chainTaskId, replicate) -> {
+            if (replicate.getLastRelevantStatus().filter(status::equals).isPresent()) {
+                chainTaskIds.add(chainTaskId);
+            }
+        });
+        return chainTaskIds;
+    }
+
     private TaskNotificationExtra getTaskNotificationExtra(Task task, TaskNotificationType taskNotificationType, String walletAddress, String enclaveChallenge) {
         TaskNotificationExtra taskNotificationExtra = TaskNotificationExtra.builder().build();
 
@@ -243,10 +324,12 @@ public class ReplicateSupplyService {
         return taskNotificationExtra;
     }
 
-    public Optional<TaskNotificationType> getTaskNotificationType(Task task, Replicate replicate, long blockNumber) {
+    public Optional<TaskNotificationType> getTaskNotificationType(Task task, Replicate replicate, long blockNumber,
+                                                                  boolean didReplicateContributeOnChain,
+                                                                  boolean didReplicateRevealOnChain) {
 
         if (task.inContributionPhase()) {
-            return recoverReplicateInContributionPhase(task, replicate, blockNumber);
+            return recoverReplicateInContributionPhase(task, replicate, blockNumber, didReplicateContributeOnChain);
         }
 
         if (task.getCurrentStatus().equals(TaskStatus.CONTRIBUTION_TIMEOUT)) {
@@ -260,7 +343,7 @@ public class ReplicateSupplyService {
         Optional<TaskNotificationType> oRecoveryAction = Optional.empty();
 
         if (task.inRevealPhase()) {
-            oRecoveryAction = recoverReplicateInRevealPhase(task, replicate, blockNumber);
+            oRecoveryAction = recoverReplicateInRevealPhase(task, replicate, blockNumber, didReplicateRevealOnChain);
         }
 
         if (task.inResultUploadPhase()) {
@@ -282,7 +365,8 @@ public class ReplicateSupplyService {
      * CONTRIBUTED + CONSENSUS_REACHED      => TaskNotificationType.PLEASE_REVEAL
      */
 
-    private Optional<TaskNotificationType> recoverReplicateInContributionPhase(Task task, Replicate replicate, long blockNumber) {
+    private Optional<TaskNotificationType> recoverReplicateInContributionPhase(Task task, Replicate replicate, long blockNumber,
+                                                                               boolean didReplicateContributeOnChain) {
         String chainTaskId = task.getChainTaskId();
         String walletAddress = replicate.getWalletAddress();
 
@@ -290,7 +374,6 @@ public class ReplicateSupplyService {
 
         boolean beforeContributing = replicate.isBeforeStatus(ReplicateStatus.CONTRIBUTING);
         boolean didReplicateStartContributing = replicate.getLastRelevantStatus().get().equals(ReplicateStatus.CONTRIBUTING);
-        boolean didReplicateContributeOnChain = replicatesService.didReplicateContributeOnchain(chainTaskId, walletAddress);
 
         if (beforeContributing) {
             return Optional.of(TaskNotificationType.PLEASE_CONTRIBUTE);
@@ -336,7 +419,8 @@ public class ReplicateSupplyService {
      * RESULT_UPLOAD_REQUESTED          => TaskNotificationType.PLEASE_UPLOAD_RESULT
      */
 
-    private Optional<TaskNotificationType> recoverReplicateInRevealPhase(Task task, Replicate replicate, long blockNumber) {
+    private Optional<TaskNotificationType> recoverReplicateInRevealPhase(Task task, Replicate replicate, long blockNumber,
+                                                                         boolean didReplicateRevealOnChain) {
         String chainTaskId = task.getChainTaskId();
         String walletAddress = replicate.getWalletAddress();
 
@@ -344,7 +428,6 @@ public class ReplicateSupplyService {
 
         boolean isInStatusContributed = replicate.getLastRelevantStatus().get().equals(ReplicateStatus.CONTRIBUTED);
         boolean didReplicateStartRevealing = replicate.getLastRelevantStatus().get().equals(ReplicateStatus.REVEALING);
-        boolean didReplicateRevealOnChain = replicatesService.didReplicateRevealOnchain(chainTaskId, walletAddress);
 
         if (isInStatusContributed) {
             return Optional.of(TaskNotificationType.PLEASE_REVEAL);
@@ -399,7 +482,9 @@ public class ReplicateSupplyService {
 
         boolean wasReplicateRequestedToUpload = replicate.getLastRelevantStatus().get().equals(ReplicateStatus.RESULT_UPLOAD_REQUESTED);
         boolean didReplicateStartUploading = replicate.getLastRelevantStatus().get().equals(ReplicateStatus.RESULT_UPLOADING);
-        boolean didReplicateUploadWithoutNotifying = replicatesService.isResultUploaded(task.getChainTaskId());
+        // only checked when needed, it costs a call to the result repository
+        boolean didReplicateUploadWithoutNotifying = didReplicateStartUploading
+                && replicatesService.isResultUploaded(task.getChainTaskId());
         boolean hasReplicateAlreadyUploaded = replicate.getLastRelevantStatus().get().equals(ReplicateStatus.RESULT_UPLOADED);
 
         if (wasReplicateRequestedToUpload) {
@@ -40,15 +40,18 @@ public class ReplicatesController {
     private final ReplicateSupplyService replicateSupplyService;
     private final JwtTokenProvider jwtTokenProvider;
     private final WorkerService workerService;
+    private final ReplicateOfferService replicateOfferService;
 
     public ReplicatesController(ReplicatesService replicatesService,
                                 ReplicateSupplyService replicateSupplyService,
                                 JwtTokenProvider jwtTokenProvider,
-                                WorkerService workerService) {
+                                WorkerService workerService,
+                                ReplicateOfferService replicateOfferService) {
         this.replicatesService = replicatesService;
         this.replicateSupplyService = replicateSupplyService;
         this.jwtTokenProvider = jwtTokenProvider;
         this.workerService = workerService;
+        this.replicateOfferService = replicateOfferService;
     }
 
     @GetMapping("/replicates/available")
@@ -71,6 +74,64 @@ public class ReplicatesController {
                 .orElseGet(() -> status(HttpStatus.NO_CONTENT).build());
     }
 
+    /*
+     * Get up to `maxNbReplicates` replicates at once, to fill all
+     * free slots of a worker in a single demand.
+     */
+    @GetMapping("/replicates/available/batch")
+    public ResponseEntity<List<WorkerpoolAuthorization>> getAvailableReplicates(
+        @RequestParam(name = "blockNumber") long blockNumber,
+        @RequestParam(name = "maxNbReplicates") int maxNbReplicates,
+        @RequestHeader("Authorization") String bearerToken) {
+        String workerWalletAddress = jwtTokenProvider.getWalletAddressFromBearerToken(bearerToken);
+        if (workerWalletAddress.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED.value()).build();
+        }
+
+        if (maxNbReplicates < 1) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST.value()).build();
+        }
+
+        if (!workerService.isWorkerAllowedToAskReplicate(workerWalletAddress)){
+            return ResponseEntity.status(HttpStatus.NO_CONTENT.value()).build();
+        }
+        workerService.updateLastReplicateDemandDate(workerWalletAddress);
+
+        List<WorkerpoolAuthorization> authorizations = replicateSupplyService
+                .getAuthsOfAvailableReplicates(blockNumber, workerWalletAddress, maxNbReplicates);
+        if (authorizations.isEmpty()) {
+            return status(HttpStatus.NO_CONTENT).build();
+        }
+        return ResponseEntity.ok(authorizations);
+    }
+
+    /*
+     * Claim a replicate offered to the worker (see ReplicateOfferService).
+     * It is not throttled like polling since the worker was invited, but
+     * each offer sent to the worker can only be claimed once before it
+     * expires.
+     */
+    @PostMapping("/replicates/offers/{chainTaskId}/claim")
+    public ResponseEntity<WorkerpoolAuthorization> claimOfferedReplicate(
+        @PathVariable(name = "chainTaskId") String chainTaskId,
+        @RequestParam(name = "blockNumber") long blockNumber,
+        @RequestHeader("Authorization") String bearerToken) {
+        String workerWalletAddress = jwtTokenProvider.getWalletAddressFromBearerToken(bearerToken);
+        if (workerWalletAddress.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED.value()).build();
+        }
+
+        if (!replicateOfferService.claimOffer(chainTaskId, workerWalletAddress)) {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT.value()).build();
+        }
+        workerService.updateLastReplicateDemandDate(workerWalletAddress);
+
+        return replicateSupplyService
+                .getAuthOfOfferedReplicate(blockNumber, workerWalletAddress, chainTaskId)
+                .<ResponseEntity<WorkerpoolAuthorization>>map(ResponseEntity::ok)
+                .orElseGet(() -> status(HttpStatus.NO_CONTENT).build());
+    }
+
     @GetMapping("/replicates/interrupted")
     public ResponseEntity<List<TaskNotification>> getMissedTaskNotifications(
             @RequestParam(name = "blockNumber") long blockNumber,
@@ -20,7 +20,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-interface ReplicatesRepository extends MongoRepository<ReplicatesList, String> {
+interface ReplicatesRepository extends MongoRepository<ReplicatesList, String>, ReplicatesRepositoryCustom {
 
     Optional<ReplicatesList> findByChainTaskId(String chainTaskId);
 }
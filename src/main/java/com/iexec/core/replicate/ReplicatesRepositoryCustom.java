@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.replicate;
+
+import com.iexec.common.replicate.ReplicateStatusUpdate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Atomic in-place updates of a {@link ReplicatesList}. They only touch
+ * the targeted replicate instead of rewriting the whole document, so
+ * concurrent updates of different replicates of a task do not conflict.
+ */
+interface ReplicatesRepositoryCustom {
+
+    /**
+     * Append a replicate to the list of a task if the worker
+     * does not have a replicate on this task yet.
+     *
+     * @return true if the replicate has been added
+     */
+    boolean pushReplicate(String chainTaskId, Replicate replicate);
+
+    /**
+     * Append a status update to a replicate and save the replicate fields
+     * which may change along with its status. The update is only applied
+     * if no other status has been appended since the replicate was read.
+     *
+     * @param replicate               replicate holding the fields to save
+     * @param expectedNbStatusUpdates number of status updates of the replicate when it was read
+     * @param statusUpdate            status update to append
+     * @return true if the replicate has been updated
+     */
+    boolean pushReplicateStatusUpdate(String chainTaskId,
+                                      Replicate replicate,
+                                      int expectedNbStatusUpdates,
+                                      ReplicateStatusUpdate statusUpdate);
+
+    /**
+     * Same as pushReplicateStatusUpdate(..) for replicates of many tasks,
+     * in a single bulk write. Each replicate is guarded on its own.
+     *
+     * @param replicates   replicates read before the status update was applied on them
+     * @param statusUpdate status update to append
+     * @return number of replicates updated
+     */
+    int pushReplicatesStatusUpdate(Collection<Replicate> replicates,
+                                   ReplicateStatusUpdate statusUpdate);
+
+    /**
+     * Get the replicate of a worker on many tasks in a single query.
+     * Replicates of other workers are not read.
+     *
+     * @return lists holding only the replicate of the worker
+     */
+    List<ReplicatesList> findReplicatesOfWorker(String walletAddress, Collection<String> chainTaskIds);
+
+    /**
+     * Move replicates lists of tasks to the replicates list archive collection.
+     *
+     * @return number of replicates lists archived
+     */
+    long archive(List<String> chainTaskIds);
+
+    Optional<ReplicatesList> findArchivedByChainTaskId(String chainTaskId);
+}
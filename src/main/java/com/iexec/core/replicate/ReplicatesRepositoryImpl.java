@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.replicate;
+
+import com.iexec.common.replicate.ReplicateStatusUpdate;
+import com.iexec.core.archive.MongoArchive;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+class ReplicatesRepositoryImpl implements ReplicatesRepositoryCustom {
+
+    private static final String CHAIN_TASK_ID = "chainTaskId";
+    private static final String REPLICATES = "replicates";
+    private static final String VERSION = "version";
+    private static final String WALLET_ADDRESS = "walletAddress";
+    // positional operator targeting the replicate matched by the query
+    private static final String MATCHED_REPLICATE = REPLICATES + ".$.";
+
+    private final MongoTemplate mongoTemplate;
+
+    ReplicatesRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean pushReplicate(String chainTaskId, Replicate replicate) {
+        Query query = Query.query(Criteria.where(CHAIN_TASK_ID).is(chainTaskId)
+                .and(REPLICATES + "." + WALLET_ADDRESS).ne(replicate.getWalletAddress()));
+        // version is incremented so that a concurrent save() of the whole list is rejected
+        Update update = new Update()
+                .push(REPLICATES, replicate)
+                .inc(VERSION, 1);
+        return mongoTemplate.updateFirst(query, update, ReplicatesList.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean pushReplicateStatusUpdate(String chainTaskId,
+                                             Replicate replicate,
+                                             int expectedNbStatusUpdates,
+                                             ReplicateStatusUpdate statusUpdate) {
+        return mongoTemplate.updateFirst(
+                getStatusUpdateQuery(chainTaskId, replicate.getWalletAddress(), expectedNbStatusUpdates),
+                getStatusUpdate(replicate, statusUpdate),
+                ReplicatesList.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public int pushReplicatesStatusUpdate(Collection<Replicate> replicates,
+                                          ReplicateStatusUpdate statusUpdate) {
+        if (replicates.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReplicatesList.class);
+        for (Replicate replicate : replicates) {
+            bulkOperations.updateOne(
+                    getStatusUpdateQuery(replicate.getChainTaskId(), replicate.getWalletAddress(),
+                            replicate.getStatusUpdateList().size()),
+                    getStatusUpdate(replicate, statusUpdate));
+        }
+        return bulkOperations.execute().getModifiedCount();
+    }
+
+    @Override
+    public List<ReplicatesList> findReplicatesOfWorker(String walletAddress, Collection<String> chainTaskIds) {
+        Query query = Query.query(Criteria.where(CHAIN_TASK_ID).in(chainTaskIds)
+                .and(REPLICATES + "." + WALLET_ADDRESS).is(walletAddress));
+        query.fields()
+                .include(CHAIN_TASK_ID)
+                .include(VERSION)
+                .elemMatch(REPLICATES, Criteria.where(WALLET_ADDRESS).is(walletAddress));
+        return mongoTemplate.find(query, ReplicatesList.class);
+    }
+
+    @Override
+    public long archive(List<String> chainTaskIds) {
+        return MongoArchive.moveToArchive(mongoTemplate, ReplicatesList.class, chainTaskIds);
+    }
+
+    @Override
+    public Optional<ReplicatesList> findArchivedByChainTaskId(String chainTaskId) {
+        return MongoArchive.findArchived(mongoTemplate, ReplicatesList.class, chainTaskId);
+    }
+
+    private static Query getStatusUpdateQuery(String chainTaskId, String walletAddress, int expectedNbStatusUpdates) {
+        return Query.query(Criteria.where(CHAIN_TASK_ID).is(chainTaskId)
+                .and(REPLICATES).elemMatch(Criteria.where(WALLET_ADDRESS).is(walletAddress)
+                        .and("statusUpdateList").size(expectedNbStatusUpdates)));
+    }
+
+    private static Update getStatusUpdate(Replicate replicate, ReplicateStatusUpdate statusUpdate) {
+        return new Update()
+                .push(MATCHED_REPLICATE + "statusUpdateList", statusUpdate)
+                .set(MATCHED_REPLICATE + "contributionHash", replicate.getContributionHash())
+                .set(MATCHED_REPLICATE + "workerWeight", replicate.getWorkerWeight())
+                .set(MATCHED_REPLICATE + "resultLink", replicate.getResultLink())
+                .set(MATCHED_REPLICATE + "chainCallbackData", replicate.getChainCallbackData())
+                .inc(VERSION, 1);
+    }
+}
@@ -19,6 +19,7 @@ package com.iexec.core.replicate;
 import static com.iexec.common.replicate.ReplicateStatus.COMPUTED;
 import static com.iexec.common.replicate.ReplicateStatus.CONTRIBUTED;
 import static com.iexec.common.replicate.ReplicateStatus.FAILED;
+import static com.iexec.common.replicate.ReplicateStatus.RECOVERING;
 import static com.iexec.common.replicate.ReplicateStatus.RESULT_UPLOADED;
 import static com.iexec.common.replicate.ReplicateStatus.REVEALED;
 import static com.iexec.common.replicate.ReplicateStatus.REVEALING;
@@ -26,14 +27,19 @@ import static com.iexec.common.replicate.ReplicateStatus.WORKER_LOST;
 import static com.iexec.common.replicate.ReplicateStatus.getChainStatus;
 import static com.iexec.common.replicate.ReplicateStatusCause.REVEAL_TIMEOUT;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.iexec.common.chain.ChainContribution;
+import com.iexec.common.chain.ChainContributionStatus;
 import com.iexec.common.notification.TaskNotificationType;
 import com.iexec.common.replicate.ReplicateStatus;
 import com.iexec.common.replicate.ReplicateStatusCause;
@@ -41,11 +47,12 @@ import com.iexec.common.replicate.ReplicateStatusDetails;
 import com.iexec.common.replicate.ReplicateStatusUpdate;
 import com.iexec.common.task.TaskDescription;
 import com.iexec.core.chain.IexecHubService;
-import com.iexec.core.chain.Web3jService;
+import com.iexec.core.chain.BlockHeadTracker;
 import com.iexec.core.result.ResultService;
 import com.iexec.core.stdout.StdoutService;
 import com.iexec.core.workflow.ReplicateWorkflow;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.retry.annotation.Recover;
@@ -61,40 +68,47 @@ public class ReplicatesService {
     private ReplicatesRepository replicatesRepository;
     private IexecHubService iexecHubService;
     private ApplicationEventPublisher applicationEventPublisher;
-    private Web3jService web3jService;
+    private BlockHeadTracker blockHeadTracker;
     private ResultService resultService;
     private StdoutService stdoutService;
 
     public ReplicatesService(ReplicatesRepository replicatesRepository,
                              IexecHubService iexecHubService,
                              ApplicationEventPublisher applicationEventPublisher,
-                             Web3jService web3jService,
+                             BlockHeadTracker blockHeadTracker,
                              ResultService resultService,
                              StdoutService stdoutService) {
         this.replicatesRepository = replicatesRepository;
         this.iexecHubService = iexecHubService;
         this.applicationEventPublisher = applicationEventPublisher;
-        this.web3jService = web3jService;
+        this.blockHeadTracker = blockHeadTracker;
         this.resultService = resultService;
         this.stdoutService = stdoutService;
     }
 
-    public void addNewReplicate(String chainTaskId, String walletAddress) {
-        if (!getReplicate(chainTaskId, walletAddress).isPresent()) {
-            Optional<ReplicatesList> optional = getReplicatesList(chainTaskId);
-            if (optional.isPresent()) {
-                ReplicatesList replicatesList = optional.get();
-                Replicate replicate = new Replicate(walletAddress, chainTaskId);
-                replicate.setWorkerWeight(iexecHubService.getWorkerWeight(walletAddress));// workerWeight value for pendingWeight estimate
-                replicatesList.getReplicates().add(replicate);
+    /**
+     * Add a replicate of a worker to a task. The replicates list is only
+     * read if the replicate could not be added, to log why.
+     *
+     * @return true if the replicate is saved, false if the worker already
+     * has a replicate or if the replicates list of the task does not exist
+     */
+    public boolean addNewReplicate(String chainTaskId, String walletAddress) {
+        Replicate replicate = new Replicate(walletAddress, chainTaskId);
+        replicate.setWorkerWeight(iexecHubService.getWorkerWeight(walletAddress));// workerWeight value for pendingWeight estimate
 
-                replicatesRepository.save(replicatesList);
-                log.info("New replicate saved [chainTaskId:{}, walletAddress:{}]", chainTaskId, walletAddress);
-            }
+        // the push is guarded so a replicate can't be added twice by concurrent calls
+        if (replicatesRepository.pushReplicate(chainTaskId, replicate)) {
+            log.info("New replicate saved [chainTaskId:{}, walletAddress:{}]", chainTaskId, walletAddress);
+            return true;
+        }
+        if (getReplicatesList(chainTaskId).isEmpty()) {
+            log.error("Cannot add replicate, replicates list not found [chainTaskId:{}, walletAddress:{}]",
+                    chainTaskId, walletAddress);
         } else {
             log.error("Replicate already saved [chainTaskId:{}, walletAddress:{}]", chainTaskId, walletAddress);
         }
-
+        return false;
     }
 
     public synchronized void createEmptyReplicateList(String chainTaskId) {
@@ -105,6 +119,18 @@ public class ReplicatesService {
         return replicatesRepository.findByChainTaskId(chainTaskId);
     }
 
+    public Optional<ReplicatesList> getArchivedReplicatesList(String chainTaskId) {
+        return replicatesRepository.findArchivedByChainTaskId(chainTaskId);
+    }
+
+    /**
+     * Move replicates lists of tasks which are over to the archive.
+     * They can then only be read with getArchivedReplicatesList(..).
+     */
+    public long archiveReplicatesLists(List<String> chainTaskIds) {
+        return replicatesRepository.archive(chainTaskIds);
+    }
+
     public List<Replicate> getReplicates(String chainTaskId) {
         Optional<ReplicatesList> optionalList = getReplicatesList(chainTaskId);
         if (!optionalList.isPresent()) {
@@ -128,6 +154,74 @@ public class ReplicatesService {
         return Optional.empty();
     }
 
+    /**
+     * Get the replicates of a worker on many tasks in a single read.
+     *
+     * @param walletAddress wallet of the worker
+     * @param chainTaskIds  IDs of the tasks
+     * @return replicates of the worker by chainTaskId
+     */
+    public Map<String, Replicate> getReplicatesOfWorker(String walletAddress, Collection<String> chainTaskIds) {
+        if (chainTaskIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Replicate> replicates = new HashMap<>();
+        for (ReplicatesList replicatesList : replicatesRepository.findReplicatesOfWorker(walletAddress, chainTaskIds)) {
+            replicatesList.getReplicateOfWorker(walletAddress)
+                    .ifPresent(replicate -> replicates.put(replicatesList.getChainTaskId(), replicate));
+        }
+        return replicates;
+    }
+
+    /*
+     * RECOVERING is set on all replicates of the worker in a single bulk write.
+     * Replicates modified concurrently are not updated by the bulk write,
+     * they are updated one by one afterwards.
+     */
+    public void setRecoveringStatuses(String walletAddress, Collection<String> chainTaskIds) {
+        ReplicateStatusUpdate statusUpdate = ReplicateStatusUpdate.poolManagerRequest(RECOVERING);
+        List<Replicate> replicates = new ArrayList<>();
+        for (Replicate replicate : getReplicatesOfWorker(walletAddress, chainTaskIds).values()) {
+            if (ReplicateWorkflow.getInstance().isValidTransition(replicate.getCurrentStatus(), RECOVERING)) {
+                replicates.add(replicate);
+            } else {
+                log.error("Cannot update replicate, bad wokfow transition {}",
+                        getStatusUpdateLogs(replicate.getChainTaskId(), replicate, statusUpdate));
+            }
+        }
+        if (replicates.isEmpty()) {
+            return;
+        }
+
+        int nbUpdated = replicatesRepository.pushReplicatesStatusUpdate(replicates, statusUpdate);
+        Set<String> notUpdatedChainTaskIds = new HashSet<>();
+        if (nbUpdated < replicates.size()) {
+            Map<String, Replicate> updatedReplicates = getReplicatesOfWorker(walletAddress,
+                    replicates.stream().map(Replicate::getChainTaskId).collect(Collectors.toList()));
+            for (Replicate replicate : replicates) {
+                Replicate updatedReplicate = updatedReplicates.get(replicate.getChainTaskId());
+                if (updatedReplicate == null || updatedReplicate.getCurrentStatus() != RECOVERING) {
+                    notUpdatedChainTaskIds.add(replicate.getChainTaskId());
+                }
+            }
+        }
+        for (Replicate replicate : replicates) {
+            String chainTaskId = replicate.getChainTaskId();
+            if (!notUpdatedChainTaskIds.contains(chainTaskId)) {
+                applicationEventPublisher.publishEvent(new ReplicateUpdatedEvent(chainTaskId, walletAddress, statusUpdate));
+                continue;
+            }
+            try {
+                updateReplicateStatus(chainTaskId, walletAddress, statusUpdate);
+            } catch (OptimisticLockingFailureException e) {
+                log.error("Could not set replicate to RECOVERING [chainTaskId:{}, walletAddress:{}]",
+                        chainTaskId, walletAddress);
+            }
+        }
+        log.info("Replicates set to RECOVERING [walletAddress:{}, nbReplicates:{}, nbUpdatedInBulk:{}]",
+                walletAddress, replicates.size(), nbUpdated);
+    }
+
     public boolean hasWorkerAlreadyParticipated(String chainTaskId, String walletAddress) {
         return getReplicate(chainTaskId, walletAddress).isPresent();
     }
@@ -147,12 +241,10 @@ public class ReplicatesService {
     public int getNbReplicatesContainingStatus(String chainTaskId, ReplicateStatus... listStatus) {
         Set<String> addressReplicates = new HashSet<>();
         for (Replicate replicate : getReplicates(chainTaskId)) {
-            List<ReplicateStatus> listReplicateStatus = replicate.getStatusUpdateList().stream()
-                    .map(ReplicateStatusUpdate::getStatus)
-                    .collect(Collectors.toList());
             for (ReplicateStatus status : listStatus) {
-                if (listReplicateStatus.contains(status)) {
+                if (replicate.containsStatus(status)) {
                     addressReplicates.add(replicate.getWalletAddress());
+                    break;
                 }
             }
         }
@@ -246,8 +338,9 @@ public class ReplicatesService {
     }
 
     /*
-     * We retry up to 100 times in case the task has been modified between
-     * reading and writing it.
+     * The status update is pushed atomically on the replicate, other replicates
+     * of the task can be updated at the same time. We only retry (up to 5 times)
+     * if this same replicate has been modified between reading and writing it.
      *
      * Before updating we check:
      *   1) if valid transition.
@@ -255,7 +348,7 @@ public class ReplicatesService {
      *   3) if worker did succeed onChain when CONTRIBUTED/REVEALED.
      *   4) if worker did upload when RESULT_UPLOADING.
      */
-    @Retryable(value = {OptimisticLockingFailureException.class}, maxAttempts = 100)
+    @Retryable(value = {OptimisticLockingFailureException.class}, maxAttempts = 5)
     public Optional<TaskNotificationType> updateReplicateStatus(String chainTaskId,
                                                                 String walletAddress,
                                                                 ReplicateStatusUpdate statusUpdate) {
@@ -271,6 +364,7 @@ public class ReplicatesService {
 
         ReplicatesList replicatesList = oReplicateList.get();
         Replicate replicate = replicatesList.getReplicateOfWorker(walletAddress).get();
+        int nbStatusUpdates = replicate.getStatusUpdateList().size();
         ReplicateStatus newStatus = statusUpdate.getStatus();
 
         boolean isValidTransition = ReplicateWorkflow.getInstance()
@@ -315,7 +409,10 @@ public class ReplicatesService {
         }
 
         replicate.updateStatus(statusUpdate);
-        replicatesRepository.save(replicatesList);
+        if (!replicatesRepository.pushReplicateStatusUpdate(chainTaskId, replicate, nbStatusUpdates, statusUpdate)) {
+            throw new OptimisticLockingFailureException(String.format("Replicate modified concurrently " +
+                    "[chainTaskId:%s, walletAddress:%s]", chainTaskId, walletAddress));
+        }
         applicationEventPublisher.publishEvent(new ReplicateUpdatedEvent(chainTaskId, walletAddress, statusUpdate));
         ReplicateStatusCause newStatusCause = statusUpdate.getDetails() != null ?
                 statusUpdate.getDetails().getCause() : null;
@@ -344,7 +441,7 @@ public class ReplicatesService {
         long receiptBlockNumber = details != null && details.getChainReceipt() != null
                 ? details.getChainReceipt().getBlockNumber() : 0;
 
-        boolean isBlockAvailable = web3jService.isBlockAvailable(receiptBlockNumber);
+        boolean isBlockAvailable = blockHeadTracker.isBlockAvailable(receiptBlockNumber);
         if (!isBlockAvailable) {
             log.error("Cannot update replicate, block not available {}",
                     getStatusUpdateLogs(chainTaskId, replicate, statusUpdate));
@@ -464,6 +561,39 @@ public class ReplicatesService {
                 chainTaskId, walletAddress, getChainStatus(ReplicateStatus.REVEALED));
     }
 
+    /**
+     * Same as didReplicateContributeOnchain(..) for many tasks, read in batched JSON-RPC requests.
+     *
+     * @return true by chainTaskId if the worker contributed on-chain
+     */
+    public Map<String, Boolean> didReplicatesContributeOnchain(String walletAddress, Collection<String> chainTaskIds) {
+        return areStatusesTrueOnChain(walletAddress, chainTaskIds, ChainContributionStatus.CONTRIBUTED);
+    }
+
+    /**
+     * Same as didReplicateRevealOnchain(..) for many tasks, read in batched JSON-RPC requests.
+     *
+     * @return true by chainTaskId if the worker revealed on-chain
+     */
+    public Map<String, Boolean> didReplicatesRevealOnchain(String walletAddress, Collection<String> chainTaskIds) {
+        return areStatusesTrueOnChain(walletAddress, chainTaskIds, ChainContributionStatus.REVEALED);
+    }
+
+    private Map<String, Boolean> areStatusesTrueOnChain(String walletAddress,
+                                                        Collection<String> chainTaskIds,
+                                                        ChainContributionStatus wishedStatus) {
+        if (chainTaskIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Pair<String, String>> chainTaskIdAndWallets = chainTaskIds.stream()
+                .map(chainTaskId -> Pair.of(chainTaskId, walletAddress))
+                .collect(Collectors.toList());
+        Map<String, Boolean> statuses = new HashMap<>();
+        iexecHubService.areStatusesTrueOnChain(chainTaskIdAndWallets, wishedStatus)
+                .forEach((chainTaskIdAndWallet, isTrue) -> statuses.put(chainTaskIdAndWallet.getLeft(), isTrue));
+        return statuses;
+    }
+
     public void setRevealTimeoutStatusIfNeeded(String chainTaskId, Replicate replicate) {
         Optional<ReplicateStatus> oStatus = replicate.getLastRelevantStatus();
         if (!oStatus.isPresent()) {
@@ -17,28 +17,92 @@
 package com.iexec.core.sms;
 
 import com.iexec.common.utils.BytesUtils;
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
 import com.iexec.core.feign.SmsClient;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import com.iexec.core.task.event.TasksArchivedEvent;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+import org.springframework.context.event.EventListener;
 import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class SmsService {
 
+    static final long ENCLAVE_CHALLENGE_EXPIRATION_HOURS = 24;
+
     private SmsClient smsClient;
+    // enclave challenges are per task, they are kept until the task is final.
+    // Entries not read for a while are deleted in case the final status of the
+    // task is never seen here (e.g. finalized by another instance), ExpiringMap is thread-safe
+    private final ExpiringMap<String, String> enclaveChallenges = ExpiringMap.builder()
+            .expiration(ENCLAVE_CHALLENGE_EXPIRATION_HOURS, TimeUnit.HOURS)
+            .expirationPolicy(ExpirationPolicy.ACCESSED)
+            .build();
 
     public SmsService(SmsClient smsClient) {
         this.smsClient = smsClient;
     }
 
     public String getEnclaveChallenge(String chainTaskId, boolean isTeeEnabled) {
-        return isTeeEnabled
-                ? generateEnclaveChallenge(chainTaskId)
-                : BytesUtils.EMPTY_ADDRESS;
+        if (!isTeeEnabled) {
+            return BytesUtils.EMPTY_ADDRESS;
+        }
+        String enclaveChallenge = enclaveChallenges.get(chainTaskId);
+        if (enclaveChallenge != null) {
+            return enclaveChallenge;
+        }
+        enclaveChallenge = generateEnclaveChallenge(chainTaskId);
+        // failures are not cached so the SMS is asked again next time
+        if (!enclaveChallenge.isEmpty()) {
+            enclaveChallenges.put(chainTaskId, enclaveChallenge);
+        }
+        return enclaveChallenge;
+    }
+
+    /*
+     * The enclave challenge of a TEE task is fetched as soon as the task
+     * is initialized, so giving replicates never waits for the SMS.
+     */
+    @Async
+    @EventListener
+    public void onTaskStatusUpdated(TaskStatusUpdatedEvent event) {
+        Task task = event.getTask();
+        if (TaskStatus.isFinalStatus(task.getCurrentStatus())) {
+            enclaveChallenges.remove(task.getChainTaskId());
+        } else if (task.getCurrentStatus() == TaskStatus.INITIALIZED && task.isTeeTask()) {
+            getEnclaveChallenge(task.getChainTaskId(), true);
+        }
+    }
+
+    /*
+     * Tasks updated by another instance of the cluster are only seen here.
+     */
+    @EventListener
+    public void onTaskDocumentChanged(TaskDocumentChangedEvent event) {
+        Task task = event.getTask();
+        if (TaskStatus.isFinalStatus(task.getCurrentStatus())) {
+            enclaveChallenges.remove(task.getChainTaskId());
+        }
+    }
+
+    @EventListener
+    public void onTasksArchived(TasksArchivedEvent event) {
+        event.getChainTaskIds().forEach(enclaveChallenges::remove);
+    }
+
+    boolean isEnclaveChallengeCached(String chainTaskId) {
+        return enclaveChallenges.containsKey(chainTaskId);
     }
 
     @Retryable(value = FeignException.class)
@@ -26,6 +26,7 @@ import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.util.ArrayList;
@@ -47,9 +48,16 @@ import static com.iexec.core.task.TaskStatus.CONSENSUS_REACHED;
  * This can appear when multiple threads call
  * the method {@link TaskService#addTask()}.
  */
-@CompoundIndex(name = "unique_deal_idx",
-        def = "{'chainDealId': 1, 'taskIndex': 1}",
-        unique = true)
+@CompoundIndexes({
+        @CompoundIndex(name = "unique_deal_idx",
+                def = "{'chainDealId': 1, 'taskIndex': 1}",
+                unique = true),
+        // scans of tasks in some statuses whose contribution or final deadline is reached
+        @CompoundIndex(name = "status_contribution_deadline_idx",
+                def = "{'currentStatus': 1, 'contributionDeadline': 1}"),
+        @CompoundIndex(name = "status_final_deadline_idx",
+                def = "{'currentStatus': 1, 'finalDeadline': 1}")
+})
 public class Task {
 
     @Id
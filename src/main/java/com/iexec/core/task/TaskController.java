@@ -51,13 +51,16 @@ public class TaskController {
 
     @GetMapping("/tasks/{chainTaskId}")
     public ResponseEntity<TaskModel> getTask(@PathVariable("chainTaskId") String chainTaskId) {
-        Optional<Task> optionalTask = taskService.getTaskByChainTaskId(chainTaskId);
+        // tasks which are over for a while are only found in the archive
+        Optional<Task> optionalTask = taskService.getTaskByChainTaskId(chainTaskId)
+                .or(() -> taskService.getArchivedTask(chainTaskId));
         if (!optionalTask.isPresent()) {
             return status(HttpStatus.NOT_FOUND).build();
         }
         Task task = optionalTask.get();
 
         ReplicatesList replicates = replicatesService.getReplicatesList(chainTaskId)
+                .or(() -> replicatesService.getArchivedReplicatesList(chainTaskId))
                 .orElseGet(ReplicatesList::new);
 
         TaskModel taskModel = new TaskModel(task, replicates.getReplicates());
@@ -16,6 +16,7 @@
 
 package com.iexec.core.task;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
@@ -23,7 +24,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
-interface TaskRepository extends MongoRepository<Task, String> {
+interface TaskRepository extends MongoRepository<Task, String>, TaskRepositoryCustom {
 
     Optional<Task> findByChainTaskId(String id);
 
@@ -46,5 +47,22 @@ interface TaskRepository extends MongoRepository<Task, String> {
     @Query(value = "{ finalDeadline: {$lt : ?0} }", fields = "{ chainTaskId: true }")
     List<Task> findChainTaskIdsByFinalDeadlineBefore(Date date);
 
+    @Query(value = "{ currentStatus: {$in: ?0}, finalDeadline: {$lt : ?1} }", fields = "{ chainTaskId: true }")
+    List<Task> findChainTaskIdsByCurrentStatusInAndFinalDeadlineBefore(List<TaskStatus> statuses, Date date, Pageable pageable);
+
     List<Task> findByCurrentStatusInAndContributionDeadlineAfter(List<TaskStatus> status, Date date);
+
+    long countByCurrentStatus(TaskStatus status);
+
+    @Query(value = "{ currentStatus: {$in: ?0} }", fields = TaskSummary.FIELDS)
+    List<TaskSummary> findSummariesByCurrentStatus(List<TaskStatus> statuses);
+
+    @Query(value = "{ currentStatus: {$nin: ?0} }", fields = TaskSummary.FIELDS)
+    List<TaskSummary> findSummariesByCurrentStatusNotIn(List<TaskStatus> statuses);
+
+    @Query(value = "{ currentStatus: {$in: ?0}, contributionDeadline: {$lt: ?1} }", fields = TaskSummary.FIELDS)
+    List<TaskSummary> findSummariesByCurrentStatusInAndContributionDeadlineBefore(List<TaskStatus> statuses, Date date);
+
+    @Query(value = "{ currentStatus: {$nin: ?0}, finalDeadline: {$lt: ?1} }", fields = TaskSummary.FIELDS)
+    List<TaskSummary> findSummariesByCurrentStatusNotInAndFinalDeadlineBefore(List<TaskStatus> statuses, Date date);
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.task;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Atomic in-place updates of a {@link Task}. They only touch the status
+ * fields instead of rewriting the whole document with its status history.
+ */
+interface TaskRepositoryCustom {
+
+    /**
+     * Append status changes to the history of a task, set its current status
+     * to the last of them and save the task fields which may change along
+     * with its status. The update is only applied if the stored task has
+     * not been modified since it was read (same version) and is still in the
+     * expected status. The version of the given task is then incremented as
+     * in the database, so it can be updated again.
+     *
+     * @param task                  task holding the fields to save
+     * @param expectedCurrentStatus status of the task when it was read
+     * @param statusChanges         status changes to append, in order
+     * @return true if the task has been updated
+     */
+    boolean pushStatusChanges(Task task,
+                              TaskStatus expectedCurrentStatus,
+                              List<TaskStatusChange> statusChanges);
+
+    /**
+     * Insert many tasks in a single unordered bulk write. Tasks which
+     * already exist (same deal and task index) are skipped, other tasks
+     * are inserted anyway.
+     *
+     * @param tasks new tasks to insert
+     * @return tasks which have been inserted
+     */
+    List<Task> insertAbsentTasks(List<Task> tasks);
+
+    /**
+     * Move tasks to the task archive collection.
+     *
+     * @return number of tasks archived
+     */
+    long archive(List<String> chainTaskIds);
+
+    Optional<Task> findArchivedByChainTaskId(String chainTaskId);
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.task;
+
+import com.iexec.core.archive.MongoArchive;
+import com.mongodb.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    private static final String CHAIN_TASK_ID = "chainTaskId";
+    private static final String CURRENT_STATUS = "currentStatus";
+    private static final String DATE_STATUS_LIST = "dateStatusList";
+    private static final String VERSION = "version";
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    TaskRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean pushStatusChanges(Task task,
+                                     TaskStatus expectedCurrentStatus,
+                                     List<TaskStatusChange> statusChanges) {
+        if (statusChanges.isEmpty()) {
+            return false;
+        }
+        // the status alone is not enough, a task may come back to the same status
+        // (e.g. REOPENED -> INITIALIZED) or be modified without a status change
+        Query query = Query.query(Criteria.where(CHAIN_TASK_ID).is(task.getChainTaskId())
+                .and(VERSION).is(task.getVersion())
+                .and(CURRENT_STATUS).is(expectedCurrentStatus));
+        // version is incremented so that a concurrent save() of the whole task is rejected
+        Update update = new Update()
+                .set(CURRENT_STATUS, statusChanges.get(statusChanges.size() - 1).getStatus())
+                .push(DATE_STATUS_LIST).each(statusChanges.toArray())
+                .set("initializationBlockNumber", task.getInitializationBlockNumber())
+                .set("uploadingWorkerWalletAddress", task.getUploadingWorkerWalletAddress())
+                .set("consensus", task.getConsensus())
+                .set("consensusReachedBlockNumber", task.getConsensusReachedBlockNumber())
+                .set("revealDeadline", task.getRevealDeadline())
+                .set("resultLink", task.getResultLink())
+                .set("chainCallbackData", task.getChainCallbackData())
+                .inc(VERSION, 1);
+        if (mongoTemplate.updateFirst(query, update, Task.class).getModifiedCount() == 0) {
+            return false;
+        }
+        task.setVersion(task.getVersion() == null ? 1L : task.getVersion() + 1);
+        return true;
+    }
+
+    @Override
+    public List<Task> insertAbsentTasks(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        for (Task task : tasks) {
+            task.setVersion(0L);
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)
+                    .insert(tasks)
+                    .execute();
+            return tasks;
+        } catch (BulkOperationException e) {
+            // tasks already added are rejected by the unique index on (chainDealId, taskIndex)
+            Set<Integer> rejectedIndexes = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                    throw e;
+                }
+                rejectedIndexes.add(error.getIndex());
+            }
+            List<Task> insertedTasks = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (!rejectedIndexes.contains(i)) {
+                    insertedTasks.add(tasks.get(i));
+                }
+            }
+            log.info("Tasks already added have been skipped [nbTasks:{}, nbSkipped:{}]",
+                    tasks.size(), rejectedIndexes.size());
+            return insertedTasks;
+        }
+    }
+
+    @Override
+    public long archive(List<String> chainTaskIds) {
+        return MongoArchive.moveToArchive(mongoTemplate, Task.class, chainTaskIds);
+    }
+
+    @Override
+    public Optional<Task> findArchivedByChainTaskId(String chainTaskId) {
+        return MongoArchive.findArchived(mongoTemplate, Task.class, chainTaskId);
+    }
+}
@@ -22,19 +22,28 @@ import com.iexec.common.chain.ChainTaskStatus;
 import com.iexec.common.replicate.ReplicateStatus;
 import com.iexec.core.chain.IexecHubService;
 import com.iexec.core.chain.Web3jService;
+import com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker;
 import com.iexec.core.chain.adapter.BlockchainAdapterService;
+import com.iexec.core.cluster.TaskOwnershipChangedEvent;
+import com.iexec.core.cluster.TaskOwnershipService;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
 import com.iexec.core.task.event.*;
+import com.iexec.core.task.initialization.TaskInitializationBatcher;
 import com.iexec.core.task.update.TaskUpdateRequestConsumer;
 import com.iexec.core.task.update.TaskUpdateRequestManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,9 +55,6 @@ import static com.iexec.core.task.TaskStatus.*;
 @Service
 public class TaskService implements TaskUpdateRequestConsumer {
 
-    private final ConcurrentHashMap<String, Boolean>
-            taskAccessForNewReplicateLock = new ConcurrentHashMap<>();
-
     private final TaskRepository taskRepository;
     private final TaskUpdateRequestManager taskUpdateRequestManager;
     private final IexecHubService iexecHubService;
@@ -56,6 +62,12 @@ public class TaskService implements TaskUpdateRequestConsumer {
     private final ApplicationEventPublisher applicationEventPublisher;
     private final Web3jService web3jService;
     private final BlockchainAdapterService blockchainAdapterService;
+    private final BlockchainAdapterCommandTracker blockchainAdapterCommandTracker;
+    private final TaskInitializationBatcher taskInitializationBatcher;
+    private final TaskOwnershipService taskOwnershipService;
+    // initializations requested but not saved yet, by chainTaskId
+    private final Map<String, CompletableFuture<Optional<Boolean>>> initializationRequests =
+            new ConcurrentHashMap<>();
 
     public TaskService(
         TaskRepository taskRepository,
@@ -64,7 +76,10 @@ public class TaskService implements TaskUpdateRequestConsumer {
         ReplicatesService replicatesService,
         ApplicationEventPublisher applicationEventPublisher,
         Web3jService web3jService,
-        BlockchainAdapterService blockchainAdapterService
+        BlockchainAdapterService blockchainAdapterService,
+        BlockchainAdapterCommandTracker blockchainAdapterCommandTracker,
+        TaskInitializationBatcher taskInitializationBatcher,
+        TaskOwnershipService taskOwnershipService
     ) {
         this.taskRepository = taskRepository;
         this.taskUpdateRequestManager = taskUpdateRequestManager;
@@ -73,6 +88,9 @@ public class TaskService implements TaskUpdateRequestConsumer {
         this.applicationEventPublisher = applicationEventPublisher;
         this.web3jService = web3jService;
         this.blockchainAdapterService = blockchainAdapterService;
+        this.blockchainAdapterCommandTracker = blockchainAdapterCommandTracker;
+        this.taskInitializationBatcher = taskInitializationBatcher;
+        this.taskOwnershipService = taskOwnershipService;
         this.taskUpdateRequestManager.setRequestConsumer(this);
     }
 
@@ -127,6 +145,52 @@ public class TaskService implements TaskUpdateRequestConsumer {
                 });
     }
 
+    /**
+     * Save many tasks of a deal in a single write. Tasks
+     * which already exist in database are skipped.
+     *
+     * @param chainDealId
+     * @param firstTaskIndex index of the first task to add
+     * @param nbTasks        number of tasks to add
+     * @param dealBlockNumber
+     * @param imageName
+     * @param commandLine
+     * @param trust
+     * @param maxExecutionTime
+     * @param tag
+     * @param contributionDeadline
+     * @param finalDeadline
+     * @return tasks which have been saved
+     */
+    public List<Task> addTasks(
+            String chainDealId,
+            int firstTaskIndex,
+            int nbTasks,
+            long dealBlockNumber,
+            String imageName,
+            String commandLine,
+            int trust,
+            long maxExecutionTime,
+            String tag,
+            Date contributionDeadline,
+            Date finalDeadline
+    ) {
+        List<Task> newTasks = new ArrayList<>(nbTasks);
+        for (int taskIndex = firstTaskIndex; taskIndex < firstTaskIndex + nbTasks; taskIndex++) {
+            Task newTask = new Task(chainDealId, taskIndex, imageName,
+                    commandLine, trust, maxExecutionTime, tag);
+            newTask.setDealBlockNumber(dealBlockNumber);
+            newTask.setFinalDeadline(finalDeadline);
+            newTask.setContributionDeadline(contributionDeadline);
+            newTasks.add(newTask);
+        }
+        List<Task> addedTasks = taskRepository.insertAbsentTasks(newTasks);
+        log.info("Added new tasks [chainDealId:{}, firstTaskIndex:{}, nbTasks:{}, " +
+                "nbAdded:{}, imageName:{}, commandLine:{}, trust:{}]", chainDealId,
+                firstTaskIndex, nbTasks, addedTasks.size(), imageName, commandLine, trust);
+        return addedTasks;
+    }
+
     public Optional<Task> getTaskByChainTaskId(String chainTaskId) {
         return taskRepository.findByChainTaskId(chainTaskId);
     }
@@ -135,24 +199,64 @@ public class TaskService implements TaskUpdateRequestConsumer {
         return taskRepository.findByChainTaskId(chainTaskIds);
     }
 
+    /*
+     * Scans below only return tasks owned by this instance
+     * when several instances share the database.
+     */
+
     public List<Task> findByCurrentStatus(TaskStatus status) {
-        return taskRepository.findByCurrentStatus(status);
+        return keepOwned(taskRepository.findByCurrentStatus(status));
     }
 
     public List<Task> findByCurrentStatus(List<TaskStatus> statusList) {
-        return taskRepository.findByCurrentStatus(statusList);
+        return keepOwned(taskRepository.findByCurrentStatus(statusList));
     }
 
     public List<Task> getInitializedOrRunningTasks() {
-        return taskRepository.findByCurrentStatus(Arrays.asList(INITIALIZED, RUNNING));
+        return keepOwned(taskRepository.findByCurrentStatus(Arrays.asList(INITIALIZED, RUNNING)));
     }
 
     public List<Task> getTasksInNonFinalStatuses() {
-        return taskRepository.findByCurrentStatusNotIn(TaskStatus.getFinalStatuses());
+        return keepOwned(taskRepository.findByCurrentStatusNotIn(TaskStatus.getFinalStatuses()));
     }
 
     public List<Task> getTasksWhereFinalDeadlineIsPossible() {
-        return taskRepository.findByCurrentStatusNotIn(TaskStatus.getStatusesWhereFinalDeadlineIsImpossible());
+        return keepOwned(taskRepository.findByCurrentStatusNotIn(TaskStatus.getStatusesWhereFinalDeadlineIsImpossible()));
+    }
+
+    public long countByCurrentStatus(TaskStatus status) {
+        return taskRepository.countByCurrentStatus(status);
+    }
+
+    /*
+     * Methods below only read a summary of each task, they
+     * should be preferred for scans over many tasks.
+     */
+
+    public List<TaskSummary> getTaskSummaries(List<TaskStatus> statuses) {
+        return keepOwnedSummaries(taskRepository.findSummariesByCurrentStatus(statuses));
+    }
+
+    public List<TaskSummary> getTaskSummariesInNonFinalStatuses() {
+        return keepOwnedSummaries(taskRepository.findSummariesByCurrentStatusNotIn(TaskStatus.getFinalStatuses()));
+    }
+
+    public List<TaskSummary> getTaskSummariesAfterContributionDeadline(List<TaskStatus> statuses, Date date) {
+        return keepOwnedSummaries(
+                taskRepository.findSummariesByCurrentStatusInAndContributionDeadlineBefore(statuses, date));
+    }
+
+    public List<TaskSummary> getTaskSummariesAfterFinalDeadline(Date date) {
+        return keepOwnedSummaries(taskRepository.findSummariesByCurrentStatusNotInAndFinalDeadlineBefore(
+                TaskStatus.getStatusesWhereFinalDeadlineIsImpossible(), date));
+    }
+
+    private List<Task> keepOwned(List<Task> tasks) {
+        return taskOwnershipService.keepOwned(tasks, Task::getChainTaskId);
+    }
+
+    private List<TaskSummary> keepOwnedSummaries(List<TaskSummary> tasks) {
+        return taskOwnershipService.keepOwned(tasks, TaskSummary::getChainTaskId);
     }
 
     public List<String> getChainTaskIdsOfTasksExpiredBefore(Date expirationDate) {
@@ -162,6 +266,34 @@ public class TaskService implements TaskUpdateRequestConsumer {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get tasks in a final status whose final deadline is over
+     * since the given date, these tasks won't change anymore.
+     *
+     * @param expirationDate date before which the final deadline is over
+     * @param limit          maximum number of tasks to get
+     * @return chainTaskIds of the tasks
+     */
+    public List<String> getChainTaskIdsOfFinalTasksExpiredBefore(Date expirationDate, int limit) {
+        return taskRepository.findChainTaskIdsByCurrentStatusInAndFinalDeadlineBefore(
+                TaskStatus.getFinalStatuses(), expirationDate, PageRequest.of(0, limit))
+                .stream()
+                .map(Task::getChainTaskId)
+                .collect(Collectors.toList());
+    }
+
+    public Optional<Task> getArchivedTask(String chainTaskId) {
+        return taskRepository.findArchivedByChainTaskId(chainTaskId);
+    }
+
+    /**
+     * Move tasks to the archive. They can then only
+     * be read with getArchivedTask(..).
+     */
+    public long archiveTasks(List<String> chainTaskIds) {
+        return taskRepository.archive(chainTaskIds);
+    }
+
     /**
      * An initializable task is in RECEIVED or
      * INITIALIZED status and has a contribution
@@ -170,9 +302,9 @@ public class TaskService implements TaskUpdateRequestConsumer {
      * @return list of initializable tasks
      */
     public List<Task> getInitializableTasks() {
-        return taskRepository
+        return keepOwned(taskRepository
                 .findByCurrentStatusInAndContributionDeadlineAfter(
-                        List.of(RECEIVED, INITIALIZING), new Date());
+                        List.of(RECEIVED, INITIALIZING), new Date()));
     }
 
     public boolean isConsensusReached(Task task) {
@@ -208,6 +340,11 @@ public class TaskService implements TaskUpdateRequestConsumer {
      * @return
      */
     public CompletableFuture<Boolean> updateTask(String chainTaskId) {
+        // the owner of the task updates it, on its own triggers or its next sweep
+        if (!taskOwnershipService.isOwned(chainTaskId)) {
+            log.debug("Task not owned, update skipped [chainTaskId:{}]", chainTaskId);
+            return CompletableFuture.completedFuture(false);
+        }
         return taskUpdateRequestManager.publishRequest(chainTaskId);
     }
 
@@ -218,9 +355,33 @@ public class TaskService implements TaskUpdateRequestConsumer {
     @Override
     public void onTaskUpdateRequest(String chainTaskId) {
         log.info("Received task update request [chainTaskId:{}]", chainTaskId);
+        // the lease may have been lost while the request was waiting
+        if (!taskOwnershipService.isOwned(chainTaskId)) {
+            log.warn("Task not owned anymore, update skipped [chainTaskId:{}]", chainTaskId);
+            dropInitializationRequestIfDone(chainTaskId);
+            return;
+        }
         this.updateTaskRunnable(chainTaskId);
     }
 
+    /**
+     * Forget initialization requests of tasks which are not owned anymore,
+     * the new owner of a task requests it again if still RECEIVED. Pending
+     * requests are forgotten once done.
+     */
+    @EventListener
+    public void onTaskOwnershipChanged(TaskOwnershipChangedEvent event) {
+        if (event.getLostShards() == null || event.getLostShards().isEmpty()) {
+            return;
+        }
+        initializationRequests.entrySet().removeIf(entry -> entry.getValue().isDone()
+                && !taskOwnershipService.isOwned(entry.getKey()));
+    }
+
+    boolean hasInitializationRequest(String chainTaskId) {
+        return initializationRequests.containsKey(chainTaskId);
+    }
+
     void updateTaskRunnable(String chainTaskId) {
         Optional<Task> optional = getTaskByChainTaskId(chainTaskId);
         if (!optional.isPresent()) {
@@ -228,6 +389,10 @@ public class TaskService implements TaskUpdateRequestConsumer {
         }
         Task task = optional.get();
         TaskStatus currentStatus = task.getCurrentStatus();
+        if (currentStatus != RECEIVED) {
+            // e.g. the task left RECEIVED through another update or instance
+            dropInitializationRequestIfDone(chainTaskId);
+        }
 
         boolean isFinalDeadlinePossible =
                 !TaskStatus.getStatusesWhereFinalDeadlineIsImpossible().contains(currentStatus);
@@ -316,11 +481,34 @@ public class TaskService implements TaskUpdateRequestConsumer {
     }
 
     private Task updateTaskStatusAndSave(Task task, TaskStatus newStatus, ChainReceipt chainReceipt) {
+        return updateTaskStatusesAndSave(task, chainReceipt, newStatus);
+    }
+
+    private Task updateTaskStatusesAndSave(Task task, TaskStatus... newStatuses) {
+        return updateTaskStatusesAndSave(task, null, newStatuses);
+    }
+
+    /*
+     * Only the new statuses (and the fields which change along with them) are
+     * written, in a single update guarded by the current status of the task.
+     * Many statuses (e.g. X -> FAILED) are written at once and a single
+     * TaskStatusUpdatedEvent is published for them.
+     */
+    private Task updateTaskStatusesAndSave(Task task, ChainReceipt chainReceipt, TaskStatus... newStatuses) {
         TaskStatus currentStatus = task.getCurrentStatus();
-        task.changeStatus(newStatus, chainReceipt);
-        Task savedTask = taskRepository.save(task);
-        log.info("UpdateTaskStatus suceeded [chainTaskId:{}, currentStatus:{}, newStatus:{}]", task.getChainTaskId(), currentStatus, newStatus);
-        return savedTask;
+        List<TaskStatusChange> statusChanges = new ArrayList<>();
+        for (TaskStatus newStatus : newStatuses) {
+            task.changeStatus(newStatus, chainReceipt);
+            statusChanges.add(task.getLatestStatusChange());
+        }
+        if (!taskRepository.pushStatusChanges(task, currentStatus, statusChanges)) {
+            throw new OptimisticLockingFailureException(String.format("Task modified concurrently " +
+                    "[chainTaskId:%s, expectedStatus:%s]", task.getChainTaskId(), currentStatus));
+        }
+        log.info("UpdateTaskStatus suceeded [chainTaskId:{}, currentStatus:{}, newStatuses:{}]",
+                task.getChainTaskId(), currentStatus, Arrays.toString(newStatuses));
+        applicationEventPublisher.publishEvent(new TaskStatusUpdatedEvent(task, currentStatus));
+        return task;
     }
 
     private void received2Initializing(Task task) {
@@ -332,33 +520,62 @@ public class TaskService implements TaskUpdateRequestConsumer {
             return;
         }
 
-        boolean hasEnoughGas = iexecHubService.hasEnoughGas();
-        boolean isTaskUnsetOnChain = iexecHubService.isTaskInUnsetStatusOnChain(task.getChainDealId(), task.getTaskIndex());
-        boolean isBeforeContributionDeadline = iexecHubService.isBeforeContributionDeadline(task.getChainDealId());
-
-        if (!hasEnoughGas || !isTaskUnsetOnChain || !isBeforeContributionDeadline) {
-            log.error("Cannot initialize task [chainTaskId:{}, hasEnoughGas:{}, "
-                    + "isTaskUnsetOnChain:{}, isBeforeContributionDeadline:{}]",
-                    task.getChainTaskId(), hasEnoughGas, isTaskUnsetOnChain,
-                    isBeforeContributionDeadline);
+        String chainTaskId = task.getChainTaskId();
+        CompletableFuture<Optional<Boolean>> initializationRequest = initializationRequests.get(chainTaskId);
+        if (initializationRequest == null) {
+            // checks and request are done along with other tasks of the same deal,
+            // the task is updated again once the request is sent
+            CompletableFuture<Optional<Boolean>> request = taskInitializationBatcher.requestInitialize(task);
+            initializationRequests.put(chainTaskId, request);
+            request.whenComplete((isRequested, e) -> onInitializationRequestDone(chainTaskId, request));
+            return;
+        }
+        if (!initializationRequest.isDone()) {
+            // never request initialize twice for the same task
+            log.debug("Initialize already being requested [chainTaskId:{}]", chainTaskId);
             return;
         }
 
-        blockchainAdapterService
-                .requestInitialize(task.getChainDealId(), task.getTaskIndex())
-                .filter(chainTaskId -> chainTaskId.equalsIgnoreCase(task.getChainTaskId()))
-                .ifPresentOrElse(chainTaskId -> {
-                    log.info("Requested initialize on blockchain " +
-                            "[chainTaskId:{}]", task.getChainTaskId());
-                    updateTaskStatusAndSave(task, INITIALIZING);
-                    //Watch initializing to initialized
-                    updateTaskRunnable(task.getChainTaskId());
-                }, () -> {
-                    log.error("Failed to request initialize on blockchain " +
-                            "[chainTaskId:{}]", task.getChainTaskId());
-                    updateTaskStatusAndSave(task, INITIALIZE_FAILED);
-                    updateTaskStatusAndSave(task, FAILED);
-                });
+        // the result is saved within the update lane of the task
+        initializationRequests.remove(chainTaskId);
+        Optional<Boolean> isRequested;
+        try {
+            isRequested = initializationRequest.join();
+        } catch (RuntimeException e) {
+            log.error("Failed to initialize task [chainTaskId:{}]", chainTaskId, e);
+            return;
+        }
+        isRequested.ifPresent(requested -> {
+            if (requested) {
+                log.info("Requested initialize on blockchain " +
+                        "[chainTaskId:{}]", chainTaskId);
+                updateTaskStatusAndSave(task, INITIALIZING);
+                //Watch initializing to initialized
+                blockchainAdapterCommandTracker.watch(chainTaskId,
+                        BlockchainAdapterCommandTracker.Command.INITIALIZE);
+                return;
+            }
+            log.error("Failed to request initialize on blockchain " +
+                    "[chainTaskId:{}]", chainTaskId);
+            updateTaskStatusesAndSave(task, INITIALIZE_FAILED, FAILED);
+        });
+    }
+
+    private void onInitializationRequestDone(String chainTaskId,
+                                             CompletableFuture<Optional<Boolean>> request) {
+        // only the owner saves the result, a task lost meanwhile must not keep its request
+        if (!taskOwnershipService.isOwned(chainTaskId)) {
+            initializationRequests.remove(chainTaskId, request);
+            return;
+        }
+        updateTask(chainTaskId);
+    }
+
+    private void dropInitializationRequestIfDone(String chainTaskId) {
+        CompletableFuture<Optional<Boolean>> request = initializationRequests.get(chainTaskId);
+        if (request != null && request.isDone()) {
+            initializationRequests.remove(chainTaskId, request);
+        }
     }
 
     private void initializing2Initialized(Task task) {
@@ -377,11 +594,9 @@ public class TaskService implements TaskUpdateRequestConsumer {
                     }
                     log.error("Initialization failed on blockchain (tx reverted)" +
                             "[chainTaskId:{}]", task.getChainTaskId());
-                    updateTaskStatusAndSave(task, INITIALIZE_FAILED);
-                    updateTaskStatusAndSave(task, FAILED);
-                }, () -> log.error("Unable to check initialization on blockchain " +
-                        "(likely too long), should use a detector " +
-                        "[chainTaskId:{}]", task.getChainTaskId()));
+                    updateTaskStatusesAndSave(task, INITIALIZE_FAILED, FAILED);
+                }, () -> blockchainAdapterCommandTracker.watch(task.getChainTaskId(),
+                        BlockchainAdapterCommandTracker.Command.INITIALIZE));
     }
 
     private void initialized2Running(Task task) {
@@ -424,8 +639,7 @@ public class TaskService implements TaskUpdateRequestConsumer {
         boolean isNowAfterContributionDeadline = task.getContributionDeadline() != null && new Date().after(task.getContributionDeadline());
 
         if (isInitializedOrRunningTask && isNowAfterContributionDeadline) {
-            updateTaskStatusAndSave(task, CONTRIBUTION_TIMEOUT);
-            updateTaskStatusAndSave(task, FAILED);
+            updateTaskStatusesAndSave(task, CONTRIBUTION_TIMEOUT, FAILED);
             applicationEventPublisher.publishEvent(ContributionTimeoutEvent.builder()
                     .chainTaskId(task.getChainTaskId())
                     .build());
@@ -466,8 +680,7 @@ public class TaskService implements TaskUpdateRequestConsumer {
 
         if (!optionalChainReceipt.isPresent()) {
             log.error("Reopen failed [chainTaskId:{}]", task.getChainTaskId());
-            updateTaskStatusAndSave(task, REOPEN_FAILED);
-            updateTaskStatusAndSave(task, FAILED);
+            updateTaskStatusesAndSave(task, REOPEN_FAILED, FAILED);
             return;
         }
 
@@ -496,8 +709,7 @@ public class TaskService implements TaskUpdateRequestConsumer {
             task.setConsensus(null);
             task.setRevealDeadline(new Date(0));
 
-            updateTaskStatusAndSave(task, REOPENED, chainReceipt);
-            updateTaskStatusAndSave(task, INITIALIZED, chainReceipt);
+            updateTaskStatusesAndSave(task, chainReceipt, REOPENED, INITIALIZED);
         }
     }
 
@@ -532,11 +744,10 @@ public class TaskService implements TaskUpdateRequestConsumer {
                                         && new Date().after(task.getFinalDeadline());
 
         if (isTaskInUploadRequested && isNowAfterFinalDeadline) {
-            updateTaskStatusAndSave(task, RESULT_UPLOAD_REQUEST_TIMEOUT);
+            updateTaskStatusesAndSave(task, RESULT_UPLOAD_REQUEST_TIMEOUT, FAILED);
             applicationEventPublisher.publishEvent(ResultUploadTimeoutEvent.builder()
                     .chainTaskId(task.getChainTaskId())
                     .build());
-            updateTaskStatusAndSave(task, FAILED);
         }
     }
 
@@ -589,11 +800,10 @@ public class TaskService implements TaskUpdateRequestConsumer {
                                         && new Date().after(task.getFinalDeadline());
 
         if (isTaskInResultUploading && isNowAfterFinalDeadline) {
-            updateTaskStatusAndSave(task, RESULT_UPLOAD_TIMEOUT);
+            updateTaskStatusesAndSave(task, RESULT_UPLOAD_TIMEOUT, FAILED);
             applicationEventPublisher.publishEvent(ResultUploadTimeoutEvent.builder()
                     .chainTaskId(task.getChainTaskId())
                     .build());
-            updateTaskStatusAndSave(task, FAILED);
         }
     }
 
@@ -647,8 +857,7 @@ public class TaskService implements TaskUpdateRequestConsumer {
                 }, () -> {
                     log.error("Failed to request finalize on blockchain " +
                             "[chainTaskId:{}]", task.getChainTaskId());
-                    updateTaskStatusAndSave(task, FINALIZE_FAILED);
-                    updateTaskStatusAndSave(task, FAILED);
+                    updateTaskStatusesAndSave(task, FINALIZE_FAILED, FAILED);
                 });
     }
 
@@ -665,11 +874,9 @@ public class TaskService implements TaskUpdateRequestConsumer {
                     }
                     log.error("Finalization failed on blockchain (tx reverted)" +
                             "[chainTaskId:{}]", task.getChainTaskId());
-                    updateTaskStatusAndSave(task, FINALIZE_FAILED);
-                    updateTaskStatusAndSave(task, FAILED);
-                }, () -> log.error("Unable to check finalization on blockchain " +
-                        "(likely too long), should use a detector " +
-                        "[chainTaskId:{}]", task.getChainTaskId()));
+                    updateTaskStatusesAndSave(task, FINALIZE_FAILED, FAILED);
+                }, () -> blockchainAdapterCommandTracker.watch(task.getChainTaskId(),
+                        BlockchainAdapterCommandTracker.Command.FINALIZE));
     }
 
     private void finalizedToCompleted(Task task) {
@@ -684,25 +891,6 @@ public class TaskService implements TaskUpdateRequestConsumer {
         updateTaskStatusAndSave(task, FAILED);
         applicationEventPublisher.publishEvent(new TaskFailedEvent(task.getChainTaskId()));
     }
-    public void initializeTaskAccessForNewReplicateLock(String chainTaskId) {
-        taskAccessForNewReplicateLock.putIfAbsent(chainTaskId, false);
-    }
-
-    public Boolean isTaskBeingAccessedForNewReplicate(String chainTaskId) {
-        return taskAccessForNewReplicateLock.get(chainTaskId);
-    }
-
-    public void lockTaskAccessForNewReplicate(String chainTaskId) {
-        setTaskAccessForNewReplicateLock(chainTaskId, true);
-    }
-
-    public void unlockTaskAccessForNewReplicate(String chainTaskId) {
-        setTaskAccessForNewReplicateLock(chainTaskId, false);
-    }
-
-    private void setTaskAccessForNewReplicateLock(String chainTaskId, boolean isTaskBeingAccessedForNewReplicate) {
-        taskAccessForNewReplicateLock.replace(chainTaskId, isTaskBeingAccessedForNewReplicate);
-    }
 
 
 }
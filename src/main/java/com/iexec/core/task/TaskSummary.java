@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Compact read model of a {@link Task} for scans over many tasks.
+ * Only the fields below are read from the database, the status history
+ * and the command line of tasks are left out.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSummary {
+
+    // fields read by TaskRepository queries returning summaries
+    static final String FIELDS = "{ chainTaskId: 1, currentStatus: 1, trust: 1, tag: 1, "
+            + "contributionDeadline: 1, revealDeadline: 1, finalDeadline: 1 }";
+
+    private String chainTaskId;
+    private TaskStatus currentStatus;
+    private int trust;
+    private String tag;
+    private Date contributionDeadline;
+    private Date revealDeadline;
+    private Date finalDeadline;
+}
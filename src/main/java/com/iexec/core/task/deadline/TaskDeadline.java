@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.deadline;
+
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskStatus;
+
+import java.util.Date;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Deadlines of a task and the statuses in which they have to be watched.
+ */
+enum TaskDeadline {
+
+    CONTRIBUTION(Task::getContributionDeadline, TaskStatus::isInContributionPhase),
+    REVEAL(Task::getRevealDeadline, TaskStatus::isInRevealPhase),
+    FINAL(Task::getFinalDeadline,
+            status -> !TaskStatus.getStatusesWhereFinalDeadlineIsImpossible().contains(status));
+
+    private final Function<Task, Date> deadlineGetter;
+    private final Predicate<TaskStatus> isWatchedIn;
+
+    TaskDeadline(Function<Task, Date> deadlineGetter, Predicate<TaskStatus> isWatchedIn) {
+        this.deadlineGetter = deadlineGetter;
+        this.isWatchedIn = isWatchedIn;
+    }
+
+    /**
+     * @return the deadline if it has to be watched in the current status of the task
+     */
+    Date getWatchedDeadline(Task task) {
+        return isWatchedIn.test(task.getCurrentStatus()) ? deadlineGetter.apply(task) : null;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.deadline;
+
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Act on tasks right when one of their deadlines is reached.
+ * <p>
+ * Deadlines of a task are (re)scheduled on each status update of the task, on
+ * a delay queue ordered by date, and cancelled once the task leaves the statuses
+ * where they matter. All deadlines are scheduled again from the database on
+ * startup. When a deadline is reached:
+ * <ul>
+ * <li>contribution and final deadlines trigger an update of the task</li>
+ * <li>the reveal deadline fails replicates which did not reveal in time</li>
+ * </ul>
+ * Timeout detectors are kept as a safety net and only run from time to time.
+ */
+@Slf4j
+@Component
+public class TaskDeadlineScheduler {
+
+    private final TaskService taskService;
+    private final ReplicatesService replicatesService;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, ScheduledDeadline> scheduledDeadlines = new ConcurrentHashMap<>();
+
+    public TaskDeadlineScheduler(TaskService taskService,
+                                 ReplicatesService replicatesService) {
+        this.taskService = taskService;
+        this.replicatesService = replicatesService;
+        this.executor = new ScheduledThreadPoolExecutor(1,
+                runnable -> new Thread(runnable, "task-deadline"));
+        // cancelled deadlines should not stay in the queue until their date
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Schedule deadlines of all tasks which are not final yet.
+     */
+    public void run() {
+        for (Task task : taskService.getTasksInNonFinalStatuses()) {
+            schedule(task);
+        }
+        log.info("Task deadlines scheduled [nbDeadlines:{}]", scheduledDeadlines.size());
+    }
+
+    @EventListener
+    public void onTaskStatusUpdated(TaskStatusUpdatedEvent event) {
+        schedule(event.getTask());
+    }
+
+    /**
+     * Reschedule deadlines of a tracked task changed by another process.
+     */
+    @EventListener
+    public void onTaskDocumentChanged(TaskDocumentChangedEvent event) {
+        Task task = event.getTask();
+        for (TaskDeadline taskDeadline : TaskDeadline.values()) {
+            if (isScheduled(task.getChainTaskId(), taskDeadline)) {
+                schedule(task);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    boolean isScheduled(String chainTaskId, TaskDeadline taskDeadline) {
+        return scheduledDeadlines.containsKey(getKey(chainTaskId, taskDeadline));
+    }
+
+    void schedule(Task task) {
+        for (TaskDeadline taskDeadline : TaskDeadline.values()) {
+            Date deadline = taskDeadline.getWatchedDeadline(task);
+            if (deadline != null) {
+                schedule(task.getChainTaskId(), taskDeadline, deadline);
+            } else {
+                cancel(task.getChainTaskId(), taskDeadline);
+            }
+        }
+    }
+
+    private void schedule(String chainTaskId, TaskDeadline taskDeadline, Date deadline) {
+        scheduledDeadlines.compute(getKey(chainTaskId, taskDeadline), (key, scheduledDeadline) -> {
+            if (scheduledDeadline != null) {
+                if (scheduledDeadline.getDeadline().equals(deadline)) {
+                    return scheduledDeadline;
+                }
+                scheduledDeadline.getFuture().cancel(false);
+            }
+            // deadlines are reached once "now" is strictly after them
+            long delay = Math.max(0, deadline.getTime() - System.currentTimeMillis() + 1);
+            ScheduledFuture<?> future = executor.schedule(
+                    () -> onDeadlineReached(chainTaskId, taskDeadline, deadline),
+                    delay, TimeUnit.MILLISECONDS);
+            return new ScheduledDeadline(deadline, future);
+        });
+    }
+
+    private void cancel(String chainTaskId, TaskDeadline taskDeadline) {
+        ScheduledDeadline scheduledDeadline = scheduledDeadlines.remove(getKey(chainTaskId, taskDeadline));
+        if (scheduledDeadline != null) {
+            scheduledDeadline.getFuture().cancel(false);
+        }
+    }
+
+    void onDeadlineReached(String chainTaskId, TaskDeadline taskDeadline, Date deadline) {
+        scheduledDeadlines.computeIfPresent(getKey(chainTaskId, taskDeadline),
+                (key, scheduledDeadline) -> scheduledDeadline.getDeadline().equals(deadline) ? null : scheduledDeadline);
+
+        Optional<Task> oTask = taskService.getTaskByChainTaskId(chainTaskId);
+        if (oTask.isEmpty()) {
+            return;
+        }
+        // the task may have changed since the deadline was scheduled
+        Task task = oTask.get();
+        Date currentDeadline = taskDeadline.getWatchedDeadline(task);
+        if (currentDeadline == null || !new Date().after(currentDeadline)) {
+            schedule(task);
+            return;
+        }
+
+        log.info("Task deadline reached [chainTaskId:{}, deadline:{}, status:{}]",
+                chainTaskId, taskDeadline, task.getCurrentStatus());
+        try {
+            if (taskDeadline == TaskDeadline.REVEAL) {
+                for (Replicate replicate : replicatesService.getReplicates(chainTaskId)) {
+                    replicatesService.setRevealTimeoutStatusIfNeeded(chainTaskId, replicate);
+                }
+            } else {
+                taskService.updateTask(chainTaskId);
+            }
+        } catch (RuntimeException e) {
+            // left to timeout detectors
+            log.error("Failed to handle task deadline [chainTaskId:{}, deadline:{}]",
+                    chainTaskId, taskDeadline, e);
+        }
+    }
+
+    private static String getKey(String chainTaskId, TaskDeadline taskDeadline) {
+        return chainTaskId + ":" + taskDeadline;
+    }
+
+    @Value
+    private static class ScheduledDeadline {
+        private Date deadline;
+        private ScheduledFuture<?> future;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.dispatch;
+
+import com.iexec.core.task.Task;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry of the {@link TaskDispatchIndex}. It holds a snapshot of an
+ * INITIALIZED or RUNNING task and what the index needs to know to decide
+ * whether a worker can be given a new replicate of this task.
+ */
+@Getter
+class DispatchableTask {
+
+    private volatile Task task;
+    private final Set<String> workers = ConcurrentHashMap.newKeySet();
+    // remaining consensus need, see ConsensusService#getMissingWeightForConsensus(..)
+    private volatile int missingWeight;
+    private volatile Key key;
+
+    DispatchableTask(Task task) {
+        this.task = task;
+        this.key = new Key(0, task.getContributionDeadline(), task.getChainTaskId());
+    }
+
+    String getChainTaskId() {
+        return task.getChainTaskId();
+    }
+
+    boolean isTeeTask() {
+        return task.isTeeTask();
+    }
+
+    /**
+     * Replace the task snapshot, e.g. after the task was changed in
+     * the database. The sort key follows the new contribution deadline.
+     */
+    void setTask(Task task) {
+        this.task = task;
+        this.key = new Key(missingWeight, task.getContributionDeadline(), task.getChainTaskId());
+    }
+
+    boolean hasWorker(String walletAddress) {
+        return workers.contains(walletAddress);
+    }
+
+    void setWorkers(Set<String> walletAddresses) {
+        workers.retainAll(walletAddresses);
+        workers.addAll(walletAddresses);
+    }
+
+    void addWorker(String walletAddress) {
+        workers.add(walletAddress);
+    }
+
+    boolean isNeedingMoreContributions() {
+        return missingWeight > 0;
+    }
+
+    void setMissingWeight(int missingWeight) {
+        this.missingWeight = missingWeight;
+        this.key = key.withMissingWeight(missingWeight);
+    }
+
+    /**
+     * Immutable sort key of an open task. Tasks with the highest
+     * remaining consensus need come first so that replicates are spread
+     * over running tasks, then tasks closest to their contribution deadline.
+     */
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    static class Key implements Comparable<Key> {
+
+        private static final Comparator<Key> COMPARATOR = Comparator
+                .comparing(Key::getMissingWeight, Comparator.reverseOrder())
+                .thenComparing(Key::getContributionDeadline,
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Key::getChainTaskId);
+
+        private final int missingWeight;
+        private final Date contributionDeadline;
+        private final String chainTaskId;
+
+        Key withMissingWeight(int missingWeight) {
+            return new Key(missingWeight, contributionDeadline, chainTaskId);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+}
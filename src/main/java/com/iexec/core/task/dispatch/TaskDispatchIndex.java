@@ -0,0 +1,311 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.dispatch;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.core.changestream.ReplicatesDocumentChangedEvent;
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
+import com.iexec.core.contribution.ConsensusAccumulator;
+import com.iexec.core.contribution.ConsensusService;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicateUpdatedEvent;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskOpenedEvent;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the tasks on which new replicates can be given to workers.
+ * <p>
+ * Every INITIALIZED or RUNNING task is tracked with the wallets of its workers.
+ * Tasks which still need more contributions for consensus are "open" and are
+ * kept sorted by remaining consensus need in one set per TEE requirement, so
+ * looking for a task for a worker does not require to read every running task
+ * (and its replicates) from the database on each worker poll.
+ * <p>
+ * The index is kept up to date from task status and replicate status updates,
+ * and it is fully rebuilt from the database on a regular basis to catch updates
+ * which do not emit events (e.g. a pending replicate becoming too old to be
+ * counted in the consensus estimation).
+ * <p>
+ * A {@link TaskOpenedEvent} is published each time a task becomes open.
+ */
+@Slf4j
+@Component
+public class TaskDispatchIndex {
+
+    private final Map<String, DispatchableTask> tasks = new ConcurrentHashMap<>();
+    private final NavigableSet<DispatchableTask.Key> openStandardTasks = new ConcurrentSkipListSet<>();
+    private final NavigableSet<DispatchableTask.Key> openTeeTasks = new ConcurrentSkipListSet<>();
+
+    private final TaskService taskService;
+    private final ReplicatesService replicatesService;
+    private final ConsensusService consensusService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public TaskDispatchIndex(TaskService taskService,
+                             ReplicatesService replicatesService,
+                             ConsensusService consensusService,
+                             ApplicationEventPublisher applicationEventPublisher) {
+        this.taskService = taskService;
+        this.replicatesService = replicatesService;
+        this.consensusService = consensusService;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * Get open tasks the worker does not participate in yet. TEE tasks
+     * are only returned to TEE enabled workers and come first for them.
+     * The stream is lazy so callers only pay for the tasks they consume.
+     *
+     * @param walletAddress wallet of the worker
+     * @param isTeeEnabled  true if the worker can run TEE tasks
+     * @return stream of assignable tasks, best candidates first
+     */
+    public Stream<Task> getAssignableTasks(String walletAddress, boolean isTeeEnabled) {
+        Stream<DispatchableTask.Key> keys = isTeeEnabled
+                ? Stream.concat(openTeeTasks.stream(), openStandardTasks.stream())
+                : openStandardTasks.stream();
+        return keys.map(key -> tasks.get(key.getChainTaskId()))
+                .filter(Objects::nonNull)
+                .filter(dispatchableTask -> !dispatchableTask.hasWorker(walletAddress))
+                .map(DispatchableTask::getTask);
+    }
+
+    /**
+     * Get a given task if it is open and can be given to the worker.
+     *
+     * @param chainTaskId   ID of the task
+     * @param walletAddress wallet of the worker
+     * @param isTeeEnabled  true if the worker can run TEE tasks
+     * @return the task if assignable to the worker, empty otherwise
+     */
+    public Optional<Task> getAssignableTask(String chainTaskId, String walletAddress, boolean isTeeEnabled) {
+        DispatchableTask dispatchableTask = tasks.get(chainTaskId);
+        if (dispatchableTask == null
+                || !dispatchableTask.isNeedingMoreContributions()
+                || dispatchableTask.hasWorker(walletAddress)
+                || (dispatchableTask.isTeeTask() && !isTeeEnabled)) {
+            return Optional.empty();
+        }
+        return Optional.of(dispatchableTask.getTask());
+    }
+
+    public boolean isIndexed(String chainTaskId) {
+        return tasks.containsKey(chainTaskId);
+    }
+
+    public int getNbOpenTasks() {
+        return openStandardTasks.size() + openTeeTasks.size();
+    }
+
+    /**
+     * Record a replicate freshly given to a worker and re-estimate
+     * if the task still needs more contributions.
+     *
+     * @param chainTaskId   ID of the task
+     * @param walletAddress wallet of the worker
+     */
+    public void onReplicateAdded(String chainTaskId, String walletAddress) {
+        DispatchableTask dispatchableTask = tasks.get(chainTaskId);
+        if (dispatchableTask == null) {
+            return;
+        }
+        int missingWeight = getMissingWeight(dispatchableTask.getTask());
+        reindex(dispatchableTask, entry -> {
+            entry.addWorker(walletAddress);
+            entry.setMissingWeight(missingWeight);
+        });
+    }
+
+    /**
+     * Stop giving replicates of a task (e.g. contribution deadline reached).
+     * The task is indexed again if it comes back to INITIALIZED.
+     *
+     * @param chainTaskId ID of the task
+     */
+    public void remove(String chainTaskId) {
+        DispatchableTask dispatchableTask = tasks.remove(chainTaskId);
+        if (dispatchableTask == null) {
+            return;
+        }
+        synchronized (dispatchableTask) {
+            getOpenTasks(dispatchableTask).remove(dispatchableTask.getKey());
+        }
+        log.debug("Removed task from dispatch index [chainTaskId:{}]", chainTaskId);
+    }
+
+    @EventListener
+    public void onTaskStatusUpdated(TaskStatusUpdatedEvent event) {
+        Task task = event.getTask();
+        if (!TaskStatus.isInContributionPhase(task.getCurrentStatus())) {
+            remove(task.getChainTaskId());
+            return;
+        }
+        if (!isIndexed(task.getChainTaskId())) {
+            index(task);
+        }
+    }
+
+    /*
+     * Runs after ConsensusAccumulator so the estimation below
+     * already counts this update.
+     */
+    @EventListener
+    @Order(ConsensusAccumulator.LISTENER_ORDER + 1)
+    public void onReplicateUpdated(ReplicateUpdatedEvent event) {
+        DispatchableTask dispatchableTask = tasks.get(event.getChainTaskId());
+        if (dispatchableTask == null) {
+            return;
+        }
+        ReplicateStatus newStatus = event.getReplicateStatusUpdate().getStatus();
+        // only these statuses change the weights used to estimate the consensus
+        boolean isConsensusEstimationImpacted = newStatus == ReplicateStatus.CONTRIBUTED
+                || newStatus == ReplicateStatus.FAILED;
+        int missingWeight = isConsensusEstimationImpacted
+                ? getMissingWeight(dispatchableTask.getTask())
+                : dispatchableTask.getMissingWeight();
+        reindex(dispatchableTask, entry -> {
+            entry.addWorker(event.getWalletAddress());
+            entry.setMissingWeight(missingWeight);
+        });
+    }
+
+    /**
+     * Replace the snapshot of an indexed task each time it is changed in
+     * the database. Tasks which are not indexed yet are left to status
+     * updates and refreshes.
+     */
+    @EventListener
+    public void onTaskDocumentChanged(TaskDocumentChangedEvent event) {
+        Task task = event.getTask();
+        DispatchableTask dispatchableTask = tasks.get(task.getChainTaskId());
+        if (dispatchableTask == null) {
+            return;
+        }
+        if (!TaskStatus.isInContributionPhase(task.getCurrentStatus())) {
+            remove(task.getChainTaskId());
+            return;
+        }
+        // trust and max execution time are part of the consensus estimation
+        int missingWeight = getMissingWeight(task);
+        reindex(dispatchableTask, entry -> {
+            entry.setTask(task);
+            entry.setMissingWeight(missingWeight);
+        });
+    }
+
+    /**
+     * Add workers of replicates written by other processes. Workers are
+     * never removed since a replicate list only grows.
+     */
+    @EventListener
+    @Order(ConsensusAccumulator.LISTENER_ORDER + 1)
+    public void onReplicatesDocumentChanged(ReplicatesDocumentChangedEvent event) {
+        ReplicatesList replicatesList = event.getReplicatesList();
+        DispatchableTask dispatchableTask = tasks.get(replicatesList.getChainTaskId());
+        if (dispatchableTask == null) {
+            return;
+        }
+        int missingWeight = getMissingWeight(dispatchableTask.getTask());
+        reindex(dispatchableTask, entry -> {
+            replicatesList.getReplicates().forEach(replicate -> entry.addWorker(replicate.getWalletAddress()));
+            entry.setMissingWeight(missingWeight);
+        });
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    @Scheduled(fixedRateString = "#{@cronConfiguration.getContribute()}")
+    public void refresh() {
+        Set<String> indexedChainTaskIds = new HashSet<>();
+        for (Task task : taskService.getInitializedOrRunningTasks()) {
+            indexedChainTaskIds.add(task.getChainTaskId());
+            index(task);
+        }
+        for (String chainTaskId : new ArrayList<>(tasks.keySet())) {
+            if (!indexedChainTaskIds.contains(chainTaskId)) {
+                remove(chainTaskId);
+            }
+        }
+        log.debug("Refreshed dispatch index [indexedTasks:{}, openTasks:{}]",
+                tasks.size(), getNbOpenTasks());
+    }
+
+    private void index(Task task) {
+        String chainTaskId = task.getChainTaskId();
+        Set<String> workers = replicatesService.getReplicates(chainTaskId).stream()
+                .map(Replicate::getWalletAddress)
+                .collect(Collectors.toSet());
+        int missingWeight = getMissingWeight(task);
+        DispatchableTask dispatchableTask = tasks.computeIfAbsent(chainTaskId,
+                id -> new DispatchableTask(task));
+        reindex(dispatchableTask, entry -> {
+            entry.setTask(task);
+            entry.setWorkers(workers);
+            entry.setMissingWeight(missingWeight);
+        });
+    }
+
+    /*
+     * Sort keys are immutable, an entry is removed from its open set
+     * before being modified and put back afterwards if still open. The
+     * open set may change too if the task snapshot is replaced.
+     */
+    private void reindex(DispatchableTask dispatchableTask, Consumer<DispatchableTask> update) {
+        boolean isOpened = false;
+        synchronized (dispatchableTask) {
+            boolean wasOpen = getOpenTasks(dispatchableTask).remove(dispatchableTask.getKey());
+            update.accept(dispatchableTask);
+            boolean isStillIndexed = tasks.get(dispatchableTask.getChainTaskId()) == dispatchableTask;
+            if (isStillIndexed && dispatchableTask.isNeedingMoreContributions()) {
+                getOpenTasks(dispatchableTask).add(dispatchableTask.getKey());
+                isOpened = !wasOpen;
+            }
+        }
+        // listeners are not called while holding the lock
+        if (isOpened) {
+            applicationEventPublisher.publishEvent(new TaskOpenedEvent(dispatchableTask.getTask()));
+        }
+    }
+
+    private int getMissingWeight(Task task) {
+        return consensusService.getMissingWeightForConsensus(task.getChainTaskId(),
+                task.getTrust(), task.getMaxExecutionTime());
+    }
+
+    private NavigableSet<DispatchableTask.Key> getOpenTasks(DispatchableTask dispatchableTask) {
+        return dispatchableTask.isTeeTask() ? openTeeTasks : openStandardTasks;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.initialization;
+
+import com.iexec.common.chain.ChainDeal;
+import com.iexec.core.chain.IexecHubService;
+import com.iexec.core.chain.adapter.BlockchainAdapterService;
+import com.iexec.core.task.Task;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Request on-chain initialization of RECEIVED tasks by batches.
+ * <p>
+ * Tasks to initialize are collected during a short period, then grouped
+ * by deal: the gas balance is checked once per batch and the deal (and its
+ * contribution deadline) once per deal instead of once per task. Remaining
+ * per-task checks and initialize requests of a batch are sent concurrently.
+ */
+@Slf4j
+@Component
+public class TaskInitializationBatcher {
+
+    private final IexecHubService iexecHubService;
+    private final BlockchainAdapterService blockchainAdapterService;
+    private final ExecutorService requestExecutor;
+    // tasks waiting for the next batch by chainTaskId
+    private final Map<String, PendingInitialization> pendingInitializations = new ConcurrentHashMap<>();
+
+    public TaskInitializationBatcher(IexecHubService iexecHubService,
+                                     BlockchainAdapterService blockchainAdapterService,
+                                     @Value("${task.initialization.parallelism}") int parallelism) {
+        this.iexecHubService = iexecHubService;
+        this.blockchainAdapterService = blockchainAdapterService;
+        this.requestExecutor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        requestExecutor.shutdownNow();
+    }
+
+    /**
+     * Add a task to the next initialization batch. A task which
+     * is already waiting for the next batch is not added twice.
+     *
+     * @param task task in RECEIVED status
+     * @return future completed with true once initialization is requested,
+     * false if the request failed, or empty if the task can't be initialized
+     * (not enough gas, task not UNSET on-chain, deal expired)
+     */
+    public CompletableFuture<Optional<Boolean>> requestInitialize(Task task) {
+        return pendingInitializations.computeIfAbsent(task.getChainTaskId(),
+                chainTaskId -> new PendingInitialization(task)).getResult();
+    }
+
+    @Scheduled(fixedDelayString = "${task.initialization.batch-period}")
+    void initializePendingTasks() {
+        List<PendingInitialization> batch = new ArrayList<>();
+        for (String chainTaskId : pendingInitializations.keySet()) {
+            PendingInitialization pendingInitialization = pendingInitializations.remove(chainTaskId);
+            if (pendingInitialization != null) {
+                batch.add(pendingInitialization);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        if (!iexecHubService.hasEnoughGas()) {
+            log.error("Cannot initialize tasks, not enough gas [nbTasks:{}]", batch.size());
+            batch.forEach(pendingInitialization -> pendingInitialization.complete(Optional.empty()));
+            return;
+        }
+
+        Map<String, List<PendingInitialization>> batchByDeal = batch.stream()
+                .collect(Collectors.groupingBy(pendingInitialization ->
+                        pendingInitialization.getTask().getChainDealId()));
+        batchByDeal.forEach(this::initializeTasksOfDeal);
+    }
+
+    private void initializeTasksOfDeal(String chainDealId, List<PendingInitialization> batch) {
+        Optional<ChainDeal> oChainDeal = iexecHubService.getChainDeal(chainDealId);
+        boolean isBeforeContributionDeadline = oChainDeal.isPresent()
+                && iexecHubService.isBeforeContributionDeadline(oChainDeal.get());
+        if (!isBeforeContributionDeadline) {
+            log.error("Cannot initialize tasks of deal [chainDealId:{}, nbTasks:{}, " +
+                    "isDealFound:{}, isBeforeContributionDeadline:false]",
+                    chainDealId, batch.size(), oChainDeal.isPresent());
+            batch.forEach(pendingInitialization -> pendingInitialization.complete(Optional.empty()));
+            return;
+        }
+
+        log.info("Requesting initialize of tasks [chainDealId:{}, nbTasks:{}]", chainDealId, batch.size());
+        for (PendingInitialization pendingInitialization : batch) {
+            CompletableFuture.runAsync(() -> pendingInitialization.complete(initialize(pendingInitialization.getTask())),
+                    requestExecutor)
+                    .exceptionally(e -> {
+                        log.error("Failed to request initialize [chainTaskId:{}]",
+                                pendingInitialization.getTask().getChainTaskId(), e);
+                        pendingInitialization.complete(Optional.of(false));
+                        return null;
+                    });
+        }
+    }
+
+    private Optional<Boolean> initialize(Task task) {
+        if (!iexecHubService.isTaskInUnsetStatusOnChain(task.getChainDealId(), task.getTaskIndex())) {
+            log.error("Cannot initialize task, not UNSET on-chain [chainTaskId:{}]", task.getChainTaskId());
+            return Optional.empty();
+        }
+        boolean isRequested = blockchainAdapterService
+                .requestInitialize(task.getChainDealId(), task.getTaskIndex())
+                .filter(chainTaskId -> chainTaskId.equalsIgnoreCase(task.getChainTaskId()))
+                .isPresent();
+        return Optional.of(isRequested);
+    }
+
+    @Getter
+    private static class PendingInitialization {
+        private final Task task;
+        private final CompletableFuture<Optional<Boolean>> result = new CompletableFuture<>();
+
+        PendingInitialization(Task task) {
+            this.task = task;
+        }
+
+        void complete(Optional<Boolean> isRequested) {
+            result.complete(isRequested);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.iexec.core.task.listener;
 import com.iexec.common.notification.TaskNotification;
 import com.iexec.common.notification.TaskNotificationExtra;
 import com.iexec.common.notification.TaskNotificationType;
+import com.iexec.core.chain.adapter.CommandCompletedEvent;
 import com.iexec.core.pubsub.NotificationService;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
@@ -60,6 +61,13 @@ public class TaskListeners {
         taskService.updateTask(event.getChainTaskId());
     }
 
+    @EventListener
+    public void onCommandCompletedEvent(CommandCompletedEvent event) {
+        log.info("Received CommandCompletedEvent [chainTaskId:{}, command:{}, success:{}]",
+                event.getChainTaskId(), event.getCommand(), event.isSuccess());
+        taskService.updateTask(event.getChainTaskId());
+    }
+
     @EventListener
     public void onTaskContributionTimeout(ContributionTimeoutEvent event) {
         String chainTaskId = event.getChainTaskId();
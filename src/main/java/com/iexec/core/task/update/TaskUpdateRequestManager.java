@@ -16,46 +16,115 @@
 
 package com.iexec.core.task.update;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.function.Supplier;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+
 /**
  * This class is used to perform updates on a task one by one.
  * It also ensures that no extra update is performed for no reason
  * (in the case of multiple replicate updates in a short time,
  * the task update will only be called once)
+ * <p>
+ * Tasks are spread by chainTaskId over several lanes. Each lane is a
+ * single thread with a bounded queue, so updates of different tasks run
+ * in parallel while updates of a same task are still run one by one.
+ * A request is refused when its lane is full. Refused requests are kept
+ * and published again on each retry period until a lane accepts them, so
+ * publishers do not have to handle refusals. Refusals are counted in
+ * metrics.
  */
 @Slf4j
 @Component
 public class TaskUpdateRequestManager {
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(1);
-    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    static final String REFUSED_METRIC = "iexec.core.task.update.refused";
+    static final String RETRYING_METRIC = "iexec.core.task.update.retrying";
+
+    private final ThreadPoolExecutor[] lanes;
+    // requests waiting in a lane, a request leaves this set when its update starts
+    private final Set<String> pendingRequests = ConcurrentHashMap.newKeySet();
+    // requests refused by a full lane, waiting for the next retry
+    private final Set<String> refusedRequests = ConcurrentHashMap.newKeySet();
+    private final Counter refusedCounter;
     private TaskUpdateRequestConsumer consumer;
 
+    public TaskUpdateRequestManager(@Value("${task.update.lanes}") int nbLanes,
+                                    @Value("${task.update.lane-capacity}") int laneCapacity,
+                                    MeterRegistry meterRegistry) {
+        this.lanes = new ThreadPoolExecutor[Math.max(nbLanes, 1)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity), new LaneThreadFactory(i));
+        }
+        this.refusedCounter = Counter.builder(REFUSED_METRIC)
+                .description("Task update requests refused by a full lane")
+                .register(meterRegistry);
+        Gauge.builder(RETRYING_METRIC, refusedRequests, Set::size)
+                .description("Refused task update requests waiting to be published again")
+                .register(meterRegistry);
+    }
+
     /**
      * Publish TaskUpdateRequest async
      * @param chainTaskId
-     * @return
+     * @return true if the request is queued, false if it is already queued
+     * or if its lane is full (it is then published again later)
      */
     public CompletableFuture<Boolean> publishRequest(String chainTaskId) {
-        Supplier<Boolean> publishRequest = () -> {
-            if (chainTaskId.isEmpty()){
-                return false;
-            }
-            if (queue.contains(chainTaskId)){
-                log.warn("Request already published [chainTaskId:{}]", chainTaskId);
-                return false;
-            }
-            boolean isOffered = queue.offer(chainTaskId);
-            log.info("Published task update request [chainTaskId:{}, queueSize:{}]", chainTaskId, queue.size());
-            return isOffered;
-        };
-        return CompletableFuture.supplyAsync(publishRequest, executorService);
+        if (chainTaskId.isEmpty()){
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!pendingRequests.add(chainTaskId)){
+            log.warn("Request already published [chainTaskId:{}]", chainTaskId);
+            return CompletableFuture.completedFuture(false);
+        }
+        ThreadPoolExecutor lane = getLane(chainTaskId);
+        try {
+            lane.execute(() -> consumeAndNotify(chainTaskId));
+        } catch (RejectedExecutionException e) {
+            pendingRequests.remove(chainTaskId);
+            refusedRequests.add(chainTaskId);
+            refusedCounter.increment();
+            log.warn("Task update lane is full, request will be retried [chainTaskId:{}, laneSize:{}]",
+                    chainTaskId, lane.getQueue().size());
+            return CompletableFuture.completedFuture(false);
+        }
+        log.info("Published task update request [chainTaskId:{}, laneSize:{}, pendingRequests:{}]",
+                chainTaskId, lane.getQueue().size(), pendingRequests.size());
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * Publish refused requests again. Requests refused again stay for the
+     * next retry.
+     */
+    @Scheduled(fixedDelayString = "${task.update.retry-period}")
+    void retryRefusedRequests() {
+        if (refusedRequests.isEmpty()) {
+            return;
+        }
+        List<String> chainTaskIds = new ArrayList<>(refusedRequests);
+        refusedRequests.removeAll(chainTaskIds);
+        log.info("Retrying refused task update requests [nbRequests:{}]", chainTaskIds.size());
+        for (String chainTaskId : chainTaskIds) {
+            publishRequest(chainTaskId);
+        }
+    }
+
+    boolean isRetrying(String chainTaskId) {
+        return refusedRequests.contains(chainTaskId);
     }
 
     /**
@@ -67,28 +136,46 @@ public class TaskUpdateRequestManager {
         this.consumer = consumer;
     }
 
+    @PreDestroy
+    void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
     /**
-     * De-queues head anf notifies consumer.
-     *
-     * Retries consuming and notifying if interrupted
+     * Notifies consumer, always on the lane of the task.
      */
-    @Scheduled(fixedDelay = 1000)
-    public void consumeAndNotify() {
+    private void consumeAndNotify(String chainTaskId) {
+        pendingRequests.remove(chainTaskId);
         if (consumer == null){
-            log.warn("Waiting for consumer before consuming [queueSize:{}]", queue.size());
+            log.warn("No consumer for task update request [chainTaskId:{}]", chainTaskId);
             return;
         }
+        try {
+            consumer.onTaskUpdateRequest(chainTaskId);
+        } catch (RuntimeException e) {
+            log.error("Task update failed [chainTaskId:{}]", chainTaskId, e);
+        }
+    }
+
+    private ThreadPoolExecutor getLane(String chainTaskId) {
+        return lanes[Math.floorMod(chainTaskId.hashCode(), lanes.length)];
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final int laneIndex;
+
+        LaneThreadFactory(int laneIndex) {
+            this.laneIndex = laneIndex;
+        }
 
-        while (!Thread.currentThread().isInterrupted()){
-            log.info("Waiting requests from publisher [queueSize:{}]", queue.size());
-            try {
-                String chainTaskId = queue.take();
-                CompletableFuture.runAsync(() ->
-                        consumer.onTaskUpdateRequest(chainTaskId));
-            } catch (InterruptedException e) {
-                log.error("The unexpected happened", e);
-                Thread.currentThread().interrupt();
-            }
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "task-update-lane-" + laneIndex);
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
@@ -58,11 +58,6 @@ public class Worker {
         computingChainTaskIds = new ArrayList<>();
     }
 
-    void addChainTaskId(String chainTaskId) {
-        participatingChainTaskIds.add(chainTaskId);
-        computingChainTaskIds.add(chainTaskId);
-    }
-
     void removeChainTaskId(String chainTaskId) {
         participatingChainTaskIds.remove(chainTaskId);
         computingChainTaskIds.remove(chainTaskId);
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.worker;
+
+import lombok.Value;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory last alive and last replicate demand dates of registered workers.
+ * <p>
+ * Dates are updated here on each ping and replicate demand and are only
+ * written to the database later, in bulk, for the workers which changed.
+ * Workers are also sorted by last alive date so alive and lost workers are
+ * found without going through all of them.
+ */
+class WorkerActivityRegistry {
+
+    private final Map<String, WorkerActivity> activities = new ConcurrentHashMap<>();
+    private final NavigableSet<AliveKey> aliveIndex = new ConcurrentSkipListSet<>();
+    private final Set<String> dirtyWallets = ConcurrentHashMap.newKeySet();
+
+    boolean contains(String walletAddress) {
+        return activities.containsKey(walletAddress);
+    }
+
+    Optional<WorkerActivity> get(String walletAddress) {
+        return Optional.ofNullable(activities.get(walletAddress));
+    }
+
+    /**
+     * Track a worker with dates read from the database.
+     * Dates already known for this worker are newer and are kept.
+     */
+    void load(String walletAddress, Date lastAliveDate, Date lastReplicateDemandDate) {
+        activities.computeIfAbsent(walletAddress, wallet -> {
+            WorkerActivity activity = new WorkerActivity(lastAliveDate, lastReplicateDemandDate);
+            reindex(wallet, null, activity);
+            return activity;
+        });
+    }
+
+    /**
+     * Apply dates saved by another process, e.g. another instance the
+     * worker talked to. Only dates newer than the known ones are kept
+     * and the worker is not marked dirty since they are already saved.
+     */
+    void merge(String walletAddress, Date lastAliveDate, Date lastReplicateDemandDate) {
+        activities.compute(walletAddress, (wallet, activity) -> {
+            WorkerActivity mergedActivity = activity == null
+                    ? new WorkerActivity(lastAliveDate, lastReplicateDemandDate)
+                    : new WorkerActivity(
+                            getLatest(activity.getLastAliveDate(), lastAliveDate),
+                            getLatest(activity.getLastReplicateDemandDate(), lastReplicateDemandDate));
+            reindex(wallet, activity, mergedActivity);
+            return mergedActivity;
+        });
+    }
+
+    void updateLastAliveDate(String walletAddress, Date lastAliveDate) {
+        update(walletAddress, activity ->
+                new WorkerActivity(lastAliveDate, activity.getLastReplicateDemandDate()));
+    }
+
+    void updateLastReplicateDemandDate(String walletAddress, Date lastReplicateDemandDate) {
+        update(walletAddress, activity ->
+                new WorkerActivity(activity.getLastAliveDate(), lastReplicateDemandDate));
+    }
+
+    List<String> getWalletsAliveBefore(Date date) {
+        return toWallets(aliveIndex.headSet(new AliveKey(date.getTime(), ""), false));
+    }
+
+    List<String> getWalletsAliveAfter(Date date) {
+        return toWallets(aliveIndex.tailSet(new AliveKey(date.getTime() + 1, ""), true));
+    }
+
+    /**
+     * Get activities updated since the last call, they are
+     * not returned again unless they are updated again.
+     */
+    Map<String, WorkerActivity> drainDirtyActivities() {
+        Map<String, WorkerActivity> dirtyActivities = new HashMap<>();
+        for (String walletAddress : dirtyWallets) {
+            dirtyWallets.remove(walletAddress);
+            WorkerActivity activity = activities.get(walletAddress);
+            if (activity != null) {
+                dirtyActivities.put(walletAddress, activity);
+            }
+        }
+        return dirtyActivities;
+    }
+
+    void markDirty(Collection<String> walletAddresses) {
+        dirtyWallets.addAll(walletAddresses);
+    }
+
+    private void update(String walletAddress, UnaryOperator<WorkerActivity> change) {
+        // updates of a worker are serialized so its index entry is always the latest one
+        activities.compute(walletAddress, (wallet, activity) -> {
+            WorkerActivity previousActivity = activity != null ? activity : new WorkerActivity(null, null);
+            WorkerActivity updatedActivity = change.apply(previousActivity);
+            reindex(wallet, activity, updatedActivity);
+            dirtyWallets.add(wallet);
+            return updatedActivity;
+        });
+    }
+
+    private void reindex(String walletAddress, WorkerActivity previousActivity, WorkerActivity activity) {
+        if (previousActivity != null && previousActivity.getLastAliveDate() != null) {
+            aliveIndex.remove(new AliveKey(previousActivity.getLastAliveDate().getTime(), walletAddress));
+        }
+        if (activity.getLastAliveDate() != null) {
+            aliveIndex.add(new AliveKey(activity.getLastAliveDate().getTime(), walletAddress));
+        }
+    }
+
+    private static Date getLatest(Date date, Date otherDate) {
+        if (date == null) {
+            return otherDate;
+        }
+        return otherDate != null && otherDate.after(date) ? otherDate : date;
+    }
+
+    private static List<String> toWallets(Set<AliveKey> keys) {
+        return keys.stream()
+                .map(AliveKey::getWalletAddress)
+                .collect(Collectors.toList());
+    }
+
+    @Value
+    static class WorkerActivity {
+        private Date lastAliveDate;
+        private Date lastReplicateDemandDate;
+    }
+
+    @Value
+    private static class AliveKey implements Comparable<AliveKey> {
+        private long lastAliveTime;
+        private String walletAddress;
+
+        @Override
+        public int compareTo(AliveKey other) {
+            int byTime = Long.compare(lastAliveTime, other.lastAliveTime);
+            return byTime != 0 ? byTime : walletAddress.compareTo(other.walletAddress);
+        }
+    }
+}
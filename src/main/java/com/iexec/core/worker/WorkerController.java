@@ -77,9 +77,10 @@ public class WorkerController {
         if (workerWalletAddress.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED.value()).build();
         }
-        return workerService.updateLastAlive(workerWalletAddress)
-                .<ResponseEntity<String>>map(worker -> ok(SessionService.getSessionId()))
-                .orElseGet(() -> status(HttpStatus.NOT_FOUND).build());
+        if (!workerService.updateLastAlive(workerWalletAddress)) {
+            return status(HttpStatus.NOT_FOUND).build();
+        }
+        return ok(SessionService.getSessionId());
     }
 
     @GetMapping(path = "/workers/challenge")
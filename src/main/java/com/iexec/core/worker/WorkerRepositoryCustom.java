@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.worker;
+
+import com.iexec.core.worker.WorkerActivityRegistry.WorkerActivity;
+
+import java.util.Map;
+import java.util.Optional;
+
+interface WorkerRepositoryCustom {
+
+    /**
+     * Save the last alive and last replicate demand dates of many
+     * workers at once, other fields of the workers are left untouched.
+     *
+     * @param activities dates to save by worker wallet address
+     */
+    void updateActivities(Map<String, WorkerActivity> activities);
+
+    /**
+     * Add a task to the participating and computing tasks of a worker
+     * in a single update, other fields of the worker are left untouched.
+     *
+     * @param walletAddress wallet of the worker
+     * @param chainTaskId   ID of the task
+     * @return the updated worker, empty if the worker is unknown
+     */
+    Optional<Worker> addChainTaskId(String walletAddress, String chainTaskId);
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.worker;
+
+import com.iexec.core.worker.WorkerActivityRegistry.WorkerActivity;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+import java.util.Optional;
+
+class WorkerRepositoryImpl implements WorkerRepositoryCustom {
+
+    private static final String WALLET_ADDRESS = "walletAddress";
+    private static final String LAST_ALIVE_DATE = "lastAliveDate";
+    private static final String LAST_REPLICATE_DEMAND_DATE = "lastReplicateDemandDate";
+    private static final String PARTICIPATING_CHAIN_TASK_IDS = "participatingChainTaskIds";
+    private static final String COMPUTING_CHAIN_TASK_IDS = "computingChainTaskIds";
+
+    private final MongoTemplate mongoTemplate;
+
+    WorkerRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void updateActivities(Map<String, WorkerActivity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Worker.class);
+        activities.forEach((walletAddress, activity) -> {
+            Update update = new Update();
+            // unknown dates are not written so they can't erase stored ones
+            if (activity.getLastAliveDate() != null) {
+                update.set(LAST_ALIVE_DATE, activity.getLastAliveDate());
+            }
+            if (activity.getLastReplicateDemandDate() != null) {
+                update.set(LAST_REPLICATE_DEMAND_DATE, activity.getLastReplicateDemandDate());
+            }
+            bulkOperations.updateOne(Query.query(Criteria.where(WALLET_ADDRESS).is(walletAddress)), update);
+        });
+        bulkOperations.execute();
+    }
+
+    @Override
+    public Optional<Worker> addChainTaskId(String walletAddress, String chainTaskId) {
+        Update update = new Update()
+                .push(PARTICIPATING_CHAIN_TASK_IDS, chainTaskId)
+                .push(COMPUTING_CHAIN_TASK_IDS, chainTaskId);
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                Query.query(Criteria.where(WALLET_ADDRESS).is(walletAddress)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Worker.class));
+    }
+}
@@ -16,23 +16,40 @@
 
 package com.iexec.core.worker;
 
+import com.iexec.core.changestream.WorkerDocumentChangedEvent;
 import com.iexec.core.configuration.WorkerConfiguration;
+import com.iexec.core.worker.WorkerActivityRegistry.WorkerActivity;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import static com.iexec.common.utils.DateTimeUtils.addMinutesToDate;
 
+/**
+ * Registered workers.
+ * <p>
+ * Stored workers are cached so that reads made on each replicate demand
+ * do not hit the database. The cache is updated on each write made here
+ * and from workers change streams for writes made by other instances.
+ * Callers get copies of cached workers.
+ */
 @Slf4j
 @Service
 public class WorkerService {
 
     private final WorkerRepository workerRepository;
     private final WorkerConfiguration workerConfiguration;
+    // last alive and replicate demand dates are kept in memory and saved in bulk
+    private final WorkerActivityRegistry activityRegistry = new WorkerActivityRegistry();
+    // stored workers by wallet address
+    private final Map<String, Worker> workers = new ConcurrentHashMap<>();
 
     public WorkerService(WorkerRepository workerRepository,
                          WorkerConfiguration workerConfiguration) {
@@ -40,12 +57,49 @@ public class WorkerService {
         this.workerConfiguration = workerConfiguration;
     }
 
+    @PostConstruct
+    void loadActivities() {
+        for (Worker worker : workerRepository.findAll()) {
+            workers.put(worker.getWalletAddress(), worker);
+            activityRegistry.load(worker.getWalletAddress(),
+                    worker.getLastAliveDate(), worker.getLastReplicateDemandDate());
+        }
+    }
+
+    /*
+     * Only activities which changed since the previous flush are saved.
+     * They are flushed again on the next run if the bulk update fails.
+     */
+    @Scheduled(fixedRateString = "${workers.activity-flush-period}")
+    @PreDestroy
+    public void flushActivities() {
+        Map<String, WorkerActivity> activities = activityRegistry.drainDirtyActivities();
+        if (activities.isEmpty()) {
+            return;
+        }
+        try {
+            workerRepository.updateActivities(activities);
+            log.debug("Flushed worker activities [nbWorkers:{}]", activities.size());
+        } catch (RuntimeException e) {
+            activityRegistry.markDirty(activities.keySet());
+            log.error("Failed to flush worker activities [nbWorkers:{}]", activities.size(), e);
+        }
+    }
+
+    @EventListener
+    public void onWorkerDocumentChanged(WorkerDocumentChangedEvent event) {
+        Worker worker = event.getWorker();
+        workers.put(worker.getWalletAddress(), copy(worker));
+        activityRegistry.merge(worker.getWalletAddress(),
+                worker.getLastAliveDate(), worker.getLastReplicateDemandDate());
+    }
+
     public Optional<Worker> getWorker(String walletAddress) {
-        return workerRepository.findByWalletAddress(walletAddress);
+        return findWorker(walletAddress);
     }
 
     public Worker addWorker(Worker worker) {
-        Optional<Worker> oWorker = workerRepository.findByWalletAddress(worker.getWalletAddress());
+        Optional<Worker> oWorker = findStoredWorker(worker.getWalletAddress());
 
         if (oWorker.isPresent()) {
             Worker existingWorker = oWorker.get();
@@ -57,7 +111,11 @@ public class WorkerService {
             log.info("Registering new worker");
         }
 
-        return workerRepository.save(worker);
+        Worker savedWorker = save(worker);
+        if (worker.getLastAliveDate() != null) {
+            activityRegistry.updateLastAliveDate(worker.getWalletAddress(), worker.getLastAliveDate());
+        }
+        return savedWorker;
     }
 
     public boolean isAllowedToJoin(String workerAddress){
@@ -69,16 +127,12 @@ public class WorkerService {
         return whitelist.contains(workerAddress);
     }
 
-    public Optional<Worker> updateLastAlive(String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
-        if (optional.isPresent()) {
-            Worker worker = optional.get();
-            worker.setLastAliveDate(new Date());
-            workerRepository.save(worker);
-            return Optional.of(worker);
+    public boolean updateLastAlive(String walletAddress) {
+        if (!isRegistered(walletAddress)) {
+            return false;
         }
-
-        return Optional.empty();
+        activityRegistry.updateLastAliveDate(walletAddress, new Date());
+        return true;
     }
 
     public boolean isWorkerAllowedToAskReplicate(String walletAddress) {
@@ -96,40 +150,35 @@ public class WorkerService {
     }
 
     public Optional<Date> getLastReplicateDemand(String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
-        if (optional.isEmpty()) {
+        if (!isRegistered(walletAddress)) {
             return Optional.empty();
         }
-        Worker worker = optional.get();
-
-        return Optional.ofNullable(worker.getLastReplicateDemandDate());
+        return activityRegistry.get(walletAddress)
+                .map(WorkerActivity::getLastReplicateDemandDate);
     }
 
-    public Optional<Worker> updateLastReplicateDemandDate(String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
-        if (optional.isPresent()) {
-            Worker worker = optional.get();
-            worker.setLastReplicateDemandDate(new Date());
-            workerRepository.save(worker);
-            return Optional.of(worker);
+    public boolean updateLastReplicateDemandDate(String walletAddress) {
+        if (!isRegistered(walletAddress)) {
+            return false;
         }
-
-        return Optional.empty();
+        activityRegistry.updateLastReplicateDemandDate(walletAddress, new Date());
+        return true;
     }
 
     public Optional<Worker> addChainTaskIdToWorker(String chainTaskId, String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
+        // single update, the worker is not read before
+        Optional<Worker> optional = workerRepository.addChainTaskId(walletAddress, chainTaskId);
         if (optional.isPresent()) {
             Worker worker = optional.get();
-            worker.addChainTaskId(chainTaskId);
+            workers.put(walletAddress, worker);
             log.info("Added chainTaskId to worker [chainTaskId:{}, workerName:{}]", chainTaskId, walletAddress);
-            return Optional.of(workerRepository.save(worker));
+            return Optional.of(withActivity(walletAddress, copy(worker)));
         }
         return Optional.empty();
     }
 
     public List<String> getChainTaskIds(String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
+        Optional<Worker> optional = findWorker(walletAddress);
         if (optional.isPresent()) {
             Worker worker = optional.get();
             return worker.getParticipatingChainTaskIds();
@@ -138,7 +187,7 @@ public class WorkerService {
     }
 
     public List<String> getComputingTaskIds(String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
+        Optional<Worker> optional = findWorker(walletAddress);
         if (optional.isPresent()) {
             Worker worker = optional.get();
             return worker.getComputingChainTaskIds();
@@ -147,23 +196,23 @@ public class WorkerService {
     }
 
     public Optional<Worker> removeChainTaskIdFromWorker(String chainTaskId, String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
+        Optional<Worker> optional = findStoredWorker(walletAddress);
         if (optional.isPresent()) {
             Worker worker = optional.get();
             worker.removeChainTaskId(chainTaskId);
             log.info("Removed chainTaskId from worker [chainTaskId:{}, walletAddress:{}]", chainTaskId, walletAddress);
-            return Optional.of(workerRepository.save(worker));
+            return Optional.of(save(worker));
         }
         return Optional.empty();
     }
 
     public Optional<Worker> removeComputedChainTaskIdFromWorker(String chainTaskId, String walletAddress) {
-        Optional<Worker> optional = workerRepository.findByWalletAddress(walletAddress);
+        Optional<Worker> optional = findStoredWorker(walletAddress);
         if (optional.isPresent()) {
             Worker worker = optional.get();
             worker.removeComputedChainTaskId(chainTaskId);
             log.info("Removed computed chainTaskId from worker [chainTaskId:{}, walletAddress:{}]", chainTaskId, walletAddress);
-            return Optional.of(workerRepository.save(worker));
+            return Optional.of(save(worker));
         }
         return Optional.empty();
     }
@@ -172,13 +221,13 @@ public class WorkerService {
     // worker is considered lost if it didn't ping for 1 minute
     public List<Worker> getLostWorkers() {
         Date oneMinuteAgo = addMinutesToDate(new Date(), -1);
-        return workerRepository.findByLastAliveDateBefore(oneMinuteAgo);
+        return findWorkers(activityRegistry.getWalletsAliveBefore(oneMinuteAgo));
     }
 
     // worker is considered alive if it ping after 1 minute
     public List<Worker> getAliveWorkers() {
         Date oneMinuteAgo = addMinutesToDate(new Date(), -1);
-        return workerRepository.findByLastAliveDateAfter(oneMinuteAgo);
+        return findWorkers(activityRegistry.getWalletsAliveAfter(oneMinuteAgo));
     }
 
     public boolean canAcceptMoreWorks(String walletAddress) {
@@ -188,18 +237,19 @@ public class WorkerService {
         }
 
         Worker worker = optionalWorker.get();
-        int workerMaxNbTasks = worker.getMaxNbTasks();
-        int runningReplicateNb = worker.getComputingChainTaskIds().size();
-
-        if (runningReplicateNb >= workerMaxNbTasks) {
+        if (!canAcceptMoreWorks(worker)) {
             log.info("Worker asking for too many replicates [walletAddress: {}, runningReplicateNb:{}, workerMaxNbTasks:{}]",
-                    walletAddress, runningReplicateNb, workerMaxNbTasks);
+                    walletAddress, worker.getComputingChainTaskIds().size(), worker.getMaxNbTasks());
             return false;
         }
 
         return true;
     }
 
+    public boolean canAcceptMoreWorks(Worker worker) {
+        return worker.getComputingChainTaskIds().size() < worker.getMaxNbTasks();
+    }
+
     public int getAliveAvailableCpu() {
         int availableCpus = 0;
         for (Worker worker: getAliveWorkers()) {
@@ -249,4 +299,90 @@ public class WorkerService {
         }
         return availableGpus;
     }
+
+    private boolean isRegistered(String walletAddress) {
+        // unknown workers are looked up in the database, which also starts tracking them
+        return activityRegistry.contains(walletAddress) || findWorker(walletAddress).isPresent();
+    }
+
+    /*
+     * Unknown workers are read from the database once, then served from the cache.
+     */
+    private Optional<Worker> findWorker(String walletAddress) {
+        Worker worker = workers.get(walletAddress);
+        if (worker == null) {
+            Optional<Worker> storedWorker = workerRepository.findByWalletAddress(walletAddress);
+            if (storedWorker.isEmpty()) {
+                return Optional.empty();
+            }
+            worker = storedWorker.get();
+            workers.put(walletAddress, worker);
+        }
+        return Optional.of(withActivity(walletAddress, copy(worker)));
+    }
+
+    /*
+     * Workers modified then saved as a whole are read from the database,
+     * so that a stale cached worker can't erase writes of other instances.
+     */
+    private Optional<Worker> findStoredWorker(String walletAddress) {
+        return workerRepository.findByWalletAddress(walletAddress)
+                .map(worker -> withActivity(walletAddress, worker));
+    }
+
+    private Worker save(Worker worker) {
+        Worker savedWorker = workerRepository.save(worker);
+        if (savedWorker != null) {
+            workers.put(savedWorker.getWalletAddress(), copy(savedWorker));
+        }
+        return savedWorker;
+    }
+
+    private List<Worker> findWorkers(List<String> walletAddresses) {
+        if (walletAddresses.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return workerRepository.findByWalletAddressIn(walletAddresses).stream()
+                .map(worker -> {
+                    workers.put(worker.getWalletAddress(), copy(worker));
+                    return withActivity(worker.getWalletAddress(), worker);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static Worker copy(Worker worker) {
+        return Worker.builder()
+                .id(worker.getId())
+                .name(worker.getName())
+                .walletAddress(worker.getWalletAddress())
+                .os(worker.getOs())
+                .cpu(worker.getCpu())
+                .cpuNb(worker.getCpuNb())
+                .maxNbTasks(worker.getMaxNbTasks())
+                .memorySize(worker.getMemorySize())
+                .teeEnabled(worker.isTeeEnabled())
+                .gpuEnabled(worker.isGpuEnabled())
+                .participatingChainTaskIds(copy(worker.getParticipatingChainTaskIds()))
+                .computingChainTaskIds(copy(worker.getComputingChainTaskIds()))
+                .lastAliveDate(worker.getLastAliveDate())
+                .lastReplicateDemandDate(worker.getLastReplicateDemandDate())
+                .build();
+    }
+
+    private static List<String> copy(List<String> chainTaskIds) {
+        return chainTaskIds != null ? new ArrayList<>(chainTaskIds) : null;
+    }
+
+    /*
+     * Dates stored in database may be older than the ones in memory,
+     * so they are replaced before the worker is returned or saved.
+     */
+    private Worker withActivity(String walletAddress, Worker worker) {
+        activityRegistry.load(walletAddress, worker.getLastAliveDate(), worker.getLastReplicateDemandDate());
+        activityRegistry.get(walletAddress).ifPresent(activity -> {
+            worker.setLastAliveDate(activity.getLastAliveDate());
+            worker.setLastReplicateDemandDate(activity.getLastReplicateDemandDate());
+        });
+        return worker;
+    }
 }
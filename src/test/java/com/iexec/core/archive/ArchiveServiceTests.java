@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.archive;
+
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.event.TasksArchivedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ArchiveServiceTests {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private ReplicatesService replicatesService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private ArchiveService archiveService;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        archiveService = new ArchiveService(taskService, replicatesService, applicationEventPublisher, 30, BATCH_SIZE);
+    }
+
+    @Test
+    public void shouldArchiveReplicatesBeforeTasksUntilLastBatch() {
+        List<String> firstBatch = List.of("id1", "id2");
+        List<String> lastBatch = List.of("id3");
+        when(taskService.getChainTaskIdsOfFinalTasksExpiredBefore(any(), eq(BATCH_SIZE)))
+                .thenReturn(firstBatch, lastBatch);
+        when(taskService.archiveTasks(firstBatch)).thenReturn(2L);
+        when(taskService.archiveTasks(lastBatch)).thenReturn(1L);
+
+        archiveService.archiveFinalTasks();
+
+        InOrder inOrder = inOrder(replicatesService, taskService);
+        inOrder.verify(replicatesService).archiveReplicatesLists(firstBatch);
+        inOrder.verify(taskService).archiveTasks(firstBatch);
+        inOrder.verify(replicatesService).archiveReplicatesLists(lastBatch);
+        inOrder.verify(taskService).archiveTasks(lastBatch);
+        verify(taskService, times(2)).getChainTaskIdsOfFinalTasksExpiredBefore(any(), eq(BATCH_SIZE));
+        verify(applicationEventPublisher).publishEvent(new TasksArchivedEvent(firstBatch));
+        verify(applicationEventPublisher).publishEvent(new TasksArchivedEvent(lastBatch));
+    }
+
+    @Test
+    public void shouldNotArchiveSinceNoExpiredFinalTask() {
+        when(taskService.getChainTaskIdsOfFinalTasksExpiredBefore(any(), eq(BATCH_SIZE)))
+                .thenReturn(List.of());
+
+        archiveService.archiveFinalTasks();
+
+        verify(taskService, never()).archiveTasks(anyList());
+        verifyZeroInteractions(replicatesService);
+    }
+
+    @Test
+    public void shouldStopSinceTasksWereNotRemoved() {
+        List<String> batch = List.of("id1", "id2");
+        when(taskService.getChainTaskIdsOfFinalTasksExpiredBefore(any(), eq(BATCH_SIZE)))
+                .thenReturn(batch);
+        when(taskService.archiveTasks(batch)).thenReturn(0L);
+
+        archiveService.archiveFinalTasks();
+
+        verify(taskService, times(1)).getChainTaskIdsOfFinalTasksExpiredBefore(any(), eq(BATCH_SIZE));
+    }
+}
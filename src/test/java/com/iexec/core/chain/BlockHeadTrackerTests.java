@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.core.chain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class BlockHeadTrackerTests {
+
+    private static final long BLOCK_TIME = 20000;
+    private static final int POLL_AFTER_BLOCKS = 3;
+
+    @Mock
+    private Web3jService web3jService;
+
+    private BlockHeadTracker blockHeadTracker;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        blockHeadTracker = new BlockHeadTracker(web3jService, BLOCK_TIME, POLL_AFTER_BLOCKS);
+    }
+
+    @Test
+    public void shouldTrackLatestBlock() {
+        Instant timestamp = Instant.ofEpochSecond(1600000000);
+
+        blockHeadTracker.onNewHead(10, timestamp);
+
+        assertThat(blockHeadTracker.getLatestBlockNumber()).isEqualTo(10);
+        assertThat(blockHeadTracker.getLatestBlockTimestamp()).isEqualTo(timestamp);
+    }
+
+    @Test
+    public void shouldNotGoBackToOlderBlock() {
+        blockHeadTracker.onNewHead(11, Instant.now());
+
+        blockHeadTracker.onNewHead(10, Instant.now());
+
+        assertThat(blockHeadTracker.getLatestBlockNumber()).isEqualTo(11);
+    }
+
+    @Test
+    public void shouldCallListenersOncePerNewBlock() {
+        List<Long> blockNumbers = new ArrayList<>();
+        blockHeadTracker.addListener(blockNumbers::add);
+
+        blockHeadTracker.onNewHead(10, Instant.now());
+        blockHeadTracker.onNewHead(10, Instant.now());
+        blockHeadTracker.onNewHead(11, Instant.now());
+
+        assertThat(blockNumbers).containsExactly(10L, 11L);
+    }
+
+    @Test
+    public void shouldCallNextListenersWhenOneFails() {
+        List<Long> blockNumbers = new ArrayList<>();
+        blockHeadTracker.addListener(blockNumber -> {
+            throw new IllegalStateException("failing listener");
+        });
+        blockHeadTracker.addListener(blockNumbers::add);
+
+        blockHeadTracker.onNewHead(10, Instant.now());
+
+        assertThat(blockNumbers).containsExactly(10L);
+    }
+
+    @Test
+    public void shouldPollWhenNoHeadReceived() {
+        when(web3jService.getLatestBlockNumber()).thenReturn(10L);
+
+        blockHeadTracker.poll();
+
+        assertThat(blockHeadTracker.getLatestBlockNumber()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldPollWhenNoHeadReceivedForFewBlockTimes() {
+        blockHeadTracker = new BlockHeadTracker(web3jService, 0, POLL_AFTER_BLOCKS);
+        blockHeadTracker.onNewHead(10, Instant.now());
+        when(web3jService.getLatestBlockNumber()).thenReturn(11L);
+
+        blockHeadTracker.poll();
+
+        assertThat(blockHeadTracker.getLatestBlockNumber()).isEqualTo(11);
+    }
+
+    @Test
+    public void shouldNotPollWhenHeadRecentlyReceived() {
+        blockHeadTracker.onNewHead(10, Instant.now());
+
+        blockHeadTracker.poll();
+
+        verify(web3jService, never()).getLatestBlockNumber();
+    }
+
+    @Test
+    public void shouldNotAskNodeForKnownBlock() {
+        blockHeadTracker.onNewHead(10, Instant.now());
+
+        assertThat(blockHeadTracker.isBlockAvailable(9)).isTrue();
+        verify(web3jService, never()).isBlockAvailable(anyLong());
+    }
+
+    @Test
+    public void shouldAskNodeForBlockAfterKnownHead() {
+        blockHeadTracker.onNewHead(10, Instant.now());
+        when(web3jService.isBlockAvailable(11)).thenReturn(true);
+
+        assertThat(blockHeadTracker.isBlockAvailable(11)).isTrue();
+    }
+}
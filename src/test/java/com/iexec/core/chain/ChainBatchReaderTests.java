@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ChainBatchReaderTests {
+
+    @Mock
+    private Web3jService web3jService;
+    @Mock
+    private Web3j web3j;
+    @Mock
+    private BatchRequest firstBatch;
+    @Mock
+    private BatchRequest secondBatch;
+
+    private ChainBatchReader chainBatchReader;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        when(web3jService.getWeb3j()).thenReturn(web3j);
+        when(web3j.newBatch()).thenReturn(firstBatch, secondBatch);
+        chainBatchReader = new ChainBatchReader(web3jService, 2);
+    }
+
+    @Test
+    public void shouldSendRequestsInBatches() throws IOException {
+        List<Request<?, EthCall>> requests = List.of(getRequest(), getRequest(), getRequest());
+        mockResponses(firstBatch, getResponse(requests.get(1), "0x2"), getResponse(requests.get(0), "0x1"));
+        mockResponses(secondBatch, getResponse(requests.get(2), "0x3"));
+
+        List<Optional<EthCall>> responses = chainBatchReader.send(requests);
+
+        assertThat(responses).hasSize(3);
+        assertThat(responses.get(0).map(EthCall::getValue)).contains("0x1");
+        assertThat(responses.get(1).map(EthCall::getValue)).contains("0x2");
+        assertThat(responses.get(2).map(EthCall::getValue)).contains("0x3");
+        verify(firstBatch).add(requests.get(0));
+        verify(firstBatch).add(requests.get(1));
+        verify(secondBatch).add(requests.get(2));
+    }
+
+    @Test
+    public void shouldReturnEmptySinceErrorResponse() throws IOException {
+        List<Request<?, EthCall>> requests = List.of(getRequest(), getRequest());
+        EthCall errorResponse = getResponse(requests.get(0), null);
+        errorResponse.setError(new Response.Error(-32000, "execution reverted"));
+        mockResponses(firstBatch, errorResponse, getResponse(requests.get(1), "0x2"));
+
+        List<Optional<EthCall>> responses = chainBatchReader.send(requests);
+
+        assertThat(responses.get(0)).isEmpty();
+        assertThat(responses.get(1).map(EthCall::getValue)).contains("0x2");
+    }
+
+    @Test
+    public void shouldReturnEmptySinceBatchFailed() throws IOException {
+        List<Request<?, EthCall>> requests = List.of(getRequest(), getRequest(), getRequest());
+        when(firstBatch.send()).thenThrow(new IOException("connection refused"));
+        mockResponses(secondBatch, getResponse(requests.get(2), "0x3"));
+
+        List<Optional<EthCall>> responses = chainBatchReader.send(requests);
+
+        assertThat(responses.get(0)).isEmpty();
+        assertThat(responses.get(1)).isEmpty();
+        assertThat(responses.get(2).map(EthCall::getValue)).contains("0x3");
+    }
+
+    @Test
+    public void shouldNotSendAnythingSinceNoRequest() {
+        assertThat(chainBatchReader.send(List.<Request<?, EthCall>>of())).isEmpty();
+        verifyZeroInteractions(web3j);
+    }
+
+    private Request<?, EthCall> getRequest() {
+        return new Request<>("eth_call", List.of(), null, EthCall.class);
+    }
+
+    private EthCall getResponse(Request<?, EthCall> request, String value) {
+        EthCall response = new EthCall();
+        response.setId(request.getId());
+        response.setResult(value);
+        return response;
+    }
+
+    private void mockResponses(BatchRequest batchRequest, EthCall... responses) throws IOException {
+        BatchResponse batchResponse = mock(BatchResponse.class);
+        doReturn(List.of(responses)).when(batchResponse).getResponses();
+        when(batchRequest.send()).thenReturn(batchResponse);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+public class ChainReadCacheTests {
+
+    private static final String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+
+    @Mock
+    private BlockHeadTracker blockHeadTracker;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChainReadCache chainReadCache;
+    private AtomicInteger nbReads;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        chainReadCache = new ChainReadCache(blockHeadTracker, meterRegistry, 100, 60000);
+        nbReads = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldListenToNewBlocks() {
+        verify(blockHeadTracker).addListener(any());
+    }
+
+    @Test
+    public void shouldNotCacheWhenLatestBlockUnknown() {
+        read();
+        read();
+
+        assertThat(nbReads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReadOnlyOncePerBlock() {
+        chainReadCache.onNewBlock(10);
+
+        assertThat(read()).contains(1);
+        assertThat(read()).contains(1);
+
+        assertThat(nbReads.get()).isEqualTo(1);
+        assertThat(getCount("hit")).isEqualTo(1);
+        assertThat(getCount("miss")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReadAgainOnNewBlock() {
+        chainReadCache.onNewBlock(10);
+        read();
+
+        chainReadCache.onNewBlock(11);
+
+        assertThat(chainReadCache.size()).isZero();
+        assertThat(read()).contains(2);
+        assertThat(nbReads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotGoBackToOlderBlock() {
+        chainReadCache.onNewBlock(11);
+        read();
+
+        chainReadCache.onNewBlock(10);
+
+        assertThat(chainReadCache.getLatestBlockNumber()).isEqualTo(11);
+        assertThat(chainReadCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheFailedRead() {
+        chainReadCache.onNewBlock(10);
+
+        chainReadCache.get("chainTask", CHAIN_TASK_ID, () -> {
+            nbReads.incrementAndGet();
+            return Optional.empty();
+        }, Optional::isPresent);
+        chainReadCache.get("chainTask", CHAIN_TASK_ID, () -> {
+            nbReads.incrementAndGet();
+            return Optional.empty();
+        }, Optional::isPresent);
+
+        assertThat(nbReads.get()).isEqualTo(2);
+    }
+
+    private Optional<Integer> read() {
+        return chainReadCache.get("chainTask", CHAIN_TASK_ID,
+                () -> Optional.of(nbReads.incrementAndGet()), Optional::isPresent);
+    }
+
+    private double getCount(String result) {
+        return meterRegistry.get(ChainReadCache.CACHE_METRIC)
+                .tag("read", "chainTask")
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
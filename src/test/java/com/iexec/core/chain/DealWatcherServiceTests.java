@@ -31,6 +31,7 @@ import org.mockito.*;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
@@ -118,8 +119,8 @@ public class DealWatcherServiceTests {
 
         when(iexecHubService.getDealEventObservableToLatest(from)).thenReturn(Flowable.just(dealEvent));
         when(iexecHubService.getChainDeal(dealEvent.get().getChainDealId())).thenReturn(Optional.of(chainDeal));
-        when(taskService.addTask(any(), Mockito.anyInt(), anyLong(), any(), any(), Mockito.anyInt(), anyLong(), any(), any(), any()))
-                        .thenReturn(Optional.of(task));
+        when(taskService.addTasks(any(), Mockito.anyInt(), Mockito.anyInt(), anyLong(), any(), any(), Mockito.anyInt(), anyLong(), any(), any(), any()))
+                        .thenReturn(List.of(task));
         when(configurationService.getLastSeenBlockWithDeal()).thenReturn(from);
         when(iexecHubService.isBeforeContributionDeadline(chainDeal)).thenReturn(true);
 
@@ -170,11 +171,47 @@ public class DealWatcherServiceTests {
         verify(applicationEventPublisher, never())
                 .publishEvent(any());
         verify(taskService, never())
-                .addTask(anyString(), anyInt(), anyLong(),
+                .addTasks(anyString(), anyInt(), anyInt(), anyLong(),
                         anyString(), anyString(), anyInt(), anyLong(),
                         anyString(), any(), any());
     }
 
+    @Test
+    public void shouldAddTasksOfLargeDealByChunks() {
+        ChainDeal chainDeal = ChainDeal.builder()
+                .botFirst(BigInteger.valueOf(10))
+                .botSize(BigInteger.valueOf(2 * DealWatcherService.TASK_CHUNK_SIZE + 1))
+                .chainApp(ChainApp.builder().uri("0x00").build())
+                .chainCategory(new ChainCategory())
+                .params(DealParams.builder().iexecArgs("args").build())
+                .trust(BigInteger.valueOf(3))
+                .build();
+
+        BigInteger from = BigInteger.valueOf(0);
+        Optional<DealEvent> dealEvent = Optional.of(DealEvent.builder()
+                .chainDealId("chainDealId")
+                .blockNumber(BigInteger.valueOf(3))
+                .build());
+
+        when(iexecHubService.getDealEventObservableToLatest(from)).thenReturn(Flowable.just(dealEvent));
+        when(iexecHubService.getChainDeal("chainDealId")).thenReturn(Optional.of(chainDeal));
+        when(iexecHubService.isBeforeContributionDeadline(chainDeal)).thenReturn(true);
+        when(configurationService.getLastSeenBlockWithDeal()).thenReturn(from);
+        when(taskService.addTasks(any(), anyInt(), anyInt(), anyLong(), any(), any(), anyInt(), anyLong(), any(), any(), any()))
+                .thenReturn(List.of(new Task()));
+
+        dealWatcherService.subscribeToDealEventFromOneBlockToLatest(from);
+
+        int chunkSize = DealWatcherService.TASK_CHUNK_SIZE;
+        verify(taskService).addTasks(eq("chainDealId"), eq(10), eq(chunkSize), anyLong(),
+                any(), any(), anyInt(), anyLong(), any(), any(), any());
+        verify(taskService).addTasks(eq("chainDealId"), eq(10 + chunkSize), eq(chunkSize), anyLong(),
+                any(), any(), anyInt(), anyLong(), any(), any(), any());
+        verify(taskService).addTasks(eq("chainDealId"), eq(10 + 2 * chunkSize), eq(1), anyLong(),
+                any(), any(), anyInt(), anyLong(), any(), any(), any());
+        verify(applicationEventPublisher, times(3)).publishEvent(any(TaskCreatedEvent.class));
+    }
+
     @Test
     public void shouldUpdateLastSeenBlockWhenOneDealAndNotCreateTaskSinceBotSizeIsZero() {
         BigInteger from = BigInteger.valueOf(0);
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.core.chain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GasBalanceTrackerTests {
+
+    private static final String WORKER_WALLET = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+    private static final String SCHEDULER_WALLET = "0x2ab2674aa374fe6415d11f0a8fcbd8027fc1e6a9";
+    // gas price is 1 wei
+    private static final BigInteger ENOUGH_GAS = GasBalanceTracker.MIN_GAS;
+    private static final BigInteger LOW_GAS = BigInteger.ONE;
+
+    @Mock
+    private Web3jService web3jService;
+    @Mock
+    private Web3j web3j;
+    @Mock
+    private ChainBatchReader chainBatchReader;
+    @Mock
+    private BlockHeadTracker blockHeadTracker;
+    @Mock
+    private CredentialsService credentialsService;
+
+    private final Map<Request<?, EthGetBalance>, String> balanceRequests = new HashMap<>();
+    // balances on-chain, wallets missing here can't be read
+    private final Map<String, BigInteger> onChainBalances = new HashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private GasBalanceTracker gasBalanceTracker;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        Credentials credentials = mock(Credentials.class);
+        when(credentials.getAddress()).thenReturn(SCHEDULER_WALLET);
+        when(credentialsService.getCredentials()).thenReturn(credentials);
+        when(web3jService.getWeb3j()).thenReturn(web3j);
+        when(web3jService.getUserGasPrice()).thenReturn(BigInteger.ONE);
+        mockBalanceRequest(WORKER_WALLET);
+        mockBalanceRequest(SCHEDULER_WALLET);
+        when(chainBatchReader.send(anyList())).thenAnswer(invocation -> {
+            List<Request<?, EthGetBalance>> requests = invocation.getArgument(0);
+            return requests.stream()
+                    .map(request -> Optional.ofNullable(onChainBalances.get(balanceRequests.get(request)))
+                            .map(this::getBalanceResponse))
+                    .collect(Collectors.toList());
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        gasBalanceTracker = new GasBalanceTracker(web3jService, chainBatchReader, blockHeadTracker,
+                credentialsService, meterRegistry, 60000);
+    }
+
+    @After
+    public void shutdown() {
+        gasBalanceTracker.shutdown();
+    }
+
+    @Test
+    public void shouldListenToNewBlocks() {
+        verify(blockHeadTracker).addListener(any());
+    }
+
+    @Test
+    public void shouldReadBalanceOnlyOnce() {
+        onChainBalances.put(WORKER_WALLET, ENOUGH_GAS);
+
+        assertThat(gasBalanceTracker.hasEnoughGas(WORKER_WALLET)).isTrue();
+        assertThat(gasBalanceTracker.hasEnoughGas(WORKER_WALLET)).isTrue();
+
+        verify(chainBatchReader, times(1)).send(anyList());
+    }
+
+    @Test
+    public void shouldNotHaveEnoughGasSinceBalanceNotRead() {
+        assertThat(gasBalanceTracker.hasEnoughGas(WORKER_WALLET)).isFalse();
+    }
+
+    @Test
+    public void shouldRefreshBalances() {
+        onChainBalances.put(WORKER_WALLET, ENOUGH_GAS);
+        onChainBalances.put(SCHEDULER_WALLET, ENOUGH_GAS);
+        gasBalanceTracker.hasEnoughGas(WORKER_WALLET);
+        gasBalanceTracker.hasEnoughGas(SCHEDULER_WALLET);
+        onChainBalances.put(WORKER_WALLET, LOW_GAS);
+
+        gasBalanceTracker.refresh().join();
+
+        assertThat(gasBalanceTracker.hasEnoughGas(WORKER_WALLET)).isFalse();
+        assertThat(getLowBalances("workers")).isEqualTo(1);
+        assertThat(getLowBalances("scheduler")).isZero();
+    }
+
+    @Test
+    public void shouldRefreshAllBalancesWithOneBatch() {
+        onChainBalances.put(WORKER_WALLET, ENOUGH_GAS);
+        onChainBalances.put(SCHEDULER_WALLET, ENOUGH_GAS);
+        gasBalanceTracker.hasEnoughGas(WORKER_WALLET);
+        gasBalanceTracker.hasEnoughGas(SCHEDULER_WALLET);
+        clearInvocations(chainBatchReader);
+
+        gasBalanceTracker.refresh().join();
+
+        verify(chainBatchReader, times(1)).send(argThat(requests -> requests.size() == 2));
+    }
+
+    @Test
+    public void shouldKeepBalanceSinceRefreshFailed() {
+        onChainBalances.put(WORKER_WALLET, ENOUGH_GAS);
+        gasBalanceTracker.hasEnoughGas(WORKER_WALLET);
+        onChainBalances.remove(WORKER_WALLET);
+
+        gasBalanceTracker.refresh().join();
+
+        assertThat(gasBalanceTracker.hasEnoughGas(WORKER_WALLET)).isTrue();
+    }
+
+    @Test
+    public void shouldStopRefreshingWalletNotAskedForAnymore() {
+        gasBalanceTracker.shutdown();
+        gasBalanceTracker = new GasBalanceTracker(web3jService, chainBatchReader, blockHeadTracker,
+                credentialsService, new SimpleMeterRegistry(), -1);
+        gasBalanceTracker.hasEnoughGas(WORKER_WALLET);
+        gasBalanceTracker.hasEnoughGas(SCHEDULER_WALLET);
+
+        gasBalanceTracker.refresh().join();
+
+        assertThat(gasBalanceTracker.isTracked(WORKER_WALLET)).isFalse();
+        assertThat(gasBalanceTracker.isTracked(SCHEDULER_WALLET)).isTrue();
+    }
+
+    @Test
+    public void shouldExposeLowSchedulerBalance() {
+        onChainBalances.put(SCHEDULER_WALLET, LOW_GAS);
+
+        gasBalanceTracker.hasEnoughGas(SCHEDULER_WALLET);
+
+        assertThat(getLowBalances("scheduler")).isEqualTo(1);
+        assertThat(getLowBalances("workers")).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockBalanceRequest(String walletAddress) {
+        Request<?, EthGetBalance> request = mock(Request.class);
+        balanceRequests.put(request, walletAddress);
+        doReturn(request).when(web3j).ethGetBalance(eq(walletAddress), any());
+    }
+
+    private EthGetBalance getBalanceResponse(BigInteger balance) {
+        EthGetBalance response = new EthGetBalance();
+        response.setResult(Numeric.encodeQuantity(balance));
+        return response;
+    }
+
+    private double getLowBalances(String wallet) {
+        return meterRegistry.get(GasBalanceTracker.LOW_BALANCE_METRIC)
+                .tag("wallet", wallet)
+                .gauge()
+                .value();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.chain;
+
+import com.iexec.common.replicate.ReplicateStatusDetails;
+import com.iexec.common.replicate.ReplicateStatusModifier;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskSummary;
+import com.iexec.core.task.event.TaskCreatedEvent;
+import io.reactivex.Flowable;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.*;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import static com.iexec.common.replicate.ReplicateStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TaskEventWatcherServiceTests {
+
+    private final static String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+    private final static String WALLET_WORKER_1 = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+
+    @Mock
+    private IexecHubService iexecHubService;
+
+    @Mock
+    private Web3jService web3jService;
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private ReplicatesService replicatesService;
+
+    @InjectMocks
+    private TaskEventWatcherService taskEventWatcherService;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        when(taskService.getTaskSummariesInNonFinalStatuses())
+                .thenReturn(List.of(TaskSummary.builder().chainTaskId(CHAIN_TASK_ID).build()));
+        taskEventWatcherService.refreshWatchedTasks();
+    }
+
+    @Test
+    public void shouldRunFromLatestBlock() {
+        when(web3jService.getLatestBlockNumber()).thenReturn(10L);
+        when(iexecHubService.getTaskEventObservableToLatest(BigInteger.TEN))
+                .thenReturn(Flowable.empty());
+
+        taskEventWatcherService.run();
+
+        verify(iexecHubService).getTaskEventObservableToLatest(BigInteger.TEN);
+    }
+
+    @Test
+    public void shouldResubscribeFromLastProcessedBlockSinceStopped() {
+        when(web3jService.getLatestBlockNumber()).thenReturn(10L);
+        when(iexecHubService.getTaskEventObservableToLatest(BigInteger.TEN))
+                .thenReturn(Flowable.concat(Flowable.just(getTaskEvent(TaskEvent.Type.FINALIZE)),
+                        Flowable.error(new RuntimeException("connection lost"))));
+        when(iexecHubService.getTaskEventObservableToLatest(BigInteger.valueOf(12)))
+                .thenReturn(Flowable.never());
+        taskEventWatcherService.run();
+
+        taskEventWatcherService.resubscribeIfStopped();
+
+        verify(iexecHubService).getTaskEventObservableToLatest(BigInteger.valueOf(12));
+    }
+
+    @Test
+    public void shouldNotResubscribeSinceRunning() {
+        when(web3jService.getLatestBlockNumber()).thenReturn(10L);
+        when(iexecHubService.getTaskEventObservableToLatest(BigInteger.TEN))
+                .thenReturn(Flowable.never());
+        taskEventWatcherService.run();
+
+        taskEventWatcherService.resubscribeIfStopped();
+
+        verify(iexecHubService, times(1)).getTaskEventObservableToLatest(any());
+    }
+
+    @Test
+    public void shouldWatchCreatedTask() {
+        String chainTaskId = "0x1";
+        assertThat(taskEventWatcherService.isWatched(chainTaskId)).isFalse();
+
+        taskEventWatcherService.onTaskCreated(new TaskCreatedEvent(chainTaskId));
+
+        assertThat(taskEventWatcherService.isWatched(chainTaskId)).isTrue();
+    }
+
+    @Test
+    public void shouldKeepTaskCreatedWhileRefreshingWatchedTasks() {
+        String chainTaskId = "0x1";
+        when(taskService.getTaskSummariesInNonFinalStatuses()).thenAnswer(invocation -> {
+            taskEventWatcherService.onTaskCreated(new TaskCreatedEvent(chainTaskId));
+            return List.of();
+        });
+
+        taskEventWatcherService.refreshWatchedTasks();
+
+        assertThat(taskEventWatcherService.isWatched(chainTaskId)).isTrue();
+        assertThat(taskEventWatcherService.isWatched(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldUpdateContributingReplicateOnContributeEvent() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        replicate.updateStatus(CONTRIBUTING, ReplicateStatusModifier.WORKER);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.of(replicate));
+
+        taskEventWatcherService.onTaskEvent(getReplicateEvent(TaskEvent.Type.CONTRIBUTE));
+
+        ArgumentCaptor<ReplicateStatusDetails> details = ArgumentCaptor.forClass(ReplicateStatusDetails.class);
+        verify(replicatesService).updateReplicateStatus(eq(CHAIN_TASK_ID), eq(WALLET_WORKER_1),
+                eq(CONTRIBUTED), details.capture());
+        assertThat(details.getValue().getChainReceipt().getBlockNumber()).isEqualTo(12);
+    }
+
+    @Test
+    public void shouldNotReadReplicateOfOtherWorkerpool() {
+        when(taskService.getTaskSummariesInNonFinalStatuses()).thenReturn(List.of());
+        taskEventWatcherService.refreshWatchedTasks();
+
+        taskEventWatcherService.onTaskEvent(getReplicateEvent(TaskEvent.Type.REVEAL));
+
+        verifyZeroInteractions(replicatesService);
+    }
+
+    @Test
+    public void shouldNotUpdateReplicateOfUnknownWorker() {
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.empty());
+
+        taskEventWatcherService.onTaskEvent(getReplicateEvent(TaskEvent.Type.REVEAL));
+
+        verify(replicatesService, never()).updateReplicateStatus(anyString(), anyString(),
+                any(), any(ReplicateStatusDetails.class));
+    }
+
+    @Test
+    public void shouldNotUpdateReplicateNotWaitingForEvent() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        replicate.updateStatus(CONTRIBUTED, ReplicateStatusModifier.WORKER);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.of(replicate));
+
+        taskEventWatcherService.onTaskEvent(getReplicateEvent(TaskEvent.Type.CONTRIBUTE));
+
+        verify(replicatesService, never()).updateReplicateStatus(anyString(), anyString(),
+                any(), any(ReplicateStatusDetails.class));
+    }
+
+    @Test
+    public void shouldUpdateTaskOnFinalizeEvent() {
+        taskEventWatcherService.onTaskEvent(getTaskEvent(TaskEvent.Type.FINALIZE));
+
+        verify(taskService).updateTask(CHAIN_TASK_ID);
+    }
+
+    @Test
+    public void shouldNotUpdateTaskOfOtherWorkerpoolOnReopenEvent() {
+        when(taskService.getTaskSummariesInNonFinalStatuses()).thenReturn(List.of());
+        taskEventWatcherService.refreshWatchedTasks();
+
+        taskEventWatcherService.onTaskEvent(getTaskEvent(TaskEvent.Type.REOPEN));
+
+        verify(taskService, never()).updateTask(anyString());
+    }
+
+    private TaskEvent getReplicateEvent(TaskEvent.Type type) {
+        return TaskEvent.builder()
+                .type(type)
+                .chainTaskId(CHAIN_TASK_ID)
+                .walletAddress(WALLET_WORKER_1)
+                .blockNumber(BigInteger.valueOf(12))
+                .build();
+    }
+
+    private TaskEvent getTaskEvent(TaskEvent.Type type) {
+        return TaskEvent.builder()
+                .type(type)
+                .chainTaskId(CHAIN_TASK_ID)
+                .blockNumber(BigInteger.valueOf(12))
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.chain.adapter;
+
+import com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker.Command;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BlockchainAdapterCommandTrackerTests {
+
+    private static final String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+
+    @Mock
+    private BlockchainAdapterService blockchainAdapterService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private BlockchainAdapterCommandTracker commandTracker;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        commandTracker = new BlockchainAdapterCommandTracker(blockchainAdapterService, applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldPublishEventWhenCommandCompleted() {
+        when(blockchainAdapterService.isInitialized(CHAIN_TASK_ID))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(true));
+        commandTracker.watch(CHAIN_TASK_ID, Command.INITIALIZE);
+
+        commandTracker.checkPendingCommands();
+        verifyZeroInteractions(applicationEventPublisher);
+        assertThat(commandTracker.isWatched(CHAIN_TASK_ID, Command.INITIALIZE)).isTrue();
+
+        commandTracker.checkPendingCommands();
+        verify(applicationEventPublisher)
+                .publishEvent(new CommandCompletedEvent(CHAIN_TASK_ID, Command.INITIALIZE, true));
+        assertThat(commandTracker.isWatched(CHAIN_TASK_ID, Command.INITIALIZE)).isFalse();
+    }
+
+    @Test
+    public void shouldPublishEventWhenCommandFailed() {
+        when(blockchainAdapterService.isFinalized(CHAIN_TASK_ID)).thenReturn(Optional.of(false));
+        commandTracker.watch(CHAIN_TASK_ID, Command.FINALIZE);
+
+        commandTracker.checkPendingCommands();
+
+        verify(applicationEventPublisher)
+                .publishEvent(new CommandCompletedEvent(CHAIN_TASK_ID, Command.FINALIZE, false));
+        verify(blockchainAdapterService, never()).isInitialized(any());
+    }
+
+    @Test
+    public void shouldStopWatchingAfterMaxAttempts() {
+        when(blockchainAdapterService.isInitialized(CHAIN_TASK_ID)).thenReturn(Optional.empty());
+        commandTracker.watch(CHAIN_TASK_ID, Command.INITIALIZE);
+
+        for (int i = 0; i < BlockchainAdapterService.MAX_ATTEMPTS; i++) {
+            commandTracker.checkPendingCommands();
+        }
+
+        assertThat(commandTracker.isWatched(CHAIN_TASK_ID, Command.INITIALIZE)).isFalse();
+        verifyZeroInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldNotWatchCommandTwice() {
+        when(blockchainAdapterService.isInitialized(CHAIN_TASK_ID)).thenReturn(Optional.empty());
+        commandTracker.watch(CHAIN_TASK_ID, Command.INITIALIZE);
+        commandTracker.watch(CHAIN_TASK_ID, Command.INITIALIZE);
+
+        commandTracker.checkPendingCommands();
+
+        verify(blockchainAdapterService, times(1)).isInitialized(CHAIN_TASK_ID);
+    }
+}
@@ -28,7 +28,7 @@ import org.springframework.http.ResponseEntity;
 
 import java.util.Optional;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class BlockchainAdapterServiceTests {
 
@@ -37,9 +37,6 @@ public class BlockchainAdapterServiceTests {
     public static final int TASK_INDEX = 0;
     public static final String LINK = "link";
     public static final String CALLBACK = "callback";
-    public static final int PERIOD = 10;
-    public static final int MAX_ATTEMPTS = 3;
-    public static final int ATTEMPT = 0;
 
     @Mock
     private BlockchainAdapterClient blockchainAdapterClient;
@@ -126,18 +123,16 @@ public class BlockchainAdapterServiceTests {
                 .isEqualTo(Optional.of(true));
     }
 
-    // Testing ability to pull & wait
+    // Testing command completion
 
     @Test
     public void isCommandCompletedWithSuccess() {
         when(blockchainAdapterClient.getStatusForInitializeTaskRequest(CHAIN_TASK_ID))
-                .thenReturn(ResponseEntity.ok(CommandStatus.RECEIVED))
-                .thenReturn(ResponseEntity.ok(CommandStatus.PROCESSING))
                 .thenReturn(ResponseEntity.ok(CommandStatus.SUCCESS));
 
         Optional<Boolean> commandCompleted = blockchainAdapterService
                 .isCommandCompleted(blockchainAdapterClient::getStatusForInitializeTaskRequest,
-                CHAIN_TASK_ID, PERIOD, MAX_ATTEMPTS, ATTEMPT);
+                CHAIN_TASK_ID);
         Assertions.assertThat(commandCompleted.isPresent()).isTrue();
         Assertions.assertThat(commandCompleted.get()).isTrue();
     }
@@ -145,16 +140,26 @@ public class BlockchainAdapterServiceTests {
     @Test
     public void isCommandCompletedWithFailure() {
         when(blockchainAdapterClient.getStatusForInitializeTaskRequest(CHAIN_TASK_ID))
-                .thenReturn(ResponseEntity.ok(CommandStatus.RECEIVED))
-                .thenReturn(ResponseEntity.ok(CommandStatus.PROCESSING))
                 .thenReturn(ResponseEntity.ok(CommandStatus.FAILURE));
 
         Optional<Boolean> commandCompleted = blockchainAdapterService
                 .isCommandCompleted(blockchainAdapterClient::getStatusForInitializeTaskRequest,
-                CHAIN_TASK_ID, PERIOD, MAX_ATTEMPTS, ATTEMPT);
+                CHAIN_TASK_ID);
         Assertions.assertThat(commandCompleted.isPresent()).isTrue();
         Assertions.assertThat(commandCompleted.get()).isFalse();
     }
 
+    @Test
+    public void isCommandNotCompletedWithoutWaitingSinceProcessing() {
+        when(blockchainAdapterClient.getStatusForInitializeTaskRequest(CHAIN_TASK_ID))
+                .thenReturn(ResponseEntity.ok(CommandStatus.PROCESSING));
+
+        Optional<Boolean> commandCompleted = blockchainAdapterService
+                .isCommandCompleted(blockchainAdapterClient::getStatusForInitializeTaskRequest,
+                CHAIN_TASK_ID);
+        Assertions.assertThat(commandCompleted).isEmpty();
+        verify(blockchainAdapterClient, times(1)).getStatusForInitializeTaskRequest(CHAIN_TASK_ID);
+    }
+
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.changestream;
+
+import com.iexec.core.cluster.TaskOwnershipService;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.task.Task;
+import com.iexec.core.worker.Worker;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ChangeStreamWatcherTests {
+
+    private static final String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+    private static final String WALLET_ADDRESS = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+    private static final String INSTANCE_ID = "core-1";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoConverter mongoConverter;
+
+    @Mock
+    private ResumeTokenRepository resumeTokenRepository;
+
+    @Mock
+    private TaskOwnershipService taskOwnershipService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private ChangeStreamWatcher changeStreamWatcher;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        when(mongoTemplate.getCollectionName(Task.class)).thenReturn("task");
+        when(mongoTemplate.getCollectionName(ReplicatesList.class)).thenReturn("replicatesList");
+        when(mongoTemplate.getCollectionName(Worker.class)).thenReturn("worker");
+        when(mongoTemplate.getConverter()).thenReturn(mongoConverter);
+        when(taskOwnershipService.getInstanceId()).thenReturn(INSTANCE_ID);
+        changeStreamWatcher = getWatcher(true);
+    }
+
+    @Test
+    public void shouldPublishLatestDocumentOnceAndSaveResumeToken() {
+        Document oldDocument = new Document("chainTaskId", CHAIN_TASK_ID).append("currentStatus", "INITIALIZED");
+        Document newDocument = new Document("chainTaskId", CHAIN_TASK_ID).append("currentStatus", "RUNNING");
+        Task task = Task.builder().chainTaskId(CHAIN_TASK_ID).build();
+        when(mongoConverter.read(Task.class, newDocument)).thenReturn(task);
+
+        changeStreamWatcher.onChange("task", "{\"_id\": 1}", oldDocument, "token1");
+        changeStreamWatcher.onChange("task", "{\"_id\": 1}", newDocument, "token2");
+        changeStreamWatcher.flush();
+
+        verify(mongoConverter, never()).read(Task.class, oldDocument);
+        verify(applicationEventPublisher).publishEvent(new TaskDocumentChangedEvent(task));
+        verify(resumeTokenRepository).saveAll(List.of(ResumeToken.of(INSTANCE_ID, "task", "token2")));
+    }
+
+    @Test
+    public void shouldPublishChangesOfEachCollection() {
+        Document replicatesDocument = new Document("chainTaskId", CHAIN_TASK_ID);
+        Document workerDocument = new Document("walletAddress", WALLET_ADDRESS);
+        ReplicatesList replicatesList = new ReplicatesList();
+        Worker worker = Worker.builder().walletAddress(WALLET_ADDRESS).build();
+        when(mongoConverter.read(ReplicatesList.class, replicatesDocument)).thenReturn(replicatesList);
+        when(mongoConverter.read(Worker.class, workerDocument)).thenReturn(worker);
+
+        changeStreamWatcher.onChange("replicatesList", "{\"_id\": 1}", replicatesDocument, "token1");
+        changeStreamWatcher.onChange("worker", "{\"_id\": 1}", workerDocument, "token2");
+        changeStreamWatcher.flush();
+
+        verify(applicationEventPublisher).publishEvent(new ReplicatesDocumentChangedEvent(replicatesList));
+        verify(applicationEventPublisher).publishEvent(new WorkerDocumentChangedEvent(worker));
+        ArgumentCaptor<List<ResumeToken>> captor = ArgumentCaptor.forClass(List.class);
+        verify(resumeTokenRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).containsExactlyInAnyOrder(
+                ResumeToken.of(INSTANCE_ID, "replicatesList", "token1"),
+                ResumeToken.of(INSTANCE_ID, "worker", "token2"));
+    }
+
+    @Test
+    public void shouldOnlySaveResumeTokenOfDeletedDocument() {
+        changeStreamWatcher.onChange("task", "{\"_id\": 1}", null, "token1");
+        changeStreamWatcher.flush();
+
+        verifyZeroInteractions(applicationEventPublisher);
+        verify(resumeTokenRepository).saveAll(List.of(ResumeToken.of(INSTANCE_ID, "task", "token1")));
+    }
+
+    @Test
+    public void shouldNotSaveResumeTokenAgainSinceUnchanged() {
+        changeStreamWatcher.onChange("task", "{\"_id\": 1}", null, "token1");
+
+        changeStreamWatcher.flush();
+        changeStreamWatcher.flush();
+
+        verify(resumeTokenRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    public void shouldSaveResumeTokenAgainSinceSaveFailed() {
+        when(resumeTokenRepository.saveAll(any()))
+                .thenThrow(new RuntimeException("mongo down"))
+                .thenReturn(List.of());
+        changeStreamWatcher.onChange("task", "{\"_id\": 1}", null, "token1");
+
+        changeStreamWatcher.flush();
+        changeStreamWatcher.flush();
+
+        verify(resumeTokenRepository, times(2)).saveAll(List.of(ResumeToken.of(INSTANCE_ID, "task", "token1")));
+    }
+
+    @Test
+    public void shouldPublishOtherChangesSinceConversionFailed() {
+        Document badDocument = new Document("chainTaskId", 1);
+        Document goodDocument = new Document("chainTaskId", CHAIN_TASK_ID);
+        Task task = Task.builder().chainTaskId(CHAIN_TASK_ID).build();
+        when(mongoConverter.read(Task.class, badDocument)).thenThrow(new RuntimeException("bad document"));
+        when(mongoConverter.read(Task.class, goodDocument)).thenReturn(task);
+
+        changeStreamWatcher.onChange("task", "{\"_id\": 1}", badDocument, "token1");
+        changeStreamWatcher.onChange("task", "{\"_id\": 2}", goodDocument, "token2");
+        changeStreamWatcher.flush();
+
+        verify(applicationEventPublisher).publishEvent(new TaskDocumentChangedEvent(task));
+        verify(resumeTokenRepository).saveAll(List.of(ResumeToken.of(INSTANCE_ID, "task", "token2")));
+    }
+
+    @Test
+    public void shouldDoNothingSinceDisabled() {
+        ChangeStreamWatcher disabledWatcher = getWatcher(false);
+
+        disabledWatcher.run();
+        disabledWatcher.flush();
+
+        verifyZeroInteractions(resumeTokenRepository, applicationEventPublisher);
+        verify(mongoTemplate, never()).getCollection(any());
+    }
+
+    private ChangeStreamWatcher getWatcher(boolean isEnabled) {
+        return new ChangeStreamWatcher(mongoTemplate, resumeTokenRepository, taskOwnershipService,
+                applicationEventPublisher, isEnabled, 5000);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Lease store shared by several {@link TaskOwnershipService} in one JVM.
+ */
+class InMemoryShardLeaseStore implements ShardLeaseStore {
+
+    private final Map<String, Date> members = new HashMap<>();
+    private final Map<Integer, ShardLease> leases = new HashMap<>();
+
+    @Override
+    public synchronized void heartbeat(String instanceId, Date expiry) {
+        members.put(instanceId, expiry);
+    }
+
+    @Override
+    public synchronized List<String> getAliveMembers(Date now) {
+        return members.entrySet().stream()
+                .filter(member -> member.getValue().after(now))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized List<ShardLease> getLeases() {
+        return leases.values().stream()
+                .map(lease -> new ShardLease(lease.getShard(), lease.getOwner(), lease.getExpiry()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(int shard, String owner, Date now, Date expiry) {
+        ShardLease lease = leases.get(shard);
+        if (lease != null && !lease.getOwner().equals(owner) && !lease.getExpiry().before(now)) {
+            return false;
+        }
+        leases.put(shard, new ShardLease(shard, owner, expiry));
+        return true;
+    }
+
+    @Override
+    public synchronized void release(int shard, String owner) {
+        ShardLease lease = leases.get(shard);
+        if (lease != null && lease.getOwner().equals(owner)) {
+            lease.setExpiry(new Date(0));
+        }
+    }
+
+    synchronized String getOwner(int shard) {
+        ShardLease lease = leases.get(shard);
+        return lease != null ? lease.getOwner() : null;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import com.iexec.core.changestream.ReplicatesDocumentChangedEvent;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskSummary;
+import com.iexec.core.task.deadline.TaskDeadlineScheduler;
+import com.iexec.core.task.dispatch.TaskDispatchIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class OwnedTaskSweeperTests {
+
+    private static final String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+    private static final String OTHER_CHAIN_TASK_ID = "0x1";
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private TaskOwnershipService taskOwnershipService;
+
+    @Mock
+    private TaskDispatchIndex taskDispatchIndex;
+
+    @Mock
+    private TaskDeadlineScheduler taskDeadlineScheduler;
+
+    @InjectMocks
+    private OwnedTaskSweeper ownedTaskSweeper;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        when(taskOwnershipService.isEnabled()).thenReturn(true);
+    }
+
+    @Test
+    public void shouldUpdateOwnedTaskOnceSinceReplicatesChanged() {
+        when(taskOwnershipService.isOwned(CHAIN_TASK_ID)).thenReturn(true);
+
+        ownedTaskSweeper.onReplicatesDocumentChanged(getEvent(CHAIN_TASK_ID));
+        ownedTaskSweeper.onReplicatesDocumentChanged(getEvent(CHAIN_TASK_ID));
+        ownedTaskSweeper.sweep();
+        ownedTaskSweeper.sweep();
+
+        verify(taskService, times(1)).updateTask(CHAIN_TASK_ID);
+        assertThat(ownedTaskSweeper.isChanged(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldNotUpdateTaskSinceNotOwned() {
+        when(taskOwnershipService.isOwned(CHAIN_TASK_ID)).thenReturn(false);
+
+        ownedTaskSweeper.onReplicatesDocumentChanged(getEvent(CHAIN_TASK_ID));
+        ownedTaskSweeper.sweep();
+
+        verifyZeroInteractions(taskService);
+    }
+
+    @Test
+    public void shouldNotTrackChangesSinceClusterDisabled() {
+        when(taskOwnershipService.isEnabled()).thenReturn(false);
+
+        ownedTaskSweeper.onReplicatesDocumentChanged(getEvent(CHAIN_TASK_ID));
+        ownedTaskSweeper.sweep();
+
+        verifyZeroInteractions(taskService);
+    }
+
+    @Test
+    public void shouldNotUpdateAnythingSinceNothingChanged() {
+        ownedTaskSweeper.sweep();
+
+        verifyZeroInteractions(taskService);
+    }
+
+    @Test
+    public void shouldRefreshAndSweepTasksOfAcquiredShards() {
+        when(taskService.getTaskSummariesInNonFinalStatuses()).thenReturn(List.of(
+                TaskSummary.builder().chainTaskId(CHAIN_TASK_ID).build(),
+                TaskSummary.builder().chainTaskId(OTHER_CHAIN_TASK_ID).build()));
+        when(taskOwnershipService.getShard(CHAIN_TASK_ID)).thenReturn(1);
+        when(taskOwnershipService.getShard(OTHER_CHAIN_TASK_ID)).thenReturn(2);
+
+        ownedTaskSweeper.onTaskOwnershipChanged(new TaskOwnershipChangedEvent(Set.of(1), Set.of()));
+
+        verify(taskDispatchIndex).refresh();
+        verify(taskDeadlineScheduler).run();
+        verify(taskService).updateTask(CHAIN_TASK_ID);
+        verify(taskService, never()).updateTask(OTHER_CHAIN_TASK_ID);
+    }
+
+    @Test
+    public void shouldOnlyRefreshIndexWhenShardsLost() {
+        ownedTaskSweeper.onTaskOwnershipChanged(new TaskOwnershipChangedEvent(Set.of(), Set.of(1)));
+
+        verify(taskDispatchIndex).refresh();
+        verifyZeroInteractions(taskDeadlineScheduler);
+        verify(taskService, never()).updateTask(anyString());
+    }
+
+    private ReplicatesDocumentChangedEvent getEvent(String chainTaskId) {
+        ReplicatesList replicatesList = new ReplicatesList();
+        replicatesList.setChainTaskId(chainTaskId);
+        return new ReplicatesDocumentChangedEvent(replicatesList);
+    }
+}
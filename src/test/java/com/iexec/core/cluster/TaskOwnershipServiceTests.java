@@ -0,0 +1,239 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.cluster;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TaskOwnershipServiceTests {
+
+    private static final int NB_SHARDS = 64;
+    private static final long LEASE_DURATION = 30000;
+    private static final String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private InMemoryShardLeaseStore shardLeaseStore;
+    private Date now;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        shardLeaseStore = new InMemoryShardLeaseStore();
+        now = new Date();
+    }
+
+    @Test
+    public void shouldOwnAllTasksSinceClusterDisabled() {
+        ShardLeaseStore store = mock(ShardLeaseStore.class);
+        TaskOwnershipService service = new TaskOwnershipService(store, applicationEventPublisher,
+                false, NB_SHARDS, LEASE_DURATION, "", false);
+        List<String> chainTaskIds = List.of(CHAIN_TASK_ID, "0x1", "0x2");
+
+        service.rebalance();
+
+        assertThat(service.isOwned(CHAIN_TASK_ID)).isTrue();
+        assertThat(service.keepOwned(chainTaskIds, chainTaskId -> chainTaskId)).isSameAs(chainTaskIds);
+        verifyZeroInteractions(store);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotStartSinceClusterEnabledWithoutChangeStreams() {
+        new TaskOwnershipService(shardLeaseStore, applicationEventPublisher,
+                true, NB_SHARDS, LEASE_DURATION, "core-1", false);
+    }
+
+    @Test
+    public void shouldGenerateInstanceIdSinceEmpty() {
+        assertThat(getService("").getInstanceId()).isNotEmpty();
+        assertThat(getService("core-1").getInstanceId()).isEqualTo("core-1");
+    }
+
+    @Test
+    public void shouldNotOwnTasksBeforeFirstRebalance() {
+        TaskOwnershipService service = getService("core-1");
+
+        assertThat(service.isOwned(CHAIN_TASK_ID)).isFalse();
+        assertThat(service.keepOwned(List.of(CHAIN_TASK_ID), chainTaskId -> chainTaskId)).isEmpty();
+    }
+
+    @Test
+    public void shouldOwnAllShardsSinceAlone() {
+        TaskOwnershipService service = getService("core-1");
+
+        service.rebalance(now);
+
+        assertThat(service.getOwnedShards()).hasSize(NB_SHARDS);
+        assertThat(service.isOwned(CHAIN_TASK_ID)).isTrue();
+        ArgumentCaptor<TaskOwnershipChangedEvent> captor = ArgumentCaptor.forClass(TaskOwnershipChangedEvent.class);
+        verify(applicationEventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getAcquiredShards()).hasSize(NB_SHARDS);
+        assertThat(captor.getValue().getLostShards()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotPublishEventSinceNothingChanged() {
+        TaskOwnershipService service = getService("core-1");
+        service.rebalance(now);
+
+        service.rebalance(new Date(now.getTime() + 1000));
+
+        verify(applicationEventPublisher, times(1)).publishEvent(any());
+        assertThat(service.getOwnedShards()).hasSize(NB_SHARDS);
+    }
+
+    @Test
+    public void shouldShareShardsWhenInstanceJoins() {
+        TaskOwnershipService core1 = getService("core-1");
+        TaskOwnershipService core2 = getService("core-2");
+        core1.rebalance(now);
+
+        // shards of core-1 are not expired yet
+        core2.rebalance(now);
+        assertThat(core2.getOwnedShards()).isEmpty();
+        // core-1 releases its extra shards which core-2 then takes
+        core1.rebalance(now);
+        core2.rebalance(now);
+
+        assertThat(core1.getOwnedShards()).hasSize(NB_SHARDS / 2);
+        assertThat(core2.getOwnedShards()).hasSize(NB_SHARDS / 2);
+        assertThat(core1.getOwnedShards()).doesNotContainAnyElementsOf(core2.getOwnedShards());
+        assertOwnedByExactlyOne(List.of(core1, core2));
+        for (int shard : core2.getOwnedShards()) {
+            assertThat(shardLeaseStore.getOwner(shard)).isEqualTo("core-2");
+        }
+    }
+
+    @Test
+    public void shouldShareShardsBetweenThreeInstances() {
+        List<TaskOwnershipService> services = List.of(
+                getService("core-1"), getService("core-2"), getService("core-3"));
+
+        for (int round = 0; round < 3; round++) {
+            services.forEach(service -> service.rebalance(now));
+        }
+
+        for (TaskOwnershipService service : services) {
+            // fair share is 22 shards, the last instance gets what is left
+            assertThat(service.getOwnedShards().size()).isBetween(20, 22);
+        }
+        assertOwnedByExactlyOne(services);
+    }
+
+    @Test
+    public void shouldTakeOverShardsOfDeadInstance() {
+        TaskOwnershipService core1 = getService("core-1");
+        TaskOwnershipService core2 = getService("core-2");
+        core1.rebalance(now);
+        core2.rebalance(now);
+        core1.rebalance(now);
+        core2.rebalance(now);
+        assertThat(core2.getOwnedShards()).hasSize(NB_SHARDS / 2);
+
+        // core-1 stops renewing its leases
+        core2.rebalance(new Date(now.getTime() + 2 * LEASE_DURATION));
+
+        assertThat(core2.getOwnedShards()).hasSize(NB_SHARDS);
+        for (int shard = 0; shard < NB_SHARDS; shard++) {
+            assertThat(shardLeaseStore.getOwner(shard)).isEqualTo("core-2");
+        }
+    }
+
+    @Test
+    public void shouldTakeOverShardsRightAwayWhenInstanceStops() {
+        TaskOwnershipService core1 = getService("core-1");
+        TaskOwnershipService core2 = getService("core-2");
+        core1.rebalance(now);
+        core2.rebalance(now);
+
+        core1.releaseAll();
+        core2.rebalance(now);
+
+        assertThat(core1.getOwnedShards()).isEmpty();
+        assertThat(core1.isOwned(CHAIN_TASK_ID)).isFalse();
+        assertThat(core2.getOwnedShards()).hasSize(NB_SHARDS);
+    }
+
+    @Test
+    public void shouldLoseShardSinceLeaseTakenByAnotherInstance() {
+        TaskOwnershipService core1 = getService("core-1");
+        core1.rebalance(now);
+        int shard = core1.getShard(CHAIN_TASK_ID);
+        // core-1 could not renew in time and its lease was taken
+        Date later = new Date(now.getTime() + 2 * LEASE_DURATION);
+        shardLeaseStore.tryAcquire(shard, "core-2", later, new Date(later.getTime() + LEASE_DURATION));
+
+        core1.rebalance(new Date(now.getTime() + LEASE_DURATION / 2));
+
+        assertThat(core1.getOwnedShards()).doesNotContain(shard);
+        assertThat(core1.isOwned(CHAIN_TASK_ID)).isFalse();
+        ArgumentCaptor<TaskOwnershipChangedEvent> captor = ArgumentCaptor.forClass(TaskOwnershipChangedEvent.class);
+        verify(applicationEventPublisher, times(2)).publishEvent(captor.capture());
+        assertThat(captor.getValue().getLostShards()).containsExactly(shard);
+    }
+
+    @Test
+    public void shouldKeepOwnedTasksOnly() {
+        TaskOwnershipService core1 = getService("core-1");
+        TaskOwnershipService core2 = getService("core-2");
+        core1.rebalance(now);
+        core2.rebalance(now);
+        core1.rebalance(now);
+        core2.rebalance(now);
+        List<String> chainTaskIds = IntStream.range(0, 100)
+                .mapToObj(i -> "0x" + i)
+                .collect(Collectors.toList());
+
+        List<String> ownedByCore1 = core1.keepOwned(chainTaskIds, chainTaskId -> chainTaskId);
+        List<String> ownedByCore2 = core2.keepOwned(chainTaskIds, chainTaskId -> chainTaskId);
+
+        assertThat(ownedByCore1).isNotEmpty().doesNotContainAnyElementsOf(ownedByCore2);
+        assertThat(ownedByCore1.size() + ownedByCore2.size()).isEqualTo(chainTaskIds.size());
+    }
+
+    private TaskOwnershipService getService(String instanceId) {
+        return new TaskOwnershipService(shardLeaseStore, applicationEventPublisher,
+                true, NB_SHARDS, LEASE_DURATION, instanceId, true);
+    }
+
+    private void assertOwnedByExactlyOne(List<TaskOwnershipService> services) {
+        Set<Integer> ownedShards = new HashSet<>();
+        int nbOwnedShards = 0;
+        for (TaskOwnershipService service : services) {
+            ownedShards.addAll(service.getOwnedShards());
+            nbOwnedShards += service.getOwnedShards().size();
+        }
+        assertThat(ownedShards).hasSize(NB_SHARDS);
+        assertThat(nbOwnedShards).isEqualTo(NB_SHARDS);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.config;
+
+import com.iexec.core.security.JwtTokenProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class WebSocketAuthenticationInterceptorTests {
+
+    private final static String WALLET_WORKER = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+    private final static String BEARER_TOKEN = "Bearer token";
+
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Mock
+    private MessageChannel channel;
+
+    @InjectMocks
+    private WebSocketAuthenticationInterceptor interceptor;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void shouldSetWorkerAsSessionUserOnConnect() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(BEARER_TOKEN)).thenReturn(WALLET_WORKER);
+
+        Message<?> message = interceptor.preSend(getConnectMessage(BEARER_TOKEN), channel);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        assertThat(accessor.getUser()).isNotNull();
+        assertThat(accessor.getUser().getName()).isEqualTo(WALLET_WORKER);
+    }
+
+    @Test
+    public void shouldNotSetUserSinceInvalidToken() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(BEARER_TOKEN)).thenReturn("");
+
+        Message<?> message = interceptor.preSend(getConnectMessage(BEARER_TOKEN), channel);
+
+        assertThat(StompHeaderAccessor.wrap(message).getUser()).isNull();
+    }
+
+    private Message<byte[]> getConnectMessage(String bearerToken) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", bearerToken);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.contribution;
+
+import com.iexec.common.replicate.ReplicateStatus;
+import com.iexec.common.replicate.ReplicateStatusModifier;
+import com.iexec.common.replicate.ReplicateStatusUpdate;
+import com.iexec.core.changestream.ReplicatesDocumentChangedEvent;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicateUpdatedEvent;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ConsensusAccumulatorTests {
+
+    private final static String CHAIN_TASK_ID = "0xtaskId";
+    private final static String A = "0xA";
+    private final static String B = "0xB";
+    private final static long MAX_EXECUTION_TIME = 60000;
+
+    @Mock
+    private ReplicatesService replicatesService;
+
+    private ConsensusAccumulator consensusAccumulator;
+    private PredictionService predictionService;
+    private List<Replicate> replicates;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        consensusAccumulator = new ConsensusAccumulator(replicatesService);
+        // reference implementation reading replicates on each call
+        predictionService = new PredictionService(new ContributionService(replicatesService));
+        replicates = new ArrayList<>();
+        when(replicatesService.getReplicates(CHAIN_TASK_ID)).thenReturn(replicates);
+    }
+
+    @Test
+    public void shouldMatchPredictionServiceWhenLoaded() {
+        addContributedReplicate("0x1", A, 3);
+        addContributedReplicate("0x2", A, 5);
+        addContributedReplicate("0x3", B, 10);
+        addReplicate("0x4", 2, ReplicateStatus.COMPUTED);
+        addReplicate("0x5", 7, ReplicateStatus.FAILED);
+
+        assertSameWeightsAsPredictionService();
+        assertThat(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME))
+                .isEqualTo(30);
+        assertThat(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldMatchPredictionServiceOnTie() {
+        addContributedReplicate("0x1", A, 4);
+        addContributedReplicate("0x2", B, 4);
+
+        assertSameWeightsAsPredictionService();
+        assertThat(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldUpdateIncrementallyOnReplicateUpdates() {
+        Replicate replicate = addReplicate("0x1", 3, ReplicateStatus.COMPUTED);
+        addContributedReplicate("0x2", B, 2);
+        consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME);
+
+        update(replicate, ReplicateStatus.CONTRIBUTING);
+        replicate.setContributionHash(A);
+        update(replicate, ReplicateStatus.CONTRIBUTED);
+
+        assertSameWeightsAsPredictionService();
+        assertThat(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME))
+                .isEqualTo(3);
+        // loaded once, then only the contributed replicate is read
+        verify(replicatesService, times(1)).getReplicate(CHAIN_TASK_ID, "0x1");
+        clearInvocations(replicatesService);
+
+        update(replicate, ReplicateStatus.WORKER_LOST);
+        update(replicate, ReplicateStatus.FAILED);
+
+        assertSameWeightsAsPredictionService();
+        verify(replicatesService, never()).getReplicate(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldCountAddedReplicateAsPending() {
+        addContributedReplicate("0x1", A, 2);
+        consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME);
+
+        addReplicate("0x2", 5, ReplicateStatus.CREATED);
+        consensusAccumulator.onReplicateAdded(CHAIN_TASK_ID, "0x2");
+
+        assertSameWeightsAsPredictionService();
+        assertThat(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME))
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void shouldNotCountPendingReplicateAfterOnePeriod() {
+        addReplicate("0x1", 5, ReplicateStatus.COMPUTING);
+
+        assertThat(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, -1)).isZero();
+        assertThat(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, -1)).isZero();
+    }
+
+    @Test
+    public void shouldDropTallyWhenTaskLeavesContributionPhase() {
+        consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME);
+        Task task = new Task();
+        task.setChainTaskId(CHAIN_TASK_ID);
+
+        task.setCurrentStatus(TaskStatus.RUNNING);
+        consensusAccumulator.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZED));
+        assertThat(consensusAccumulator.isTracked(CHAIN_TASK_ID)).isTrue();
+
+        task.setCurrentStatus(TaskStatus.CONSENSUS_REACHED);
+        consensusAccumulator.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.RUNNING));
+        assertThat(consensusAccumulator.isTracked(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldIgnoreUpdatesOfUntrackedTask() {
+        Replicate replicate = addReplicate("0x1", 3, ReplicateStatus.COMPUTED);
+
+        update(replicate, ReplicateStatus.CONTRIBUTED);
+
+        assertThat(consensusAccumulator.isTracked(CHAIN_TASK_ID)).isFalse();
+        verifyZeroInteractions(replicatesService);
+    }
+
+    @Test
+    public void shouldLoadTallyAgainSinceReplicateUpdatedWhileLoading() {
+        Replicate replicate = addReplicate("0x1", 3, ReplicateStatus.COMPUTED);
+        replicate.setContributionHash(A);
+        when(replicatesService.getReplicates(CHAIN_TASK_ID))
+                .thenAnswer(invocation -> {
+                    // contributed once the stale list is read, the tally is not tracked yet
+                    update(replicate, ReplicateStatus.CONTRIBUTED);
+                    return new ArrayList<>();
+                })
+                .thenReturn(replicates);
+
+        assertThat(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME))
+                .isEqualTo(3);
+        verify(replicatesService, times(2)).getReplicates(CHAIN_TASK_ID);
+    }
+
+    @Test
+    public void shouldRebuildTallyFromStoredReplicates() {
+        addContributedReplicate("0x1", A, 2);
+        consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME);
+
+        // contributed through another instance
+        addContributedReplicate("0x2", A, 5);
+        consensusAccumulator.onReplicatesDocumentChanged(new ReplicatesDocumentChangedEvent(getReplicatesList()));
+        clearInvocations(replicatesService);
+
+        int bestPredictionWeight = consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME);
+        int worstPredictionsWeight = consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID);
+        // the tally is rebuilt from the event without reading the database
+        verifyZeroInteractions(replicatesService);
+        assertThat(bestPredictionWeight)
+                .isEqualTo(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME));
+        assertThat(worstPredictionsWeight)
+                .isEqualTo(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID));
+    }
+
+    @Test
+    public void shouldNotTrackTaskWhenStoredReplicatesChanged() {
+        addContributedReplicate("0x1", A, 2);
+
+        consensusAccumulator.onReplicatesDocumentChanged(new ReplicatesDocumentChangedEvent(getReplicatesList()));
+
+        assertThat(consensusAccumulator.isTracked(CHAIN_TASK_ID)).isFalse();
+    }
+
+    private ReplicatesList getReplicatesList() {
+        ReplicatesList replicatesList = new ReplicatesList();
+        replicatesList.setChainTaskId(CHAIN_TASK_ID);
+        replicatesList.setReplicates(new ArrayList<>(replicates));
+        return replicatesList;
+    }
+
+    private void assertSameWeightsAsPredictionService() {
+        assertThat(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME))
+                .isEqualTo(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME));
+        assertThat(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID))
+                .isEqualTo(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID));
+    }
+
+    private Replicate addContributedReplicate(String walletAddress, String contributionHash, int workerWeight) {
+        Replicate replicate = addReplicate(walletAddress, workerWeight, ReplicateStatus.CONTRIBUTED);
+        replicate.setContributionHash(contributionHash);
+        return replicate;
+    }
+
+    private Replicate addReplicate(String walletAddress, int workerWeight, ReplicateStatus status) {
+        Replicate replicate = new Replicate(walletAddress, CHAIN_TASK_ID);
+        replicate.setWorkerWeight(workerWeight);
+        if (status != ReplicateStatus.CREATED) {
+            replicate.updateStatus(status, ReplicateStatusModifier.WORKER);
+        }
+        replicates.add(replicate);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, walletAddress)).thenReturn(Optional.of(replicate));
+        return replicate;
+    }
+
+    private void update(Replicate replicate, ReplicateStatus status) {
+        ReplicateStatusUpdate statusUpdate = new ReplicateStatusUpdate(status, ReplicateStatusModifier.WORKER);
+        replicate.updateStatus(statusUpdate);
+        consensusAccumulator.onReplicateUpdated(
+                new ReplicateUpdatedEvent(CHAIN_TASK_ID, replicate.getWalletAddress(), statusUpdate));
+    }
+}
@@ -38,7 +38,7 @@ public class ConsensusServiceTests {
     * */
 
     @Mock
-    private PredictionService predictionService;
+    private ConsensusAccumulator consensusAccumulator;
 
     @InjectMocks
     private ConsensusService consensusService;
@@ -54,8 +54,8 @@ public class ConsensusServiceTests {
         int bestPredictionWeight = 0;
         int worstPredictionsWeight = 0;
 
-        when(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
-        when(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
         boolean needMoreContributionsForConsensus =
                 consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME);
 
@@ -68,8 +68,8 @@ public class ConsensusServiceTests {
         int bestPredictionWeight = 2;
         int worstPredictionsWeight = 0;
 
-        when(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
-        when(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
         boolean needMoreContributionsForConsensus =
                 consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME);
 
@@ -82,8 +82,8 @@ public class ConsensusServiceTests {
         int bestPredictionWeight = 4;
         int worstPredictionsWeight = 0;
 
-        when(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
-        when(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
         boolean needMoreContributionsForConsensus =
                 consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME);
 
@@ -96,8 +96,8 @@ public class ConsensusServiceTests {
         int bestPredictionWeight = 5;
         int worstPredictionsWeight = 0;
 
-        when(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
-        when(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
         boolean needMoreContributionsForConsensus =
                 consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME);
 
@@ -110,8 +110,8 @@ public class ConsensusServiceTests {
         int bestPredictionWeight = 5;
         int worstPredictionsWeight = 1;
 
-        when(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
-        when(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
         boolean needMoreContributionsForConsensus =
                 consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME);
 
@@ -124,12 +124,39 @@ public class ConsensusServiceTests {
         int bestPredictionWeight = 25;
         int worstPredictionsWeight = 5;
 
-        when(predictionService.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
-        when(predictionService.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
         boolean needMoreContributionsForConsensus =
                 consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME);
 
         assertThat(needMoreContributionsForConsensus).isFalse();
     }
 
+    @Test
+    public void shouldGetMissingWeightForConsensus() {
+        int trust = 5;
+        int bestPredictionWeight = 5;
+        int worstPredictionsWeight = 1;
+
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+
+        // (5 + 4) * 5 > (1 + 6 + 4) * 4 while (5 + 3) * 5 <= (1 + 6 + 3) * 4
+        assertThat(consensusService.getMissingWeightForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME))
+                .isEqualTo(4);
+    }
+
+    @Test
+    public void shouldGetNoMissingWeightSinceConsensusPossible() {
+        int trust = 5;
+        int bestPredictionWeight = 25;
+        int worstPredictionsWeight = 5;
+
+        when(consensusAccumulator.getBestPredictionWeight(CHAIN_TASK_ID, MAX_EXECUTION_TIME)).thenReturn(bestPredictionWeight);
+        when(consensusAccumulator.getWorstPredictionsWeight(CHAIN_TASK_ID)).thenReturn(worstPredictionsWeight);
+
+        assertThat(consensusService.getMissingWeightForConsensus(CHAIN_TASK_ID, trust, MAX_EXECUTION_TIME))
+                .isZero();
+    }
+
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ package com.iexec.core.detector;
 import com.iexec.common.replicate.ReplicateStatus;
 import com.iexec.common.replicate.ReplicateStatusModifier;
 import com.iexec.common.replicate.ReplicateStatusUpdate;
+import com.iexec.core.cluster.TaskOwnershipService;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
 import com.iexec.core.task.TaskService;
@@ -53,12 +54,16 @@ public class WorkerLostDetectorTests {
     @Mock
     private TaskService taskService;
 
+    @Mock
+    private TaskOwnershipService taskOwnershipService;
+
     @InjectMocks
     private WorkerLostDetector workerLostDetector;
 
     @Before
     public void init() {
         MockitoAnnotations.initMocks(this);
+        when(taskOwnershipService.isOwned(anyString())).thenReturn(true);
     }
 
     @Test
@@ -94,6 +99,21 @@ public class WorkerLostDetectorTests {
                 .updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER, ReplicateStatus.WORKER_LOST);
     }
 
+    @Test
+    public void shouldNotUpdateToWorkerLostSinceTaskNotOwned(){
+        Worker worker = Worker.builder()
+                .walletAddress(WALLET_WORKER)
+                .participatingChainTaskIds(Collections.singletonList(CHAIN_TASK_ID))
+                .build();
+
+        when(workerService.getLostWorkers()).thenReturn(Collections.singletonList(worker));
+        when(taskOwnershipService.isOwned(CHAIN_TASK_ID)).thenReturn(false);
+
+        workerLostDetector.detect();
+
+        Mockito.verifyZeroInteractions(replicatesService);
+    }
+
     // similar test with previous except that the Replicate is already is WORKER_LOST status.
     @Test
     public void shouldNotUpdateToWorkerLostSinceAlreadyUpdated(){
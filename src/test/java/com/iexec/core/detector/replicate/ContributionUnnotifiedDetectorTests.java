@@ -27,12 +27,14 @@ import com.iexec.core.replicate.ReplicatesService;
 import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.*;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 
 import static com.iexec.common.replicate.ReplicateStatus.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -82,7 +84,8 @@ public class ContributionUnnotifiedDetectorTests {
 
         when(cronConfiguration.getContribute()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         when(web3jService.getLatestBlockNumber()).thenReturn(11L);
         when(iexecHubService.getContributionBlock(anyString(), anyString(), anyLong()))
                 .thenReturn(ChainReceipt.builder().blockNumber(10L).txHash("0xabcef").build());
@@ -104,7 +107,8 @@ public class ContributionUnnotifiedDetectorTests {
 
         when(cronConfiguration.getContribute()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
 
         contributionDetector.detectOnchainContributedWhenOffchainContributing();
 
@@ -123,7 +127,8 @@ public class ContributionUnnotifiedDetectorTests {
 
         // when(cronConfiguration.getContribute()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(false);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), false));
         contributionDetector.detectOnchainContributedWhenOffchainContributing();
 
         Mockito.verify(replicatesService, Mockito.times(0))
@@ -144,7 +149,8 @@ public class ContributionUnnotifiedDetectorTests {
 
         when(cronConfiguration.getContribute()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         when(web3jService.getLatestBlockNumber()).thenReturn(11L);
         when(iexecHubService.getContributionBlock(anyString(), anyString(), anyLong())).thenReturn(ChainReceipt.builder()
                 .blockNumber(10L)
@@ -168,7 +174,8 @@ public class ContributionUnnotifiedDetectorTests {
 
         when(cronConfiguration.getContribute()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         when(web3jService.getLatestBlockNumber()).thenReturn(11L);
         when(iexecHubService.getContributionBlock(anyString(), anyString(), anyLong())).thenReturn(ChainReceipt.builder()
                 .blockNumber(10L)
@@ -192,7 +199,8 @@ public class ContributionUnnotifiedDetectorTests {
 
         when(cronConfiguration.getContribute()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         contributionDetector.detectOnchainContributed();
 
         Mockito.verify(replicatesService, Mockito.times(0))
@@ -22,9 +22,9 @@ import com.iexec.common.replicate.ReplicateStatusModifier;
 import com.iexec.core.chain.IexecHubService;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -68,10 +68,12 @@ public class RevealTimeoutDetectorTests {
     public void souldDetectTaskAfterRevealDealLineWithAtLeastOneReveal() {
         Date twoMinutesAgo = addMinutesToDate(new Date(), -2);
 
-        Task task = new Task("dappName", "commandLine", 2, CHAIN_TASK_ID);
-        task.changeStatus(TaskStatus.CONSENSUS_REACHED);
-        task.setRevealDeadline(twoMinutesAgo);
-        List<Task> taskList = Collections.singletonList(task);
+        TaskSummary task = TaskSummary.builder()
+                .chainTaskId(CHAIN_TASK_ID)
+                .currentStatus(TaskStatus.CONSENSUS_REACHED)
+                .revealDeadline(twoMinutesAgo)
+                .build();
+        List<TaskSummary> taskList = Collections.singletonList(task);
 
         Replicate replicate1 = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
         replicate1.updateStatus(ReplicateStatus.REVEALING, ReplicateStatusModifier.WORKER);
@@ -82,9 +84,9 @@ public class RevealTimeoutDetectorTests {
         List<TaskStatus> taskStatusList = Arrays.asList(TaskStatus.AT_LEAST_ONE_REVEALED,
                 TaskStatus.RESULT_UPLOAD_REQUESTED, TaskStatus.RESULT_UPLOADING, TaskStatus.RESULT_UPLOADED);
 
-        when(taskService.findByCurrentStatus(taskStatusList)).thenReturn(taskList);
+        when(taskService.getTaskSummaries(taskStatusList)).thenReturn(taskList);
         when(replicatesService.getReplicates(task.getChainTaskId())).thenReturn(replicateList);
-        when(taskService.findByCurrentStatus(TaskStatus.CONSENSUS_REACHED)).thenReturn(Collections.emptyList());
+        when(taskService.getTaskSummaries(List.of(TaskStatus.CONSENSUS_REACHED))).thenReturn(Collections.emptyList());
 
         revealDetector.detect();
 
@@ -99,10 +101,12 @@ public class RevealTimeoutDetectorTests {
     public void shouldDetectTaskAfterRevealDealLineWithZero() {
         Date twoMinutesAgo = addMinutesToDate(new Date(), -2);
 
-        Task task = new Task("dappName", "commandLine", 2, CHAIN_TASK_ID);
-        task.changeStatus(TaskStatus.CONSENSUS_REACHED);
-        task.setRevealDeadline(twoMinutesAgo);
-        List<Task> taskList = Collections.singletonList(task);
+        TaskSummary task = TaskSummary.builder()
+                .chainTaskId(CHAIN_TASK_ID)
+                .currentStatus(TaskStatus.CONSENSUS_REACHED)
+                .revealDeadline(twoMinutesAgo)
+                .build();
+        List<TaskSummary> taskList = Collections.singletonList(task);
 
         Replicate replicate1 = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
         replicate1.updateStatus(ReplicateStatus.REVEALING, ReplicateStatusModifier.WORKER);
@@ -113,9 +117,9 @@ public class RevealTimeoutDetectorTests {
         List<TaskStatus> taskStatusList = Arrays.asList(TaskStatus.AT_LEAST_ONE_REVEALED,
                 TaskStatus.RESULT_UPLOAD_REQUESTED, TaskStatus.RESULT_UPLOADING, TaskStatus.RESULT_UPLOADED);
 
-        when(taskService.findByCurrentStatus(taskStatusList)).thenReturn(Collections.emptyList());
+        when(taskService.getTaskSummaries(taskStatusList)).thenReturn(Collections.emptyList());
         when(replicatesService.getReplicates(task.getChainTaskId())).thenReturn(replicateList);
-        when(taskService.findByCurrentStatus(TaskStatus.CONSENSUS_REACHED)).thenReturn(taskList);
+        when(taskService.getTaskSummaries(List.of(TaskStatus.CONSENSUS_REACHED))).thenReturn(taskList);
 
         revealDetector.detect();
 
@@ -131,9 +135,9 @@ public class RevealTimeoutDetectorTests {
         List<TaskStatus> taskStatusList = Arrays.asList(TaskStatus.AT_LEAST_ONE_REVEALED,
                 TaskStatus.RESULT_UPLOAD_REQUESTED, TaskStatus.RESULT_UPLOADING, TaskStatus.RESULT_UPLOADED);
 
-        when(taskService.findByCurrentStatus(taskStatusList))
+        when(taskService.getTaskSummaries(taskStatusList))
                 .thenReturn(Collections.emptyList());
-        when(taskService.findByCurrentStatus(TaskStatus.CONSENSUS_REACHED))
+        when(taskService.getTaskSummaries(List.of(TaskStatus.CONSENSUS_REACHED)))
                 .thenReturn(Collections.emptyList());
 
         revealDetector.detect();
@@ -153,9 +157,11 @@ public class RevealTimeoutDetectorTests {
     public void shouldUpdateOneReplicateToRevealTimeout() {
         Date twoMinutesAgo = addMinutesToDate(new Date(), -2);
 
-        Task task = new Task("dappName", "commandLine", 2, CHAIN_TASK_ID);
-        task.changeStatus(TaskStatus.CONSENSUS_REACHED);
-        task.setRevealDeadline(twoMinutesAgo);
+        TaskSummary task = TaskSummary.builder()
+                .chainTaskId(CHAIN_TASK_ID)
+                .currentStatus(TaskStatus.CONSENSUS_REACHED)
+                .revealDeadline(twoMinutesAgo)
+                .build();
 
         Replicate replicate1 = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
         replicate1.updateStatus(ReplicateStatus.REVEALING, ReplicateStatusModifier.WORKER);
@@ -164,7 +170,7 @@ public class RevealTimeoutDetectorTests {
         replicate2.updateStatus(ReplicateStatus.REVEALING, ReplicateStatusModifier.WORKER);
 
 
-        when(taskService.findByCurrentStatus(TaskStatus.CONSENSUS_REACHED)).thenReturn(Collections.singletonList(task));
+        when(taskService.getTaskSummaries(List.of(TaskStatus.CONSENSUS_REACHED))).thenReturn(Collections.singletonList(task));
         when(replicatesService.getReplicates(task.getChainTaskId())).thenReturn(Arrays.asList(replicate1, replicate2));
 
         revealDetector.detect();
@@ -180,9 +186,11 @@ public class RevealTimeoutDetectorTests {
     public void shouldNotUpdateSinceTaskIsNotTimedout() {
         Date twoMinutesInFuture = addMinutesToDate(new Date(), 2);
 
-        Task task = new Task("dappName", "commandLine", 2, CHAIN_TASK_ID);
-        task.changeStatus(TaskStatus.CONSENSUS_REACHED);
-        task.setRevealDeadline(twoMinutesInFuture);
+        TaskSummary task = TaskSummary.builder()
+                .chainTaskId(CHAIN_TASK_ID)
+                .currentStatus(TaskStatus.CONSENSUS_REACHED)
+                .revealDeadline(twoMinutesInFuture)
+                .build();
 
         Replicate replicate1 = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
         replicate1.updateStatus(ReplicateStatus.REVEALING, ReplicateStatusModifier.WORKER);
@@ -191,7 +199,7 @@ public class RevealTimeoutDetectorTests {
         replicate2.updateStatus(ReplicateStatus.REVEALING, ReplicateStatusModifier.WORKER);
 
 
-        when(taskService.findByCurrentStatus(TaskStatus.CONSENSUS_REACHED)).thenReturn(Collections.singletonList(task));
+        when(taskService.getTaskSummaries(List.of(TaskStatus.CONSENSUS_REACHED))).thenReturn(Collections.singletonList(task));
         when(replicatesService.getReplicates(task.getChainTaskId())).thenReturn(Arrays.asList(replicate1, replicate2));
 
         revealDetector.detect();
@@ -27,11 +27,13 @@ import com.iexec.core.replicate.ReplicatesService;
 import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.*;
 
 import java.util.Collections;
+import java.util.Map;
 
 import static com.iexec.common.replicate.ReplicateStatus.*;
 import static com.iexec.common.replicate.ReplicateStatusModifier.WORKER;
@@ -82,7 +84,8 @@ public class RevealUnnotifiedDetectorTests {
 
         when(cronConfiguration.getReveal()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         when(web3jService.getLatestBlockNumber()).thenReturn(11L);
         when(iexecHubService.getRevealBlock(anyString(), anyString(), anyLong())).thenReturn(ChainReceipt.builder()
                 .blockNumber(10L)
@@ -106,7 +109,8 @@ public class RevealUnnotifiedDetectorTests {
 
         when(cronConfiguration.getReveal()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         revealDetector.detectOnchainRevealedWhenOffchainRevealed();
 
         Mockito.verify(replicatesService, Mockito.times(0))
@@ -123,7 +127,8 @@ public class RevealUnnotifiedDetectorTests {
         replicate.setStatusUpdateList(Collections.singletonList(statusUpdate));
         when(cronConfiguration.getReveal()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(false);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), false));
         revealDetector.detectOnchainRevealedWhenOffchainRevealed();
 
         Mockito.verify(replicatesService, Mockito.times(0))
@@ -144,7 +149,8 @@ public class RevealUnnotifiedDetectorTests {
 
         when(cronConfiguration.getReveal()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         when(web3jService.getLatestBlockNumber()).thenReturn(11L);
         when(iexecHubService.getRevealBlock(anyString(), anyString(), anyLong())).thenReturn(ChainReceipt.builder()
                 .blockNumber(10L)
@@ -173,7 +179,8 @@ public class RevealUnnotifiedDetectorTests {
 
         when(cronConfiguration.getReveal()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         when(web3jService.getLatestBlockNumber()).thenReturn(11L);
         when(iexecHubService.getRevealBlock(anyString(), anyString(), anyLong())).thenReturn(ChainReceipt.builder()
                 .blockNumber(10L)
@@ -197,7 +204,8 @@ public class RevealUnnotifiedDetectorTests {
 
         when(cronConfiguration.getReveal()).thenReturn(DETECTOR_PERIOD);
         when(replicatesService.getReplicates(any())).thenReturn(Collections.singletonList(replicate));
-        when(iexecHubService.isStatusTrueOnChain(any(), any(), any())).thenReturn(true);
+        when(iexecHubService.areStatusesTrueOnChain(any(), any()))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_ADDRESS), true));
         revealDetector.detectOnchainRevealed();
 
         Mockito.verify(replicatesService, Mockito.times(0))
@@ -18,9 +18,9 @@ package com.iexec.core.detector.task;
 
 import com.iexec.common.replicate.ReplicateStatusDetails;
 import com.iexec.core.replicate.ReplicatesService;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import com.iexec.common.utils.DateTimeUtils;
 import com.iexec.core.worker.WorkerService;
 import org.junit.Before;
@@ -30,13 +30,18 @@ import org.mockito.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 public class ContributionTimeoutTaskDetectorTests {
 
     private final static String CHAIN_TASK_ID = "chainTaskId";
+    private final static List<TaskStatus> IN_CONTRIBUTION_STATUSES =
+            Arrays.asList(TaskStatus.INITIALIZED, TaskStatus.RUNNING);
 
     @Mock
     private TaskService taskService;
@@ -58,7 +63,8 @@ public class ContributionTimeoutTaskDetectorTests {
 
     @Test
     public void shouldNotDetectAnyContributionTimeout() {
-        when(taskService.findByCurrentStatus(Arrays.asList(TaskStatus.INITIALIZED, TaskStatus.RUNNING))).thenReturn(Collections.emptyList());
+        when(taskService.getTaskSummariesAfterContributionDeadline(eq(IN_CONTRIBUTION_STATUSES), any(Date.class)))
+                .thenReturn(Collections.emptyList());
         contributionDetector.detect();
 
         Mockito.verify(workerService, Mockito.times(0))
@@ -72,42 +78,33 @@ public class ContributionTimeoutTaskDetectorTests {
     }
 
     @Test
-    public void shouldNotUpdateTaskIfBeforeTimeout() {
-        Date now = new Date();
-        Date oneMinuteAfterNow = DateTimeUtils.addMinutesToDate(now, 1);
-
-        Task task = new Task("dappName", "commandLine", 2, CHAIN_TASK_ID);
-        task.changeStatus(TaskStatus.RUNNING);
-        task.setContributionDeadline(oneMinuteAfterNow);
-
-        when(taskService.findByCurrentStatus(Arrays.asList(TaskStatus.INITIALIZED, TaskStatus.RUNNING))).thenReturn(Collections.singletonList(task));
+    public void shouldLookForTasksWithContributionDeadlineBeforeNow() {
+        Date before = new Date();
         contributionDetector.detect();
+        Date after = new Date();
 
-        Mockito.verify(workerService, Mockito.times(0))
-                .removeChainTaskIdFromWorker(any(), any());
-
-        Mockito.verify(replicatesService, Mockito.times(0))
-                .updateReplicateStatus(any(), any(), any(), any(ReplicateStatusDetails.class));
-
-        Mockito.verify(taskService, Mockito.times(0))
-                .updateTask(any());
+        ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
+        Mockito.verify(taskService).getTaskSummariesAfterContributionDeadline(eq(IN_CONTRIBUTION_STATUSES),
+                dateCaptor.capture());
+        assertThat(dateCaptor.getValue()).isBetween(before, after, true, true);
     }
 
-
     @Test
     public void shouldUpdateIfIsTimeout() {
-        Date now = new Date();
-        Date oneMinuteBeforeNow = DateTimeUtils.addMinutesToDate(now, -1);
+        Date oneMinuteBeforeNow = DateTimeUtils.addMinutesToDate(new Date(), -1);
 
-        Task task = new Task("dappName", "commandLine", 2, CHAIN_TASK_ID);
-        task.changeStatus(TaskStatus.RUNNING);
-        task.setContributionDeadline(oneMinuteBeforeNow);
+        TaskSummary task = TaskSummary.builder()
+                .chainTaskId(CHAIN_TASK_ID)
+                .currentStatus(TaskStatus.RUNNING)
+                .contributionDeadline(oneMinuteBeforeNow)
+                .build();
 
-        when(taskService.findByCurrentStatus(Arrays.asList(TaskStatus.INITIALIZED, TaskStatus.RUNNING))).thenReturn(Collections.singletonList(task));
+        when(taskService.getTaskSummariesAfterContributionDeadline(eq(IN_CONTRIBUTION_STATUSES), any(Date.class)))
+                .thenReturn(Collections.singletonList(task));
 
         contributionDetector.detect();
 
         Mockito.verify(taskService, Mockito.times(1))
-                .updateTask(any());
+                .updateTask(CHAIN_TASK_ID);
     }
 }
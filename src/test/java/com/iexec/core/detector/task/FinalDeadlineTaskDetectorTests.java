@@ -17,9 +17,9 @@
 package com.iexec.core.detector.task;
 
 import com.iexec.common.utils.DateTimeUtils;
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
@@ -50,34 +51,34 @@ public class FinalDeadlineTaskDetectorTests {
         MockitoAnnotations.initMocks(this);
     }
 
-    private Task getTask() {
-        Task task = new Task("", "", 0);
-        task.changeStatus(TaskStatus.RUNNING);
-        return task;
-    }
-
     @Test
     public void shouldDetectTaskAfterFinalDeadline() {
-        Task task = getTask();
-        task.setFinalDeadline(Date.from(Instant.now().minus(1, ChronoUnit.MINUTES)));
+        TaskSummary task = TaskSummary.builder()
+                .chainTaskId(CHAIN_TASK_ID)
+                .currentStatus(TaskStatus.RUNNING)
+                .finalDeadline(Date.from(Instant.now().minus(1, ChronoUnit.MINUTES)))
+                .build();
 
-        when(taskService.getTasksWhereFinalDeadlineIsPossible()).thenReturn(Collections.singletonList(task));
+        when(taskService.getTaskSummariesAfterFinalDeadline(any(Date.class)))
+                .thenReturn(Collections.singletonList(task));
 
         finalDeadlineTaskDetector.detect();
 
         Mockito.verify(taskService, Mockito.times(1))
-                .updateTask(any());
+                .updateTask(CHAIN_TASK_ID);
     }
 
     @Test
-    public void shouldDetectTaskBeforeFinalDeadline() {
-        Task task = getTask();
-        task.setFinalDeadline(Date.from(Instant.now().plus(1, ChronoUnit.MINUTES)));
-
-        when(taskService.getTasksWhereFinalDeadlineIsPossible()).thenReturn(Collections.singletonList(task));
+    public void shouldNotDetectAnyTaskAfterFinalDeadline() {
+        Date before = new Date();
+        when(taskService.getTaskSummariesAfterFinalDeadline(any(Date.class)))
+                .thenReturn(Collections.emptyList());
 
         finalDeadlineTaskDetector.detect();
 
+        ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
+        Mockito.verify(taskService).getTaskSummariesAfterFinalDeadline(dateCaptor.capture());
+        assertThat(dateCaptor.getValue()).isBetween(before, new Date(), true, true);
         Mockito.verify(taskService, never())
                 .updateTask(any());
     }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.detector.task;
+
+import com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+import static com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker.Command.FINALIZE;
+import static com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker.Command.INITIALIZE;
+import static com.iexec.core.task.TaskStatus.FINALIZING;
+import static com.iexec.core.task.TaskStatus.INITIALIZING;
+import static org.mockito.Mockito.*;
+
+public class PendingCommandTaskDetectorTests {
+
+    private static final String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private BlockchainAdapterCommandTracker blockchainAdapterCommandTracker;
+
+    @InjectMocks
+    private PendingCommandTaskDetector pendingCommandTaskDetector;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void shouldWatchInitializeOfInitializingTask() {
+        Task task = Task.builder().chainTaskId(CHAIN_TASK_ID).build();
+        when(taskService.findByCurrentStatus(INITIALIZING)).thenReturn(Collections.singletonList(task));
+
+        pendingCommandTaskDetector.detect();
+
+        verify(blockchainAdapterCommandTracker).watch(CHAIN_TASK_ID, INITIALIZE);
+        verify(blockchainAdapterCommandTracker, never()).watch(CHAIN_TASK_ID, FINALIZE);
+    }
+
+    @Test
+    public void shouldWatchFinalizeOfFinalizingTask() {
+        Task task = Task.builder().chainTaskId(CHAIN_TASK_ID).build();
+        when(taskService.findByCurrentStatus(FINALIZING)).thenReturn(Collections.singletonList(task));
+
+        pendingCommandTaskDetector.detect();
+
+        verify(blockchainAdapterCommandTracker).watch(CHAIN_TASK_ID, FINALIZE);
+        verify(blockchainAdapterCommandTracker, never()).watch(CHAIN_TASK_ID, INITIALIZE);
+    }
+
+    @Test
+    public void shouldNotWatchAnythingSinceNoPendingTask() {
+        pendingCommandTaskDetector.detect();
+
+        verifyZeroInteractions(blockchainAdapterCommandTracker);
+    }
+}
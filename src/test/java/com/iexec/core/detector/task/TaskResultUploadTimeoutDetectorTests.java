@@ -16,9 +16,9 @@
 
 package com.iexec.core.detector.task;
 
-import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.TaskSummary;
 import com.iexec.common.utils.DateTimeUtils;
 
 import org.junit.Before;
@@ -54,7 +54,7 @@ public class TaskResultUploadTimeoutDetectorTests {
         String chainTaskId = "chainTaskId";
         Date oneMinuteBeforeNow = DateTimeUtils.addMinutesToDate(new Date(), -1);
 
-        Task task = Task.builder()
+        TaskSummary task = TaskSummary.builder()
                 .chainTaskId(chainTaskId)
                 .finalDeadline(oneMinuteBeforeNow)
                 .build();
@@ -62,7 +62,7 @@ public class TaskResultUploadTimeoutDetectorTests {
         List<TaskStatus> statuses = Arrays.asList(TaskStatus.RESULT_UPLOAD_REQUESTED,
                 TaskStatus.RESULT_UPLOADING);
 
-        when(taskService.findByCurrentStatus(statuses))
+        when(taskService.getTaskSummaries(statuses))
                 .thenReturn(Collections.singletonList(task));
 
         taskResultUploadTimeoutDetector.detect();
@@ -75,7 +75,7 @@ public class TaskResultUploadTimeoutDetectorTests {
         String chainTaskId = "chainTaskId";
         Date oneMinuteBeforeNow = DateTimeUtils.addMinutesToDate(new Date(), 1);
 
-        Task task = Task.builder()
+        TaskSummary task = TaskSummary.builder()
                 .chainTaskId(chainTaskId)
                 .finalDeadline(oneMinuteBeforeNow)
                 .build();
@@ -83,7 +83,7 @@ public class TaskResultUploadTimeoutDetectorTests {
         List<TaskStatus> statuses = Arrays.asList(TaskStatus.RESULT_UPLOAD_REQUESTED,
                 TaskStatus.RESULT_UPLOADING);
 
-        when(taskService.findByCurrentStatus(statuses))
+        when(taskService.getTaskSummaries(statuses))
                 .thenReturn(Collections.singletonList(task));
 
         taskResultUploadTimeoutDetector.detect();
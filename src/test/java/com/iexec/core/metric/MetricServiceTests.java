@@ -54,8 +54,8 @@ public class MetricServiceTests {
         when(workerService.getAliveAvailableCpu()).thenReturn(1);
         when(workerService.getAliveTotalGpu()).thenReturn(1);
         when(workerService.getAliveAvailableGpu()).thenReturn(1);
-        when(taskService.findByCurrentStatus(TaskStatus.COMPLETED))
-                .thenReturn(List.of());
+        when(taskService.countByCurrentStatus(TaskStatus.COMPLETED))
+                .thenReturn(0L);
 
         PlatformMetric metric = metricService.getPlatformMetrics();
         assertThat(metric.getAliveWorkers()).isEqualTo(aliveWorkers.size());
@@ -26,6 +26,7 @@ import org.mockito.Spy;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import com.iexec.common.notification.TaskNotification;
+import com.iexec.core.replicate.ReplicateOffer;
 
 public class NotificationServiceTests {
 
@@ -53,4 +54,17 @@ public class NotificationServiceTests {
         Mockito.verify(sender, Mockito.times(1))
             .convertAndSend(destination, taskNotification);
     }
+
+    @Test
+    public void shouldSendReplicateOffer() {
+        String walletAddress = "0x1";
+        ReplicateOffer replicateOffer = ReplicateOffer.builder()
+            .chainTaskId("chainTaskId")
+            .build();
+
+        notificationService.sendReplicateOffer(walletAddress, replicateOffer);
+
+        Mockito.verify(sender, Mockito.times(1))
+            .convertAndSendToUser("0x1", "/queue/offers", replicateOffer);
+    }
 }
\ No newline at end of file
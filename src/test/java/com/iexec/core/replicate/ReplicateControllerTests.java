@@ -20,7 +20,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class ReplicateControllerTests {
 
@@ -44,6 +44,8 @@ public class ReplicateControllerTests {
     private JwtTokenProvider jwtTokenProvider;
     @Mock
     private WorkerService workerService;
+    @Mock
+    private ReplicateOfferService replicateOfferService;
 
     @InjectMocks
     private ReplicatesController replicatesController;
@@ -113,6 +115,113 @@ public class ReplicateControllerTests {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    // available replicates
+
+    @Test
+    public void shouldGetAvailableReplicates() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn(WALLET_ADDRESS);
+        when(workerService.isWorkerAllowedToAskReplicate(WALLET_ADDRESS))
+                .thenReturn(true);
+        when(replicateSupplyService
+                .getAuthsOfAvailableReplicates(BLOCK_NUMBER, WALLET_ADDRESS, 4))
+                .thenReturn(List.of(AUTH, AUTH));
+
+        ResponseEntity<List<WorkerpoolAuthorization>> response =
+                replicatesController.getAvailableReplicates(BLOCK_NUMBER, 4, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(2);
+        verify(workerService).updateLastReplicateDemandDate(WALLET_ADDRESS);
+    }
+
+    @Test
+    public void shouldNotGetAvailableReplicatesSinceBadNumber() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn(WALLET_ADDRESS);
+
+        ResponseEntity<List<WorkerpoolAuthorization>> response =
+                replicatesController.getAvailableReplicates(BLOCK_NUMBER, 0, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyZeroInteractions(replicateSupplyService);
+    }
+
+    @Test
+    public void shouldNotGetAvailableReplicatesSinceNoReplicateAvailable() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn(WALLET_ADDRESS);
+        when(workerService.isWorkerAllowedToAskReplicate(WALLET_ADDRESS))
+                .thenReturn(true);
+        when(replicateSupplyService
+                .getAuthsOfAvailableReplicates(BLOCK_NUMBER, WALLET_ADDRESS, 4))
+                .thenReturn(List.of());
+
+        ResponseEntity<List<WorkerpoolAuthorization>> response =
+                replicatesController.getAvailableReplicates(BLOCK_NUMBER, 4, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    // offered replicate
+
+    @Test
+    public void shouldClaimOfferedReplicate() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn(WALLET_ADDRESS);
+        when(replicateOfferService.claimOffer(CHAIN_TASK_ID, WALLET_ADDRESS)).thenReturn(true);
+        when(replicateSupplyService
+                .getAuthOfOfferedReplicate(BLOCK_NUMBER, WALLET_ADDRESS, CHAIN_TASK_ID))
+                .thenReturn(Optional.of(AUTH));
+
+        ResponseEntity<WorkerpoolAuthorization> response =
+                replicatesController.claimOfferedReplicate(CHAIN_TASK_ID, BLOCK_NUMBER, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(AUTH);
+        verify(workerService, never()).isWorkerAllowedToAskReplicate(WALLET_ADDRESS);
+    }
+
+    @Test
+    public void shouldNotClaimOfferedReplicateSinceAlreadyTaken() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn(WALLET_ADDRESS);
+        when(replicateOfferService.claimOffer(CHAIN_TASK_ID, WALLET_ADDRESS)).thenReturn(true);
+        when(replicateSupplyService
+                .getAuthOfOfferedReplicate(BLOCK_NUMBER, WALLET_ADDRESS, CHAIN_TASK_ID))
+                .thenReturn(Optional.empty());
+
+        ResponseEntity<WorkerpoolAuthorization> response =
+                replicatesController.claimOfferedReplicate(CHAIN_TASK_ID, BLOCK_NUMBER, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    public void shouldNotClaimOfferedReplicateSinceNotAuthorized() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn("");
+
+        ResponseEntity<WorkerpoolAuthorization> response =
+                replicatesController.claimOfferedReplicate(CHAIN_TASK_ID, BLOCK_NUMBER, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        verifyZeroInteractions(replicateSupplyService);
+    }
+
+    @Test
+    public void shouldNotClaimOfferedReplicateSinceNotOffered() {
+        when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN))
+                .thenReturn(WALLET_ADDRESS);
+        when(replicateOfferService.claimOffer(CHAIN_TASK_ID, WALLET_ADDRESS)).thenReturn(false);
+
+        ResponseEntity<WorkerpoolAuthorization> response =
+                replicatesController.claimOfferedReplicate(CHAIN_TASK_ID, BLOCK_NUMBER, TOKEN);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        verifyZeroInteractions(replicateSupplyService);
+    }
+
     // interrupted replicate
 
     @Test
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iexec.core.replicate;
+
+import com.iexec.common.utils.BytesUtils;
+import com.iexec.core.chain.BlockHeadTracker;
+import com.iexec.core.pubsub.NotificationService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.dispatch.TaskDispatchIndex;
+import com.iexec.core.task.event.TaskOpenedEvent;
+import com.iexec.core.worker.Worker;
+import com.iexec.core.worker.WorkerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ReplicateOfferServiceTests {
+
+    private final static String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+    private final static String WALLET_WORKER_1 = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+    private final static String WALLET_WORKER_2 = "0x2ab2674aa374fe6415d11f0a8fcbd8027fc1e6a9";
+
+    @Mock private WorkerService workerService;
+    @Mock private TaskDispatchIndex taskDispatchIndex;
+    @Mock private NotificationService notificationService;
+    @Mock private BlockHeadTracker blockHeadTracker;
+
+    @InjectMocks
+    private ReplicateOfferService replicateOfferService;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(12L);
+        when(workerService.canAcceptMoreWorks(any(Worker.class))).thenAnswer(invocation -> {
+            Worker worker = invocation.getArgument(0);
+            return worker.getComputingChainTaskIds().size() < worker.getMaxNbTasks();
+        });
+    }
+
+    @After
+    public void shutdown() {
+        replicateOfferService.shutdown();
+    }
+
+    @Test
+    public void shouldOfferReplicateToIdleWorkers() {
+        Task task = getTask();
+        Worker idleWorker = getWorker(WALLET_WORKER_1, 0);
+        Worker busyWorker = getWorker(WALLET_WORKER_2, 2);
+        when(workerService.getAliveWorkers()).thenReturn(List.of(idleWorker, busyWorker));
+        when(taskDispatchIndex.getAssignableTask(eq(CHAIN_TASK_ID), any(), eq(false)))
+                .thenReturn(Optional.of(task));
+
+        replicateOfferService.onTaskOpened(new TaskOpenedEvent(task));
+
+        verify(notificationService, timeout(2000)).sendReplicateOffer(WALLET_WORKER_1,
+                new ReplicateOffer(CHAIN_TASK_ID, false));
+        verify(notificationService, never()).sendReplicateOffer(eq(WALLET_WORKER_2), any());
+    }
+
+    @Test
+    public void shouldClaimOfferOnlyOnceAndOnlyIfSent() {
+        Task task = getTask();
+        when(workerService.getAliveWorkers())
+                .thenReturn(List.of(getWorker(WALLET_WORKER_1, 0), getWorker(WALLET_WORKER_2, 2)));
+        when(taskDispatchIndex.getAssignableTask(eq(CHAIN_TASK_ID), any(), eq(false)))
+                .thenReturn(Optional.of(task));
+
+        replicateOfferService.sendOffers(task);
+
+        assertThat(replicateOfferService.claimOffer(CHAIN_TASK_ID, WALLET_WORKER_2)).isFalse();
+        assertThat(replicateOfferService.claimOffer("0xother", WALLET_WORKER_1)).isFalse();
+        assertThat(replicateOfferService.claimOffer(CHAIN_TASK_ID, WALLET_WORKER_1)).isTrue();
+        assertThat(replicateOfferService.claimOffer(CHAIN_TASK_ID, WALLET_WORKER_1)).isFalse();
+    }
+
+    @Test
+    public void shouldHoldOffersUntilReplicatesCanBeGiven() {
+        Task task = getTask();
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(11L);
+        when(taskDispatchIndex.isIndexed(CHAIN_TASK_ID)).thenReturn(true);
+        when(workerService.getAliveWorkers()).thenReturn(List.of(getWorker(WALLET_WORKER_1, 0)));
+        when(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID, WALLET_WORKER_1, false))
+                .thenReturn(Optional.of(task));
+
+        replicateOfferService.onTaskOpened(new TaskOpenedEvent(task));
+        replicateOfferService.onNewBlock(11);
+
+        assertThat(replicateOfferService.isHeld(CHAIN_TASK_ID)).isTrue();
+        verifyZeroInteractions(notificationService);
+
+        replicateOfferService.onNewBlock(12);
+
+        assertThat(replicateOfferService.isHeld(CHAIN_TASK_ID)).isFalse();
+        verify(notificationService, timeout(2000)).sendReplicateOffer(WALLET_WORKER_1,
+                new ReplicateOffer(CHAIN_TASK_ID, false));
+    }
+
+    @Test
+    public void shouldDropHeldOffersOfTaskNotGivenAnymore() {
+        Task task = getTask();
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(11L);
+        when(taskDispatchIndex.isIndexed(CHAIN_TASK_ID)).thenReturn(false);
+
+        replicateOfferService.onTaskOpened(new TaskOpenedEvent(task));
+        replicateOfferService.onNewBlock(12);
+
+        assertThat(replicateOfferService.isHeld(CHAIN_TASK_ID)).isFalse();
+        verifyZeroInteractions(notificationService);
+    }
+
+    @Test
+    public void shouldNotOfferReplicateToWorkerWhichCannotGetIt() {
+        Task task = getTask();
+        when(workerService.getAliveWorkers()).thenReturn(List.of(getWorker(WALLET_WORKER_1, 0)));
+        when(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID, WALLET_WORKER_1, false))
+                .thenReturn(Optional.empty());
+
+        replicateOfferService.sendOffers(task);
+
+        verifyZeroInteractions(notificationService);
+    }
+
+    private Task getTask() {
+        Task task = new Task("dappName", "commandLine", 5, CHAIN_TASK_ID);
+        task.setTag(BytesUtils.EMPTY_HEXASTRING_64);
+        task.setInitializationBlockNumber(10);
+        return task;
+    }
+
+    private Worker getWorker(String walletAddress, int nbComputingTasks) {
+        List<String> computingChainTaskIds = new ArrayList<>();
+        for (int i = 0; i < nbComputingTasks; i++) {
+            computingChainTaskIds.add("0x" + i);
+        }
+        return Worker.builder()
+                .walletAddress(walletAddress)
+                .maxNbTasks(2)
+                .teeEnabled(false)
+                .computingChainTaskIds(computingChainTaskIds)
+                .build();
+    }
+}
@@ -25,14 +25,17 @@ import com.iexec.common.task.TaskDescription;
 import com.iexec.common.utils.BytesUtils;
 import com.iexec.core.chain.CredentialsService;
 import com.iexec.core.chain.IexecHubService;
-import com.iexec.core.chain.Web3jService;
+import com.iexec.core.chain.BlockHeadTracker;
 import com.iexec.core.result.ResultService;
 import com.iexec.core.stdout.StdoutService;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.*;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.util.*;
 
@@ -56,7 +59,7 @@ public class ReplicateServiceTests {
     @Mock
     private ApplicationEventPublisher applicationEventPublisher;
     @Mock
-    private Web3jService web3jService;
+    private BlockHeadTracker blockHeadTracker;
     @Mock
     private CredentialsService credentialsService;
     @Mock
@@ -85,10 +88,11 @@ public class ReplicateServiceTests {
         list.add(replicate2);
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, list);
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(replicatesRepository.save(any())).thenReturn(replicatesList);
-        replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_3);
+        when(replicatesRepository.pushReplicate(eq(CHAIN_TASK_ID), any())).thenReturn(true);
+        assertThat(replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_3)).isTrue();
         Mockito.verify(replicatesRepository, Mockito.times(1))
-                .save(any());
+                .pushReplicate(eq(CHAIN_TASK_ID), any());
+        Mockito.verify(replicatesRepository, Mockito.never()).findByChainTaskId(anyString());
     }
 
     @Test
@@ -104,15 +108,20 @@ public class ReplicateServiceTests {
         list.add(replicate2);
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, list);
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(replicatesRepository.save(any())).thenReturn(replicatesList);
+        // the guarded push refuses workers which already have a replicate
+        when(replicatesRepository.pushReplicate(eq(CHAIN_TASK_ID), any())).thenReturn(false);
 
-        replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
-        Mockito.verify(replicatesRepository, Mockito.times(0))
-                .save(any());
+        assertThat(replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).isFalse();
+        assertThat(replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_2)).isFalse();
+    }
 
-        replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_2);
-        Mockito.verify(replicatesRepository, Mockito.times(0))
-                .save(any());
+    @Test
+    public void shouldNotCreateNewReplicateSinceNoReplicatesList() {
+        when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.empty());
+        when(replicatesRepository.pushReplicate(eq(CHAIN_TASK_ID), any())).thenReturn(false);
+
+        assertThat(replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).isFalse();
+        Mockito.verify(replicatesRepository).findByChainTaskId(CHAIN_TASK_ID);
     }
 
     @Test
@@ -383,9 +392,9 @@ public class ReplicateServiceTests {
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, Collections.singletonList(replicate));
 
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(web3jService.isBlockAvailable(anyLong())).thenReturn(true);
+        when(blockHeadTracker.isBlockAvailable(anyLong())).thenReturn(true);
         when(iexecHubService.repeatIsContributedTrue(anyString(), anyString())).thenReturn(true);
-        when(replicatesRepository.save(replicatesList)).thenReturn(replicatesList);
+        when(replicatesRepository.pushReplicateStatusUpdate(eq(CHAIN_TASK_ID), any(), anyInt(), any())).thenReturn(true);
         String resultHash = "hash";
         when(iexecHubService.getChainContribution(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.of(ChainContribution.builder()
                 .resultHash(resultHash)
@@ -429,7 +438,7 @@ public class ReplicateServiceTests {
                 .build();
         ArgumentCaptor<ReplicateUpdatedEvent> argumentCaptor = ArgumentCaptor.forClass(ReplicateUpdatedEvent.class);
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(replicatesRepository.save(replicatesList)).thenReturn(replicatesList);
+        when(replicatesRepository.pushReplicateStatusUpdate(eq(CHAIN_TASK_ID), any(), anyInt(), any())).thenReturn(true);
 
         replicatesService.updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, statusUpdate);
         Mockito.verify(applicationEventPublisher, Mockito.times(1))
@@ -442,13 +451,33 @@ public class ReplicateServiceTests {
         assertThat(capturedEvent.getReplicateStatusUpdate().getDetails().getStdout()).isNull();
     }
 
+    @Test
+    public void shouldPushStatusUpdateOnReadReplicateOnly() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        replicate.updateStatus(STARTING, ReplicateStatusModifier.WORKER);
+        ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, Collections.singletonList(replicate));
+        ReplicateStatusUpdate statusUpdate = ReplicateStatusUpdate.builder()
+                .modifier(WORKER)
+                .status(STARTED)
+                .build();
+        when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
+        when(replicatesRepository.pushReplicateStatusUpdate(CHAIN_TASK_ID, replicate, 2, statusUpdate))
+                .thenReturn(false);
+
+        Assertions.assertThatThrownBy(() ->
+                replicatesService.updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, statusUpdate))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        Mockito.verify(applicationEventPublisher, Mockito.times(0))
+                .publishEvent(any());
+    }
+
     @Test
     public void shouldNotUpdateReplicateStatusSinceNoReplicateList(){
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.empty());
 
         replicatesService.updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, new ReplicateStatusUpdate(REVEALING));
         Mockito.verify(replicatesRepository, Mockito.times(0))
-                .save(any());
+                .pushReplicateStatusUpdate(anyString(), any(), anyInt(), any());
         Mockito.verify(applicationEventPublisher, Mockito.times(0))
                 .publishEvent(any());
     }
@@ -469,7 +498,7 @@ public class ReplicateServiceTests {
 
         replicatesService.updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_2, statusUpdate);
         Mockito.verify(replicatesRepository, Mockito.times(0))
-                .save(any());
+                .pushReplicateStatusUpdate(anyString(), any(), anyInt(), any());
         Mockito.verify(applicationEventPublisher, Mockito.times(0))
                 .publishEvent(any());
     }
@@ -489,7 +518,7 @@ public class ReplicateServiceTests {
 
         replicatesService.updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, statusUpdate);
         Mockito.verify(replicatesRepository, Mockito.times(0))
-                .save(any());
+                .pushReplicateStatusUpdate(anyString(), any(), anyInt(), any());
         Mockito.verify(applicationEventPublisher, Mockito.times(0))
                 .publishEvent(any());
     }
@@ -501,7 +530,7 @@ public class ReplicateServiceTests {
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, Collections.singletonList(replicate));
 
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(web3jService.isBlockAvailable(anyLong())).thenReturn(true);
+        when(blockHeadTracker.isBlockAvailable(anyLong())).thenReturn(true);
         when(iexecHubService.repeatIsContributedTrue(anyString(), anyString())).thenReturn(false);
 
         ReplicateStatusUpdate statusUpdate = ReplicateStatusUpdate.builder()
@@ -511,7 +540,7 @@ public class ReplicateServiceTests {
 
         replicatesService.updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, statusUpdate);
         Mockito.verify(replicatesRepository, Mockito.times(0))
-                .save(any());
+                .pushReplicateStatusUpdate(anyString(), any(), anyInt(), any());
         Mockito.verify(applicationEventPublisher, Mockito.times(0))
                 .publishEvent(any());
     }
@@ -523,10 +552,10 @@ public class ReplicateServiceTests {
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, Collections.singletonList(replicate));
 
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(web3jService.isBlockAvailable(anyLong())).thenReturn(true);
+        when(blockHeadTracker.isBlockAvailable(anyLong())).thenReturn(true);
         when(iexecHubService.repeatIsContributedTrue(anyString(), anyString())).thenReturn(false);
         when(iexecHubService.getChainContribution(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.empty());
-        when(replicatesRepository.save(replicatesList)).thenReturn(replicatesList);
+        when(replicatesRepository.pushReplicateStatusUpdate(eq(CHAIN_TASK_ID), any(), anyInt(), any())).thenReturn(true);
 
         ReplicateStatusDetails details = new ReplicateStatusDetails(10L);
         ReplicateStatusUpdate statusUpdate = ReplicateStatusUpdate.builder()
@@ -548,7 +577,7 @@ public class ReplicateServiceTests {
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, Collections.singletonList(replicate));
 
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(web3jService.isBlockAvailable(anyLong())).thenReturn(true);
+        when(blockHeadTracker.isBlockAvailable(anyLong())).thenReturn(true);
         when(iexecHubService.repeatIsContributedTrue(anyString(), anyString())).thenReturn(false);
         String resultHash = "hash";
         when(iexecHubService.getChainContribution(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.of(ChainContribution.builder()
@@ -556,7 +585,7 @@ public class ReplicateServiceTests {
                 .build()));
         when(iexecHubService.getWorkerWeight(WALLET_WORKER_1)).thenReturn(0);
 
-        when(replicatesRepository.save(replicatesList)).thenReturn(replicatesList);
+        when(replicatesRepository.pushReplicateStatusUpdate(eq(CHAIN_TASK_ID), any(), anyInt(), any())).thenReturn(true);
 
         ReplicateStatusDetails details = new ReplicateStatusDetails(10L);
         ReplicateStatusUpdate statusUpdate = ReplicateStatusUpdate.builder()
@@ -588,12 +617,12 @@ public class ReplicateServiceTests {
         ReplicatesList replicatesList = new ReplicatesList(CHAIN_TASK_ID, Collections.singletonList(replicate));
 
         when(replicatesRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(replicatesList));
-        when(web3jService.isBlockAvailable(anyLong())).thenReturn(true);
+        when(blockHeadTracker.isBlockAvailable(anyLong())).thenReturn(true);
         when(iexecHubService.repeatIsRevealedTrue(anyString(), anyString())).thenReturn(true);
         when(iexecHubService.getChainContribution(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(Optional.of(ChainContribution.builder()
         .resultHash("hash")
         .build()));
-        when(replicatesRepository.save(replicatesList)).thenReturn(replicatesList);
+        when(replicatesRepository.pushReplicateStatusUpdate(eq(CHAIN_TASK_ID), any(), anyInt(), any())).thenReturn(true);
 
         ArgumentCaptor<ReplicateUpdatedEvent> argumentCaptor = ArgumentCaptor.forClass(ReplicateUpdatedEvent.class);
         ReplicateStatusDetails details = new ReplicateStatusDetails(10L);
@@ -826,6 +855,81 @@ public class ReplicateServiceTests {
         ).isTrue();
     }
 
+    // didReplicatesContributeOnchain
+
+    @Test
+    public void shouldFindReplicatesContributedOnchain() {
+        when(iexecHubService.areStatusesTrueOnChain(
+                List.of(Pair.of(CHAIN_TASK_ID, WALLET_WORKER_1)),
+                ChainContributionStatus.CONTRIBUTED))
+                .thenReturn(Map.of(Pair.of(CHAIN_TASK_ID, WALLET_WORKER_1), true));
+
+        assertThat(replicatesService.didReplicatesContributeOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .containsEntry(CHAIN_TASK_ID, true);
+    }
+
+    @Test
+    public void shouldNotCheckOnchainSinceNoTask() {
+        assertThat(replicatesService.didReplicatesContributeOnchain(WALLET_WORKER_1, List.of())).isEmpty();
+        verifyZeroInteractions(iexecHubService);
+    }
+
+    // getReplicatesOfWorker
+
+    @Test
+    public void shouldGetReplicatesOfWorker() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        when(replicatesRepository.findReplicatesOfWorker(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(List.of(new ReplicatesList(CHAIN_TASK_ID, List.of(replicate))));
+
+        assertThat(replicatesService.getReplicatesOfWorker(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .containsOnly(Map.entry(CHAIN_TASK_ID, replicate));
+    }
+
+    // setRecoveringStatuses
+
+    @Test
+    public void shouldSetRecoveringStatusesInBulk() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        replicate.updateStatus(COMPUTING, ReplicateStatusModifier.WORKER);
+        when(replicatesRepository.findReplicatesOfWorker(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(List.of(new ReplicatesList(CHAIN_TASK_ID, List.of(replicate))));
+        when(replicatesRepository.pushReplicatesStatusUpdate(anyCollection(), any())).thenReturn(1);
+
+        replicatesService.setRecoveringStatuses(WALLET_WORKER_1, List.of(CHAIN_TASK_ID));
+
+        verify(replicatesRepository).pushReplicatesStatusUpdate(eq(List.of(replicate)), any());
+        verify(applicationEventPublisher).publishEvent(any(ReplicateUpdatedEvent.class));
+        verify(replicatesRepository, never()).findByChainTaskId(CHAIN_TASK_ID);
+    }
+
+    @Test
+    public void shouldSetRecoveringStatusOneByOneSinceBulkUpdateMissed() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        replicate.updateStatus(COMPUTING, ReplicateStatusModifier.WORKER);
+        when(replicatesRepository.findReplicatesOfWorker(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(List.of(new ReplicatesList(CHAIN_TASK_ID, List.of(replicate))));
+        when(replicatesRepository.pushReplicatesStatusUpdate(anyCollection(), any())).thenReturn(0);
+
+        replicatesService.setRecoveringStatuses(WALLET_WORKER_1, List.of(CHAIN_TASK_ID));
+
+        verify(replicatesRepository, times(2)).findReplicatesOfWorker(WALLET_WORKER_1, List.of(CHAIN_TASK_ID));
+        verify(replicatesRepository).findByChainTaskId(CHAIN_TASK_ID);
+    }
+
+    @Test
+    public void shouldNotSetRecoveringStatusSinceBadWorkflowTransition() {
+        Replicate replicate = new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID);
+        replicate.updateStatus(COMPLETED, ReplicateStatusModifier.WORKER);
+        when(replicatesRepository.findReplicatesOfWorker(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(List.of(new ReplicatesList(CHAIN_TASK_ID, List.of(replicate))));
+
+        replicatesService.setRecoveringStatuses(WALLET_WORKER_1, List.of(CHAIN_TASK_ID));
+
+        verify(replicatesRepository, never()).pushReplicatesStatusUpdate(anyCollection(), any());
+        verifyZeroInteractions(applicationEventPublisher);
+    }
+
     // setRevealTimeoutStatusIfNeeded
 
     @Test
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.replicate;
+
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import com.iexec.core.task.event.TasksArchivedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.iexec.core.task.TaskStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicateSlotClaimServiceTests {
+
+    private final static String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicateSlotClaimService replicateSlotClaimService;
+
+    @Before
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        replicateSlotClaimService = new ReplicateSlotClaimService(meterRegistry);
+    }
+
+    @Test
+    public void shouldClaimOnlyOnceUntilReleased() {
+        assertThat(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).isTrue();
+        assertThat(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).isFalse();
+        assertThat(replicateSlotClaimService.isClaimed(CHAIN_TASK_ID)).isTrue();
+
+        replicateSlotClaimService.release(CHAIN_TASK_ID);
+
+        assertThat(replicateSlotClaimService.isClaimed(CHAIN_TASK_ID)).isFalse();
+        assertThat(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).isTrue();
+        assertThat(getClaimsCount("acquired")).isEqualTo(2);
+        assertThat(getClaimsCount("contended")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldGiveClaimToOneCallerOnly() throws InterruptedException {
+        int nbCallers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nbCallers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger nbSuccessfulClaims = new AtomicInteger();
+        for (int i = 0; i < nbCallers; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)) {
+                    nbSuccessfulClaims.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(nbSuccessfulClaims.get()).isEqualTo(1);
+        assertThat(getClaimsCount("contended")).isEqualTo(nbCallers - 1);
+    }
+
+    @Test
+    public void shouldDropClaimWhenTaskIsFinal() {
+        replicateSlotClaimService.tryClaim(CHAIN_TASK_ID);
+        Task task = new Task("dappName", "commandLine", 5, CHAIN_TASK_ID);
+        task.changeStatus(COMPLETED);
+
+        replicateSlotClaimService.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, FINALIZED));
+
+        assertThat(replicateSlotClaimService.getNbTrackedTasks()).isZero();
+        assertThat(replicateSlotClaimService.isClaimed(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldDropClaimWhenStoredTaskIsFinal() {
+        replicateSlotClaimService.tryClaim(CHAIN_TASK_ID);
+        Task task = new Task("dappName", "commandLine", 5, CHAIN_TASK_ID);
+        task.changeStatus(FAILED);
+
+        // finalized by another instance
+        replicateSlotClaimService.onTaskDocumentChanged(new TaskDocumentChangedEvent(task));
+
+        assertThat(replicateSlotClaimService.getNbTrackedTasks()).isZero();
+    }
+
+    @Test
+    public void shouldDropClaimWhenTaskIsArchived() {
+        replicateSlotClaimService.tryClaim(CHAIN_TASK_ID);
+
+        replicateSlotClaimService.onTasksArchived(new TasksArchivedEvent(List.of(CHAIN_TASK_ID)));
+
+        assertThat(replicateSlotClaimService.getNbTrackedTasks()).isZero();
+    }
+
+    @Test
+    public void shouldGaugeHeldClaimsOnly() {
+        replicateSlotClaimService.tryClaim(CHAIN_TASK_ID);
+        replicateSlotClaimService.tryClaim("0x1");
+        replicateSlotClaimService.release("0x1");
+
+        assertThat(meterRegistry.get(ReplicateSlotClaimService.HELD_CLAIMS_METRIC).gauge().value())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(ReplicateSlotClaimService.TRACKED_CLAIMS_METRIC).gauge().value())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void shouldKeepClaimWhenTaskIsNotFinal() {
+        replicateSlotClaimService.tryClaim(CHAIN_TASK_ID);
+        Task task = new Task("dappName", "commandLine", 5, CHAIN_TASK_ID);
+        task.changeStatus(RUNNING);
+
+        replicateSlotClaimService.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, INITIALIZED));
+
+        assertThat(replicateSlotClaimService.isClaimed(CHAIN_TASK_ID)).isTrue();
+    }
+
+    private double getClaimsCount(String result) {
+        return meterRegistry.get(ReplicateSlotClaimService.CLAIMS_METRIC)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
@@ -24,14 +24,15 @@ import com.iexec.common.replicate.ReplicateStatusDetails;
 import com.iexec.common.replicate.ReplicateStatusModifier;
 import com.iexec.common.replicate.ReplicateStatusUpdate;
 import com.iexec.common.utils.BytesUtils;
+import com.iexec.core.chain.BlockHeadTracker;
+import com.iexec.core.chain.GasBalanceTracker;
 import com.iexec.core.chain.SignatureService;
-import com.iexec.core.chain.Web3jService;
-import com.iexec.core.detector.task.ContributionTimeoutTaskDetector;
 import com.iexec.core.contribution.ConsensusService;
 import com.iexec.core.sms.SmsService;
 import com.iexec.core.task.Task;
 import com.iexec.core.task.TaskService;
 import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.dispatch.TaskDispatchIndex;
 import com.iexec.common.utils.DateTimeUtils;
 import com.iexec.core.worker.Worker;
 import com.iexec.core.worker.WorkerService;
@@ -44,12 +45,12 @@ import org.mockito.MockitoAnnotations;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static com.iexec.common.replicate.ReplicateStatus.*;
 import static com.iexec.core.task.TaskStatus.RUNNING;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
 
@@ -74,9 +75,11 @@ public class ReplicateSupplyServiceTests {
     @Mock private TaskService taskService;
     @Mock private WorkerService workerService;
     @Mock private SmsService smsService;
-    @Mock private Web3jService web3jService;
-    @Mock private ContributionTimeoutTaskDetector contributionTimeoutTaskDetector;
+    @Mock private GasBalanceTracker gasBalanceTracker;
+    @Mock private BlockHeadTracker blockHeadTracker;
+    @Mock private TaskDispatchIndex taskDispatchIndex;
     @Mock private ConsensusService consensusService;
+    @Mock private ReplicateSlotClaimService replicateSlotClaimService;
 
     @InjectMocks
     private ReplicateSupplyService replicateSupplyService;
@@ -84,6 +87,7 @@ public class ReplicateSupplyServiceTests {
     @Before
     public void init() {
         MockitoAnnotations.initMocks(this);
+        when(replicatesService.addNewReplicate(anyString(), anyString())).thenReturn(true);
     }
 
 
@@ -95,7 +99,7 @@ public class ReplicateSupplyServiceTests {
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
         assertThat(oAuthorization).isEmpty();
-        assertTaskAccessForNewReplicateLockNeverUsed();
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -114,14 +118,12 @@ public class ReplicateSupplyServiceTests {
         runningTask.changeStatus(RUNNING);
         runningTask.setTag(NO_TEE_TAG);
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
@@ -136,7 +138,7 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(0))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateLockNeverUsed();
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -148,9 +150,9 @@ public class ReplicateSupplyServiceTests {
                 .lastAliveDate(new Date())
                 .build();
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
         when(workerService.getWorker(Mockito.anyString())).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks()).thenReturn(new ArrayList<>());
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean())).thenReturn(new ArrayList<>().stream());
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
         assertThat(oAuthorization).isEmpty();
@@ -165,18 +167,18 @@ public class ReplicateSupplyServiceTests {
                 .lastAliveDate(new Date())
                 .build();
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
         Task runningTask1 = new Task(DAPP_NAME, COMMAND_LINE, 3, CHAIN_TASK_ID);
         runningTask1.changeStatus(RUNNING);
 
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(false);
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask1));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask1).stream());
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
         assertThat(oAuthorization).isEmpty();
-        assertTaskAccessForNewReplicateLockNeverUsed();
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -188,19 +190,19 @@ public class ReplicateSupplyServiceTests {
                 .lastAliveDate(new Date())
                 .build();
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
         Task runningTask1 = new Task(DAPP_NAME, COMMAND_LINE, 3, CHAIN_TASK_ID);
         runningTask1.changeStatus(RUNNING);
 
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(false);
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask1));
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(false);
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask1).stream());
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
         assertThat(oAuthorization).isEmpty();
-        assertTaskAccessForNewReplicateLockNeverUsed();
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -220,15 +222,13 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(NO_TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(initBlock + 1);//should be 2
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(initBlock + 1);//should be 2
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
@@ -243,7 +243,7 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(0))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        assertReplicateSlotClaimReleased();
     }
 
     @Test
@@ -262,22 +262,26 @@ public class ReplicateSupplyServiceTests {
         runningTask1.setTag(NO_TEE_TAG);
         runningTask1.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask1));
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask1).stream());
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(true);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(anyString(), anyInt(), anyLong()))
                 .thenReturn(true);
+        when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
+        // the index may be behind, the guarded push refuses the replicate
+        when(replicatesService.addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(false);
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
 
         assertThat(oAuthorization).isEmpty();
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        Mockito.verify(replicatesService, Mockito.never()).hasWorkerAlreadyParticipated(anyString(), anyString());
+        Mockito.verify(consensusService, Mockito.never()).onReplicateAdded(anyString(), anyString());
+        Mockito.verify(workerService, Mockito.never()).addChainTaskIdToWorker(anyString(), anyString());
+        assertReplicateSlotClaimReleased();
     }
 
     @Test
@@ -296,21 +300,19 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(NO_TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 maxExecutionTime)).thenReturn(false);
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
         assertThat(oAuthorization).isEmpty();
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        assertReplicateSlotClaimReleased();
     }
 
     @Test
@@ -330,15 +332,13 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, true)).thenReturn("");
@@ -353,7 +353,7 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(0))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        assertReplicateSlotClaimReleased();
     }
 
     @Test
@@ -382,19 +382,19 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
         List<Task> tasks = new ArrayList<>();
         tasks.add(task1);
         tasks.add(taskDeadlineReached);
-        when(taskService.getInitializedOrRunningTasks()).thenReturn(tasks);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
-        doNothing().when(contributionTimeoutTaskDetector).detect();
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean())).thenReturn(tasks.stream());
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
 
         replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
 
         // the call should only happen once over the two tasks
         Mockito.verify(taskService, Mockito.times(1))
                 .isConsensusReached(any());
+        Mockito.verify(taskDispatchIndex).remove(CHAIN_TASK_ID);
     }
 
     @Test
@@ -414,14 +414,12 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(NO_TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(true);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(false);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
@@ -436,7 +434,7 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(0))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateLockNeverUsed();
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -456,15 +454,13 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(NO_TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
@@ -479,7 +475,132 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(1))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        assertReplicateSlotClaimReleased();
+    }
+
+    @Test
+    public void shouldGetReplicatesUntilWorkerIsFull() {
+        String chainTaskId2 = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970427";
+        Worker existingWorker = Worker.builder()
+                .id("1")
+                .walletAddress(WALLET_WORKER_1)
+                .cpuNb(2)
+                .teeEnabled(false)
+                .lastAliveDate(new Date())
+                .build();
+        Task runningTask1 = getRunningTask(CHAIN_TASK_ID);
+        Task runningTask2 = getRunningTask(chainTaskId2);
+
+        when(replicateSlotClaimService.tryClaim(anyString())).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
+        // the index no longer gives a task once the worker joined it
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Stream.of(runningTask1, runningTask2))
+                .thenReturn(Stream.of(runningTask2));
+        when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true, true, false);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(consensusService.doesTaskNeedMoreContributionsForConsensus(anyString(), anyInt(), anyLong()))
+                .thenReturn(true);
+        when(smsService.getEnclaveChallenge(anyString(), eq(false))).thenReturn(BytesUtils.EMPTY_ADDRESS);
+        when(signatureService.createAuthorization(eq(WALLET_WORKER_1), anyString(), eq(BytesUtils.EMPTY_ADDRESS)))
+                .thenReturn(new WorkerpoolAuthorization());
+
+        List<WorkerpoolAuthorization> authorizations =
+                replicateSupplyService.getAuthsOfAvailableReplicates(workerLastBlock, WALLET_WORKER_1, 5);
+
+        assertThat(authorizations).hasSize(2);
+        Mockito.verify(replicatesService).addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
+        Mockito.verify(replicatesService).addNewReplicate(chainTaskId2, WALLET_WORKER_1);
+        Mockito.verify(workerService, Mockito.times(3)).canAcceptMoreWorks(WALLET_WORKER_1);
+    }
+
+    @Test
+    public void shouldGetNoMoreReplicatesThanAsked() {
+        Worker existingWorker = Worker.builder()
+                .id("1")
+                .walletAddress(WALLET_WORKER_1)
+                .cpuNb(2)
+                .teeEnabled(false)
+                .lastAliveDate(new Date())
+                .build();
+        Task runningTask = getRunningTask(CHAIN_TASK_ID);
+
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Stream.of(runningTask));
+        when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
+                runningTask.getMaxExecutionTime())).thenReturn(true);
+        when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
+        when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, BytesUtils.EMPTY_ADDRESS))
+                .thenReturn(new WorkerpoolAuthorization());
+
+        List<WorkerpoolAuthorization> authorizations =
+                replicateSupplyService.getAuthsOfAvailableReplicates(workerLastBlock, WALLET_WORKER_1, 1);
+
+        assertThat(authorizations).hasSize(1);
+        Mockito.verify(taskDispatchIndex, Mockito.times(1)).getAssignableTasks(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void shouldGetOfferedReplicate() {
+        Worker existingWorker = Worker.builder()
+                .id("1")
+                .walletAddress(WALLET_WORKER_1)
+                .cpuNb(2)
+                .teeEnabled(false)
+                .lastAliveDate(new Date())
+                .build();
+        Task runningTask = getRunningTask(CHAIN_TASK_ID);
+
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
+        when(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID, WALLET_WORKER_1, false))
+                .thenReturn(Optional.of(runningTask));
+        when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
+                runningTask.getMaxExecutionTime())).thenReturn(true);
+        when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false)).thenReturn(BytesUtils.EMPTY_ADDRESS);
+        when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, BytesUtils.EMPTY_ADDRESS))
+                .thenReturn(new WorkerpoolAuthorization());
+
+        Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService
+                .getAuthOfOfferedReplicate(workerLastBlock, WALLET_WORKER_1, CHAIN_TASK_ID);
+
+        assertThat(oAuthorization).isPresent();
+        Mockito.verify(replicatesService).addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
+        Mockito.verify(taskDispatchIndex, Mockito.never()).getAssignableTasks(anyString(), anyBoolean());
+        assertReplicateSlotClaimReleased();
+    }
+
+    @Test
+    public void shouldNotGetOfferedReplicateSinceNoLongerAssignable() {
+        Worker existingWorker = Worker.builder()
+                .id("1")
+                .walletAddress(WALLET_WORKER_1)
+                .cpuNb(2)
+                .teeEnabled(false)
+                .lastAliveDate(new Date())
+                .build();
+
+        when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
+        when(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID, WALLET_WORKER_1, false))
+                .thenReturn(Optional.empty());
+        when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+
+        Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService
+                .getAuthOfOfferedReplicate(workerLastBlock, WALLET_WORKER_1, CHAIN_TASK_ID);
+
+        assertThat(oAuthorization).isEmpty();
+        Mockito.verify(replicatesService, Mockito.never()).addNewReplicate(anyString(), anyString());
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -499,15 +620,13 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(),
                 runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, true)).thenReturn(ENCLAVE_CHALLENGE);
@@ -522,7 +641,7 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(1))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        assertReplicateSlotClaimReleased();
     }
 
     @Test
@@ -542,11 +661,11 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
 
         Optional<WorkerpoolAuthorization> oAuthorization = replicateSupplyService.getAuthOfAvailableReplicate(workerLastBlock, WALLET_WORKER_1);
@@ -557,7 +676,7 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(0))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateLockNeverUsed();
+        assertReplicateSlotClaimNeverHeld();
     }
 
     @Test
@@ -577,14 +696,13 @@ public class ReplicateSupplyServiceTests {
         runningTask.setTag(TEE_TAG);
         runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
 
-        when(taskService.isTaskBeingAccessedForNewReplicate(CHAIN_TASK_ID)).thenReturn(false);
-        when(web3jService.getLatestBlockNumber()).thenReturn(coreLastBlock);
+        when(replicateSlotClaimService.tryClaim(CHAIN_TASK_ID)).thenReturn(true);
+        when(blockHeadTracker.getLatestBlockNumber()).thenReturn(coreLastBlock);
         when(workerService.canAcceptMoreWorks(WALLET_WORKER_1)).thenReturn(true);
-        when(web3jService.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
-        when(taskService.getInitializedOrRunningTasks())
-                .thenReturn(Collections.singletonList(runningTask));
+        when(gasBalanceTracker.hasEnoughGas(WALLET_WORKER_1)).thenReturn(true);
+        when(taskDispatchIndex.getAssignableTasks(anyString(), anyBoolean()))
+                .thenReturn(Collections.singletonList(runningTask).stream());
         when(workerService.getWorker(WALLET_WORKER_1)).thenReturn(Optional.of(existingWorker));
-        when(replicatesService.hasWorkerAlreadyParticipated(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(false);
         when(consensusService.doesTaskNeedMoreContributionsForConsensus(CHAIN_TASK_ID, runningTask.getTrust(), runningTask.getMaxExecutionTime())).thenReturn(true);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, true)).thenReturn(ENCLAVE_CHALLENGE);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
@@ -598,17 +716,26 @@ public class ReplicateSupplyServiceTests {
                 .addNewReplicate(CHAIN_TASK_ID, WALLET_WORKER_1);
         Mockito.verify(workerService, Mockito.times(1))
                 .addChainTaskIdToWorker(CHAIN_TASK_ID, WALLET_WORKER_1);
-        assertTaskAccessForNewReplicateNotDeadLocking();
+        assertReplicateSlotClaimReleased();
+    }
+
+    private Task getRunningTask(String chainTaskId) {
+        Task runningTask = new Task(DAPP_NAME, COMMAND_LINE, 5, chainTaskId);
+        runningTask.setInitializationBlockNumber(initBlock);
+        runningTask.setMaxExecutionTime(maxExecutionTime);
+        runningTask.changeStatus(RUNNING);
+        runningTask.setTag(NO_TEE_TAG);
+        runningTask.setContributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60));
+        return runningTask;
     }
 
-    private void assertTaskAccessForNewReplicateNotDeadLocking() {
-        Mockito.verify(taskService, Mockito.times(1)).lockTaskAccessForNewReplicate(CHAIN_TASK_ID);
-        Mockito.verify(taskService, Mockito.times(1)).unlockTaskAccessForNewReplicate(CHAIN_TASK_ID);
+    private void assertReplicateSlotClaimReleased() {
+        Mockito.verify(replicateSlotClaimService, Mockito.times(1)).tryClaim(CHAIN_TASK_ID);
+        Mockito.verify(replicateSlotClaimService, Mockito.times(1)).release(CHAIN_TASK_ID);
     }
 
-    private void assertTaskAccessForNewReplicateLockNeverUsed() {
-        Mockito.verify(taskService, Mockito.times(0)).lockTaskAccessForNewReplicate(CHAIN_TASK_ID);
-        Mockito.verify(taskService, Mockito.times(0)).unlockTaskAccessForNewReplicate(CHAIN_TASK_ID);
+    private void assertReplicateSlotClaimNeverHeld() {
+        Mockito.verify(replicateSlotClaimService, Mockito.times(0)).release(CHAIN_TASK_ID);
     }
 
     // Tests on getMissedTaskNotifications()
@@ -638,6 +765,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(Arrays.asList(teeTask));
+        mockReplicatesOfWorker(noTeeReplicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(noTeeReplicate);
         when(smsService.getEnclaveChallenge(CHAIN_TASK_ID, true)).thenReturn("");
 
@@ -660,6 +788,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -672,7 +801,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_CONTRIBUTE);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class));
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList());
     }
 
     @Test
@@ -684,12 +813,13 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
 
-        when(replicatesService.didReplicateContributeOnchain(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
+        when(replicatesService.didReplicatesContributeOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(Map.of(CHAIN_TASK_ID, false));
 
         List<TaskNotification> missedTaskNotifications =
                 replicateSupplyService.getMissedTaskNotifications(3l, WALLET_WORKER_1);
@@ -699,7 +829,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_CONTRIBUTE);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -715,13 +845,13 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
-        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(replicate1)
-                .thenReturn(replicate2);
+        mockReplicatesOfWorker(replicate1);
+        mockReplicatesOfWorker(replicate2);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(replicate2);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
-        when(replicatesService.didReplicateContributeOnchain(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(true);
+        when(replicatesService.didReplicatesContributeOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(Map.of(CHAIN_TASK_ID, true));
         when(taskService.isConsensusReached(taskList.get(0))).thenReturn(false);
 
         List<TaskNotification> missedTaskNotifications =
@@ -732,7 +862,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_WAIT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class));
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList());
         Mockito.verify(replicatesService, Mockito.times(1))
                 .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatus.class), // CONTRIBUTED
                         any(ReplicateStatusDetails.class));
@@ -751,13 +881,13 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
-        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(replicate1)
-                .thenReturn(replicate2);
+        mockReplicatesOfWorker(replicate1);
+        mockReplicatesOfWorker(replicate2);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(replicate2);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
-        when(replicatesService.didReplicateContributeOnchain(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(true);
+        when(replicatesService.didReplicatesContributeOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(Map.of(CHAIN_TASK_ID, true));
         when(taskService.isConsensusReached(taskList.get(0))).thenReturn(true);
 
         List<TaskNotification> missedTaskNotifications =
@@ -768,7 +898,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_REVEAL);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class));
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList());
         Mockito.verify(replicatesService, Mockito.times(1))
                 .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatus.class), // RECOVERING
                         any(ReplicateStatusDetails.class));
@@ -784,6 +914,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate1);
         when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(replicate1);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -796,7 +927,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_ABORT_CONTRIBUTION_TIMEOUT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -809,8 +940,8 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
-        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(replicate1);
+        mockReplicatesOfWorker(replicate1);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(replicate1);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
 
@@ -822,7 +953,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_ABORT_CONSENSUS_REACHED);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -834,6 +965,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -846,7 +978,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_REVEAL);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -858,12 +990,13 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
 
-        when(replicatesService.didReplicateContributeOnchain(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(false);
+        when(replicatesService.didReplicatesContributeOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(Map.of(CHAIN_TASK_ID, false));
 
         List<TaskNotification> missedTaskNotifications =
                 replicateSupplyService.getMissedTaskNotifications(3l, WALLET_WORKER_1);
@@ -873,7 +1006,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_REVEAL);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -889,13 +1022,13 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
-        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(replicate1)
-                .thenReturn(replicate2);
+        mockReplicatesOfWorker(replicate1);
+        mockReplicatesOfWorker(replicate2);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(replicate2);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
-        when(replicatesService.didReplicateRevealOnchain(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(true);
+        when(replicatesService.didReplicatesRevealOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(Map.of(CHAIN_TASK_ID, true));
 
         CompletableFuture<Boolean> future = new CompletableFuture<>();
         when(taskService.updateTask(CHAIN_TASK_ID)).thenReturn(future);
@@ -909,7 +1042,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_WAIT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
         Mockito.verify(replicatesService, Mockito.times(1))
                 .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatus.class), // REVEALED
                         any(ReplicateStatusDetails.class));
@@ -928,13 +1061,13 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
-        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(replicate1)
-                .thenReturn(replicate2);
+        mockReplicatesOfWorker(replicate1);
+        mockReplicatesOfWorker(replicate2);
+        when(replicatesService.getReplicate(CHAIN_TASK_ID, WALLET_WORKER_1)).thenReturn(replicate2);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
-        when(replicatesService.didReplicateRevealOnchain(CHAIN_TASK_ID, WALLET_WORKER_1))
-                .thenReturn(true);
+        when(replicatesService.didReplicatesRevealOnchain(WALLET_WORKER_1, List.of(CHAIN_TASK_ID)))
+                .thenReturn(Map.of(CHAIN_TASK_ID, true));
         CompletableFuture<Boolean> future = new CompletableFuture<>();
         when(taskService.updateTask(CHAIN_TASK_ID)).thenReturn(future);
         future.complete(true);
@@ -947,7 +1080,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_UPLOAD);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
         Mockito.verify(replicatesService, Mockito.times(1))
                 .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatus.class), // REVEALED
                         any(ReplicateStatusDetails.class));
@@ -962,6 +1095,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -974,7 +1108,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_UPLOAD);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -986,6 +1120,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1000,7 +1135,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_UPLOAD);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -1013,6 +1148,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1027,7 +1163,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_WAIT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
 
         Mockito.verify(replicatesService, Mockito.times(1))
                 .updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, RESULT_UPLOADED);
@@ -1042,6 +1178,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1056,7 +1193,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_WAIT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
 
         Mockito.verify(replicatesService, Mockito.times(0))
                 .updateReplicateStatus(CHAIN_TASK_ID, WALLET_WORKER_1, RESULT_UPLOADED);
@@ -1073,6 +1210,7 @@ public class ReplicateSupplyServiceTests {
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
         when(taskService.getTaskByChainTaskId(CHAIN_TASK_ID))
                 .thenReturn(Optional.of(taskList.get(0)));
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1085,7 +1223,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_WAIT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -1101,6 +1239,7 @@ public class ReplicateSupplyServiceTests {
         when(taskService.getTaskByChainTaskId(CHAIN_TASK_ID))
                 .thenReturn(Optional.of(taskList.get(0)));
 
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1113,7 +1252,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_WAIT);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -1131,6 +1270,7 @@ public class ReplicateSupplyServiceTests {
         when(taskService.getTaskByChainTaskId(CHAIN_TASK_ID))
                 .thenReturn(Optional.of(completedTask));
 
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1143,7 +1283,7 @@ public class ReplicateSupplyServiceTests {
         assertThat(taskNotificationType).isEqualTo(TaskNotificationType.PLEASE_COMPLETE);
 
         Mockito.verify(replicatesService, Mockito.times(1))
-                .updateReplicateStatus(anyString(), anyString(), any(ReplicateStatusUpdate.class)); // RECOVERING
+                .setRecoveringStatuses(eq(WALLET_WORKER_1), anyList()); // RECOVERING
     }
 
     @Test
@@ -1155,6 +1295,7 @@ public class ReplicateSupplyServiceTests {
 
         when(workerService.getChainTaskIds(WALLET_WORKER_1)).thenReturn(ids);
         when(taskService.getTasksByChainTaskIds(ids)).thenReturn(taskList);
+        mockReplicatesOfWorker(replicate);
         when(replicatesService.getReplicate(any(), any())).thenReturn(replicate);
         when(signatureService.createAuthorization(WALLET_WORKER_1, CHAIN_TASK_ID, ENCLAVE_CHALLENGE))
                 .thenReturn(getStubAuth());
@@ -1177,6 +1318,11 @@ public class ReplicateSupplyServiceTests {
         return Arrays.asList(task);
     }
 
+    private void mockReplicatesOfWorker(Optional<Replicate> replicate) {
+        when(replicatesService.getReplicatesOfWorker(eq(WALLET_WORKER_1), any()))
+                .thenReturn(replicate.map(r -> Map.of(CHAIN_TASK_ID, r)).orElse(Map.of()));
+    }
+
     Optional<Replicate> getStubReplicate(ReplicateStatus status) {
         Replicate replicate = new Replicate();
         replicate.setWalletAddress(WALLET_WORKER_1);
@@ -22,8 +22,10 @@ import com.iexec.common.replicate.ReplicateStatusUpdate;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -150,4 +152,46 @@ public class ReplicateTests {
         replicate.updateStatus(ReplicateStatus.COMPLETED, ReplicateStatusModifier.WORKER);
         assertThat(replicate.isBusyComputing()).isFalse();
     }
+
+    @Test
+    public void shouldGetLastRelevantStatusSkippingLostAndRecovering() {
+        Replicate replicate = new Replicate("0x1", "taskId");
+        replicate.updateStatus(ReplicateStatus.STARTING, ReplicateStatusModifier.WORKER);
+        replicate.updateStatus(ReplicateStatus.WORKER_LOST, ReplicateStatusModifier.POOL_MANAGER);
+
+        assertThat(replicate.getLastRelevantStatus()).contains(ReplicateStatus.STARTING);
+        assertThat(replicate.isLostAfterStatus(ReplicateStatus.STARTING)).isTrue();
+
+        replicate.updateStatus(ReplicateStatus.RECOVERING, ReplicateStatusModifier.POOL_MANAGER);
+        assertThat(replicate.getLastRelevantStatus()).contains(ReplicateStatus.STARTING);
+        assertThat(replicate.isLostAfterStatus(ReplicateStatus.STARTING)).isFalse();
+
+        replicate.updateStatus(ReplicateStatus.COMPUTED, ReplicateStatusModifier.WORKER);
+        assertThat(replicate.getLastRelevantStatus()).contains(ReplicateStatus.COMPUTED);
+    }
+
+    @Test
+    public void shouldRebuildStatusSummaryWhenStatusUpdateListIsReplaced() {
+        Replicate replicate = new Replicate("0x1", "taskId");
+        replicate.updateStatus(ReplicateStatus.CONTRIBUTED, ReplicateStatusModifier.WORKER);
+        assertThat(replicate.containsContributedStatus()).isTrue();
+
+        // as done when reading a replicate from the database
+        replicate.setStatusUpdateList(new ArrayList<>(List.of(
+                ReplicateStatusUpdate.poolManagerRequest(ReplicateStatus.CREATED))));
+
+        assertThat(replicate.containsContributedStatus()).isFalse();
+        assertThat(replicate.getLastRelevantStatus()).contains(ReplicateStatus.CREATED);
+        replicate.updateStatus(ReplicateStatus.STARTING, ReplicateStatusModifier.WORKER);
+        assertThat(replicate.containsStatus(ReplicateStatus.STARTING)).isTrue();
+    }
+
+    @Test
+    public void shouldGetEmptyLastRelevantStatusSinceNoStatus() {
+        Replicate replicate = new Replicate();
+
+        assertThat(replicate.getLastRelevantStatus()).isEmpty();
+        assertThat(replicate.isRecoverable()).isFalse();
+        assertThat(replicate.isBeforeStatus(ReplicateStatus.CONTRIBUTING)).isFalse();
+    }
 }
@@ -1,7 +1,12 @@
 package com.iexec.core.sms;
 
 import com.iexec.common.utils.BytesUtils;
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
 import com.iexec.core.feign.SmsClient;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import com.iexec.core.task.event.TasksArchivedEvent;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,11 +14,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Collections;
+
 import static org.mockito.Mockito.*;
 
 public class SmsServiceTests {
 
     private static final String CHAIN_TASK_ID = "chainTaskId";
+    private static final String TEE_TAG = "0x0000000000000000000000000000000000000000000000000000000000000001";
 
     @Mock
     private SmsClient smsClient;
@@ -45,10 +53,101 @@ public class SmsServiceTests {
         Assertions.assertThat(received).isEmpty();
     }
 
+    @Test
+    public void shouldGetEnclaveChallengeFromCache() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("challenge");
+
+        smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+        String received = smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+
+        verify(smsClient, times(1)).generateTeeChallenge(CHAIN_TASK_ID);
+        Assertions.assertThat(received).isEqualTo("challenge");
+    }
+
+    @Test
+    public void shouldNotCacheEmptyEnclaveChallenge() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("", "challenge");
+
+        smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+        String received = smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+
+        verify(smsClient, times(2)).generateTeeChallenge(CHAIN_TASK_ID);
+        Assertions.assertThat(received).isEqualTo("challenge");
+    }
+
+    @Test
+    public void shouldPrefetchEnclaveChallengeWhenTeeTaskIsInitialized() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("challenge");
+        Task task = getTask(TEE_TAG, TaskStatus.INITIALIZED);
+
+        smsService.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZING));
+
+        Assertions.assertThat(smsService.isEnclaveChallengeCached(CHAIN_TASK_ID)).isTrue();
+    }
+
+    @Test
+    public void shouldNotPrefetchEnclaveChallengeForStandardTask() {
+        Task task = getTask(BytesUtils.EMPTY_HEXASTRING_64, TaskStatus.INITIALIZED);
+
+        smsService.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZING));
+
+        verify(smsClient, never()).generateTeeChallenge(anyString());
+    }
+
+    @Test
+    public void shouldEvictEnclaveChallengeWhenTaskIsFinal() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("challenge");
+        smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+        Task task = getTask(TEE_TAG, TaskStatus.COMPLETED);
+
+        smsService.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.FINALIZED));
+
+        Assertions.assertThat(smsService.isEnclaveChallengeCached(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldEvictEnclaveChallengeWhenTaskIsFinalizedByAnotherInstance() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("challenge");
+        smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+        Task task = getTask(TEE_TAG, TaskStatus.COMPLETED);
+
+        smsService.onTaskDocumentChanged(new TaskDocumentChangedEvent(task));
+
+        Assertions.assertThat(smsService.isEnclaveChallengeCached(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldKeepEnclaveChallengeWhenTaskDocumentChangedIsNotFinal() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("challenge");
+        smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+        Task task = getTask(TEE_TAG, TaskStatus.RUNNING);
+
+        smsService.onTaskDocumentChanged(new TaskDocumentChangedEvent(task));
+
+        Assertions.assertThat(smsService.isEnclaveChallengeCached(CHAIN_TASK_ID)).isTrue();
+    }
+
+    @Test
+    public void shouldEvictEnclaveChallengeWhenTaskIsArchived() {
+        when(smsClient.generateTeeChallenge(CHAIN_TASK_ID)).thenReturn("challenge");
+        smsService.getEnclaveChallenge(CHAIN_TASK_ID, true);
+
+        smsService.onTasksArchived(new TasksArchivedEvent(Collections.singletonList(CHAIN_TASK_ID)));
+
+        Assertions.assertThat(smsService.isEnclaveChallengeCached(CHAIN_TASK_ID)).isFalse();
+    }
+
     @Test
     public void shouldGetEmptyAddressForStandardTask() {
         Assertions.assertThat(smsService.getEnclaveChallenge(CHAIN_TASK_ID, false))
                 .isEqualTo(BytesUtils.EMPTY_ADDRESS);
         verify(smsClient, never()).generateTeeChallenge(anyString());
     }
-}
\ No newline at end of file
+
+    private Task getTask(String tag, TaskStatus status) {
+        Task task = new Task("dappName", "commandLine", 1, CHAIN_TASK_ID);
+        task.setTag(tag);
+        task.setCurrentStatus(status);
+        return task;
+    }
+}
@@ -22,12 +22,16 @@ import com.iexec.common.replicate.ReplicateStatusModifier;
 import com.iexec.common.utils.BytesUtils;
 import com.iexec.core.chain.IexecHubService;
 import com.iexec.core.chain.Web3jService;
+import com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker;
 import com.iexec.core.chain.adapter.BlockchainAdapterService;
+import com.iexec.core.cluster.TaskOwnershipChangedEvent;
+import com.iexec.core.cluster.TaskOwnershipService;
 import com.iexec.core.configuration.ResultRepositoryConfiguration;
 import com.iexec.core.detector.replicate.RevealTimeoutDetector;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
 import com.iexec.common.utils.DateTimeUtils;
+import com.iexec.core.task.initialization.TaskInitializationBatcher;
 import com.iexec.core.task.update.TaskUpdateRequestManager;
 import com.iexec.core.worker.WorkerService;
 import org.apache.commons.lang3.tuple.Pair;
@@ -39,11 +43,13 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.math.BigInteger;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.iexec.core.task.TaskStatus.*;
 import static com.iexec.common.utils.DateTimeUtils.sleep;
@@ -97,12 +103,24 @@ public class TaskServiceTests {
     @Mock
     private BlockchainAdapterService blockchainAdapterService;
 
+    @Mock
+    private BlockchainAdapterCommandTracker blockchainAdapterCommandTracker;
+
+    @Mock
+    private TaskInitializationBatcher taskInitializationBatcher;
+
+    @Mock
+    private TaskOwnershipService taskOwnershipService;
+
     @InjectMocks
     private TaskService taskService;
 
     @Before
     public void init() {
         MockitoAnnotations.initMocks(this);
+        when(taskRepository.pushStatusChanges(any(), any(), anyList())).thenReturn(true);
+        when(taskOwnershipService.isOwned(any())).thenReturn(true);
+        when(taskOwnershipService.keepOwned(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     private Task getStubTask() {
@@ -150,6 +168,23 @@ public class TaskServiceTests {
         assertThat(saved).isEqualTo(Optional.empty());
     }
 
+    @Test
+    public void shouldAddTasksOfDealAtOnce() {
+        when(taskRepository.insertAbsentTasks(anyList())).thenAnswer(invocation -> {
+            List<Task> tasks = invocation.getArgument(0);
+            // first task already added
+            return tasks.subList(1, tasks.size());
+        });
+
+        List<Task> added = taskService.addTasks(CHAIN_DEAL_ID, 5, 3, 0, DAPP_NAME, COMMAND_LINE,
+                2, maxExecutionTime, "0x0", contributionDeadline, finalDeadline);
+
+        assertThat(added).extracting(Task::getTaskIndex).containsExactly(6, 7);
+        assertThat(added).extracting(Task::getChainDealId).containsOnly(CHAIN_DEAL_ID);
+        verify(taskRepository, times(1)).insertAbsentTasks(anyList());
+        verify(taskRepository, never()).save(any());
+    }
+
     @Test
     public void shouldFindByCurrentStatus() {
         TaskStatus status = TaskStatus.INITIALIZED;
@@ -267,6 +302,14 @@ public class TaskServiceTests {
         verify(updateRequestManager).publishRequest(eq(CHAIN_TASK_ID));
     }
 
+    @Test
+    public void shouldNotTriggerUpdateTaskSinceNotOwned() {
+        when(taskOwnershipService.isOwned(CHAIN_TASK_ID)).thenReturn(false);
+
+        assertThat(taskService.updateTask(CHAIN_TASK_ID).join()).isFalse();
+        verifyZeroInteractions(updateRequestManager);
+    }
+
     // Tests on consensusReached2Reopening transition
 
     @Test
@@ -278,7 +321,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(0);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(true);
         when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.of(new ChainReceipt()));
 
         taskService.consensusReached2Reopening(task);
@@ -295,7 +337,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(0);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(true);
         when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.of(new ChainReceipt()));
 
         taskService.consensusReached2Reopening(task);
@@ -312,7 +353,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(1);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(true);
         when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.of(new ChainReceipt()));
 
         taskService.consensusReached2Reopening(task);
@@ -329,7 +369,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(0);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(false);
         when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.of(new ChainReceipt()));
 
         taskService.consensusReached2Reopening(task);
@@ -346,7 +385,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(0);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(true);
         when(iexecHubService.hasEnoughGas()).thenReturn(false);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.of(new ChainReceipt()));
 
         taskService.consensusReached2Reopening(task);
@@ -364,7 +402,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(0);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(true);
         when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.empty());
 
         taskService.consensusReached2Reopening(task);
@@ -383,7 +420,6 @@ public class TaskServiceTests {
         when(replicatesService.getNbReplicatesWithCurrentStatus(CHAIN_TASK_ID, ReplicateStatus.REVEALED)).thenReturn(0);
         when(iexecHubService.canReopen(task.getChainTaskId())).thenReturn(true);
         when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
         when(iexecHubService.reOpen(task.getChainTaskId())).thenReturn(Optional.of(new ChainReceipt()));
         when(iexecHubService.getChainTask(CHAIN_TASK_ID)).thenReturn(Optional.of(ChainTask.builder()
                 .status(ChainTaskStatus.ACTIVE)
@@ -414,105 +450,159 @@ public class TaskServiceTests {
     // is required
 
     @Test
-    public void shouldNotUpdateReceived2InitializingSinceNoEnoughGas() {
+    public void shouldNotUpdateReceived2InitializingSinceInitializeNotRequested() {
         Task task = getStubTask();
         task.changeStatus(RECEIVED);
         task.setChainTaskId(CHAIN_TASK_ID);
 
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
-        when(iexecHubService.hasEnoughGas()).thenReturn(false);
-        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(true);
-        when(iexecHubService.isBeforeContributionDeadline(task.getChainDealId()))
-                .thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
-        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 1)).thenReturn(Optional.of(CHAIN_TASK_ID));
+        when(taskInitializationBatcher.requestInitialize(task))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
         assertThat(task.getCurrentStatus()).isEqualTo(RECEIVED);
+        verify(taskRepository, never()).pushStatusChanges(any(), any(), anyList());
+        verifyZeroInteractions(blockchainAdapterCommandTracker);
     }
 
     @Test
-    public void shouldNotUpdateReceived2InitializingSinceTaskNotInUnsetStatusOnChain() {
+    public void shouldUpdateInitializing2InitailizeFailedSinceChainTaskIdIsEmpty() {
         Task task = getStubTask();
         task.changeStatus(RECEIVED);
         task.setChainTaskId(CHAIN_TASK_ID);
 
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
-        when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(false);
-        when(iexecHubService.isBeforeContributionDeadline(task.getChainDealId()))
-                .thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
-        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 0)).thenReturn(Optional.of(CHAIN_TASK_ID));
+        when(taskInitializationBatcher.requestInitialize(task))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(false)));
+
+        taskService.updateTaskRunnable(task.getChainTaskId());
+        taskService.updateTaskRunnable(task.getChainTaskId());
+
+        assertThat(task.getLastButOneStatus()).isEqualTo(INITIALIZE_FAILED);
+        assertThat(task.getCurrentStatus()).isEqualTo(FAILED);
+    }
+
+    @Test
+    public void shouldUpdateReceived2InitializingAndWatchInitialize() {
+        Task task = getStubTask();
+        task.changeStatus(RECEIVED);
+        task.setChainTaskId(CHAIN_TASK_ID);
+
+        when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+        when(taskInitializationBatcher.requestInitialize(task))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(true)));
 
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        // the result is saved on the update triggered once initialize is requested
+        verify(updateRequestManager).publishRequest(CHAIN_TASK_ID);
         assertThat(task.getCurrentStatus()).isEqualTo(RECEIVED);
+
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        assertThat(task.getChainDealId()).isEqualTo(CHAIN_DEAL_ID);
+        assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 2).getStatus()).isEqualTo(RECEIVED);
+        assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZING);
+        verify(blockchainAdapterCommandTracker)
+                .watch(CHAIN_TASK_ID, BlockchainAdapterCommandTracker.Command.INITIALIZE);
     }
 
     @Test
-    public void shouldNotUpdateReceived2InitializingSinceAfterContributionDeadline() {
+    public void shouldNotRequestInitializeTwiceWhileRequestIsPending() {
         Task task = getStubTask();
         task.changeStatus(RECEIVED);
         task.setChainTaskId(CHAIN_TASK_ID);
-        Pair<String, ChainReceipt> pair = Pair.of(CHAIN_TASK_ID, null);
+        CompletableFuture<Optional<Boolean>> initializationRequest = new CompletableFuture<>();
 
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
-        when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(true);
-        when(iexecHubService.isBeforeContributionDeadline(task.getChainDealId()))
-                .thenReturn(false);
-        when(taskRepository.save(task)).thenReturn(task);
-        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 0)).thenReturn(Optional.of(CHAIN_TASK_ID));
+        when(taskInitializationBatcher.requestInitialize(task)).thenReturn(initializationRequest);
 
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+
+        verify(taskInitializationBatcher, times(1)).requestInitialize(task);
+        verifyZeroInteractions(updateRequestManager);
         assertThat(task.getCurrentStatus()).isEqualTo(RECEIVED);
+
+        initializationRequest.complete(Optional.of(true));
+        verify(updateRequestManager).publishRequest(CHAIN_TASK_ID);
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+
+        verify(taskInitializationBatcher, times(1)).requestInitialize(task);
+        assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZING);
     }
 
     @Test
-    public void shouldUpdateInitializing2InitailizeFailedSinceChainTaskIdIsEmpty() {
+    public void shouldRequestInitializeAgainSinceRequestFailed() {
         Task task = getStubTask();
         task.changeStatus(RECEIVED);
         task.setChainTaskId(CHAIN_TASK_ID);
+        CompletableFuture<Optional<Boolean>> failedRequest = new CompletableFuture<>();
+        failedRequest.completeExceptionally(new RuntimeException("adapter down"));
 
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
-        when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(true);
-        when(iexecHubService.isBeforeContributionDeadline(task.getChainDealId()))
-                .thenReturn(true);
-        when(taskRepository.save(task)).thenReturn(task);
-        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 0)).thenReturn(Optional.empty());
+        when(taskInitializationBatcher.requestInitialize(task)).thenReturn(failedRequest);
 
-        taskService.updateTaskRunnable(task.getChainTaskId());
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        assertThat(task.getCurrentStatus()).isEqualTo(RECEIVED);
 
-        assertThat(task.getLastButOneStatus()).isEqualTo(INITIALIZE_FAILED);
-        assertThat(task.getCurrentStatus()).isEqualTo(FAILED);
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        verify(taskInitializationBatcher, times(2)).requestInitialize(task);
     }
 
     @Test
-    public void shouldUpdateReceived2Initializing2Initialized() {
+    public void shouldDropInitializationRequestSinceTaskLostWhileRequesting() {
         Task task = getStubTask();
         task.changeStatus(RECEIVED);
         task.setChainTaskId(CHAIN_TASK_ID);
+        CompletableFuture<Optional<Boolean>> initializationRequest = new CompletableFuture<>();
 
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
-        when(iexecHubService.hasEnoughGas()).thenReturn(true);
-        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(true);
-        when(iexecHubService.isBeforeContributionDeadline(task.getChainDealId()))
-                .thenReturn(true);
+        when(taskInitializationBatcher.requestInitialize(task)).thenReturn(initializationRequest);
 
-        when(taskRepository.save(task)).thenReturn(task);
-        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 0)).thenReturn(Optional.of(CHAIN_TASK_ID));
-        when(blockchainAdapterService.isInitialized(CHAIN_TASK_ID)).thenReturn(Optional.of(true));
-        when(iexecHubService.getChainTask(CHAIN_TASK_ID)).thenReturn(Optional.of(ChainTask.builder()
-                .contributionDeadline(DateTimeUtils.addMinutesToDate(new Date(), 60).getTime())
-                .build()));
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        assertThat(taskService.hasInitializationRequest(CHAIN_TASK_ID)).isTrue();
+        when(taskOwnershipService.isOwned(CHAIN_TASK_ID)).thenReturn(false);
+        initializationRequest.complete(Optional.of(true));
+
+        assertThat(taskService.hasInitializationRequest(CHAIN_TASK_ID)).isFalse();
+        verifyZeroInteractions(updateRequestManager);
+    }
+
+    @Test
+    public void shouldDropDoneInitializationRequestsOfLostShards() {
+        Task task = getStubTask();
+        task.changeStatus(RECEIVED);
+        task.setChainTaskId(CHAIN_TASK_ID);
 
+        when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+        when(taskInitializationBatcher.requestInitialize(task))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(true)));
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
-        assertThat(task.getChainDealId()).isEqualTo(CHAIN_DEAL_ID);
-        assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 1).getStatus()).isEqualTo(INITIALIZED);
-        assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 2).getStatus()).isEqualTo(INITIALIZING);
-        assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 3).getStatus()).isEqualTo(RECEIVED);
-        assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZED);
+        assertThat(taskService.hasInitializationRequest(CHAIN_TASK_ID)).isTrue();
+
+        when(taskOwnershipService.isOwned(CHAIN_TASK_ID)).thenReturn(false);
+        taskService.onTaskOwnershipChanged(new TaskOwnershipChangedEvent(Set.of(), Set.of(1)));
+
+        assertThat(taskService.hasInitializationRequest(CHAIN_TASK_ID)).isFalse();
+    }
+
+    @Test
+    public void shouldDropDoneInitializationRequestSinceTaskLeftReceived() {
+        Task task = getStubTask();
+        task.changeStatus(RECEIVED);
+        task.setChainTaskId(CHAIN_TASK_ID);
+
+        when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+        when(taskInitializationBatcher.requestInitialize(task))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(true)));
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+
+        // initialized through another path meanwhile
+        task.changeStatus(INITIALIZING);
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+
+        assertThat(taskService.hasInitializationRequest(CHAIN_TASK_ID)).isFalse();
     }
 
     // Tests on initializing2Initialized transition
@@ -562,6 +652,8 @@ public class TaskServiceTests {
         assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 2).getStatus()).isEqualTo(RECEIVED);
         assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 1).getStatus()).isEqualTo(INITIALIZING);
         assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZING);
+        verify(blockchainAdapterCommandTracker)
+                .watch(CHAIN_TASK_ID, BlockchainAdapterCommandTracker.Command.INITIALIZE);
     }
 
     // Tests on initialized2Running transition
@@ -573,7 +665,6 @@ public class TaskServiceTests {
 
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.STARTING, ReplicateStatus.COMPUTED)).thenReturn(2);
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.COMPUTED)).thenReturn(0);
-        when(taskRepository.save(task)).thenReturn(task);
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
 
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
@@ -587,7 +678,6 @@ public class TaskServiceTests {
 
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.STARTING, ReplicateStatus.COMPUTED)).thenReturn(0);
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.COMPUTED)).thenReturn(0);
-        when(taskRepository.save(task)).thenReturn(task);
 
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
         assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZED);
@@ -601,7 +691,6 @@ public class TaskServiceTests {
 
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.STARTING, ReplicateStatus.COMPUTED)).thenReturn(2);
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.COMPUTED)).thenReturn(4);
-        when(taskRepository.save(task)).thenReturn(task);
 
         taskService.updateTaskRunnable(CHAIN_TASK_ID);
         assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZED);
@@ -696,6 +785,39 @@ public class TaskServiceTests {
         assertThat(task.getLastButOneStatus()).isEqualTo(CONTRIBUTION_TIMEOUT);
     }
 
+    @Test
+    public void shouldSaveContributionTimeoutAndFailedStatusesAtOnce() {
+        Date timeoutInPast = DateTimeUtils.addMinutesToDate(new Date(), -1);
+        Task task = getStubTask();
+        task.changeStatus(INITIALIZED);
+        task.setContributionDeadline(timeoutInPast);
+
+        when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+
+        verify(taskRepository).pushStatusChanges(eq(task), eq(INITIALIZED),
+                argThat(statusChanges -> statusChanges.size() == 2
+                        && statusChanges.get(0).getStatus() == CONTRIBUTION_TIMEOUT
+                        && statusChanges.get(1).getStatus() == FAILED));
+        verify(taskRepository, never()).save(any());
+    }
+
+    @Test
+    public void shouldNotPublishStatusUpdateSinceTaskModifiedConcurrently() {
+        Date timeoutInPast = DateTimeUtils.addMinutesToDate(new Date(), -1);
+        Task task = getStubTask();
+        task.changeStatus(INITIALIZED);
+        task.setContributionDeadline(timeoutInPast);
+
+        when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+        when(taskRepository.pushStatusChanges(any(), any(), anyList())).thenReturn(false);
+
+        Assertions.assertThatThrownBy(() -> taskService.updateTaskRunnable(CHAIN_TASK_ID))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(applicationEventPublisher, never()).publishEvent(any());
+    }
+
 
     // Tests on running2ConsensusReached transition
 
@@ -710,7 +832,6 @@ public class TaskServiceTests {
                 .build()));
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
         when(replicatesService.getNbValidContributedWinners(any(), any())).thenReturn(2);
-        when(taskRepository.save(task)).thenReturn(task);
         when(web3jService.getLatestBlockNumber()).thenReturn(2L);
         when(iexecHubService.getConsensusBlock(anyString(), anyLong())).thenReturn(ChainReceipt.builder().blockNumber(1L).build());
         doNothing().when(applicationEventPublisher).publishEvent(any());
@@ -729,7 +850,6 @@ public class TaskServiceTests {
                 .winnerCounter(2)
                 .build()));
         when(replicatesService.getNbOffChainReplicatesWithStatus(task.getChainTaskId(), ReplicateStatus.CONTRIBUTED)).thenReturn(2);
-        when(taskRepository.save(task)).thenReturn(task);
 
         taskService.updateTaskRunnable(task.getChainTaskId());
         assertThat(task.getCurrentStatus()).isEqualTo(INITIALIZED);
@@ -756,7 +876,6 @@ public class TaskServiceTests {
                 .winnerCounter(2)
                 .build()));
         when(replicatesService.getNbOffChainReplicatesWithStatus(task.getChainTaskId(), ReplicateStatus.CONTRIBUTED)).thenReturn(2);
-        when(taskRepository.save(task)).thenReturn(task);
 
         taskService.updateTaskRunnable(task.getChainTaskId());
         assertThat(task.getCurrentStatus()).isEqualTo(RUNNING);
@@ -772,7 +891,6 @@ public class TaskServiceTests {
                 .winnerCounter(2)
                 .build()));
         when(replicatesService.getNbOffChainReplicatesWithStatus(task.getChainTaskId(), ReplicateStatus.CONTRIBUTED)).thenReturn(1);
-        when(taskRepository.save(task)).thenReturn(task);
 
         taskService.updateTaskRunnable(task.getChainTaskId());
         assertThat(task.getCurrentStatus()).isEqualTo(RUNNING);
@@ -789,7 +907,6 @@ public class TaskServiceTests {
 
         when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.REVEALED)).thenReturn(1);
-        when(taskRepository.save(task)).thenReturn(task);
         when(replicatesService.getRandomReplicateWithRevealStatus(task.getChainTaskId())).thenReturn(Optional.of(replicate));
         doNothing().when(applicationEventPublisher).publishEvent(any());
 
@@ -808,7 +925,6 @@ public class TaskServiceTests {
         replicate.updateStatus(ReplicateStatus.REVEALED, ReplicateStatusModifier.WORKER);
 
         when(replicatesService.getNbReplicatesWithCurrentStatus(task.getChainTaskId(), ReplicateStatus.REVEALED)).thenReturn(0);
-        when(taskRepository.save(task)).thenReturn(task);
 
         taskService.updateTaskRunnable(task.getChainTaskId());
         assertThat(task.getCurrentStatus()).isEqualTo(CONSENSUS_REACHED);
@@ -916,6 +1032,21 @@ public class TaskServiceTests {
         assertThat(task.getDateStatusList().get(task.getDateStatusList().size() - 3).getStatus()).isEqualTo(FINALIZING);
     }
 
+    @Test
+    public void shouldWatchFinalizeCommandSinceNotCompletedYet() {
+        Task task = getStubTask();
+        task.setChainTaskId(CHAIN_TASK_ID);
+        task.changeStatus(FINALIZING);
+
+        when(taskRepository.findByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+        when(blockchainAdapterService.isFinalized(CHAIN_TASK_ID)).thenReturn(Optional.empty());
+
+        taskService.updateTaskRunnable(CHAIN_TASK_ID);
+        assertThat(task.getCurrentStatus()).isEqualTo(FINALIZING);
+        verify(blockchainAdapterCommandTracker)
+                .watch(CHAIN_TASK_ID, BlockchainAdapterCommandTracker.Command.FINALIZE);
+    }
+
     @Test
     public void shouldUpdateResultUploading2UploadedButNot2Finalizing() { //one worker uploaded
         Task task = getStubTask();
@@ -1007,7 +1138,6 @@ public class TaskServiceTests {
                 .build();
 
         when(taskRepository.findByChainTaskId("chainTaskId")).thenReturn(Optional.of(task));
-        when(taskRepository.save(task)).thenReturn(task);
         ChainContribution chainContribution = ChainContribution.builder().status(ChainContributionStatus.UNSET).build();
         when(iexecHubService.getChainContribution("chainTaskId", "0x1")).thenReturn(Optional.of(chainContribution));
 
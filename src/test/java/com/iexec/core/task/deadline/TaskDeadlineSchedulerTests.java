@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.deadline;
+
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TaskDeadlineSchedulerTests {
+
+    private final static String CHAIN_TASK_ID = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private ReplicatesService replicatesService;
+
+    private TaskDeadlineScheduler taskDeadlineScheduler;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        taskDeadlineScheduler = new TaskDeadlineScheduler(taskService, replicatesService);
+    }
+
+    @After
+    public void shutdown() {
+        taskDeadlineScheduler.shutdown();
+    }
+
+    @Test
+    public void shouldUpdateTaskWhenContributionDeadlineIsReached() {
+        Task task = getTask(TaskStatus.RUNNING, inMillis(100), inMillis(60000));
+        when(taskService.getTaskByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZED));
+
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION)).isTrue();
+        verify(taskService, timeout(2000)).updateTask(CHAIN_TASK_ID);
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION)).isFalse();
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.FINAL)).isTrue();
+    }
+
+    @Test
+    public void shouldCancelContributionDeadlineWhenConsensusIsReached() {
+        Task task = getTask(TaskStatus.RUNNING, inMillis(60000), inMillis(120000));
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZED));
+
+        task.setCurrentStatus(TaskStatus.CONSENSUS_REACHED);
+        task.setRevealDeadline(inMillis(90000));
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.RUNNING));
+
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION)).isFalse();
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.REVEAL)).isTrue();
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.FINAL)).isTrue();
+    }
+
+    @Test
+    public void shouldCancelAllDeadlinesOnFinalStatus() {
+        Task task = getTask(TaskStatus.RUNNING, inMillis(60000), inMillis(120000));
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZED));
+
+        task.setCurrentStatus(TaskStatus.FAILED);
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.RUNNING));
+
+        for (TaskDeadline taskDeadline : TaskDeadline.values()) {
+            assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, taskDeadline)).isFalse();
+        }
+    }
+
+    @Test
+    public void shouldFailReplicatesNotRevealedWhenRevealDeadlineIsReached() {
+        Task task = getTask(TaskStatus.CONSENSUS_REACHED, inMillis(-1000), inMillis(60000));
+        task.setRevealDeadline(inMillis(-1));
+        Replicate replicate = new Replicate("0x1", CHAIN_TASK_ID);
+        when(taskService.getTaskByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+        when(replicatesService.getReplicates(CHAIN_TASK_ID)).thenReturn(List.of(replicate));
+
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.RUNNING));
+
+        verify(replicatesService, timeout(2000)).setRevealTimeoutStatusIfNeeded(CHAIN_TASK_ID, replicate);
+        verify(taskService, never()).updateTask(anyString());
+    }
+
+    @Test
+    public void shouldRescheduleSinceDeadlineChangedMeanwhile() {
+        Date deadline = inMillis(-1);
+        Task task = getTask(TaskStatus.RUNNING, inMillis(60000), inMillis(120000));
+        when(taskService.getTaskByChainTaskId(CHAIN_TASK_ID)).thenReturn(Optional.of(task));
+
+        taskDeadlineScheduler.onDeadlineReached(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION, deadline);
+
+        verify(taskService, never()).updateTask(anyString());
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION)).isTrue();
+    }
+
+    @Test
+    public void shouldScheduleNonFinalTasksOnStartup() {
+        Task task = getTask(TaskStatus.INITIALIZED, inMillis(60000), inMillis(120000));
+        when(taskService.getTasksInNonFinalStatuses()).thenReturn(List.of(task));
+
+        taskDeadlineScheduler.run();
+
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION)).isTrue();
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.REVEAL)).isFalse();
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.FINAL)).isTrue();
+    }
+
+    @Test
+    public void shouldRescheduleTrackedTaskChangedInDatabase() {
+        Task task = getTask(TaskStatus.RUNNING, inMillis(60000), inMillis(120000));
+        taskDeadlineScheduler.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, TaskStatus.INITIALIZED));
+
+        Task storedTask = getTask(TaskStatus.FAILED, inMillis(60000), inMillis(120000));
+        taskDeadlineScheduler.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        for (TaskDeadline taskDeadline : TaskDeadline.values()) {
+            assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, taskDeadline)).isFalse();
+        }
+    }
+
+    @Test
+    public void shouldNotScheduleUntrackedTaskChangedInDatabase() {
+        Task storedTask = getTask(TaskStatus.RUNNING, inMillis(60000), inMillis(120000));
+
+        taskDeadlineScheduler.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        assertThat(taskDeadlineScheduler.isScheduled(CHAIN_TASK_ID, TaskDeadline.CONTRIBUTION)).isFalse();
+    }
+
+    private Task getTask(TaskStatus status, Date contributionDeadline, Date finalDeadline) {
+        Task task = new Task();
+        task.setChainTaskId(CHAIN_TASK_ID);
+        task.setCurrentStatus(status);
+        task.setContributionDeadline(contributionDeadline);
+        task.setFinalDeadline(finalDeadline);
+        return task;
+    }
+
+    private static Date inMillis(long millis) {
+        return Date.from(Instant.now().plusMillis(millis));
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.iexec.core.task.dispatch;
+
+import com.iexec.common.utils.BytesUtils;
+import com.iexec.core.changestream.ReplicatesDocumentChangedEvent;
+import com.iexec.core.changestream.TaskDocumentChangedEvent;
+import com.iexec.core.contribution.ConsensusAccumulator;
+import com.iexec.core.contribution.ConsensusService;
+import com.iexec.core.replicate.Replicate;
+import com.iexec.core.replicate.ReplicateUpdatedEvent;
+import com.iexec.core.replicate.ReplicatesList;
+import com.iexec.core.replicate.ReplicatesService;
+import com.iexec.core.task.Task;
+import com.iexec.core.task.TaskService;
+import com.iexec.core.task.TaskStatus;
+import com.iexec.core.task.event.TaskOpenedEvent;
+import com.iexec.core.task.event.TaskStatusUpdatedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.iexec.core.task.TaskStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TaskDispatchIndexTests {
+
+    private final static String WALLET_WORKER_1 = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+    private final static String WALLET_WORKER_2 = "0x2ab2674aa374fe6415d11f0a8fcbd8027fc1e6a9";
+    private final static String CHAIN_TASK_ID_1 = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+    private final static String CHAIN_TASK_ID_2 = "0xc536af16737e02bb28100452a932056d499be3c462619751a9ed36515de64d50";
+    private final static String NO_TEE_TAG = BytesUtils.EMPTY_HEXASTRING_64;
+    private final static String TEE_TAG = "0x0000000000000000000000000000000000000000000000000000000000000001";
+
+    @Mock private TaskService taskService;
+    @Mock private ReplicatesService replicatesService;
+    @Mock private ConsensusService consensusService;
+    @Mock private ApplicationEventPublisher applicationEventPublisher;
+
+    @InjectMocks
+    private TaskDispatchIndex taskDispatchIndex;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        when(replicatesService.getReplicates(anyString())).thenReturn(Collections.emptyList());
+        when(consensusService.getMissingWeightForConsensus(anyString(), anyInt(), anyLong()))
+                .thenReturn(1);
+    }
+
+    @Test
+    public void shouldIndexRunningTasksOnRefresh() {
+        Task task1 = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        Task task2 = getTask(CHAIN_TASK_ID_2, NO_TEE_TAG, INITIALIZED);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Arrays.asList(task1, task2));
+
+        taskDispatchIndex.refresh();
+
+        assertThat(taskDispatchIndex.isIndexed(CHAIN_TASK_ID_1)).isTrue();
+        assertThat(taskDispatchIndex.isIndexed(CHAIN_TASK_ID_2)).isTrue();
+        assertThat(taskDispatchIndex.getNbOpenTasks()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotGetTaskAlreadyGivenToWorker() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(replicatesService.getReplicates(CHAIN_TASK_ID_1))
+                .thenReturn(Collections.singletonList(new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID_1)));
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+
+        taskDispatchIndex.refresh();
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false)).isEmpty();
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_2, false)).containsExactly(task);
+    }
+
+    @Test
+    public void shouldGetTeeTaskOnlyForTeeEnabledWorker() {
+        Task teeTask = getTask(CHAIN_TASK_ID_1, TEE_TAG, RUNNING);
+        Task standardTask = getTask(CHAIN_TASK_ID_2, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Arrays.asList(standardTask, teeTask));
+
+        taskDispatchIndex.refresh();
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false))
+                .containsExactly(standardTask);
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, true))
+                .containsExactly(teeTask, standardTask);
+    }
+
+    @Test
+    public void shouldGetTasksNeedingMostWeightFirst() {
+        Task task1 = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        Task task2 = getTask(CHAIN_TASK_ID_2, NO_TEE_TAG, RUNNING);
+        when(consensusService.getMissingWeightForConsensus(eq(CHAIN_TASK_ID_1), anyInt(), anyLong()))
+                .thenReturn(3);
+        when(consensusService.getMissingWeightForConsensus(eq(CHAIN_TASK_ID_2), anyInt(), anyLong()))
+                .thenReturn(5);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Arrays.asList(task1, task2));
+        taskDispatchIndex.refresh();
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false))
+                .containsExactly(task2, task1);
+
+        when(consensusService.getMissingWeightForConsensus(eq(CHAIN_TASK_ID_2), anyInt(), anyLong()))
+                .thenReturn(1);
+        taskDispatchIndex.onReplicateAdded(CHAIN_TASK_ID_2, WALLET_WORKER_2);
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false))
+                .containsExactly(task1, task2);
+    }
+
+    @Test
+    public void shouldCloseTaskWhenNoMoreContributionNeeded() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+        when(consensusService.getMissingWeightForConsensus(anyString(), anyInt(), anyLong()))
+                .thenReturn(0);
+
+        taskDispatchIndex.onReplicateAdded(CHAIN_TASK_ID_1, WALLET_WORKER_1);
+
+        assertThat(taskDispatchIndex.isIndexed(CHAIN_TASK_ID_1)).isTrue();
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_2, false)).isEmpty();
+    }
+
+    @Test
+    public void shouldRemoveTaskWhenLeavingContributionPhase() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+
+        task.changeStatus(CONSENSUS_REACHED);
+        taskDispatchIndex.onTaskStatusUpdated(new TaskStatusUpdatedEvent(task, RUNNING));
+
+        assertThat(taskDispatchIndex.isIndexed(CHAIN_TASK_ID_1)).isFalse();
+        List<Task> assignableTasks = taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, true)
+                .collect(Collectors.toList());
+        assertThat(assignableTasks).isEmpty();
+    }
+
+    @Test
+    public void shouldPublishTaskOpenedEventOnlyWhenTaskOpens() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+
+        taskDispatchIndex.refresh();
+        taskDispatchIndex.refresh();
+        taskDispatchIndex.onReplicateAdded(CHAIN_TASK_ID_1, WALLET_WORKER_1);
+
+        verify(applicationEventPublisher, times(1)).publishEvent(new TaskOpenedEvent(task));
+    }
+
+    @Test
+    public void shouldPublishTaskOpenedEventWhenTaskReopens() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+        when(consensusService.getMissingWeightForConsensus(anyString(), anyInt(), anyLong()))
+                .thenReturn(0);
+        taskDispatchIndex.onReplicateAdded(CHAIN_TASK_ID_1, WALLET_WORKER_1);
+        when(consensusService.getMissingWeightForConsensus(anyString(), anyInt(), anyLong()))
+                .thenReturn(1);
+
+        taskDispatchIndex.refresh();
+
+        verify(applicationEventPublisher, times(2)).publishEvent(new TaskOpenedEvent(task));
+    }
+
+    @Test
+    public void shouldGetAssignableTask() {
+        Task teeTask = getTask(CHAIN_TASK_ID_1, TEE_TAG, RUNNING);
+        when(replicatesService.getReplicates(CHAIN_TASK_ID_1))
+                .thenReturn(Collections.singletonList(new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID_1)));
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(teeTask));
+
+        taskDispatchIndex.refresh();
+
+        assertThat(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID_1, WALLET_WORKER_2, true)).contains(teeTask);
+        assertThat(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID_1, WALLET_WORKER_2, false)).isEmpty();
+        assertThat(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID_1, WALLET_WORKER_1, true)).isEmpty();
+        assertThat(taskDispatchIndex.getAssignableTask(CHAIN_TASK_ID_2, WALLET_WORKER_2, true)).isEmpty();
+    }
+
+    @Test
+    public void shouldRemoveTaskWhenStoredTaskLeftContributionPhase() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+
+        Task storedTask = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, FAILED);
+        taskDispatchIndex.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        assertThat(taskDispatchIndex.isIndexed(CHAIN_TASK_ID_1)).isFalse();
+    }
+
+    @Test
+    public void shouldReplaceIndexedTaskWhenStoredTaskChanged() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+
+        Task storedTask = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        storedTask.setContributionDeadline(new Date());
+        taskDispatchIndex.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false)).containsExactly(storedTask);
+    }
+
+    @Test
+    public void shouldReplaceIndexedTaskWhenAnyStoredFieldChanged() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+
+        Task storedTask = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        storedTask.setCommandLine("otherCommandLine");
+        taskDispatchIndex.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false)).containsExactly(storedTask);
+    }
+
+    @Test
+    public void shouldMoveIndexedTaskToTeeTasksWhenStoredTagChanged() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+
+        Task storedTask = getTask(CHAIN_TASK_ID_1, TEE_TAG, RUNNING);
+        taskDispatchIndex.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false)).isEmpty();
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, true)).containsExactly(storedTask);
+        assertThat(taskDispatchIndex.getNbOpenTasks()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldListenToReplicateUpdatesAfterConsensusAccumulator() throws NoSuchMethodException {
+        int accumulatorOrder = ConsensusAccumulator.class
+                .getMethod("onReplicateUpdated", ReplicateUpdatedEvent.class)
+                .getAnnotation(Order.class).value();
+        int indexOrder = TaskDispatchIndex.class
+                .getMethod("onReplicateUpdated", ReplicateUpdatedEvent.class)
+                .getAnnotation(Order.class).value();
+
+        assertThat(indexOrder).isGreaterThan(accumulatorOrder);
+    }
+
+    @Test
+    public void shouldNotIndexUnknownTaskWhenStoredTaskChanged() {
+        Task storedTask = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+
+        taskDispatchIndex.onTaskDocumentChanged(new TaskDocumentChangedEvent(storedTask));
+
+        assertThat(taskDispatchIndex.isIndexed(CHAIN_TASK_ID_1)).isFalse();
+    }
+
+    @Test
+    public void shouldAddWorkersOfStoredReplicates() {
+        Task task = getTask(CHAIN_TASK_ID_1, NO_TEE_TAG, RUNNING);
+        when(taskService.getInitializedOrRunningTasks()).thenReturn(Collections.singletonList(task));
+        taskDispatchIndex.refresh();
+        ReplicatesList replicatesList = new ReplicatesList();
+        replicatesList.setChainTaskId(CHAIN_TASK_ID_1);
+        replicatesList.setReplicates(Collections.singletonList(new Replicate(WALLET_WORKER_1, CHAIN_TASK_ID_1)));
+
+        taskDispatchIndex.onReplicatesDocumentChanged(new ReplicatesDocumentChangedEvent(replicatesList));
+
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_1, false)).isEmpty();
+        assertThat(taskDispatchIndex.getAssignableTasks(WALLET_WORKER_2, false)).containsExactly(task);
+    }
+
+    private Task getTask(String chainTaskId, String tag, TaskStatus status) {
+        Task task = new Task("dappName", "commandLine", 5, chainTaskId);
+        task.setMaxExecutionTime(60000);
+        task.setTag(tag);
+        task.changeStatus(status);
+        return task;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021 IEXEC BLOCKCHAIN TECH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.iexec.core.task.initialization;
+
+import com.iexec.common.chain.ChainDeal;
+import com.iexec.core.chain.IexecHubService;
+import com.iexec.core.chain.adapter.BlockchainAdapterService;
+import com.iexec.core.task.Task;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TaskInitializationBatcherTests {
+
+    private final static String CHAIN_DEAL_ID = "0xd82223e5feff6720792ffed1665e980da95e5d32b177332013eaba8edc07f31c";
+    private final static String CHAIN_TASK_ID_0 = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970426";
+    private final static String CHAIN_TASK_ID_1 = "0x65bc5e94ed1486b940bd6cc0013c418efad58a0a52a3d08cee89faaa21970427";
+
+    @Mock
+    private IexecHubService iexecHubService;
+
+    @Mock
+    private BlockchainAdapterService blockchainAdapterService;
+
+    private TaskInitializationBatcher taskInitializationBatcher;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        taskInitializationBatcher = new TaskInitializationBatcher(iexecHubService, blockchainAdapterService, 2);
+    }
+
+    @After
+    public void shutdown() {
+        taskInitializationBatcher.shutdown();
+    }
+
+    @Test
+    public void shouldRequestInitializeOfTasksOfDealWithSingleDealRead() throws Exception {
+        Task task0 = getTask(CHAIN_TASK_ID_0, 0);
+        Task task1 = getTask(CHAIN_TASK_ID_1, 1);
+        ChainDeal chainDeal = ChainDeal.builder().build();
+        when(iexecHubService.hasEnoughGas()).thenReturn(true);
+        when(iexecHubService.getChainDeal(CHAIN_DEAL_ID)).thenReturn(Optional.of(chainDeal));
+        when(iexecHubService.isBeforeContributionDeadline(chainDeal)).thenReturn(true);
+        when(iexecHubService.isTaskInUnsetStatusOnChain(eq(CHAIN_DEAL_ID), anyInt())).thenReturn(true);
+        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 0)).thenReturn(Optional.of(CHAIN_TASK_ID_0));
+        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 1)).thenReturn(Optional.of(CHAIN_TASK_ID_1));
+
+        CompletableFuture<Optional<Boolean>> result0 = taskInitializationBatcher.requestInitialize(task0);
+        CompletableFuture<Optional<Boolean>> result1 = taskInitializationBatcher.requestInitialize(task1);
+        taskInitializationBatcher.initializePendingTasks();
+
+        assertThat(result0.get(2, TimeUnit.SECONDS)).contains(true);
+        assertThat(result1.get(2, TimeUnit.SECONDS)).contains(true);
+        verify(iexecHubService).hasEnoughGas();
+        verify(iexecHubService).getChainDeal(CHAIN_DEAL_ID);
+    }
+
+    @Test
+    public void shouldNotAddTaskTwiceToSameBatch() {
+        Task task = getTask(CHAIN_TASK_ID_0, 0);
+
+        CompletableFuture<Optional<Boolean>> result = taskInitializationBatcher.requestInitialize(task);
+
+        assertThat(taskInitializationBatcher.requestInitialize(task)).isSameAs(result);
+    }
+
+    @Test
+    public void shouldNotRequestInitializeSinceNotEnoughGas() throws Exception {
+        when(iexecHubService.hasEnoughGas()).thenReturn(false);
+
+        CompletableFuture<Optional<Boolean>> result =
+                taskInitializationBatcher.requestInitialize(getTask(CHAIN_TASK_ID_0, 0));
+        taskInitializationBatcher.initializePendingTasks();
+
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEmpty();
+        verify(iexecHubService, never()).getChainDeal(anyString());
+        verifyZeroInteractions(blockchainAdapterService);
+    }
+
+    @Test
+    public void shouldNotRequestInitializeSinceAfterContributionDeadline() throws Exception {
+        ChainDeal chainDeal = ChainDeal.builder().build();
+        when(iexecHubService.hasEnoughGas()).thenReturn(true);
+        when(iexecHubService.getChainDeal(CHAIN_DEAL_ID)).thenReturn(Optional.of(chainDeal));
+        when(iexecHubService.isBeforeContributionDeadline(chainDeal)).thenReturn(false);
+
+        CompletableFuture<Optional<Boolean>> result =
+                taskInitializationBatcher.requestInitialize(getTask(CHAIN_TASK_ID_0, 0));
+        taskInitializationBatcher.initializePendingTasks();
+
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEmpty();
+        verifyZeroInteractions(blockchainAdapterService);
+    }
+
+    @Test
+    public void shouldNotRequestInitializeSinceTaskNotUnsetOnChain() throws Exception {
+        ChainDeal chainDeal = ChainDeal.builder().build();
+        when(iexecHubService.hasEnoughGas()).thenReturn(true);
+        when(iexecHubService.getChainDeal(CHAIN_DEAL_ID)).thenReturn(Optional.of(chainDeal));
+        when(iexecHubService.isBeforeContributionDeadline(chainDeal)).thenReturn(true);
+        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(false);
+
+        CompletableFuture<Optional<Boolean>> result =
+                taskInitializationBatcher.requestInitialize(getTask(CHAIN_TASK_ID_0, 0));
+        taskInitializationBatcher.initializePendingTasks();
+
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEmpty();
+        verifyZeroInteractions(blockchainAdapterService);
+    }
+
+    @Test
+    public void shouldCompleteWithFalseSinceRequestFailed() throws Exception {
+        ChainDeal chainDeal = ChainDeal.builder().build();
+        when(iexecHubService.hasEnoughGas()).thenReturn(true);
+        when(iexecHubService.getChainDeal(CHAIN_DEAL_ID)).thenReturn(Optional.of(chainDeal));
+        when(iexecHubService.isBeforeContributionDeadline(chainDeal)).thenReturn(true);
+        when(iexecHubService.isTaskInUnsetStatusOnChain(CHAIN_DEAL_ID, 0)).thenReturn(true);
+        when(blockchainAdapterService.requestInitialize(CHAIN_DEAL_ID, 0)).thenThrow(new RuntimeException());
+
+        CompletableFuture<Optional<Boolean>> result =
+                taskInitializationBatcher.requestInitialize(getTask(CHAIN_TASK_ID_0, 0));
+        taskInitializationBatcher.initializePendingTasks();
+
+        assertThat(result.get(2, TimeUnit.SECONDS)).contains(false);
+    }
+
+    private Task getTask(String chainTaskId, int taskIndex) {
+        Task task = new Task();
+        task.setChainDealId(CHAIN_DEAL_ID);
+        task.setTaskIndex(taskIndex);
+        task.setChainTaskId(chainTaskId);
+        return task;
+    }
+}
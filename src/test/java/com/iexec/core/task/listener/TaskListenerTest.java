@@ -18,6 +18,8 @@ package com.iexec.core.task.listener;
 
 import com.iexec.common.notification.TaskNotification;
 import com.iexec.common.notification.TaskNotificationType;
+import com.iexec.core.chain.adapter.BlockchainAdapterCommandTracker;
+import com.iexec.core.chain.adapter.CommandCompletedEvent;
 import com.iexec.core.pubsub.NotificationService;
 import com.iexec.core.replicate.Replicate;
 import com.iexec.core.replicate.ReplicatesService;
@@ -68,6 +70,13 @@ public class TaskListenerTest {
         verify(taskService).updateTask(anyString());
     }
 
+    @Test
+    public void shouldUpdateTaskOnCommandCompletedEvent() {
+        taskListeners.onCommandCompletedEvent(new CommandCompletedEvent(CHAIN_TASK_ID,
+                BlockchainAdapterCommandTracker.Command.INITIALIZE, true));
+        verify(taskService).updateTask(CHAIN_TASK_ID);
+    }
+
     @Test
     public void shouldRemoveTasksFromWorkersAndSendTaskNotificationOnContributionTimeout() {
         ContributionTimeoutEvent event = new ContributionTimeoutEvent();
@@ -1,25 +1,35 @@
 package com.iexec.core.task.update;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.InjectMocks;
-import org.mockito.MockitoAnnotations;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskUpdateRequestManagerTests {
 
 
     public static final String CHAIN_TASK_ID = "chainTaskId";
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private TaskUpdateRequestManager taskUpdateRequestManager;
 
     @Before
     public void init() {
-        MockitoAnnotations.initMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        taskUpdateRequestManager = new TaskUpdateRequestManager(2, 10, meterRegistry);
+    }
+
+    @After
+    public void shutdown() {
+        taskUpdateRequestManager.shutdown();
     }
 
     @Test
@@ -38,10 +48,111 @@ public class TaskUpdateRequestManagerTests {
 
     @Test
     public void shouldNotPublishRequestSinceItemAlreadyAdded() throws ExecutionException, InterruptedException {
+        CountDownLatch updateStarted = new CountDownLatch(1);
+        CountDownLatch releaseUpdate = new CountDownLatch(1);
+        taskUpdateRequestManager.setRequestConsumer(chainTaskId -> {
+            updateStarted.countDown();
+            await(releaseUpdate);
+        });
+        // first request is being consumed, second one is waiting in the lane
         taskUpdateRequestManager.publishRequest(CHAIN_TASK_ID);
+        await(updateStarted);
+        Assertions.assertThat(taskUpdateRequestManager.publishRequest(CHAIN_TASK_ID).get()).isTrue();
+
         CompletableFuture<Boolean> booleanCompletableFuture = taskUpdateRequestManager.publishRequest(CHAIN_TASK_ID);
         booleanCompletableFuture.join();
         Assertions.assertThat(booleanCompletableFuture.get()).isFalse();
+        releaseUpdate.countDown();
+    }
+
+    @Test
+    public void shouldNotPublishRequestSinceLaneIsFull() throws ExecutionException, InterruptedException {
+        taskUpdateRequestManager.shutdown();
+        taskUpdateRequestManager = new TaskUpdateRequestManager(1, 1, meterRegistry);
+        CountDownLatch updateStarted = new CountDownLatch(1);
+        CountDownLatch releaseUpdate = new CountDownLatch(1);
+        taskUpdateRequestManager.setRequestConsumer(chainTaskId -> {
+            updateStarted.countDown();
+            await(releaseUpdate);
+        });
+        taskUpdateRequestManager.publishRequest("chainTaskId1");
+        await(updateStarted);
+        Assertions.assertThat(taskUpdateRequestManager.publishRequest("chainTaskId2").get()).isTrue();
+
+        Assertions.assertThat(taskUpdateRequestManager.publishRequest("chainTaskId3").get()).isFalse();
+        Assertions.assertThat(taskUpdateRequestManager.isRetrying("chainTaskId3")).isTrue();
+        Assertions.assertThat(meterRegistry.get(TaskUpdateRequestManager.REFUSED_METRIC).counter().count())
+                .isEqualTo(1);
+        releaseUpdate.countDown();
+    }
+
+    @Test
+    public void shouldPublishRefusedRequestAgainOnRetry() throws InterruptedException {
+        taskUpdateRequestManager.shutdown();
+        taskUpdateRequestManager = new TaskUpdateRequestManager(1, 1, meterRegistry);
+        CountDownLatch updateStarted = new CountDownLatch(1);
+        CountDownLatch releaseUpdate = new CountDownLatch(1);
+        List<String> updatedChainTaskIds = new CopyOnWriteArrayList<>();
+        CountDownLatch allUpdatesDone = new CountDownLatch(3);
+        taskUpdateRequestManager.setRequestConsumer(chainTaskId -> {
+            updateStarted.countDown();
+            await(releaseUpdate);
+            updatedChainTaskIds.add(chainTaskId);
+            allUpdatesDone.countDown();
+        });
+        taskUpdateRequestManager.publishRequest("chainTaskId1");
+        await(updateStarted);
+        taskUpdateRequestManager.publishRequest("chainTaskId2");
+        taskUpdateRequestManager.publishRequest("chainTaskId3");
+        releaseUpdate.countDown();
+        // wait for the lane to be empty again
+        while (updatedChainTaskIds.size() < 2) {
+            sleep(5);
+        }
+
+        taskUpdateRequestManager.retryRefusedRequests();
+        allUpdatesDone.await(2, TimeUnit.SECONDS);
+
+        Assertions.assertThat(updatedChainTaskIds).containsExactly("chainTaskId1", "chainTaskId2", "chainTaskId3");
+        Assertions.assertThat(taskUpdateRequestManager.isRetrying("chainTaskId3")).isFalse();
+        Assertions.assertThat(meterRegistry.get(TaskUpdateRequestManager.RETRYING_METRIC).gauge().value()).isZero();
+    }
+
+    @Test
+    public void shouldNeverUpdateSameTaskConcurrently() throws InterruptedException {
+        AtomicInteger runningUpdates = new AtomicInteger();
+        List<Integer> observedRunningUpdates = new CopyOnWriteArrayList<>();
+        CountDownLatch allUpdatesDone = new CountDownLatch(5);
+        taskUpdateRequestManager.setRequestConsumer(chainTaskId -> {
+            observedRunningUpdates.add(runningUpdates.incrementAndGet());
+            sleep(20);
+            runningUpdates.decrementAndGet();
+            allUpdatesDone.countDown();
+        });
+
+        for (int i = 0; i < 5; i++) {
+            taskUpdateRequestManager.publishRequest(CHAIN_TASK_ID);
+            sleep(5);
+        }
+        allUpdatesDone.await(2, TimeUnit.SECONDS);
+
+        Assertions.assertThat(observedRunningUpdates).containsOnly(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
 }
@@ -19,7 +19,6 @@ import org.springframework.http.ResponseEntity;
 import org.web3j.crypto.Credentials;
 
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -68,7 +67,7 @@ public class WorkerControllerTests {
     @Test
     public void shouldAcceptPing() {
         when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN)).thenReturn(WALLET);
-        when(workerService.updateLastAlive(WALLET)).thenReturn(Optional.of(WORKER));
+        when(workerService.updateLastAlive(WALLET)).thenReturn(true);
 
         ResponseEntity<String> response = workerController.ping(TOKEN);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -79,7 +78,7 @@ public class WorkerControllerTests {
     @Test
     public void shouldAcceptPingAndGetSameSessionIdForTwoCalls() {
         when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN)).thenReturn(WALLET);
-        when(workerService.updateLastAlive(WALLET)).thenReturn(Optional.of(WORKER));
+        when(workerService.updateLastAlive(WALLET)).thenReturn(true);
 
         ResponseEntity<String> response1 = workerController.ping(TOKEN);
         ResponseEntity<String> response2 = workerController.ping(TOKEN);
@@ -101,7 +100,7 @@ public class WorkerControllerTests {
     @Test
     public void shouldNotAcceptPingSinceCannotUpdateLastAlive() {
         when(jwtTokenProvider.getWalletAddressFromBearerToken(TOKEN)).thenReturn(WALLET);
-        when(workerService.updateLastAlive(WALLET)).thenReturn(Optional.empty());
+        when(workerService.updateLastAlive(WALLET)).thenReturn(false);
 
         ResponseEntity<String> response = workerController.ping(TOKEN);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
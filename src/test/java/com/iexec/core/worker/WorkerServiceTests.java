@@ -16,6 +16,7 @@
 
 package com.iexec.core.worker;
 
+import com.iexec.core.changestream.WorkerDocumentChangedEvent;
 import com.iexec.core.configuration.WorkerConfiguration;
 import org.junit.Before;
 import org.junit.Test;
@@ -26,9 +27,11 @@ import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 public class WorkerServiceTests {
@@ -69,6 +72,24 @@ public class WorkerServiceTests {
         assertThat(foundWorker.get()).isEqualTo(existingWorker);
     }
 
+    @Test
+    public void shouldGetWorkerFromDatabaseOnlyOnce() {
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Worker existingWorker = Worker.builder()
+                .id("1")
+                .walletAddress(walletAddress)
+                .lastAliveDate(new Date())
+                .build();
+        when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(existingWorker));
+
+        workerService.getWorker(walletAddress);
+        Optional<Worker> foundWorker = workerService.getWorker(walletAddress);
+
+        assertThat(foundWorker).contains(existingWorker);
+        assertThat(foundWorker.get()).isNotSameAs(existingWorker);
+        Mockito.verify(workerRepository, Mockito.times(1)).findByWalletAddress(walletAddress);
+    }
+
     // addWorker
 
     @Test
@@ -164,26 +185,30 @@ public class WorkerServiceTests {
         when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(worker));
 
         // call
-        Optional<Worker> updatedWorker = workerService.updateLastAlive(walletAddress);
-
-        // check argument passed to the save method
-        ArgumentCaptor<Worker> argument = ArgumentCaptor.forClass(Worker.class);
-        Mockito.verify(workerRepository).save(argument.capture());
-        assertThat(argument.getValue().getId()).isEqualTo(worker.getId());
-        assertThat(argument.getValue().getName()).isEqualTo(worker.getName());
-        // check that the save method was called with a lastAlive parameter updated less than a second ago
-        Date now = new Date();
-        long duration = now.getTime() - argument.getValue().getLastAliveDate().getTime();
+        assertThat(workerService.updateLastAlive(walletAddress)).isTrue();
+
+        // the date is only saved on next flush
+        Mockito.verify(workerRepository, Mockito.never()).save(any());
+        // check that the worker has a lastAlive updated less than a second ago
+        Worker updatedWorker = workerService.getWorker(walletAddress).get();
+        assertThat(updatedWorker.getId()).isEqualTo(worker.getId());
+        long duration = new Date().getTime() - updatedWorker.getLastAliveDate().getTime();
         long diffInSeconds = TimeUnit.MILLISECONDS.toSeconds(duration);
         assertThat(diffInSeconds).isEqualTo(0);
+    }
 
-        // check object returned by the method
-        assertThat(updatedWorker.isPresent()).isTrue();
-        assertThat(updatedWorker.get().getId()).isEqualTo(worker.getId());
-        assertThat(updatedWorker.get().getName()).isEqualTo(worker.getName());
-        duration = now.getTime() - updatedWorker.get().getLastAliveDate().getTime();
-        diffInSeconds = TimeUnit.MILLISECONDS.toSeconds(duration);
-        assertThat(diffInSeconds).isEqualTo(0);
+    @Test
+    public void shouldUpdateLastAliveWithoutReadingKnownWorkerAgain() {
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Worker worker = Worker.builder()
+                .walletAddress(walletAddress)
+                .build();
+        when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(worker));
+
+        workerService.updateLastAlive(walletAddress);
+        workerService.updateLastAlive(walletAddress);
+
+        Mockito.verify(workerRepository, Mockito.times(1)).findByWalletAddress(walletAddress);
     }
 
     @Test
@@ -191,8 +216,89 @@ public class WorkerServiceTests {
         String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
         when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.empty());
 
-        Optional<Worker> optional = workerService.updateLastAlive(walletAddress);
-        assertThat(optional.isPresent()).isFalse();
+        assertThat(workerService.updateLastAlive(walletAddress)).isFalse();
+    }
+
+    // flushActivities
+
+    @Test
+    public void shouldFlushUpdatedActivitiesOnce() {
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Worker worker = Worker.builder()
+                .walletAddress(walletAddress)
+                .build();
+        when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(worker));
+        workerService.updateLastAlive(walletAddress);
+        workerService.updateLastReplicateDemandDate(walletAddress);
+
+        workerService.flushActivities();
+        workerService.flushActivities();
+
+        ArgumentCaptor<Map<String, WorkerActivityRegistry.WorkerActivity>> argument =
+                ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(workerRepository, Mockito.times(1)).updateActivities(argument.capture());
+        assertThat(argument.getValue()).containsOnlyKeys(walletAddress);
+        assertThat(argument.getValue().get(walletAddress).getLastAliveDate()).isNotNull();
+        assertThat(argument.getValue().get(walletAddress).getLastReplicateDemandDate()).isNotNull();
+    }
+
+    @Test
+    public void shouldFlushActivitiesAgainSinceFailure() {
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Worker worker = Worker.builder()
+                .walletAddress(walletAddress)
+                .build();
+        when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(worker));
+        workerService.updateLastAlive(walletAddress);
+        Mockito.doThrow(new RuntimeException("mongo down")).doNothing()
+                .when(workerRepository).updateActivities(any());
+
+        workerService.flushActivities();
+        workerService.flushActivities();
+
+        Mockito.verify(workerRepository, Mockito.times(2)).updateActivities(any());
+    }
+
+    // onWorkerDocumentChanged
+
+    @Test
+    public void shouldKeepNewerStoredDatesWithoutFlushingThem() {
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Date lastReplicateDemandDate = new Date();
+        Worker worker = Worker.builder()
+                .walletAddress(walletAddress)
+                .lastAliveDate(new Date())
+                .lastReplicateDemandDate(lastReplicateDemandDate)
+                .build();
+        when(workerRepository.findByWalletAddressIn(Collections.singletonList(walletAddress)))
+                .thenReturn(Collections.singletonList(worker));
+
+        // written by another instance
+        workerService.onWorkerDocumentChanged(new WorkerDocumentChangedEvent(worker));
+        workerService.flushActivities();
+
+        assertThat(workerService.getAliveWorkers()).containsExactly(worker);
+        assertThat(workerService.getLastReplicateDemand(walletAddress)).contains(lastReplicateDemandDate);
+        Mockito.verify(workerRepository, Mockito.never()).updateActivities(any());
+    }
+
+    @Test
+    public void shouldNotReplaceNewerKnownDatesWithStoredOnes() {
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Worker worker = Worker.builder()
+                .walletAddress(walletAddress)
+                .build();
+        when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(worker));
+        workerService.updateLastReplicateDemandDate(walletAddress);
+        Date knownDate = workerService.getLastReplicateDemand(walletAddress).get();
+        Worker storedWorker = Worker.builder()
+                .walletAddress(walletAddress)
+                .lastReplicateDemandDate(new Date(knownDate.getTime() - 60000))
+                .build();
+
+        workerService.onWorkerDocumentChanged(new WorkerDocumentChangedEvent(storedWorker));
+
+        assertThat(workerService.getLastReplicateDemand(walletAddress)).contains(knownDate);
     }
 
     // isWorkerAllowedToAskReplicate
@@ -242,10 +348,9 @@ public class WorkerServiceTests {
                 .build();
         when(workerRepository.findByWalletAddress(wallet)).thenReturn(Optional.of(worker));
 
-        assertThat(workerService.updateLastReplicateDemandDate(wallet)
-                .get()
-                .getLastReplicateDemandDate())
-                .isAfter(lastDate);
+        assertThat(workerService.updateLastReplicateDemandDate(wallet)).isTrue();
+        assertThat(workerService.getLastReplicateDemand(wallet).get()).isAfter(lastDate);
+        Mockito.verify(workerRepository, Mockito.never()).save(any());
     }
 
     // addChainTaskIdToWorker
@@ -262,12 +367,11 @@ public class WorkerServiceTests {
                 .cpu("x86")
                 .cpuNb(8)
                 .lastAliveDate(new Date())
-                .participatingChainTaskIds(new ArrayList<>(Arrays.asList("task1", "task2")))
-                .computingChainTaskIds(new ArrayList<>(Arrays.asList("task1", "task2")))
+                .participatingChainTaskIds(new ArrayList<>(Arrays.asList("task1", "task2", "task3")))
+                .computingChainTaskIds(new ArrayList<>(Arrays.asList("task1", "task2", "task3")))
                 .build();
 
-        when(workerRepository.findByWalletAddress(walletAddress)).thenReturn(Optional.of(existingWorker));
-        when(workerRepository.save(existingWorker)).thenReturn(existingWorker);
+        when(workerRepository.addChainTaskId(walletAddress, "task3")).thenReturn(Optional.of(existingWorker));
 
         Optional<Worker> addedWorker = workerService.addChainTaskIdToWorker("task3", walletAddress);
         assertThat(addedWorker.isPresent()).isTrue();
@@ -276,11 +380,29 @@ public class WorkerServiceTests {
         assertThat(worker.getParticipatingChainTaskIds().get(2)).isEqualTo("task3");
         assertThat(worker.getComputingChainTaskIds().size()).isEqualTo(3);
         assertThat(worker.getComputingChainTaskIds().get(2)).isEqualTo("task3");
+        Mockito.verify(workerRepository, Mockito.never()).findByWalletAddress(anyString());
+        Mockito.verify(workerRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    public void shouldServeAddedTaskIdFromCache(){
+        String walletAddress = "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248";
+        Worker updatedWorker = getDummyWorker(walletAddress,
+                3,
+                Arrays.asList("task1", "task2"),
+                Arrays.asList("task1", "task2"));
+        when(workerRepository.addChainTaskId(walletAddress, "task2")).thenReturn(Optional.of(updatedWorker));
+
+        workerService.addChainTaskIdToWorker("task2", walletAddress);
+
+        assertThat(workerService.getComputingTaskIds(walletAddress)).containsExactly("task1", "task2");
+        assertThat(workerService.canAcceptMoreWorks(walletAddress)).isTrue();
+        Mockito.verify(workerRepository, Mockito.never()).findByWalletAddress(anyString());
     }
 
     @Test
     public void shouldNotAddTaskIdToWorker(){
-        when(workerRepository.findByWalletAddress(Mockito.anyString())).thenReturn(Optional.empty());
+        when(workerRepository.addChainTaskId(anyString(), anyString())).thenReturn(Optional.empty());
         Optional<Worker> addedWorker = workerService.addChainTaskIdToWorker("task1", "0x1a69b2eb604db8eba185df03ea4f5288dcbbd248");
         assertThat(addedWorker.isPresent()).isFalse();
     }
@@ -485,58 +607,62 @@ public class WorkerServiceTests {
 
     @Test
     public void shouldGetLostWorkers() {
-
         List<Worker> allWorkers = getDummyWorkers(3);
+        allWorkers.get(1).setLastAliveDate(Date.from(Instant.now().minusSeconds(61)));
+        allWorkers.get(2).setLastAliveDate(Date.from(Instant.now().minusSeconds(120)));
         List<Worker> lostWorkers = allWorkers.subList(1, 3);
-        when(workerRepository.findByLastAliveDateBefore(Mockito.any())).thenReturn(lostWorkers);
+        givenTrackedWorkers(allWorkers);
 
         List<Worker> claimedLostWorkers = workerService.getLostWorkers();
 
-        // check findByLastAliveDateBefore was called with a date of one minute ago
-        ArgumentCaptor<Date> argument = ArgumentCaptor.forClass(Date.class);
-        Mockito.verify(workerRepository).findByLastAliveDateBefore(argument.capture());
-        long diff = (new Date()).getTime() - argument.getValue().getTime();
-        long diffInMinutes = TimeUnit.MILLISECONDS.toMinutes(diff);
-        assertThat(diffInMinutes).isEqualTo(1);
-
         // check the claimedLostWorkers are actually the lostWorkers
-        assertThat(claimedLostWorkers.size()).isEqualTo(2);
-        assertThat(claimedLostWorkers).isEqualTo(lostWorkers);
+        ArgumentCaptor<Collection<String>> argument = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(workerRepository).findByWalletAddressIn(argument.capture());
+        assertThat(argument.getValue()).containsExactly("0x2", "0x1");
+        assertThat(claimedLostWorkers).containsExactlyInAnyOrderElementsOf(lostWorkers);
     }
 
     @Test
     public void shouldNotFindLostWorkers() {
-
-        when(workerRepository.findByLastAliveDateBefore(Mockito.any())).thenReturn(Collections.emptyList());
+        givenTrackedWorkers(getDummyWorkers(2));
 
         assertThat(workerService.getLostWorkers()).isEmpty();
+        Mockito.verify(workerRepository, Mockito.never()).findByWalletAddressIn(any());
     }
 
     @Test
     public void shouldGetAliveWorkers() {
-
         List<Worker> allWorkers = getDummyWorkers(3);
+        allWorkers.get(1).setLastAliveDate(Date.from(Instant.now().minusSeconds(61)));
+        allWorkers.get(2).setLastAliveDate(Date.from(Instant.now().minusSeconds(120)));
         List<Worker> aliveWorkers = allWorkers.subList(0, 1);
-        when(workerRepository.findByLastAliveDateAfter(Mockito.any())).thenReturn(aliveWorkers);
+        givenTrackedWorkers(allWorkers);
 
         List<Worker> claimedAliveWorkers = workerService.getAliveWorkers();
 
-        // check findByLastAliveDateAfter was called with a date of one minute ago
-        ArgumentCaptor<Date> argument = ArgumentCaptor.forClass(Date.class);
-        Mockito.verify(workerRepository).findByLastAliveDateAfter(argument.capture());
-        long diff = (new Date()).getTime() - argument.getValue().getTime();
-        long diffInMinutes = TimeUnit.MILLISECONDS.toMinutes(diff);
-        assertThat(diffInMinutes).isEqualTo(1);
-
         // check the claimedAliveWorkers are actually the aliveWorkers
-        assertThat(claimedAliveWorkers.size()).isEqualTo(1);
+        ArgumentCaptor<Collection<String>> argument = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(workerRepository).findByWalletAddressIn(argument.capture());
+        assertThat(argument.getValue()).containsExactly("0x0");
         assertThat(claimedAliveWorkers).isEqualTo(aliveWorkers);
     }
 
     @Test
-    public void shouldNotFindAliveWorkers() {
+    public void shouldGetAliveWorkerAfterPing() {
+        Worker worker = getDummyWorkers(1).get(0);
+        worker.setLastAliveDate(Date.from(Instant.now().minusSeconds(120)));
+        givenTrackedWorkers(List.of(worker));
+        assertThat(workerService.getAliveWorkers()).isEmpty();
+
+        workerService.updateLastAlive("0x0");
+
+        assertThat(workerService.getAliveWorkers()).containsExactly(worker);
+        assertThat(workerService.getLostWorkers()).isEmpty();
+    }
 
-        when(workerRepository.findByLastAliveDateAfter(Mockito.any())).thenReturn(Collections.emptyList());
+    @Test
+    public void shouldNotFindAliveWorkers() {
+        givenTrackedWorkers(Collections.emptyList());
 
         assertThat(workerService.getAliveWorkers()).isEmpty();
     }
@@ -582,11 +708,36 @@ public class WorkerServiceTests {
         List<Worker> dummyWorkers = new ArrayList<>();
 
         for (int i=0; i<n; i++) {
-            dummyWorkers.add(Worker.builder().id(Integer.toString(i)).build());
+            dummyWorkers.add(Worker.builder()
+                    .id(Integer.toString(i))
+                    .walletAddress("0x" + i)
+                    .lastAliveDate(new Date())
+                    .build());
         }
         return dummyWorkers;
     }
 
+    // workers are tracked as they would be on startup
+    void givenTrackedWorkers(List<Worker> workers) {
+        for (int i = 0; i < workers.size(); i++) {
+            Worker worker = workers.get(i);
+            if (worker.getWalletAddress() == null) {
+                worker.setWalletAddress("0x" + i);
+            }
+            if (worker.getLastAliveDate() == null) {
+                worker.setLastAliveDate(new Date());
+            }
+        }
+        when(workerRepository.findAll()).thenReturn(workers);
+        when(workerRepository.findByWalletAddressIn(any())).thenAnswer(invocation -> {
+            Collection<String> walletAddresses = invocation.getArgument(0);
+            return workers.stream()
+                    .filter(worker -> walletAddresses.contains(worker.getWalletAddress()))
+                    .collect(Collectors.toList());
+        });
+        workerService.loadActivities();
+    }
+
     Worker getDummyWorker(String walletAddress, int cpuNb, List<String> participatingIds, List<String> computingIds) {
         return Worker.builder()
                 .walletAddress(walletAddress)
@@ -611,7 +762,7 @@ public class WorkerServiceTests {
                 4,
                 Arrays.asList("task1", "task2", "task3", "task4"),
                 Arrays.asList("task1"));//3 CPUs available
-        when(workerRepository.findByLastAliveDateAfter(any())).thenReturn(Arrays.asList(worker1, worker2));
+        givenTrackedWorkers(Arrays.asList(worker1, worker2));
 
         assertThat(workerService.getAliveAvailableCpu()).isEqualTo(5);
     }
@@ -629,14 +780,14 @@ public class WorkerServiceTests {
                 4,
                 Arrays.asList("task1", "task2", "task3", "task4"),
                 Arrays.asList("task1", "task2", "task3", "task4"));
-        when(workerRepository.findByLastAliveDateAfter(any())).thenReturn(Arrays.asList(worker1, worker2));
+        givenTrackedWorkers(Arrays.asList(worker1, worker2));
 
         assertThat(workerService.getAliveAvailableCpu()).isEqualTo(0);
     }
 
     @Test
     public void shouldGetZeroAvailableCpuIfNoWorkerAlive() {
-        when(workerRepository.findByLastAliveDateAfter(any())).thenReturn(Collections.emptyList());
+        givenTrackedWorkers(Collections.emptyList());
         assertThat(workerService.getAliveAvailableCpu()).isEqualTo(0);
     }
 
@@ -651,7 +802,7 @@ public class WorkerServiceTests {
                 .cpuNb(2)
                 .build();
         List<Worker> list = List.of(worker1, worker2);
-        when(workerRepository.findByLastAliveDateAfter(any())).thenReturn(list);
+        givenTrackedWorkers(list);
 
         assertThat(workerService.getAliveTotalCpu())
                 .isEqualTo(worker1.getCpuNb() + worker2.getCpuNb());
@@ -668,7 +819,7 @@ public class WorkerServiceTests {
                 .gpuEnabled(false)
                 .build();
         List<Worker> list = List.of(worker1, worker2);
-        when(workerRepository.findByLastAliveDateAfter(any())).thenReturn(list);
+        givenTrackedWorkers(list);
 
         assertThat(workerService.getAliveTotalGpu()).isEqualTo(1);
     }
@@ -686,7 +837,7 @@ public class WorkerServiceTests {
                 .computingChainTaskIds(List.of("t1"))
                 .build();
         List<Worker> list = List.of(worker1, worker2);
-        when(workerRepository.findByLastAliveDateAfter(any())).thenReturn(list);
+        givenTrackedWorkers(list);
 
         assertThat(workerService.getAliveAvailableGpu()).isEqualTo(1);
     }